@@ -395,6 +395,14 @@ public class AndroidContext implements GLDrawContext {
 		GLES11.glBindBuffer(GLES11.GL_ARRAY_BUFFER, 0);
 	}
 
+	@Override
+	public void drawTrianglesWithTextureMultiplied(int textureid,
+			int geometryindex, int triangleCount) {
+		GLES10.glBlendFunc(GLES10.GL_DST_COLOR, GLES10.GL_ZERO);
+		drawTrianglesWithTexture(textureid, geometryindex, triangleCount);
+		GLES10.glBlendFunc(GLES10.GL_SRC_ALPHA, GLES10.GL_ONE_MINUS_SRC_ALPHA);
+	}
+
 	@Override
 	public int generateGeometry(int bytes) {
 		int[] vertexBuffIds = new int[] {
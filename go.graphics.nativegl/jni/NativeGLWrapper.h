@@ -111,6 +111,14 @@ JNIEXPORT void JNICALL Java_go_graphics_nativegl_NativeGLWrapper_drawTrianglesWi
 JNIEXPORT void JNICALL Java_go_graphics_nativegl_NativeGLWrapper_drawTrianglesWithTextureColored__III
   (JNIEnv *, jobject, jint, jint, jint);
 
+/*
+ * Class:     go_graphics_nativegl_NativeGLWrapper
+ * Method:    drawTrianglesWithTextureMultiplied
+ * Signature: (III)V
+ */
+JNIEXPORT void JNICALL Java_go_graphics_nativegl_NativeGLWrapper_drawTrianglesWithTextureMultiplied
+  (JNIEnv *, jobject, jint, jint, jint);
+
 /*
  * Class:     go_graphics_nativegl_NativeGLWrapper
  * Method:    makeWidthValid
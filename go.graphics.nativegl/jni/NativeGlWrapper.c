@@ -236,6 +236,20 @@ JNIEXPORT void JNICALL Java_go_graphics_nativegl_NativeGLWrapper_drawTrianglesWi
 	glBindBuffer(GL_ARRAY_BUFFER, 0);
 }
 
+JNIEXPORT void JNICALL Java_go_graphics_nativegl_NativeGLWrapper_drawTrianglesWithTextureMultiplied(
+		JNIEnv *env, jobject obj, int textureid, int geometryindex,
+		int triangleCount) {
+	bindTexture(textureid);
+	glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_LINEAR);
+	glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_LINEAR);
+
+	glEnable(GL_BLEND);
+	glBlendFunc(GL_DST_COLOR, GL_ZERO);
+	Java_go_graphics_nativegl_NativeGLWrapper_drawTrianglesWithTexture__III(
+			env, obj, textureid, geometryindex, triangleCount);
+	glDisable(GL_BLEND);
+}
+
 JNIEXPORT jint JNICALL Java_go_graphics_nativegl_NativeGLWrapper_makeWidthValid(
 		JNIEnv *env, jobject obj, jint width) {
 	return supportedTextureSize(width);
@@ -316,6 +316,21 @@ public class JOGLDrawContext implements GLDrawContext {
 		}
 	}
 
+	@Override
+	public void drawTrianglesWithTextureMultiplied(int textureid,
+			int geometryindex, int triangleCount) {
+		gl2.glBindTexture(GL.GL_TEXTURE_2D, textureid);
+		gl2.glTexParameteri(GL.GL_TEXTURE_2D, GL.GL_TEXTURE_MIN_FILTER,
+				GL.GL_LINEAR);
+		gl2.glTexParameteri(GL.GL_TEXTURE_2D, GL.GL_TEXTURE_MAG_FILTER,
+				GL.GL_LINEAR);
+
+		gl2.glEnable(GL.GL_BLEND);
+		gl2.glBlendFunc(GL.GL_DST_COLOR, GL.GL_ZERO);
+		drawTrianglesWithTexture(textureid, geometryindex, triangleCount);
+		gl2.glDisable(GL.GL_BLEND);
+	}
+
 	@Override
 	public void drawTrianglesWithTextureColored(int textureid,
 			int geometryindex, int triangleCount) {
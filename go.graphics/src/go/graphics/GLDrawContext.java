@@ -91,6 +91,19 @@ public interface GLDrawContext {
 
 	void drawTrianglesWithTextureColored(int textureid, int geometryindex, int triangleCount);
 
+	/**
+	 * Draws the triangles like {@link #drawTrianglesWithTexture(int, int, int)}, but multiplies the colors that have already been drawn with the
+	 * color of the texture instead of replacing them. The texture is filtered linearly, so a texture with a low resolution can be used to shade
+	 * the geometry drawn before.
+	 * 
+	 * @param textureid
+	 *            The id of the texture
+	 * @param geometryindex
+	 *            The geometry of the form: x,y,z,u,v
+	 * @param triangleCount
+	 */
+	void drawTrianglesWithTextureMultiplied(int textureid, int geometryindex, int triangleCount);
+
 	int makeWidthValid(int width);
 
 	int makeHeightValid(int height);
@@ -0,0 +1,20 @@
+package jsettlers.common.map;
+
+/**
+ * This interface can be implemented by an {@link IGraphicsGrid} that keeps track of the tiles whose visible status has changed. The user of the
+ * grid then only needs to check these tiles instead of comparing the visible status of every tile on every frame.
+ */
+public interface IFogOfWarChangesProvider {
+	/**
+	 * Merges the ranges of tiles whose visible status has changed since the last call into the given arrays and resets them.
+	 *
+	 * @param changedMinX
+	 *            Array with one entry per map row. The entry of every row with changes is set to the minimum of its old value and the smallest
+	 *            changed x coordinate.
+	 * @param changedMaxX
+	 *            Array with one entry per map row. The entry of every row with changes is set to the maximum of its old value and the biggest
+	 *            changed x coordinate.
+	 * @return true if at least one row has changed.
+	 */
+	boolean pollFogOfWarChanges(int[] changedMinX, int[] changedMaxX);
+}
@@ -42,6 +42,15 @@ public class NullImage extends SingleImage {
 		return instance;
 	}
 
+	/**
+	 * Drops the instances of the null images, so that they are created again with textures of the new draw context.
+	 */
+	public static void invalidateAll() {
+		instance = null;
+		landscapeinstance = null;
+		guiinstance = null;
+	}
+
 	private NullImage() {
 		super(ShortBuffer.allocate(1), 1, 1, 0, 0);
 	}
@@ -1,7 +1,7 @@
 package jsettlers.graphics.map;
 
 /**
- * This class keeps track of the frames.
+ * This class keeps track of the frames and of the draw calls needed to draw them.
  * 
  * @author michael
  */
@@ -12,7 +12,30 @@ public class FramerateComputer {
 	private int capturedFrames = 0;
 	private double rate;
 
+	private int drawCalls = 0;
+	private int triangles = 0;
+	private int lastFrameDrawCalls = 0;
+	private int lastFrameTriangles = 0;
+
+	/**
+	 * Adds draw calls to the current frame.
+	 * 
+	 * @param drawCalls
+	 *            The number of draw calls.
+	 * @param triangles
+	 *            The number of triangles drawn by them.
+	 */
+	public void addDrawCalls(int drawCalls, int triangles) {
+		this.drawCalls += drawCalls;
+		this.triangles += triangles;
+	}
+
 	public void nextFrame() {
+		lastFrameDrawCalls = drawCalls;
+		lastFrameTriangles = triangles;
+		drawCalls = 0;
+		triangles = 0;
+
 		long time = System.currentTimeMillis();
 		lastFrames[capturedFrames] = time;
 		capturedFrames++;
@@ -33,4 +56,20 @@ public class FramerateComputer {
 	public double getRate() {
 		return rate;
 	}
+
+	/**
+	 * 
+	 * @return The number of draw calls of the last frame.
+	 */
+	public int getDrawCalls() {
+		return lastFrameDrawCalls;
+	}
+
+	/**
+	 * 
+	 * @return The number of triangles drawn in the last frame.
+	 */
+	public int getTriangles() {
+		return lastFrameTriangles;
+	}
 }
@@ -43,6 +43,7 @@ import jsettlers.graphics.localization.Labels;
 import jsettlers.graphics.map.controls.IControls;
 import jsettlers.graphics.map.controls.original.OriginalControls;
 import jsettlers.graphics.map.draw.Background;
+import jsettlers.graphics.map.draw.DrawBuffer;
 import jsettlers.graphics.map.draw.ImageProvider;
 import jsettlers.graphics.map.draw.MapObjectDrawer;
 import jsettlers.graphics.messages.Message;
@@ -226,7 +227,8 @@ public final class MapContent implements RegionContent, GOEventHandlerProvider,
 
 			if (CommonConstants.ENABLE_GRAPHICS_TIMES_DEBUG_OUTPUT) {
 				System.out.println("Background: " + bgtime + "ms, Foreground: "
-						+ foregroundtime + "ms, UI: " + uitime + "ms");
+						+ foregroundtime + "ms, UI: " + uitime + "ms, Draw calls: "
+						+ framerate.getDrawCalls() + ", Triangles: " + framerate.getTriangles());
 			}
 		} catch (Throwable t) {
 			System.err.println("Main draw handler cought throwable:");
@@ -379,19 +381,16 @@ public final class MapContent implements RegionContent, GOEventHandlerProvider,
 			if (y >= height) {
 				break;
 			}
-			linePartuallyVisible = false;
-
 			int endX = Math.min(area.getLineEndX(line), width - 1);
 			int startX = Math.max(area.getLineStartX(line), 0);
-			for (int x = startX; x <= endX; x = map.nextDrawableX(x, y, endX)) {
+			// the line may not contain anything to draw, so the visibility is checked at its ends, too.
+			linePartuallyVisible = startX <= endX
+					&& (isDrawnAboveBottom(startX, y, bottomdrawy) || isDrawnAboveBottom(endX, y, bottomdrawy));
+
+			for (int x = map.nextDrawableX(startX - 1, y, endX); x <= endX; x = map.nextDrawableX(x, y, endX)) {
 				drawTile(x, y);
 				if (!linePartuallyVisible) {
-					double drawspacey =
-							this.context.getConverter().getViewY(x, y,
-									this.context.getHeight(x, y));
-					if (drawspacey > bottomdrawy) {
-						linePartuallyVisible = true;
-					}
+					linePartuallyVisible = isDrawnAboveBottom(x, y, bottomdrawy);
 				}
 			}
 		}
@@ -418,7 +417,16 @@ public final class MapContent implements RegionContent, GOEventHandlerProvider,
 			drawDebugColors();
 		}
 
-		context.getDrawBuffer().flush();
+		DrawBuffer drawBuffer = context.getDrawBuffer();
+		drawBuffer.flush();
+		framerate.addDrawCalls(drawBuffer.getDrawCalls(), drawBuffer.getDrawnTriangles());
+	}
+
+	private boolean isDrawnAboveBottom(int x, int y, double bottomdrawy) {
+		double drawspacey =
+				this.context.getConverter().getViewY(x, y,
+						this.context.getHeight(x, y));
+		return drawspacey > bottomdrawy;
 	}
 
 	private void drawTile(int x, int y) {
@@ -6,11 +6,18 @@ import go.graphics.GLDrawContext.GLBuffer;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
 
 import jsettlers.common.CommonConstants;
 import jsettlers.common.landscape.ELandscapeType;
+import jsettlers.common.map.IFogOfWarChangesProvider;
 import jsettlers.common.map.IGraphicsBackgroundListener;
+import jsettlers.common.map.IGraphicsGrid;
 import jsettlers.common.map.shapes.MapRectangle;
 import jsettlers.common.position.FloatRectangle;
 import jsettlers.graphics.map.MapDrawContext;
@@ -816,13 +823,28 @@ public class Background implements IGraphicsBackgroundListener {
 			// ...
 	};
 
-	private final BitSet fowDimmed = new BitSet();
-
 	private static final short FLOAT_SIZE = 4;
 	/**
 	 * How many bytes are needed per vertex
 	 */
 	private static final short VERTEX_SIZE = 6 * FLOAT_SIZE;
+	/**
+	 * How many bytes are needed per vertex of the fog of war geometry
+	 */
+	private static final short FOG_VERTEX_SIZE = 5 * FLOAT_SIZE;
+
+	/**
+	 * The width and height of a chunk in tiles. The background is split into chunks that keep their geometry, so moving the map view only needs
+	 * to draw other chunks instead of regenerating the geometry.
+	 */
+	private static final int CHUNK_SIZE = 32;
+	private static final int CHUNK_TILES = CHUNK_SIZE * CHUNK_SIZE;
+	private static final int CHUNK_TRIANGLES = CHUNK_TILES * 2;
+	/**
+	 * The number of chunks that keep their geometry while they are not visible, so scrolling back doesn't regenerate them. A chunk needs about
+	 * 270KB of geometry, so the chunks that have not been visible for the longest time are removed when there are more.
+	 */
+	private static final int MAX_HIDDEN_CHUNKS = 32;
 
 	private static final byte DIM_MAX = 20;
 
@@ -835,20 +857,41 @@ public class Background implements IGraphicsBackgroundListener {
 	 */
 	// private static final int COLOR_OFFSET = 5 * FLOAT_SIZE;
 
-	private byte[] fogOfWarStatus = new byte[1];
-	private MapRectangle oldBufferPosition = new MapRectangle(0, 0, 0, 0);
-	private int bufferwidth = 1;; // in map points.
-	private int bufferheight = 1; // in map points.
-
 	private static int texture = -1;
+	/**
+	 * Counts the calls of {@link #invalidateTexture()}, so the backgrounds notice that their own textures are gone as well.
+	 */
+	private static int textureGeneration = 0;
 
-	private int geometryindex = -1;
+	private int mapWidth = -1;
+	private int mapHeight = -1;
+	private int chunksX = 0;
+	private Chunk[] chunks = new Chunk[0];
 
-	private int geometrytirs;
+	private final ArrayList<Chunk> visibleChunks = new ArrayList<Chunk>();
+	private final ArrayList<Chunk> chunksWithGeometry = new ArrayList<Chunk>();
+	private int frame = 0;
+	private final BitSet redrawTiles = new BitSet(CHUNK_TILES);
 
-	private BitSet geometryInvalid = new BitSet();
+	/**
+	 * The fog of war is drawn as a texture with one texel per map position that is multiplied with the landscape. So changes of the fog of war
+	 * only need to update the texture instead of the geometry.
+	 */
+	private int fogOfWarTexture = -1;
+	private int fogOfWarTextureGeneration = -1;
+	private int fogOfWarTextureWidth = 1;
+	private int fogOfWarTextureHeight = 1;
+	private ShortBuffer fogOfWarTexels;
+	/**
+	 * The fog of war status every map position is currently drawn with. It fades towards the visible status of the map.
+	 */
+	private byte[] fogOfWarStatus = new byte[0];
 
-	private boolean mapViewResized;
+	/**
+	 * For every map row the range of x coordinates whose fog of war status may differ from {@link #fogOfWarStatus}.
+	 */
+	private int[] fogChangedMinX = new int[0];
+	private int[] fogChangedMaxX = new int[0];
 
 	private static Object preloadMutex = new Object();
 
@@ -1294,189 +1337,312 @@ public class Background implements IGraphicsBackgroundListener {
 	 * @param screen2
 	 */
 	public void drawMapContent(MapDrawContext context, FloatRectangle screen) {
-		// float[] geometry = getGeometry(context);
 		GLDrawContext gl = context.getGl();
+		IGraphicsGrid map = context.getMap();
+		if (map.getWidth() != mapWidth || map.getHeight() != mapHeight) {
+			createChunks(gl, map.getWidth(), map.getHeight());
+			createFogOfWar(gl, context);
+		} else if (fogOfWarTextureGeneration != textureGeneration) {
+			createFogOfWar(gl, context);
+		}
+
 		MapRectangle screenArea =
 				context.getConverter().getMapForScreen(screen);
-		mapViewResized = !gl.isGeometryValid(geometryindex)
-				|| screenArea.getLineLength() + 1 != bufferwidth
-				|| screenArea.getLines() != bufferheight;
-		if (mapViewResized) {
-			regenerateGeometry(gl, screenArea);
+		findVisibleChunks(screenArea);
+
+		frame++;
+		for (Chunk chunk : visibleChunks) {
+			updateChunk(gl, context, chunk);
+			chunk.lastVisibleFrame = frame;
 		}
+		removeHiddenChunks(gl);
+		updateFogOfWar(gl, context);
 
-		GLBuffer boundbuffer = gl.startWriteGeometry(geometryindex);
-		reloadGeometry(boundbuffer, screenArea, context);
-		gl.endWriteGeometry(geometryindex);
 		gl.glPushMatrix();
 		gl.glTranslatef(0, 0, -.1f);
 		gl.glScalef(1, 1, 0);
 		gl.glMultMatrixf(context.getConverter().getMatrixWithHeight(), 0);
 		gl.color(1, 1, 1, 1);
-		gl.drawTrianglesWithTextureColored(getTexture(context.getGl()),
-				geometryindex, geometrytirs);
-
+		int textureIndex = getTexture(gl);
+		for (Chunk chunk : visibleChunks) {
+			gl.drawTrianglesWithTextureColored(textureIndex,
+					chunk.geometryindex, CHUNK_TRIANGLES);
+		}
+		for (Chunk chunk : visibleChunks) {
+			gl.drawTrianglesWithTextureMultiplied(fogOfWarTexture,
+					chunk.fogOfWarGeometryindex, CHUNK_TRIANGLES);
+		}
 		gl.glPopMatrix();
-
-		resetFOWDimStatus();
 	}
 
-	private void resetFOWDimStatus() {
-		fowDimmed.clear();
+	private synchronized void createChunks(GLDrawContext gl, int width,
+			int height) {
+		for (Chunk chunk : chunksWithGeometry) {
+			removeGeometry(gl, chunk);
+		}
+		chunksWithGeometry.clear();
+
+		mapWidth = width;
+		mapHeight = height;
+		chunksX = (width + CHUNK_SIZE - 1) / CHUNK_SIZE;
+		int chunksY = (height + CHUNK_SIZE - 1) / CHUNK_SIZE;
+		chunks = new Chunk[chunksX * chunksY];
+		for (int cy = 0; cy < chunksY; cy++) {
+			for (int cx = 0; cx < chunksX; cx++) {
+				chunks[cy * chunksX + cx] =
+						new Chunk(cx * CHUNK_SIZE, cy * CHUNK_SIZE);
+			}
+		}
 	}
 
-	private void regenerateGeometry(GLDrawContext gl, MapRectangle screenArea) {
-		if (gl.isGeometryValid(geometryindex)) {
-			gl.removeGeometry(geometryindex);
+	/**
+	 * Removes the geometry of the chunks that have not been visible for the longest time, so that at most {@link #MAX_HIDDEN_CHUNKS} hidden
+	 * chunks keep their geometry.
+	 */
+	private void removeHiddenChunks(GLDrawContext gl) {
+		int removedChunks = chunksWithGeometry.size() - visibleChunks.size() - MAX_HIDDEN_CHUNKS;
+		if (removedChunks <= 0) {
+			return;
+		}
+
+		Collections.sort(chunksWithGeometry, LEAST_RECENTLY_VISIBLE_FIRST);
+		for (int i = 0; i < removedChunks; i++) {
+			removeGeometry(gl, chunksWithGeometry.get(i));
 		}
-		bufferwidth = niceRoundUp(screenArea.getLineLength() + 1);
-		bufferheight = niceRoundUp(screenArea.getLines());
-		int count = bufferheight * bufferwidth;
-		fogOfWarStatus = new byte[count * 4];
-		geometryInvalid = new BitSet(count);
-		geometrytirs = count * 2;
-
-		geometryindex = gl.generateGeometry(geometrytirs * 3 * VERTEX_SIZE);
+		chunksWithGeometry.subList(0, removedChunks).clear();
 	}
 
-	private static int niceRoundUp(int i) {
-		// int base = 1;
-		// while (i > base) {
-		// base *= 2;
-		// }
-		// return base;
-		return i;
+	private static void removeGeometry(GLDrawContext gl, Chunk chunk) {
+		if (gl.isGeometryValid(chunk.geometryindex)) {
+			gl.removeGeometry(chunk.geometryindex);
+		}
+		if (gl.isGeometryValid(chunk.fogOfWarGeometryindex)) {
+			gl.removeGeometry(chunk.fogOfWarGeometryindex);
+		}
+		chunk.geometryindex = -1;
+		chunk.fogOfWarGeometryindex = -1;
+		chunk.hasGeometry = false;
 	}
 
 	/**
-	 * Gets the geometry of the background as array.
+	 * Fills {@link #visibleChunks} with the chunks containing a tile of the given area.
 	 * 
-	 * @param boundbuffer
-	 *            The buffer of opengl.
-	 * @param context
-	 *            The context to use.
-	 * @return The geometry as float array.
+	 * @param area
+	 *            The visible area of the map.
 	 */
-	private void reloadGeometry(GLBuffer boundbuffer, MapRectangle area,
-			MapDrawContext context) {
-		boolean hasInvalidFields = hasInvalidFields();
-
-		int width = context.getMap().getWidth();
-		int height = context.getMap().getHeight();
-		int oldbuffertop = oldBufferPosition.getLineY(0);
-		int oldbufferbottom = oldbuffertop + bufferheight; // excluding
-
-		for (int line = 0; line < bufferheight; line++) {
-
-			int y = area.getLineY(line);
-			int minx = area.getLineStartX(line);
-			int maxx = minx + bufferwidth;
-			int oldminx = 0;
-			int oldmaxx = 0; // excluding
-			if (y >= oldbuffertop && y < oldbufferbottom) {
-				oldminx = oldBufferPosition.getLineStartX(y - oldbuffertop);
-				oldmaxx = oldminx + bufferwidth;
+	private void findVisibleChunks(MapRectangle area) {
+		visibleChunks.clear();
+		if (area.getLines() <= 0) {
+			return;
+		}
+
+		int minY = Math.max(area.getMinY(), 0);
+		int maxY = Math.min(area.getLineY(area.getLines() - 1), mapHeight - 1);
+		for (int chunkMinY = minY - minY % CHUNK_SIZE; chunkMinY <= maxY; chunkMinY +=
+				CHUNK_SIZE) {
+			// the lines of a rectangle are shifted monotonously, so the first
+			// and the last line of the chunk row bound the visible tiles.
+			int firstLine = Math.max(chunkMinY, minY) - area.getMinY();
+			int lastLine =
+					Math.min(chunkMinY + CHUNK_SIZE - 1, maxY) - area.getMinY();
+			int firstStartX = area.getLineStartX(firstLine);
+			int lastStartX = area.getLineStartX(lastLine);
+			int minX = Math.max(Math.min(firstStartX, lastStartX), 0);
+			int maxX = Math.min(Math.max(firstStartX, lastStartX)
+					+ area.getLineLength(), mapWidth - 1);
+
+			int rowOffset = chunkMinY / CHUNK_SIZE * chunksX;
+			for (int cx = minX / CHUNK_SIZE; minX <= maxX
+					&& cx <= maxX / CHUNK_SIZE; cx++) {
+				visibleChunks.add(chunks[rowOffset + cx]);
 			}
-			boolean lineIsInMap = y >= 0 && y < height;
-
-			for (int x = minx; x < maxx; x++) {
-				int bufferPosition = getBufferPosition(y, x);
-				if (mapViewResized || oldminx > x || oldmaxx <= x) {
-					redrawPoint(boundbuffer, context, x, y, false,
-							bufferPosition);
-				} else if (lineIsInMap && x >= 0 && x < width) {
-					if (hasInvalidFields && getAndResetInvalid(bufferPosition)) {
-						redrawPoint(boundbuffer, context, x, y, true,
-								bufferPosition);
-					} else if (context.getVisibleStatus(x, y) != fogOfWarStatus[bufferPosition * 4]) {
-						redrawPoint(boundbuffer, context, x, y, true,
-								bufferPosition);
-						invalidatePoint(x - 1, y); // only for next pass
-						invalidatePoint(x - 1, y - 1);
-						invalidatePoint(x - 1, y - 1);
-					}
-				}
+		}
+	}
+
+	/**
+	 * Creates the fog of war texture and fills it with the current visible status of the map.
+	 */
+	private void createFogOfWar(GLDrawContext gl, MapDrawContext context) {
+		if (fogOfWarTexture >= 0 && fogOfWarTextureGeneration == textureGeneration) {
+			gl.deleteTexture(fogOfWarTexture);
+		}
+		fogOfWarTextureGeneration = textureGeneration;
+
+		fogOfWarTextureWidth = gl.makeWidthValid(mapWidth);
+		fogOfWarTextureHeight = gl.makeHeightValid(mapHeight);
+		fogOfWarStatus = new byte[mapWidth * mapHeight];
+		fogOfWarTexels =
+				ByteBuffer.allocateDirect(fogOfWarTextureWidth * fogOfWarTextureHeight * 2)
+						.order(ByteOrder.nativeOrder()).asShortBuffer();
+		for (int y = 0; y < mapHeight; y++) {
+			for (int x = 0; x < mapWidth; x++) {
+				byte status = context.getVisibleStatus(x, y);
+				fogOfWarStatus[y * mapWidth + x] = status;
+				fogOfWarTexels.put(y * fogOfWarTextureWidth + x, getFogOfWarTexel(status));
 			}
 		}
+		fogOfWarTexture = gl.generateTexture(fogOfWarTextureWidth, fogOfWarTextureHeight, fogOfWarTexels);
 
-		oldBufferPosition = area;
+		fogChangedMinX = new int[mapHeight];
+		fogChangedMaxX = new int[mapHeight];
+		Arrays.fill(fogChangedMinX, Integer.MAX_VALUE);
+		Arrays.fill(fogChangedMaxX, -1);
 	}
 
-	private synchronized boolean getAndResetInvalid(int bufferPosition) {
-		boolean invalid = geometryInvalid.get(bufferPosition);
-		geometryInvalid.clear(bufferPosition);
-		return invalid;
+	/**
+	 * Fades the fog of war of the changed tiles towards the visible status of the map and uploads the changed rows of the texture.
+	 * <p />
+	 * If the map is no {@link IFogOfWarChangesProvider}, all visible tiles are checked.
+	 */
+	private void updateFogOfWar(GLDrawContext gl, MapDrawContext context) {
+		IGraphicsGrid map = context.getMap();
+		if (map instanceof IFogOfWarChangesProvider) {
+			((IFogOfWarChangesProvider) map).pollFogOfWarChanges(fogChangedMinX, fogChangedMaxX);
+		} else {
+			for (Chunk chunk : visibleChunks) {
+				int maxY = Math.min(chunk.minY + CHUNK_SIZE, mapHeight);
+				for (int y = chunk.minY; y < maxY; y++) {
+					fogChangedMinX[y] = Math.min(fogChangedMinX[y], chunk.minX);
+					fogChangedMaxX[y] = Math.max(fogChangedMaxX[y], chunk.minX + CHUNK_SIZE - 1);
+				}
+			}
+		}
+
+		int changedMinY = Integer.MAX_VALUE;
+		int changedMaxY = -1;
+		for (int y = 0; y < mapHeight; y++) {
+			int minX = Math.max(fogChangedMinX[y], 0);
+			int maxX = Math.min(fogChangedMaxX[y], mapWidth - 1);
+			if (minX > maxX) {
+				continue;
+			}
+
+			int unfinishedMinX = Integer.MAX_VALUE;
+			int unfinishedMaxX = -1;
+			boolean changed = false;
+			for (int x = minX; x <= maxX; x++) {
+				int index = y * mapWidth + x;
+				byte oldStatus = fogOfWarStatus[index];
+				byte newStatus = context.getVisibleStatus(x, y);
+				if (oldStatus == newStatus) {
+					continue;
+				}
+
+				byte status = dim(oldStatus, newStatus);
+				fogOfWarStatus[index] = status;
+				fogOfWarTexels.put(y * fogOfWarTextureWidth + x, getFogOfWarTexel(status));
+				changed = true;
+				if (status != newStatus) {
+					// still dimming, so we need to check it on the next frame
+					unfinishedMinX = Math.min(unfinishedMinX, x);
+					unfinishedMaxX = x;
+				}
+			}
+
+			fogChangedMinX[y] = unfinishedMinX;
+			fogChangedMaxX[y] = unfinishedMaxX;
+			if (changed) {
+				changedMinY = Math.min(changedMinY, y);
+				changedMaxY = y;
+			}
+		}
+
+		if (changedMinY <= changedMaxY) {
+			fogOfWarTexels.position(changedMinY * fogOfWarTextureWidth);
+			ShortBuffer changedRows = fogOfWarTexels.slice();
+			fogOfWarTexels.rewind();
+			gl.updateTexture(fogOfWarTexture, 0, changedMinY, fogOfWarTextureWidth, changedMaxY - changedMinY + 1, changedRows);
+		}
 	}
 
-	private synchronized boolean hasInvalidFields() {
-		return !geometryInvalid.isEmpty();
+	/**
+	 * Converts a fog of war status to a grey texel of the fog of war texture.
+	 */
+	private static short getFogOfWarTexel(byte status) {
+		int brightness = Math.max(0, Math.min(31, status * 31 / CommonConstants.FOG_OF_WAR_VISIBLE));
+		return (short) (brightness << 11 | brightness << 6 | brightness << 1 | 1);
 	}
 
 	/**
-	 * Redraws a point on the map to the buffer.
+	 * Generates the geometries of the chunk if it has none and redraws its invalid tiles.
 	 * 
-	 * @param boundbuffer
-	 *            The buffer to use
+	 * @param gl
+	 *            The gl context the chunk is drawn at.
 	 * @param context
-	 *            The context
-	 * @param x
-	 *            The x coordinate of the point
-	 * @param y
-	 *            The y coordinate of the point
-	 * @param wasVisible
-	 *            true if and only if the point was already in the buffer.
+	 *            The context.
+	 * @param chunk
+	 *            The chunk to update.
 	 */
-	private void redrawPoint(GLBuffer boundbuffer, MapDrawContext context,
-			int x, int y, boolean wasVisible, int pointOffset) {
-		boundbuffer.position(pointOffset * 2 * 3 * VERTEX_SIZE);
-
-		if (x >= 0 && y >= 0 && x < context.getMap().getWidth() - 1
-				&& y < context.getMap().getHeight() - 1) {
-			if (wasVisible) {
-				dimFogOfWarBuffer(context, (pointOffset * 4), x, y);
-				dimFogOfWarBuffer(context, (pointOffset * 4) + 1, x + 1, y);
-				dimFogOfWarBuffer(context, (pointOffset * 4) + 2, x, y + 1);
-				dimFogOfWarBuffer(context, (pointOffset * 4) + 3, x + 1, y + 1);
-			} else {
-				addFogOfWarBuffer(context, (pointOffset * 4), x, y);
-				addFogOfWarBuffer(context, (pointOffset * 4) + 1, x + 1, y);
-				addFogOfWarBuffer(context, (pointOffset * 4) + 2, x, y + 1);
-				addFogOfWarBuffer(context, (pointOffset * 4) + 3, x + 1, y + 1);
+	private void updateChunk(GLDrawContext gl, MapDrawContext context,
+			Chunk chunk) {
+		boolean generate = !gl.isGeometryValid(chunk.geometryindex)
+				|| !gl.isGeometryValid(chunk.fogOfWarGeometryindex);
+		if (generate) {
+			chunk.geometryindex =
+					gl.generateGeometry(CHUNK_TRIANGLES * 3 * VERTEX_SIZE);
+			chunk.fogOfWarGeometryindex =
+					gl.generateGeometry(CHUNK_TRIANGLES * 3 * FOG_VERTEX_SIZE);
+			if (!chunk.hasGeometry) {
+				chunk.hasGeometry = true;
+				chunksWithGeometry.add(chunk);
 			}
-			addTrianglesToGeometry(context, boundbuffer, x, y, pointOffset * 4);
-		} else {
-			addPseudoTrianglesToGeometry(context, boundbuffer, x, y);
 		}
-	}
 
-	private synchronized void invalidatePoint(int x, int y) {
-		geometryInvalid.set(getBufferPosition(y, x));
-	}
+		synchronized (this) {
+			redrawTiles.clear();
+			if (generate) {
+				redrawTiles.set(0, CHUNK_TILES);
+			} else {
+				redrawTiles.or(chunk.invalidTiles);
+			}
+			chunk.invalidTiles.clear();
+		}
+		if (redrawTiles.isEmpty()) {
+			return;
+		}
 
-	private void addFogOfWarBuffer(MapDrawContext context, int offset, int x,
-			int y) {
-		fogOfWarStatus[offset] = context.getVisibleStatus(x, y);
+		GLBuffer boundbuffer = gl.startWriteGeometry(chunk.geometryindex);
+		for (int tile = redrawTiles.nextSetBit(0); tile >= 0; tile =
+				redrawTiles.nextSetBit(tile + 1)) {
+			int x = chunk.minX + tile % CHUNK_SIZE;
+			int y = chunk.minY + tile / CHUNK_SIZE;
+			redrawPoint(boundbuffer, context, x, y, tile);
+		}
+		gl.endWriteGeometry(chunk.geometryindex);
+
+		boundbuffer = gl.startWriteGeometry(chunk.fogOfWarGeometryindex);
+		for (int tile = redrawTiles.nextSetBit(0); tile >= 0; tile =
+				redrawTiles.nextSetBit(tile + 1)) {
+			int x = chunk.minX + tile % CHUNK_SIZE;
+			int y = chunk.minY + tile / CHUNK_SIZE;
+			boundbuffer.position(tile * 2 * 3 * FOG_VERTEX_SIZE);
+			addFogOfWarTrianglesToGeometry(context, boundbuffer, x, y);
+		}
+		gl.endWriteGeometry(chunk.fogOfWarGeometryindex);
 	}
 
 	/**
-	 * Dims the fog of war buffer
+	 * Redraws a point on the map to the geometry of its chunk.
 	 * 
+	 * @param boundbuffer
+	 *            The buffer to use
 	 * @param context
 	 *            The context
-	 * @param offset
-	 *            The fog of war buffer offset
 	 * @param x
-	 *            The x coordinate of the tile
+	 *            The x coordinate of the point
 	 * @param y
-	 *            The y coordinate of the tile.
-	 * @return true if and only if the dim has finished.
+	 *            The y coordinate of the point
+	 * @param tile
+	 *            The index of the tile in its chunk.
 	 */
-	private void dimFogOfWarBuffer(MapDrawContext context, int offset, int x,
-			int y) {
-		if (!fowDimmed.get(offset)) {
-			byte newFog = context.getVisibleStatus(x, y);
-			fogOfWarStatus[offset] = dim(fogOfWarStatus[offset], newFog);
-			fowDimmed.set(offset);
+	private void redrawPoint(GLBuffer boundbuffer, MapDrawContext context,
+			int x, int y, int tile) {
+		boundbuffer.position(tile * 2 * 3 * VERTEX_SIZE);
+
+		if (x < mapWidth - 1 && y < mapHeight - 1) {
+			addTrianglesToGeometry(context, boundbuffer, x, y);
+		} else {
+			addPseudoTrianglesToGeometry(context, boundbuffer, x, y);
 		}
 	}
 
@@ -1494,17 +1660,28 @@ public class Background implements IGraphicsBackgroundListener {
 		}
 	}
 
-	private final int getBufferPosition(int y, int x) {
-		int linepos = y % bufferheight;
-		int colpos = x % bufferwidth;
-		while (linepos < 0) {
-			linepos += bufferheight;
-		}
-		while (colpos < 0) {
-			colpos += bufferwidth;
+	private static int getTileIndex(int x, int y) {
+		return (y % CHUNK_SIZE) * CHUNK_SIZE + x % CHUNK_SIZE;
+	}
+
+	/**
+	 * Invalidates the tile at the given position, if it is on the map.
+	 */
+	private synchronized void invalidateTile(int x, int y) {
+		if (x >= 0 && y >= 0 && x < mapWidth && y < mapHeight) {
+			Chunk chunk = chunks[y / CHUNK_SIZE * chunksX + x / CHUNK_SIZE];
+			chunk.invalidTiles.set(getTileIndex(x, y));
 		}
+	}
 
-		return (linepos * bufferwidth + colpos);
+	/**
+	 * Invalidates all tiles using the vertex at the given position.
+	 */
+	private synchronized void invalidateTilesAround(int x, int y) {
+		invalidateTile(x, y);
+		invalidateTile(x - 1, y);
+		invalidateTile(x - 1, y - 1);
+		invalidateTile(x, y - 1);
 	}
 
 	/**
@@ -1512,15 +1689,36 @@ public class Background implements IGraphicsBackgroundListener {
 	 * 
 	 * @param context
 	 * @param buffer
-	 * @param offset
 	 * @param x
 	 * @param y
-	 * @param fogOfWar
 	 */
 	private void addTrianglesToGeometry(MapDrawContext context,
-			GLBuffer buffer, int x, int y, int fogBase) {
-		addTriangle1ToGeometry(context, buffer, x, y, fogBase);
-		addTriangle2ToGeometry(context, buffer, x, y, fogBase);
+			GLBuffer buffer, int x, int y) {
+		addTriangle1ToGeometry(context, buffer, x, y);
+		addTriangle2ToGeometry(context, buffer, x, y);
+	}
+
+	/**
+	 * Adds the two triangles of a point to the fog of war geometry. They use the same vertices as the triangles of the landscape, but their
+	 * texture coordinates point to the texels of the vertices in the fog of war texture.
+	 */
+	private void addFogOfWarTrianglesToGeometry(MapDrawContext context,
+			GLBuffer buffer, int x, int y) {
+		addFogOfWarPointToGeometry(context, buffer, x, y);
+		addFogOfWarPointToGeometry(context, buffer, x, y + 1);
+		addFogOfWarPointToGeometry(context, buffer, x + 1, y + 1);
+		addFogOfWarPointToGeometry(context, buffer, x, y);
+		addFogOfWarPointToGeometry(context, buffer, x + 1, y + 1);
+		addFogOfWarPointToGeometry(context, buffer, x + 1, y);
+	}
+
+	private void addFogOfWarPointToGeometry(MapDrawContext context,
+			GLBuffer buffer, int x, int y) {
+		buffer.putFloat(x);
+		buffer.putFloat(y);
+		buffer.putFloat(context.getHeight(x, y));
+		buffer.putFloat((x + .5f) / fogOfWarTextureWidth);
+		buffer.putFloat((y + .5f) / fogOfWarTextureHeight);
 	}
 
 	private static void addPseudoTrianglesToGeometry(MapDrawContext context,
@@ -1548,7 +1746,7 @@ public class Background implements IGraphicsBackgroundListener {
 	 * @param y
 	 */
 	private void addTriangle1ToGeometry(MapDrawContext context,
-			GLBuffer buffer, int x, int y, int fogBase) {
+			GLBuffer buffer, int x, int y) {
 		ELandscapeType toplandscape = context.getLandscape(x, y);
 		ELandscapeType leftlandscape = context.getLandscape(x, y + 1);
 		ELandscapeType rightlandscape = context.getLandscape(x + 1, y + 1);
@@ -1591,24 +1789,24 @@ public class Background implements IGraphicsBackgroundListener {
 			// top
 			float u = (relativeTexCoords[0] + adddx) / TEXTURE_SIZE;
 			float v = (relativeTexCoords[1] + adddy) / TEXTURE_SIZE;
-			addPointToGeometry(context, buffer, x, y, u, v, fogBase + 0);
+			addPointToGeometry(context, buffer, x, y, u, v);
 		}
 		{
 			// left
 			float u = (relativeTexCoords[2] + adddx) / TEXTURE_SIZE;
 			float v = (relativeTexCoords[3] + adddy) / TEXTURE_SIZE;
-			addPointToGeometry(context, buffer, x, y + 1, u, v, fogBase + 2);
+			addPointToGeometry(context, buffer, x, y + 1, u, v);
 		}
 		{
 			// right
 			float u = (relativeTexCoords[4] + adddx) / TEXTURE_SIZE;
 			float v = (relativeTexCoords[5] + adddy) / TEXTURE_SIZE;
-			addPointToGeometry(context, buffer, x + 1, y + 1, u, v, fogBase + 3);
+			addPointToGeometry(context, buffer, x + 1, y + 1, u, v);
 		}
 	}
 
 	private void addPointToGeometry(MapDrawContext context, GLBuffer buffer,
-			int x, int y, float u, float v, int fogOffset) {
+			int x, int y, float u, float v) {
 		buffer.putFloat(x);
 		buffer.putFloat(y);
 		buffer.putFloat(context.getHeight(x, y));
@@ -1616,7 +1814,7 @@ public class Background implements IGraphicsBackgroundListener {
 		buffer.putFloat(u);
 		buffer.putFloat(v);
 
-		addVertexcolor(context, buffer, x, y, fogOffset);
+		addVertexcolor(context, buffer, x, y);
 	}
 
 	private static void addBlackPointToGeometry(MapDrawContext context,
@@ -1633,7 +1831,7 @@ public class Background implements IGraphicsBackgroundListener {
 	}
 
 	private void addTriangle2ToGeometry(MapDrawContext context,
-			GLBuffer buffer, int x, int y, int fogBase) {
+			GLBuffer buffer, int x, int y) {
 		ELandscapeType leftlandscape = context.getLandscape(x, y);
 		ELandscapeType bottomlandscape = context.getLandscape(x + 1, y + 1);
 		ELandscapeType rightlandscape = context.getLandscape(x + 1, y);
@@ -1677,19 +1875,19 @@ public class Background implements IGraphicsBackgroundListener {
 			// left
 			float u = (relativeTexCoords[0] + adddx) / TEXTURE_SIZE;
 			float v = (relativeTexCoords[1] + adddy) / TEXTURE_SIZE;
-			addPointToGeometry(context, buffer, x, y, u, v, fogBase + 0);
+			addPointToGeometry(context, buffer, x, y, u, v);
 		}
 		{
 			// bottom
 			float u = (relativeTexCoords[2] + adddx) / TEXTURE_SIZE;
 			float v = (relativeTexCoords[3] + adddy) / TEXTURE_SIZE;
-			addPointToGeometry(context, buffer, x + 1, y + 1, u, v, fogBase + 3);
+			addPointToGeometry(context, buffer, x + 1, y + 1, u, v);
 		}
 		{
 			// right
 			float u = (relativeTexCoords[4] + adddx) / TEXTURE_SIZE;
 			float v = (relativeTexCoords[5] + adddy) / TEXTURE_SIZE;
-			addPointToGeometry(context, buffer, x + 1, y, u, v, fogBase + 1);
+			addPointToGeometry(context, buffer, x + 1, y, u, v);
 		}
 
 	}
@@ -1702,13 +1900,12 @@ public class Background implements IGraphicsBackgroundListener {
 		}
 	}
 
-	private void addVertexcolor(MapDrawContext context, GLBuffer buffer, int x,
-			int y, int fogOffset) {
+	private static void addVertexcolor(MapDrawContext context, GLBuffer buffer, int x,
+			int y) {
 		byte color;
 
 		if (x <= 0 || x >= context.getMap().getWidth() - 2 || y <= 0
-				|| y >= context.getMap().getHeight() - 2
-				|| context.getVisibleStatus(x, y) <= 0) {
+				|| y >= context.getMap().getHeight() - 2) {
 			color = 0;
 		} else {
 			int height1 = context.getHeight(x, y - 1);
@@ -1719,9 +1916,6 @@ public class Background implements IGraphicsBackgroundListener {
 			} else if (fcolor < 0.4f) {
 				fcolor = 0.4f;
 			}
-			fcolor *=
-					(float) fogOfWarStatus[fogOffset]
-							/ CommonConstants.FOG_OF_WAR_VISIBLE;
 			fcolor *= 255f;
 			color = (byte) (int) fcolor;
 		}
@@ -1734,24 +1928,43 @@ public class Background implements IGraphicsBackgroundListener {
 
 	@Override
 	public void backgroundChangedAt(int x, int y) {
-		if (oldBufferPosition != null) {
-			if (oldBufferPosition.contains(x, y)) {
-				invalidatePoint(x, y);
-			}
-			if (oldBufferPosition.contains(x - 1, y)) {
-				invalidatePoint(x - 1, y);
-			}
-			if (oldBufferPosition.contains(x - 1, y - 1)) {
-				invalidatePoint(x - 1, y - 1);
-			}
-			if (oldBufferPosition.contains(x, y - 1)) {
-				invalidatePoint(x, y - 1);
-			}
-		}
+		invalidateTilesAround(x, y);
 	}
 
 	public static void invalidateTexture() {
 		texture = -1;
+		textureGeneration++;
 	}
 
+	private static final Comparator<Chunk> LEAST_RECENTLY_VISIBLE_FIRST = new Comparator<Chunk>() {
+		@Override
+		public int compare(Chunk chunk1, Chunk chunk2) {
+			return Integer.compare(chunk1.lastVisibleFrame, chunk2.lastVisibleFrame);
+		}
+	};
+
+	/**
+	 * A square of {@link Background#CHUNK_SIZE} x {@link Background#CHUNK_SIZE} tiles with its own geometry. The triangles of a tile are stored at
+	 * its index in the chunk, so a tile can be redrawn without touching the others.
+	 */
+	private static final class Chunk {
+		private final int minX;
+		private final int minY;
+		/**
+		 * The tiles that need to be redrawn. Guarded by the {@link Background}.
+		 */
+		private final BitSet invalidTiles = new BitSet(CHUNK_TILES);
+		private int geometryindex = -1;
+		private int fogOfWarGeometryindex = -1;
+		/**
+		 * If the chunk is in {@link Background#chunksWithGeometry}.
+		 */
+		private boolean hasGeometry = false;
+		private int lastVisibleFrame = 0;
+
+		private Chunk(int minX, int minY) {
+			this.minX = minX;
+			this.minY = minY;
+		}
+	}
 }
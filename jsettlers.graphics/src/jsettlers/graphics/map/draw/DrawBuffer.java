@@ -2,77 +2,117 @@ package jsettlers.graphics.map.draw;
 
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.util.Arrays;
 
 import jsettlers.graphics.map.IGLProvider;
 
+/**
+ * Collects the sprites drawn in a frame and draws them on {@link #flush()}.
+ * <p />
+ * The sprites are queued in one {@link Buffer} per texture, so every texture is drawn with a single draw call, no matter how the sprites of
+ * the different textures are interleaved. The order between the sprites is kept by their z coordinate: every image gets a slightly bigger z
+ * than the one before, so the depth test lets the later sprites cover the earlier ones. Inside of a texture, the sprites are drawn ordered by
+ * their z coordinate.
+ * <p />
+ * This does not work for translucent sprites (a color with an alpha below 1): they are blended with what has been drawn before, but they write
+ * the depth buffer as well, so sprites behind them that are drawn later would be hidden. Therefore everything queued before a translucent
+ * sprite is drawn before it, and a sprite of another texture added after it is only queued after the translucent sprite has been drawn.
+ */
 public class DrawBuffer {
+	/**
+	 * Bytes we need for one vertex
+	 */
+	private static final int VERTEX_LENGTH = 5 * 4 + 4;
+	private static final int TRIANGLE_LENGTH = 3 * VERTEX_LENGTH;
+	private static final int INITIAL_TRIANGLES = 1000;
 
-	private static final int BUFFERS = 5;
 	private final IGLProvider context;
 	private float z;
 
-	public class Buffer {
-		/**
-		 * Bytes we need for one vertex
-		 */
-		private static final int VERTEX_LENGTH = 5 * 4 + 4;
-		private static final int TRIAMGLE_LENGTH = 3 * VERTEX_LENGTH;
-		private static final int BUFFER_TRIANGLES = 1000;
+	private Buffer[] buffers = new Buffer[0];
+	private int usedBuffers = 0;
+	private Buffer lastBuffer = null;
 
-		/**
-		 * The last texture we set.
-		 */
-		private int currentTexture = 0;
+	/**
+	 * Used to draw the sprites of a buffer whose sprites have not been added in the order of their z coordinate.
+	 */
+	private ByteBuffer sortedBuffer = allocate(INITIAL_TRIANGLES * TRIANGLE_LENGTH);
 
-		private int currentTriangles = 0;
+	/**
+	 * The buffer containing queued translucent sprites or null if there are none.
+	 */
+	private Buffer translucentBuffer = null;
 
-		protected final ByteBuffer byteBuffer;
+	private int drawCalls = 0;
+	private int drawnTriangles = 0;
+	private int flushedDrawCalls = 0;
+	private int flushedTriangles = 0;
 
-		protected Buffer() {
-			byteBuffer =
-					ByteBuffer.allocateDirect(BUFFER_TRIANGLES * TRIAMGLE_LENGTH);
-			byteBuffer.order(ByteOrder.nativeOrder());
-		}
+	/**
+	 * The sprites of one texture.
+	 */
+	public class Buffer {
+		private final int texture;
 
-		protected void setForTexture(int texture) {
-			if (currentTexture != texture) {
-				if (currentTriangles != 0) {
-					draw();
-				}
-				currentTexture = texture;
-			}
-		}
+		protected ByteBuffer byteBuffer = allocate(INITIAL_TRIANGLES * TRIANGLE_LENGTH);
 
-		protected void draw() {
-			// System.out.println("draw " + currentTriangles + " tris of " + currentTexture);
-			byteBuffer.rewind();
-			context.getGl().drawTrianglesWithTextureColored(currentTexture, byteBuffer, currentTriangles);
-			byteBuffer.rewind();
-			currentTriangles = 0;
+		private int sprites = 0;
+		/**
+		 * The z coordinate of every sprite in the upper and its index in the lower 32 bits.
+		 */
+		private long[] spriteKeys = new long[INITIAL_TRIANGLES];
+		/**
+		 * The byte offset of every sprite in {@link #byteBuffer}.
+		 */
+		private int[] spriteOffsets = new int[INITIAL_TRIANGLES];
+		private boolean spritesOrdered = true;
+		private int lastZKey = Integer.MIN_VALUE;
+
+		protected Buffer(int texture) {
+			this.texture = texture;
 		}
 
 		protected void addImage(float x1, float y1, float x2, float y2, float u1, float v1, float u2, float v2, int activeColor) {
-			if (currentTriangles >= BUFFER_TRIANGLES - 2) {
-				draw();
-			}
+			startSprite(2, activeColor);
 			addPointPrimitive(x1, y1, u1, v1, activeColor);
 			addPointPrimitive(x1, y2, u1, v2, activeColor);
 			addPointPrimitive(x2, y1, u2, v1, activeColor);
 			addPointPrimitive(x2, y1, u2, v1, activeColor);
 			addPointPrimitive(x1, y2, u1, v2, activeColor);
 			addPointPrimitive(x2, y2, u2, v2, activeColor);
-			currentTriangles += 2;
 		}
 
 		public void addTirangle(float x1, float y1, float x2, float y2, float x3, float y3, float u1, float v1, float u2, float v2, float u3,
 				float v3, int activeColor) {
-			if (currentTriangles >= BUFFER_TRIANGLES - 1) {
-				draw();
-			}
+			startSprite(1, activeColor);
 			addPointPrimitive(x1, y1, u1, v1, activeColor);
 			addPointPrimitive(x2, y2, u2, v2, activeColor);
 			addPointPrimitive(x3, y3, u3, v3, activeColor);
-			currentTriangles += 1;
+		}
+
+		private void startSprite(int triangles, int activeColor) {
+			keepOrderOfTranslucentSprites(this, (activeColor >>> 24) != 0xff);
+			if (sprites == 0) {
+				markUsed(this);
+			}
+
+			if (byteBuffer.remaining() < triangles * TRIANGLE_LENGTH) {
+				ByteBuffer newBuffer = allocate(byteBuffer.capacity() * 2);
+				byteBuffer.flip();
+				newBuffer.put(byteBuffer);
+				byteBuffer = newBuffer;
+			}
+			if (sprites >= spriteKeys.length) {
+				spriteKeys = Arrays.copyOf(spriteKeys, sprites * 2);
+				spriteOffsets = Arrays.copyOf(spriteOffsets, sprites * 2);
+			}
+
+			int zKey = getSortableBits(getZ());
+			spritesOrdered &= zKey >= lastZKey;
+			lastZKey = zKey;
+			spriteKeys[sprites] = ((long) zKey << 32) | sprites;
+			spriteOffsets[sprites] = byteBuffer.position();
+			sprites++;
 		}
 
 		private void addPointPrimitive(float x1, float y1, float u, float v, int activeColor) {
@@ -83,17 +123,54 @@ public class DrawBuffer {
 			byteBuffer.putFloat(v);
 			byteBuffer.putInt(activeColor);
 		}
-	}
 
-	private int lastFreedBuffer = 0;
-	private final Buffer[] drawBuffers;
+		protected void draw() {
+			int bytes = byteBuffer.position();
+			ByteBuffer drawnBuffer;
+			if (spritesOrdered) {
+				drawnBuffer = byteBuffer;
+			} else {
+				drawnBuffer = sortSprites(bytes);
+			}
+
+			drawnBuffer.rewind();
+			int triangles = bytes / TRIANGLE_LENGTH;
+			context.getGl().drawTrianglesWithTextureColored(texture, drawnBuffer, triangles);
+			drawCalls++;
+			drawnTriangles += triangles;
+
+			byteBuffer.clear();
+			sprites = 0;
+			spritesOrdered = true;
+			lastZKey = Integer.MIN_VALUE;
+		}
+
+		/**
+		 * Copies the sprites ordered by their z coordinate to the {@link DrawBuffer#sortedBuffer}.
+		 */
+		private ByteBuffer sortSprites(int bytes) {
+			if (sortedBuffer.capacity() < bytes) {
+				sortedBuffer = allocate(byteBuffer.capacity());
+			}
+			sortedBuffer.clear();
+
+			Arrays.sort(spriteKeys, 0, sprites);
+			for (int i = 0; i < sprites; i++) {
+				int sprite = (int) spriteKeys[i];
+				int start = spriteOffsets[sprite];
+				int end = sprite + 1 < sprites ? spriteOffsets[sprite + 1] : bytes;
+
+				ByteBuffer spriteBuffer = byteBuffer.duplicate();
+				spriteBuffer.limit(end);
+				spriteBuffer.position(start);
+				sortedBuffer.put(spriteBuffer);
+			}
+			return sortedBuffer;
+		}
+	}
 
 	public DrawBuffer(IGLProvider context) {
 		this.context = context;
-		drawBuffers = new Buffer[BUFFERS];
-		for (int i = 0; i < BUFFERS; i++) {
-			drawBuffers[i] = new Buffer();
-		}
 	}
 
 	public void addImage(int texture, float x1, float y1, float x2, float y2, float u1, float v1, float u2, float v2, int activeColor) {
@@ -101,30 +178,103 @@ public class DrawBuffer {
 		getBuffer(texture).addImage(x1, y1, x2, y2, u1, v1, u2, v2, activeColor);
 	}
 
+	/**
+	 * Gets the buffer collecting the sprites of the given texture.
+	 *
+	 * @param texture
+	 * @return The buffer.
+	 */
 	public Buffer getBuffer(int texture) {
-		for (int i = 0; i < BUFFERS; i++) {
-			if (drawBuffers[i].currentTexture == texture) {
-				return drawBuffers[i];
-			}
+		if (lastBuffer != null && lastBuffer.texture == texture) {
+			return lastBuffer;
 		}
 
-		lastFreedBuffer++;
-		if (lastFreedBuffer >= BUFFERS) {
-			lastFreedBuffer = 0;
+		for (Buffer buffer : buffers) {
+			if (buffer.texture == texture) {
+				lastBuffer = buffer;
+				return buffer;
+			}
 		}
 
-		Buffer buffer = drawBuffers[lastFreedBuffer];
-		buffer.setForTexture(texture);
+		Buffer buffer = new Buffer(texture);
+		buffers = Arrays.copyOf(buffers, buffers.length + 1);
+		buffers[buffers.length - 1] = buffer;
+		lastBuffer = buffer;
 		return buffer;
 	}
 
-	public void flush() {
-		for (int i = 0; i < BUFFERS; i++) {
-			drawBuffers[i].draw();
+	/**
+	 * Draws the queued sprites if the order of the sprites would be changed for a translucent one.
+	 * 
+	 * @param buffer
+	 *            The buffer a sprite is added to.
+	 * @param translucent
+	 *            If the new sprite is translucent.
+	 */
+	private void keepOrderOfTranslucentSprites(Buffer buffer, boolean translucent) {
+		if (translucentBuffer != null && translucentBuffer != buffer) {
+			drawQueuedSprites();
+		}
+		if (translucent) {
+			if (usedBuffers > 1 || (usedBuffers == 1 && buffers[0] != buffer)) {
+				drawQueuedSprites();
+			}
+			translucentBuffer = buffer;
+		}
+	}
+
+	/**
+	 * Moves the buffer to the buffers that contain sprites. They are kept sorted by their texture.
+	 */
+	private void markUsed(Buffer buffer) {
+		int position = usedBuffers;
+		while (buffers[position] != buffer) {
+			position++;
 		}
+		while (position > 0 && (position > usedBuffers || buffers[position - 1].texture > buffer.texture)) {
+			buffers[position] = buffers[position - 1];
+			position--;
+		}
+		buffers[position] = buffer;
+		usedBuffers++;
+	}
+
+	/**
+	 * Draws all queued sprites with one draw call per texture.
+	 */
+	public void flush() {
+		drawQueuedSprites();
+		flushedDrawCalls = drawCalls;
+		flushedTriangles = drawnTriangles;
+		drawCalls = 0;
+		drawnTriangles = 0;
 		setZ(0);
 	}
 
+	private void drawQueuedSprites() {
+		for (int i = 0; i < usedBuffers; i++) {
+			buffers[i].draw();
+		}
+		usedBuffers = 0;
+		translucentBuffer = null;
+	}
+
+	/**
+	 *
+	 * @return The number of draw calls since the previous {@link #flush()} up to the last one.
+	 */
+	public int getDrawCalls() {
+		return flushedDrawCalls;
+	}
+
+	/**
+	 *
+	 * @return The number of triangles drawn since the previous {@link #flush()} up to the last one.
+	 */
+	public int getDrawnTriangles() {
+		return flushedTriangles;
+	}
+
 	public float getZ() {
 		return z;
 	}
@@ -132,4 +282,18 @@ public class DrawBuffer {
 	public void setZ(float z) {
 		this.z = z;
 	}
+
+	private static ByteBuffer allocate(int bytes) {
+		return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+	}
+
+	/**
+	 *
+	 * @param value
+	 * @return An int that compares like the given float.
+	 */
+	private static int getSortableBits(float value) {
+		int bits = Float.floatToIntBits(value);
+		return bits ^ ((bits >> 31) & 0x7fffffff);
+	}
 }
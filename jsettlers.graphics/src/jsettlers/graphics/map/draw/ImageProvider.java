@@ -261,6 +261,8 @@ public final class ImageProvider {
 	 */
 	public void invalidateAll() {
 		readers.clear();
+		indexFile = null;
+		NullImage.invalidateAll();
 		Background.invalidateTexture();
 	}
 
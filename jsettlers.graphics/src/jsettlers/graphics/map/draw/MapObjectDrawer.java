@@ -574,8 +574,8 @@ public class MapObjectDrawer {
 		Sequence<? extends Image> seq =
 				this.imageProvider.getSettlerSequence(FILE, WAVES);
 		int len = seq.length();
-		int step = (animationStep / 2 + x / 2 + y / 2) % len;
-		if (step < len) {
+		if (len > 0) {
+			int step = (animationStep / 2 + x / 2 + y / 2) % len;
 			draw(seq.getImageSafe(step), x, y, color);
 		}
 	}
@@ -659,8 +659,10 @@ public class MapObjectDrawer {
 				this.imageProvider.getSettlerSequence(FILE,
 						TREE_SEQUENCES[treeType]);
 
-		int step = getAnimationStep(x, y) % seq.length();
-		draw(seq.getImageSafe(step), x, y, color);
+		if (seq.length() > 0) {
+			int step = getAnimationStep(x, y) % seq.length();
+			draw(seq.getImageSafe(step), x, y, color);
+		}
 	}
 
 	private void drawTreeTest(int x, int y, float color) {
@@ -953,9 +955,11 @@ public class MapObjectDrawer {
 			int sequenceIndex, IMapObject object, float basecolor) {
 		Sequence<? extends Image> sequence =
 				this.imageProvider.getSettlerSequence(file, sequenceIndex);
-		int index = animationStep % sequence.length();
-		Color color = getColor(object);
-		draw(sequence.getImageSafe(index), x, y, color, basecolor);
+		if (sequence.length() > 0) {
+			int index = animationStep % sequence.length();
+			Color color = getColor(object);
+			draw(sequence.getImageSafe(index), x, y, color, basecolor);
+		}
 	}
 
 	private void drawByProgress(int x, int y, int file, int sequenceIndex,
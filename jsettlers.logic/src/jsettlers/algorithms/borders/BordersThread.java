@@ -12,12 +12,17 @@ import jsettlers.common.position.ShortPoint2D;
  * 
  */
 public class BordersThread implements Runnable {
+	/**
+	 * Queued by {@link #waitForQueuedPositions()}. The thread reaches it after all positions queued before it have been calculated.
+	 */
+	private static final ShortPoint2D DRAINED_MARKER = new ShortPoint2D(-1, -1);
 
 	private final IBordersThreadGrid grid;
 	private final LinkedBlockingQueue<ShortPoint2D> positionsQueue = new LinkedBlockingQueue<ShortPoint2D>();
 	private final Thread bordersThread;
 
-	private boolean canceled = false;
+	private volatile boolean canceled = false;
+	private boolean markerReached = false;
 
 	/**
 	 * This constructor creates a new instance of {@link BordersThread} and automatically launches a thread for it called "bordersThread".
@@ -42,10 +47,19 @@ public class BordersThread implements Runnable {
 				} catch (InterruptedException e) {
 				}
 			}
-			if (!canceled) {
+			if (position == DRAINED_MARKER) {
+				synchronized (this) {
+					markerReached = true;
+					notifyAll();
+				}
+			} else if (!canceled) {
 				calculateForPosition(position);
 			}
 		}
+
+		synchronized (this) {
+			notifyAll();
+		}
 	}
 
 	private void calculateForPosition(ShortPoint2D position) {
@@ -101,6 +115,44 @@ public class BordersThread implements Runnable {
 		}
 	}
 
+	/**
+	 * Calculates the borders for all queued positions in the calling thread. This can be used instead of starting the thread, e.g. to run the game
+	 * single threaded.
+	 */
+	public void calculateQueuedPositions() {
+		ShortPoint2D position;
+		while ((position = positionsQueue.poll()) != null) {
+			if (position != DRAINED_MARKER) {
+				calculateForPosition(position);
+			}
+		}
+	}
+
+	/**
+	 * Waits until the borders of all positions queued before this call have been calculated. If the thread is running, it does the calculation,
+	 * so that no position is calculated by two threads at the same time. Otherwise the positions are calculated in the calling thread.
+	 */
+	public void waitForQueuedPositions() {
+		synchronized (this) {
+			if (bordersThread.isAlive()) {
+				markerReached = false;
+				positionsQueue.offer(DRAINED_MARKER);
+				try {
+					while (!markerReached && bordersThread.isAlive()) {
+						wait();
+					}
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+				if (markerReached) {
+					return;
+				}
+			}
+		}
+		calculateQueuedPositions();
+	}
+
 	public void cancel() {
 		this.canceled = true;
 		bordersThread.interrupt();
@@ -17,6 +17,11 @@ public final class CachedViewCircle {
 	final byte[] sight;
 	final int size;
 
+	final int minX;
+	final int maxX;
+	final int minY;
+	final int maxY;
+
 	public CachedViewCircle(int radius) {
 		radius -= FogOfWar.PADDING / 2;
 		MapCircle circle = new MapCircle(0, 0, radius + FogOfWar.PADDING);
@@ -30,12 +35,17 @@ public final class CachedViewCircle {
 		MapCircleIterator iter = circle.iterator();
 		final float squaredViewDistance = radius * radius;
 		int i = 0;
+		int minX = 0, maxX = 0, minY = 0, maxY = 0;
 
 		while (iter.hasNext()) {
 			int y = iter.nextY();
 			int x = iter.nextX();
 			this.x[i] = (short) x;
 			this.y[i] = (short) y;
+			minX = Math.min(minX, x);
+			maxX = Math.max(maxX, x);
+			minY = Math.min(minY, y);
+			maxY = Math.max(maxY, y);
 
 			double squaredDistance = MapCircle.getSquaredDistance(x, y);
 			byte newSight;
@@ -49,6 +59,11 @@ public final class CachedViewCircle {
 
 			i++;
 		}
+
+		this.minX = minX;
+		this.maxX = maxX;
+		this.minY = minY;
+		this.maxY = maxY;
 	}
 
 	private int countElements(MapCircle circle) {
@@ -3,38 +3,69 @@ package jsettlers.algorithms.fogofwar;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import jsettlers.algorithms.fogofwar.CachedViewCircle.CachedViewCircleIterator;
 import jsettlers.common.CommonConstants;
-import jsettlers.common.logging.MilliStopWatch;
-import jsettlers.common.logging.StopWatch;
+import jsettlers.common.map.IFogOfWarChangesProvider;
 import jsettlers.common.player.IPlayerable;
 import jsettlers.common.position.ShortPoint2D;
 
 /**
  * This class holds the fog of war for a given map and player.
- * 
+ * <p />
+ * The sight is updated incrementally: Only the blocks of the map that are touched by the view circle of a viewer that appeared, moved or
+ * disappeared are recalculated. Blocks whose sight is still fading are updated until they have reached their final value.
+ * <p />
+ * If the whole map needs to be rebuilt (after loading or when toggling the fog of war), the map is split into horizontal stripes that are
+ * rebuilt in parallel. If the fog of war of all players is shown, the viewers of all players are updated incrementally as well.
+ *
  * @author Andreas Eberle
  */
-public final class FogOfWar implements Serializable {
-	private static final long serialVersionUID = 1877994785778678510L;
+public final class FogOfWar implements Serializable, IFogOfWarChangesProvider {
+	private static final long serialVersionUID = -3418735027633716432L;
 	/**
 	 * Longest distance any unit may look
 	 */
 	static final byte MAX_VIEWDISTANCE = 65;
 	static final int PADDING = 10;
 
+	static final byte DIM_DOWN_SPEED = 10;
+
+	static final int BLOCK_SIZE_BITS = 5;
+	static final int BLOCK_SIZE = 1 << BLOCK_SIZE_BITS;
+
 	private final byte player;
 
 	final short width;
 	final short height;
-	byte[][] sight;
+	/**
+	 * The sight of every position. The index of a position is y * width + x.
+	 */
+	byte[] sight;
 
 	private transient boolean enabled = true;
 	transient private IFogOfWarGrid grid;
 	private transient boolean canceled;
 
+	private static ForkJoinPool rebuildPool;
+
+	private transient SightUpdater updater;
+
+	private transient Object changesLock;
+	private transient int[] changedMinX;
+	private transient int[] changedMaxX;
+	private transient boolean hasChanges;
+
 	public FogOfWar(short width, short height) {
 		this(width, height, (byte) 0, false);
 	}
@@ -43,33 +74,72 @@ public final class FogOfWar implements Serializable {
 		this.width = width;
 		this.height = height;
 		this.player = player;
-		this.sight = new byte[width][height];
+		this.sight = new byte[width * height];
 
-		byte defaultSight = 0;
 		if (exploredOnStart) {
-			defaultSight = CommonConstants.FOG_OF_WAR_EXPLORED;
-		}
-		for (int x = 0; x < width; x++) {
-			for (int y = 0; y < height; y++) {
-				sight[x][y] = defaultSight;
-			}
+			Arrays.fill(sight, (byte) CommonConstants.FOG_OF_WAR_EXPLORED);
 		}
+
+		initChangedRows();
 	}
 
 	private void readObject(ObjectInputStream ois) throws ClassNotFoundException, IOException {
 		ois.defaultReadObject();
 		enabled = true;
+		initChangedRows();
+	}
+
+	private void initChangedRows() {
+		changesLock = new Object();
+		changedMinX = new int[height];
+		changedMaxX = new int[height];
+		markAllRowsChanged();
 	}
 
 	public void start(IFogOfWarGrid grid) {
-		this.grid = grid;
+		init(grid);
 		NewFoWThread thread = new NewFoWThread();
 		thread.start();
 	}
 
+	/**
+	 * Prepares the fog of war to be updated with {@link #updateSight()}.
+	 *
+	 * @param grid
+	 */
+	void init(IFogOfWarGrid grid) {
+		this.grid = grid;
+		this.updater = new SightUpdater();
+	}
+
+	/**
+	 * Executes one update step of the sight.
+	 */
+	void updateSight() {
+		updater.update();
+	}
+
+	/**
+	 * Executes one update step of the sight and rebuilds the whole map.
+	 *
+	 * @param parallel
+	 *            If true, the stripes of the map are rebuilt in parallel, otherwise one after the other.
+	 */
+	void rebuildSight(boolean parallel) {
+		updater.requestFullRebuild();
+		updater.update(parallel);
+	}
+
+	private static synchronized ForkJoinPool getRebuildPool() {
+		if (rebuildPool == null) {
+			rebuildPool = new ForkJoinPool();
+		}
+		return rebuildPool;
+	}
+
 	/**
 	 * Gets the visible status of a map pint
-	 * 
+	 *
 	 * @param x
 	 *            The x coordinate of the point in 0..(mapWidth - 1)
 	 * @param y
@@ -78,7 +148,7 @@ public final class FogOfWar implements Serializable {
 	 */
 	public final byte getVisibleStatus(int x, int y) {
 		if (enabled) {
-			return (byte) Math.min(sight[x][y], CommonConstants.FOG_OF_WAR_VISIBLE);
+			return (byte) Math.min(sight[y * width + x], CommonConstants.FOG_OF_WAR_VISIBLE);
 		} else {
 			return CommonConstants.FOG_OF_WAR_VISIBLE;
 		}
@@ -89,23 +159,57 @@ public final class FogOfWar implements Serializable {
 	}
 
 	public final boolean isVisible(int centerx, int centery) {
-		return sight[centerx][centery] >= CommonConstants.FOG_OF_WAR_VISIBLE;
+		return sight[centery * width + centerx] >= CommonConstants.FOG_OF_WAR_VISIBLE;
 	}
 
 	public final void toggleEnabled() {
 		enabled = !enabled;
+		if (updater != null) {
+			updater.requestFullRebuild();
+		}
+		markAllRowsChanged();
 	}
 
-	final class NewFoWThread extends Thread {
-		private static final byte DIM_DOWN_SPEED = 10;
-		private final CircleDrawer drawer;
-		private byte[][] buffer;
+	@Override
+	public boolean pollFogOfWarChanges(int[] changedMinX, int[] changedMaxX) {
+		synchronized (changesLock) {
+			if (!hasChanges) {
+				return false;
+			}
+
+			for (int y = 0; y < height; y++) {
+				if (this.changedMinX[y] <= this.changedMaxX[y]) {
+					changedMinX[y] = Math.min(changedMinX[y], this.changedMinX[y]);
+					changedMaxX[y] = Math.max(changedMaxX[y], this.changedMaxX[y]);
+					this.changedMinX[y] = Integer.MAX_VALUE;
+					this.changedMaxX[y] = -1;
+				}
+			}
+			hasChanges = false;
+			return true;
+		}
+	}
 
+	private void markAllRowsChanged() {
+		synchronized (changesLock) {
+			Arrays.fill(changedMinX, 0);
+			Arrays.fill(changedMaxX, width - 1);
+			hasChanges = true;
+		}
+	}
+
+	private void markRowChanged(int y, int minX, int maxX) {
+		synchronized (changesLock) {
+			changedMinX[y] = Math.min(changedMinX[y], minX);
+			changedMaxX[y] = Math.max(changedMaxX[y], maxX);
+			hasChanges = true;
+		}
+	}
+
+	final class NewFoWThread extends Thread {
 		NewFoWThread() {
 			super("NewFoWThread");
 			super.setDaemon(true);
-			this.buffer = new byte[width][height];
-			drawer = new CircleDrawer();
 		}
 
 		@Override
@@ -113,104 +217,381 @@ public final class FogOfWar implements Serializable {
 			mySleep(500);
 
 			while (!canceled) {
-				StopWatch watch = new MilliStopWatch();
-				watch.restart();
 				if (enabled) {
-					rebuildSight();
+					updateSight();
 				}
-				// watch.stop("NewFoWThread needed: ");
 
 				mySleep(800);
 			}
 		}
 
-		private final void rebuildSight() {
-			drawer.setBuffer(buffer);
+		private final void mySleep(int ms) {
+			try {
+				Thread.sleep(ms);
+			} catch (InterruptedException e) {
+				e.printStackTrace();
+			}
+		}
+	}
 
-			for (int x = 0; x < width; x++) {
-				for (int y = 0; y < height; y++) {
-					byte currSight = sight[x][y];
+	/**
+	 * The view circle a viewer had at the last update.
+	 */
+	private static final class ViewerRecord {
+		short x;
+		short y;
+		CachedViewCircle circle;
+		int lastSeenStep;
+	}
 
-					if (currSight >= CommonConstants.FOG_OF_WAR_EXPLORED) {
-						byte newSight = (byte) (currSight - DIM_DOWN_SPEED);
-						if (newSight < CommonConstants.FOG_OF_WAR_EXPLORED) {
-							buffer[x][y] = CommonConstants.FOG_OF_WAR_EXPLORED;
-						} else {
-							buffer[x][y] = newSight;
-						}
-					} else {
-						buffer[x][y] = sight[x][y];
+	/**
+	 * Calculates the sight incrementally. The map is divided into blocks of {@link FogOfWar#BLOCK_SIZE}. A block is dirty if a view circle
+	 * touching it has changed. The view of dirty blocks is recalculated from all view circles touching them. A block is active as long as the
+	 * sight of its positions still changes.
+	 */
+	final class SightUpdater {
+		private final CircleDrawer drawer = new CircleDrawer();
+		private final IdentityHashMap<IViewDistancable, ViewerRecord> viewers = new IdentityHashMap<IViewDistancable, ViewerRecord>();
+
+		private final int blocksX;
+		private final int blocksY;
+		/**
+		 * The maximum sight provided by the current view circles at every position.
+		 */
+		private final byte[] view;
+		private final boolean[] dirtyBlocks;
+		private final boolean[] activeBlocks;
+		private int dirtyBlocksCount;
+
+		private int step = 0;
+		private volatile boolean fullRebuildRequested = true;
+
+		SightUpdater() {
+			blocksX = (width + BLOCK_SIZE - 1) >> BLOCK_SIZE_BITS;
+			blocksY = (height + BLOCK_SIZE - 1) >> BLOCK_SIZE_BITS;
+			view = new byte[width * height];
+			dirtyBlocks = new boolean[blocksX * blocksY];
+			activeBlocks = new boolean[blocksX * blocksY];
+			drawer.setBuffer(view);
+		}
+
+		void requestFullRebuild() {
+			fullRebuildRequested = true;
+		}
+
+		void update() {
+			update(true);
+		}
+
+		void update(boolean parallelRebuild) {
+			step++;
+
+			boolean fullRebuild = fullRebuildRequested;
+			fullRebuildRequested = false;
+
+			updateViewers(grid.getBuildingViewDistancables());
+			updateViewers(grid.getMovableViewDistancables());
+			removeVanishedViewers();
+
+			if (fullRebuild || dirtyBlocksCount * 2 > dirtyBlocks.length) { // rebuilding everything is cheaper if most blocks are dirty
+				rebuildAllStripes(parallelRebuild);
+			} else {
+				if (dirtyBlocksCount > 0) {
+					recalculateDirtyView();
+				}
+				updateActiveBlocks();
+			}
+		}
+
+		private void updateViewers(ConcurrentLinkedQueue<? extends IViewDistancable> objects) {
+			for (IViewDistancable curr : objects) {
+				ViewerRecord record = viewers.get(curr);
+
+				ShortPoint2D pos = curr.getPos();
+				short distance = curr.getViewDistance();
+				if (!isPlayerOK(curr) || distance <= 0 || pos == null) {
+					if (record != null) {
+						markDirty(record);
+						viewers.remove(curr);
+					}
+					continue;
+				}
+
+				CachedViewCircle circle = drawer.getCachedCircle(distance);
+				if (record == null) {
+					record = new ViewerRecord();
+					viewers.put(curr, record);
+				} else if (record.x == pos.x && record.y == pos.y && record.circle == circle) {
+					record.lastSeenStep = step;
+					continue;
+				} else {
+					markDirty(record);
+				}
+
+				record.x = pos.x;
+				record.y = pos.y;
+				record.circle = circle;
+				record.lastSeenStep = step;
+				markDirty(record);
+			}
+		}
+
+		private void removeVanishedViewers() {
+			Iterator<ViewerRecord> iterator = viewers.values().iterator();
+			while (iterator.hasNext()) {
+				ViewerRecord record = iterator.next();
+				if (record.lastSeenStep != step) {
+					markDirty(record);
+					iterator.remove();
+				}
+			}
+		}
+
+		private void markDirty(ViewerRecord record) {
+			int minBlockX = getBlockX(record.x + record.circle.minX);
+			int maxBlockX = getBlockX(record.x + record.circle.maxX);
+			int minBlockY = getBlockY(record.y + record.circle.minY);
+			int maxBlockY = getBlockY(record.y + record.circle.maxY);
+
+			for (int blockY = minBlockY; blockY <= maxBlockY; blockY++) {
+				for (int blockX = minBlockX; blockX <= maxBlockX; blockX++) {
+					int block = blockY * blocksX + blockX;
+					if (!dirtyBlocks[block]) {
+						dirtyBlocks[block] = true;
+						dirtyBlocksCount++;
 					}
 				}
 			}
+		}
 
-			ConcurrentLinkedQueue<? extends IViewDistancable> buildings = grid.getBuildingViewDistancables();
-			applyViewDistances(buildings);
+		private boolean touchesDirtyBlock(ViewerRecord record) {
+			int minBlockX = getBlockX(record.x + record.circle.minX);
+			int maxBlockX = getBlockX(record.x + record.circle.maxX);
+			int minBlockY = getBlockY(record.y + record.circle.minY);
+			int maxBlockY = getBlockY(record.y + record.circle.maxY);
 
-			ConcurrentLinkedQueue<? extends IViewDistancable> movables = grid.getMovableViewDistancables();
-			applyViewDistances(movables);
+			for (int blockY = minBlockY; blockY <= maxBlockY; blockY++) {
+				for (int blockX = minBlockX; blockX <= maxBlockX; blockX++) {
+					if (dirtyBlocks[blockY * blocksX + blockX]) {
+						return true;
+					}
+				}
+			}
+			return false;
+		}
 
-			byte[][] temp = sight;
-			sight = buffer;
-			buffer = temp;
+		private int getBlockX(int x) {
+			return Math.max(0, Math.min(blocksX - 1, x >> BLOCK_SIZE_BITS));
 		}
 
-		private final void applyViewDistances(ConcurrentLinkedQueue<? extends IViewDistancable> objects) {
-			for (IViewDistancable curr : objects) {
-				if (isPlayerOK(curr)) {
-					short distance = curr.getViewDistance();
-					if (distance > 0) {
-						ShortPoint2D pos = curr.getPos();
-						if (pos != null)
-							drawer.drawCircleToBuffer(pos.x, pos.y, distance);
+		private int getBlockY(int y) {
+			return Math.max(0, Math.min(blocksY - 1, y >> BLOCK_SIZE_BITS));
+		}
+
+		private void recalculateDirtyView() {
+			for (int block = 0; block < dirtyBlocks.length; block++) {
+				if (dirtyBlocks[block]) {
+					clearBlock(block);
+				}
+			}
+
+			for (ViewerRecord record : viewers.values()) {
+				if (touchesDirtyBlock(record)) {
+					drawer.drawCircleToBuffer(record.x, record.y, record.circle, dirtyBlocks, blocksX, 0, height);
+				}
+			}
+
+			for (int block = 0; block < dirtyBlocks.length; block++) {
+				if (dirtyBlocks[block]) {
+					dirtyBlocks[block] = false;
+					activeBlocks[block] = true;
+				}
+			}
+			dirtyBlocksCount = 0;
+		}
+
+		/**
+		 * Rebuilds the view and the sight of the whole map. Every stripe is one row of blocks; the viewers are binned into the stripes their view
+		 * circle touches, so the stripes can be processed independently.
+		 *
+		 * @param parallel
+		 *            If true, the stripes are processed by the {@link ForkJoinPool}.
+		 */
+		private void rebuildAllStripes(boolean parallel) {
+			List<List<ViewerRecord>> stripeViewers = new ArrayList<List<ViewerRecord>>(blocksY);
+			for (int stripe = 0; stripe < blocksY; stripe++) {
+				stripeViewers.add(new ArrayList<ViewerRecord>());
+			}
+			for (ViewerRecord record : viewers.values()) {
+				int minStripe = getBlockY(record.y + record.circle.minY);
+				int maxStripe = getBlockY(record.y + record.circle.maxY);
+				for (int stripe = minStripe; stripe <= maxStripe; stripe++) {
+					stripeViewers.get(stripe).add(record);
+				}
+			}
+
+			List<StripeRebuildTask> tasks = new ArrayList<StripeRebuildTask>(blocksY);
+			for (int stripe = 0; stripe < blocksY; stripe++) {
+				tasks.add(new StripeRebuildTask(stripe, stripeViewers.get(stripe)));
+			}
+
+			if (parallel) {
+				for (Future<Void> result : getRebuildPool().invokeAll(tasks)) {
+					try {
+						result.get();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						fullRebuildRequested = true;
+						return;
+					} catch (ExecutionException e) {
+						throw new RuntimeException(e.getCause());
 					}
 				}
+			} else {
+				for (StripeRebuildTask task : tasks) {
+					task.call();
+				}
 			}
+
+			Arrays.fill(dirtyBlocks, false);
+			dirtyBlocksCount = 0;
 		}
 
-		private final void mySleep(int ms) {
-			try {
-				Thread.sleep(ms);
-			} catch (InterruptedException e) {
-				e.printStackTrace();
+		private final class StripeRebuildTask implements Callable<Void> {
+			private final int stripe;
+			private final List<ViewerRecord> stripeViewers;
+
+			StripeRebuildTask(int stripe, List<ViewerRecord> stripeViewers) {
+				this.stripe = stripe;
+				this.stripeViewers = stripeViewers;
+			}
+
+			@Override
+			public Void call() {
+				int startY = stripe << BLOCK_SIZE_BITS;
+				int endY = Math.min(startY + BLOCK_SIZE, height);
+
+				Arrays.fill(view, startY * width, endY * width, (byte) 0);
+				for (ViewerRecord record : stripeViewers) {
+					drawer.drawCircleToBuffer(record.x, record.y, record.circle, null, 0, startY, endY);
+				}
+
+				for (int blockX = 0; blockX < blocksX; blockX++) {
+					int block = stripe * blocksX + blockX;
+					activeBlocks[block] = updateBlockSight(block);
+				}
+				return null;
+			}
+		}
+
+		private void clearBlock(int block) {
+			int startX = (block % blocksX) << BLOCK_SIZE_BITS;
+			int startY = (block / blocksX) << BLOCK_SIZE_BITS;
+			int endX = Math.min(startX + BLOCK_SIZE, width);
+			int endY = Math.min(startY + BLOCK_SIZE, height);
+
+			for (int y = startY; y < endY; y++) {
+				Arrays.fill(view, y * width + startX, y * width + endX, (byte) 0);
 			}
 		}
 
+		private void updateActiveBlocks() {
+			for (int block = 0; block < activeBlocks.length; block++) {
+				if (activeBlocks[block]) {
+					activeBlocks[block] = updateBlockSight(block);
+				}
+			}
+		}
+
+		/**
+		 * Dims down the sight of the given block and brightens it with the current view.
+		 *
+		 * @param block
+		 * @return true if the sight of a position in the block has changed.
+		 */
+		private boolean updateBlockSight(int block) {
+			int startX = (block % blocksX) << BLOCK_SIZE_BITS;
+			int startY = (block / blocksX) << BLOCK_SIZE_BITS;
+			int endX = Math.min(startX + BLOCK_SIZE, width);
+			int endY = Math.min(startY + BLOCK_SIZE, height);
+
+			boolean changed = false;
+
+			for (int y = startY; y < endY; y++) {
+				int rowMinX = Integer.MAX_VALUE;
+				int rowMaxX = -1;
+
+				for (int x = startX, index = y * width + startX; x < endX; x++, index++) {
+					byte currSight = sight[index];
+
+					byte newSight = currSight;
+					if (currSight >= CommonConstants.FOG_OF_WAR_EXPLORED) {
+						newSight = (byte) Math.max(currSight - DIM_DOWN_SPEED, CommonConstants.FOG_OF_WAR_EXPLORED);
+					}
+					if (newSight < view[index]) {
+						newSight = view[index];
+					}
+
+					if (newSight != currSight) {
+						sight[index] = newSight;
+						rowMinX = Math.min(rowMinX, x);
+						rowMaxX = x;
+					}
+				}
+
+				if (rowMaxX >= 0) {
+					markRowChanged(y, rowMinX, rowMaxX);
+					changed = true;
+				}
+			}
+
+			return changed;
+		}
 	}
 
 	final class CircleDrawer {
-		private byte[][] buffer;
+		private byte[] buffer;
 		private final CachedViewCircle[] cachedCircles = new CachedViewCircle[MAX_VIEWDISTANCE];
 
-		public final void setBuffer(byte[][] buffer) {
+		public final void setBuffer(byte[] buffer) {
 			this.buffer = buffer;
 		}
 
 		/**
 		 * Draws a circle to the buffer line. Each point is only brightened and onlydrawn if its x coordinate is in [0, mapWidth - 1] and its computed
 		 * y coordinate is bigger than 0.
+		 *
+		 * @param blockMask
+		 *            The blocks that may be drawn to or null to draw to all positions.
+		 * @param blocksX
+		 *            The number of blocks in a row of the mask.
+		 * @param minY
+		 *            The first row that may be drawn to.
+		 * @param maxY
+		 *            The row after the last row that may be drawn to.
 		 */
-		final void drawCircleToBuffer(int bufferX, int bufferY, int viewDistance) {
-			CachedViewCircle circle = getCachedCircle(viewDistance);
+		final void drawCircleToBuffer(int bufferX, int bufferY, CachedViewCircle circle, boolean[] blockMask, int blocksX, int minY, int maxY) {
 			CachedViewCircleIterator iterator = circle.iterator(bufferX, bufferY);
 
 			while (iterator.hasNext()) {
 				final int x = iterator.getCurrX();
 				final int y = iterator.getCurrY();
 
-				if (x >= 0 && x < width && y > 0 && y < height) {
-					byte oldSight = buffer[x][y];
+				if (x >= 0 && x < width && y > 0 && y < height && y >= minY && y < maxY
+						&& (blockMask == null || blockMask[(y >> BLOCK_SIZE_BITS) * blocksX + (x >> BLOCK_SIZE_BITS)])) {
+					int index = y * width + x;
+					byte oldSight = buffer[index];
 					if (oldSight < CommonConstants.FOG_OF_WAR_VISIBLE) {
 						byte newSight = iterator.getCurrSight();
 						if (oldSight < newSight) {
-							buffer[x][y] = newSight;
+							buffer[index] = newSight;
 						}
 					}
 				}
 			}
 		}
 
-		private CachedViewCircle getCachedCircle(int viewDistance) {
+		CachedViewCircle getCachedCircle(int viewDistance) {
 			int radius = Math.min(viewDistance + PADDING, MAX_VIEWDISTANCE - 1);
 			if (cachedCircles[radius] == null) {
 				cachedCircles[radius] = new CachedViewCircle(radius);
@@ -146,6 +146,24 @@ public class Path implements Serializable {
 		return pathX.length - 1;
 	}
 
+	/**
+	 * @param idx
+	 *            NOTE: this must be in the integer interval [0, {@link #getLength()}]!
+	 * @return the x coordinate of the step with the given index.
+	 */
+	public final short getXAt(int idx) {
+		return pathX[idx];
+	}
+
+	/**
+	 * @param idx
+	 *            NOTE: this must be in the integer interval [0, {@link #getLength()}]!
+	 * @return the y coordinate of the step with the given index.
+	 */
+	public final short getYAt(int idx) {
+		return pathY[idx];
+	}
+
 	/**
 	 * increases the path counter
 	 */
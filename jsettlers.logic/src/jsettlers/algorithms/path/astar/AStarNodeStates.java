@@ -0,0 +1,61 @@
+package jsettlers.algorithms.path.astar;
+
+import java.util.Arrays;
+
+/**
+ * Stores if the nodes of an AStar search are open or closed.
+ * <p />
+ * Instead of resetting the state of every node before a search, every search gets new stamps. A node is only open or closed if it carries the
+ * stamp of the current search. Therefore starting a search doesn't depend on the number of nodes, only the nodes visited by a search are
+ * touched.
+ *
+ */
+public final class AStarNodeStates {
+	private final int[] stamps;
+
+	/**
+	 * Stamp of the open nodes of the current search. Closed nodes carry this stamp + 1.
+	 */
+	private int openStamp = 0;
+
+	public AStarNodeStates(int numberOfNodes) {
+		this.stamps = new int[numberOfNodes];
+	}
+
+	/**
+	 * Resets the states of all nodes. After this call no node is open or closed.
+	 */
+	public void startNewSearch() {
+		if (openStamp >= Integer.MAX_VALUE - 2) {
+			Arrays.fill(stamps, 0);
+			openStamp = 0;
+		}
+		openStamp += 2;
+	}
+
+	public boolean isOpen(int node) {
+		return stamps[node] == openStamp;
+	}
+
+	public boolean isClosed(int node) {
+		return stamps[node] == openStamp + 1;
+	}
+
+	/**
+	 * Marks the given node as open. A closed node is no longer closed afterwards.
+	 *
+	 * @param node
+	 */
+	public void setOpen(int node) {
+		stamps[node] = openStamp;
+	}
+
+	/**
+	 * Marks the given node as closed. An open node is no longer open afterwards.
+	 *
+	 * @param node
+	 */
+	public void setClosed(int node) {
+		stamps[node] = openStamp + 1;
+	}
+}
@@ -1,7 +1,5 @@
 package jsettlers.algorithms.path.astar;
 
-import java.util.BitSet;
-
 import jsettlers.algorithms.path.IPathCalculatable;
 import jsettlers.algorithms.path.InvalidStartPositionException;
 import jsettlers.algorithms.path.Path;
@@ -26,8 +24,7 @@ public final class BucketQueueAStar extends AbstractAStar {
 	private final short height;
 	private final short width;
 
-	private final BitSet openBitSet;
-	private final BitSet closedBitSet;
+	private final AStarNodeStates nodeStates;
 
 	final float[] costs;
 
@@ -42,8 +39,7 @@ public final class BucketQueueAStar extends AbstractAStar {
 
 		this.open = new ListMinBucketQueue(width * height);
 
-		this.openBitSet = new BitSet(width * height);
-		this.closedBitSet = new BitSet(width * height);
+		this.nodeStates = new AStarNodeStates(width * height);
 		this.costs = new float[width * height];
 
 		this.depthParentHeap = new int[width * height * 2];
@@ -72,8 +68,7 @@ public final class BucketQueueAStar extends AbstractAStar {
 
 		final int targetFlatIdx = getFlatIdx(tx, ty);
 
-		closedBitSet.clear();
-		openBitSet.clear();
+		nodeStates.startNewSearch();
 
 		open.clear();
 		boolean found = false;
@@ -101,10 +96,10 @@ public final class BucketQueueAStar extends AbstractAStar {
 				if (isValidPosition(requester, neighborX, neighborY, blockedAtStart)) {
 					final int flatNeighborIdx = getFlatIdx(neighborX, neighborY);
 
-					if (!closedBitSet.get(flatNeighborIdx)) {
+					if (!nodeStates.isClosed(flatNeighborIdx)) {
 						final float newCosts = currPositionCosts + map.getCost(x, y, neighborX, neighborY);
 
-						if (openBitSet.get(flatNeighborIdx)) {
+						if (nodeStates.isOpen(flatNeighborIdx)) {
 							final float oldCosts = costs[flatNeighborIdx];
 
 							if (oldCosts > newCosts) {
@@ -120,7 +115,7 @@ public final class BucketQueueAStar extends AbstractAStar {
 							costs[flatNeighborIdx] = newCosts;
 							depthParentHeap[getDepthIdx(flatNeighborIdx)] = depthParentHeap[getDepthIdx(currFlatIdx)] + 1;
 							depthParentHeap[getParentIdx(flatNeighborIdx)] = currFlatIdx;
-							openBitSet.set(flatNeighborIdx);
+							nodeStates.setOpen(flatNeighborIdx);
 							open.insert(flatNeighborIdx, newCosts + getHeuristicCost(neighborX, neighborY, tx, ty));
 
 							map.markAsOpen(neighborX, neighborY);
@@ -160,7 +155,7 @@ public final class BucketQueueAStar extends AbstractAStar {
 	}
 
 	private final void setClosed(int x, int y) {
-		closedBitSet.set(getFlatIdx(x, y));
+		nodeStates.setClosed(getFlatIdx(x, y));
 		map.markAsClosed(x, y);
 	}
 
@@ -171,7 +166,7 @@ public final class BucketQueueAStar extends AbstractAStar {
 		costs[flatIdx] = 0;
 
 		open.insert(flatIdx, 0 + getHeuristicCost(sx, sy, tx, ty));
-		openBitSet.set(flatIdx);
+		nodeStates.setOpen(flatIdx);
 	}
 
 	private final boolean isValidPosition(IPathCalculatable requester, int x, int y, boolean blockedAtStart) {
@@ -0,0 +1,655 @@
+package jsettlers.algorithms.path.astar;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import jsettlers.algorithms.partitions.IBlockingProvider;
+import jsettlers.algorithms.path.IPathCalculatable;
+import jsettlers.algorithms.path.Path;
+import jsettlers.algorithms.path.astar.normal.IAStarPathMap;
+import jsettlers.common.movable.EDirection;
+import jsettlers.common.position.ShortPoint2D;
+
+/**
+ * Hierarchical AStar (HPA*) that first searches a path on an abstract graph and then refines the single legs of this path with a
+ * {@link BucketQueueAStar}.
+ * <p />
+ * The map is divided into square clusters. Every maximal run of unblocked positions along the border of two neighboring clusters (an entrance)
+ * gets one or two pairs of portal positions, one on each side of the border. The nodes of the abstract graph are these portals. Portals of the
+ * same cluster are connected with the length of the shortest path inside the cluster, portals of a pair are connected with a single step.
+ * <p />
+ * The abstract graph is updated lazily: {@link #blockingChanged(int, int)} only marks the cluster of the position as dirty and the dirty clusters
+ * are rebuilt with the next path request.
+ * <p />
+ * Short paths, requesters that need their player's ground and requests the abstract graph can't answer are delegated to the
+ * {@link BucketQueueAStar}.
+ *
+ * @see <a href="http://webdocs.cs.ualberta.ca/~mmueller/ps/hpastar.pdf">Near Optimal Hierarchical Path-Finding</a>
+ */
+public final class HierarchicalAStar extends AbstractAStar {
+	private static final byte[] xDeltaArray = EDirection.getXDeltaArray();
+	private static final byte[] yDeltaArray = EDirection.getYDeltaArray();
+
+	private static final int CLUSTER_SIZE_BITS = 5;
+	private static final int CLUSTER_SIZE = 1 << CLUSTER_SIZE_BITS;
+	private static final int CLUSTER_MASK = CLUSTER_SIZE - 1;
+
+	/**
+	 * A cluster has at most 4 * {@link #CLUSTER_SIZE} - 4 border positions, so this is enough for every cluster.
+	 */
+	private static final int MAX_PORTALS_BITS = CLUSTER_SIZE_BITS + 2;
+	private static final int MAX_PORTALS_MASK = (1 << MAX_PORTALS_BITS) - 1;
+
+	/**
+	 * Entrances that are longer than this get portals at both ends instead of a single one in their middle.
+	 */
+	private static final int MAX_SINGLE_PORTAL_ENTRANCE_LENGTH = 6;
+	/**
+	 * Paths between positions that are closer than this are directly calculated with the {@link BucketQueueAStar}.
+	 */
+	private static final int MIN_HIERARCHICAL_DISTANCE = 2 * CLUSTER_SIZE;
+
+	private static final int BORDER_RIGHT = 0;
+	private static final int BORDER_DOWN = 1;
+	private static final int BORDER_DIAGONAL = 2;
+	private static final int NUMBER_OF_BORDERS = 3;
+
+	private static final int NO_CONNECTION = -1;
+	private static final byte NO_PORTAL = -1;
+
+	private final IAStarPathMap map;
+	private final IBlockingProvider blockingProvider;
+	private final short width;
+	private final short height;
+	private final int clustersX;
+	private final int numberOfClusters;
+	private final BucketQueueAStar aStar;
+
+	private final BitSet dirtyClusters;
+
+	/**
+	 * Pairs of flat indexes of the transitions over the right, lower and diagonal border of every cluster. The first index of a pair lies in
+	 * the cluster, the second one in its neighbor.
+	 */
+	private final int[][] borderTransitions;
+	/**
+	 * Sorted flat indexes of the portals of every cluster.
+	 */
+	private final int[][] portals;
+	/**
+	 * Matrix of the path lengths between the portals of every cluster.
+	 */
+	private final int[][] intraCosts;
+	/**
+	 * Flat indexes of the portals in neighbor clusters that can be reached with a single step from a portal.
+	 */
+	private final int[][][] partners;
+	private final byte[] portalIndexOfTile;
+
+	private final int[] localDistances = new int[CLUSTER_SIZE * CLUSTER_SIZE];
+	private final int[] localStamps = new int[CLUSTER_SIZE * CLUSTER_SIZE];
+	private final int[] localQueue = new int[CLUSTER_SIZE * CLUSTER_SIZE];
+	private int localSearchId = 0;
+
+	private final int startNode;
+	private final int targetNode;
+	private final int[] nodeCosts;
+	private final int[] nodeParents;
+	private final AStarNodeStates nodeStates;
+	private long[] heap = new long[256];
+	private int heapSize;
+
+	private final int[] startCosts = new int[1 << MAX_PORTALS_BITS];
+	private final int[] targetCosts = new int[1 << MAX_PORTALS_BITS];
+	private int startFlatIdx;
+	private int targetFlatIdx;
+
+	private short[] resultX = new short[256];
+	private short[] resultY = new short[256];
+	private int resultLength;
+
+	/**
+	 * Creates a new {@link HierarchicalAStar}.
+	 *
+	 * @param map
+	 *            The map used to refine the paths.
+	 * @param blockingProvider
+	 *            Provides the blocking information of the abstract graph. It must be consistent with the blocking information of the map for
+	 *            requesters that don't need their player's ground.
+	 * @param width
+	 *            width of the map
+	 * @param height
+	 *            height of the map
+	 */
+	public HierarchicalAStar(IAStarPathMap map, IBlockingProvider blockingProvider, short width, short height) {
+		this.map = map;
+		this.blockingProvider = blockingProvider;
+		this.width = width;
+		this.height = height;
+		this.aStar = new BucketQueueAStar(map, width, height);
+
+		this.clustersX = (width + CLUSTER_SIZE - 1) >> CLUSTER_SIZE_BITS;
+		this.numberOfClusters = clustersX * ((height + CLUSTER_SIZE - 1) >> CLUSTER_SIZE_BITS);
+
+		this.dirtyClusters = new BitSet(numberOfClusters);
+		this.dirtyClusters.set(0, numberOfClusters);
+
+		this.borderTransitions = new int[numberOfClusters * NUMBER_OF_BORDERS][];
+		this.portals = new int[numberOfClusters][];
+		this.intraCosts = new int[numberOfClusters][];
+		this.partners = new int[numberOfClusters][][];
+		this.portalIndexOfTile = new byte[width * height];
+		Arrays.fill(portalIndexOfTile, NO_PORTAL);
+
+		this.startNode = numberOfClusters << MAX_PORTALS_BITS;
+		this.targetNode = startNode + 1;
+		this.nodeCosts = new int[targetNode + 1];
+		this.nodeParents = new int[targetNode + 1];
+		this.nodeStates = new AStarNodeStates(targetNode + 1);
+	}
+
+	/**
+	 * This method needs to be called on every change of the blocking information of the given position.
+	 *
+	 * @param x
+	 *            x coordinate of the changed position.
+	 * @param y
+	 *            y coordinate of the changed position.
+	 */
+	public void blockingChanged(int x, int y) {
+		dirtyClusters.set(getClusterIdx(x, y));
+	}
+
+	@Override
+	public Path findPath(IPathCalculatable requester, ShortPoint2D target) {
+		ShortPoint2D pos = requester.getPos();
+		return findPath(requester, pos.x, pos.y, target.x, target.y);
+	}
+
+	@Override
+	public Path findPath(IPathCalculatable requester, short sx, short sy, short tx, short ty) {
+		if (requester.needsPlayersGround() || !isInBounds(sx, sy) || !isInBounds(tx, ty)
+				|| ShortPoint2D.getOnGridDist(tx - sx, ty - sy) < MIN_HIERARCHICAL_DISTANCE || map.isBlocked(requester, sx, sy)
+				|| map.isBlocked(requester, tx, ty) || map.getBlockedPartition(sx, sy) != map.getBlockedPartition(tx, ty)) {
+			return aStar.findPath(requester, sx, sy, tx, ty);
+		}
+
+		updateDirtyClusters();
+
+		Path path = null;
+		if (findAbstractPath(sx, sy, tx, ty)) {
+			path = refineAbstractPath(requester);
+		}
+
+		if (path == null) { // the abstract graph only knows some of the transitions of an entrance
+			return aStar.findPath(requester, sx, sy, tx, ty);
+		} else {
+			return path;
+		}
+	}
+
+	private boolean findAbstractPath(int sx, int sy, int tx, int ty) {
+		startFlatIdx = getFlatIdx(sx, sy);
+		targetFlatIdx = getFlatIdx(tx, ty);
+		final int startCluster = getClusterIdx(sx, sy);
+		final int targetCluster = getClusterIdx(tx, ty);
+
+		calculateLocalDistances(startCluster, sx, sy);
+		int[] startPortals = portals[startCluster];
+		for (int i = 0; i < startPortals.length; i++) {
+			startCosts[i] = getLocalDistance(startPortals[i]);
+		}
+		int directCosts = startCluster == targetCluster ? getLocalDistance(targetFlatIdx) : NO_CONNECTION;
+
+		calculateLocalDistances(targetCluster, tx, ty);
+		int[] targetPortals = portals[targetCluster];
+		for (int i = 0; i < targetPortals.length; i++) {
+			targetCosts[i] = getLocalDistance(targetPortals[i]);
+		}
+
+		nodeStates.startNewSearch();
+		heapSize = 0;
+		relax(startNode, 0, NO_CONNECTION);
+
+		while (heapSize > 0) {
+			final int node = (int) pollHeap();
+			if (nodeStates.isClosed(node)) {
+				continue;
+			}
+			nodeStates.setClosed(node);
+
+			if (node == targetNode) {
+				return true;
+			}
+
+			final int costs = nodeCosts[node];
+			if (node == startNode) {
+				for (int i = 0; i < startPortals.length; i++) {
+					if (startCosts[i] != NO_CONNECTION) {
+						relax(getNode(startCluster, i), costs + startCosts[i], node);
+					}
+				}
+				if (directCosts != NO_CONNECTION) {
+					relax(targetNode, directCosts, node);
+				}
+
+			} else {
+				final int cluster = node >>> MAX_PORTALS_BITS;
+				final int portal = node & MAX_PORTALS_MASK;
+				final int numberOfPortals = portals[cluster].length;
+				final int[] clusterCosts = intraCosts[cluster];
+
+				for (int i = 0; i < numberOfPortals; i++) {
+					int portalCosts = clusterCosts[portal * numberOfPortals + i];
+					if (i != portal && portalCosts != NO_CONNECTION) {
+						relax(getNode(cluster, i), costs + portalCosts, node);
+					}
+				}
+
+				for (int partner : partners[cluster][portal]) {
+					relax(getNode(getClusterIdx(getX(partner), getY(partner)), portalIndexOfTile[partner]), costs + 1, node);
+				}
+
+				if (cluster == targetCluster && targetCosts[portal] != NO_CONNECTION) {
+					relax(targetNode, costs + targetCosts[portal], node);
+				}
+			}
+		}
+
+		return false;
+	}
+
+	private void relax(int node, int costs, int parent) {
+		if (nodeStates.isClosed(node) || (nodeStates.isOpen(node) && nodeCosts[node] <= costs)) {
+			return;
+		}
+
+		nodeStates.setOpen(node);
+		nodeCosts[node] = costs;
+		nodeParents[node] = parent;
+
+		int flatIdx = getNodeFlatIdx(node);
+		int heuristicCosts = ShortPoint2D.getOnGridDist(getX(targetFlatIdx) - getX(flatIdx), getY(targetFlatIdx) - getY(flatIdx));
+		pushHeap(((long) (costs + heuristicCosts) << 32) | node);
+	}
+
+	private Path refineAbstractPath(IPathCalculatable requester) {
+		int numberOfWaypoints = 0;
+		for (int node = targetNode; node != NO_CONNECTION; node = nodeParents[node]) {
+			numberOfWaypoints++;
+		}
+		int[] waypoints = new int[numberOfWaypoints];
+		for (int node = targetNode, i = numberOfWaypoints - 1; node != NO_CONNECTION; node = nodeParents[node], i--) {
+			waypoints[i] = getNodeFlatIdx(node);
+		}
+
+		resultLength = 0;
+		for (int i = 1; i < numberOfWaypoints; i++) {
+			if (!appendLeg(requester, waypoints[i - 1], waypoints[i])) {
+				return null;
+			}
+		}
+
+		Path path = new Path(resultLength);
+		for (int i = 0; i < resultLength; i++) {
+			path.insertAt(i, resultX[i], resultY[i]);
+		}
+		path.initPath();
+		return path;
+	}
+
+	private boolean appendLeg(IPathCalculatable requester, int fromFlatIdx, int toFlatIdx) {
+		if (fromFlatIdx == toFlatIdx) {
+			return true;
+		}
+
+		final short fromX = (short) getX(fromFlatIdx);
+		final short fromY = (short) getY(fromFlatIdx);
+		final short toX = (short) getX(toFlatIdx);
+		final short toY = (short) getY(toFlatIdx);
+
+		if (ShortPoint2D.getOnGridDist(toX - fromX, toY - fromY) == 1) {
+			appendStep(toX, toY);
+			return true;
+		}
+
+		Path leg = aStar.findPath(requester, fromX, fromY, toX, toY);
+		if (leg == null) {
+			return false;
+		}
+		for (int i = 0; i <= leg.getLength(); i++) {
+			appendStep(leg.getXAt(i), leg.getYAt(i));
+		}
+		return true;
+	}
+
+	private void appendStep(short x, short y) {
+		if (resultLength == resultX.length) {
+			resultX = Arrays.copyOf(resultX, resultLength * 2);
+			resultY = Arrays.copyOf(resultY, resultLength * 2);
+		}
+		resultX[resultLength] = x;
+		resultY[resultLength] = y;
+		resultLength++;
+	}
+
+	private void updateDirtyClusters() {
+		if (dirtyClusters.isEmpty()) {
+			return;
+		}
+
+		BitSet changedClusters = new BitSet(numberOfClusters);
+		for (int cluster = dirtyClusters.nextSetBit(0); cluster >= 0; cluster = dirtyClusters.nextSetBit(cluster + 1)) {
+			final int cx = cluster % clustersX;
+			final int cy = cluster / clustersX;
+
+			// every border touching the cluster is owned by the cluster itself or by its left, upper or upper left neighbor
+			updateBorder(cx, cy, BORDER_RIGHT, changedClusters);
+			updateBorder(cx, cy, BORDER_DOWN, changedClusters);
+			updateBorder(cx, cy, BORDER_DIAGONAL, changedClusters);
+			updateBorder(cx - 1, cy, BORDER_RIGHT, changedClusters);
+			updateBorder(cx, cy - 1, BORDER_DOWN, changedClusters);
+			updateBorder(cx - 1, cy - 1, BORDER_DIAGONAL, changedClusters);
+		}
+		dirtyClusters.clear();
+
+		for (int cluster = changedClusters.nextSetBit(0); cluster >= 0; cluster = changedClusters.nextSetBit(cluster + 1)) {
+			rebuildCluster(cluster);
+		}
+	}
+
+	private void updateBorder(int cx, int cy, int border, BitSet changedClusters) {
+		if (cx < 0 || cy < 0) {
+			return;
+		}
+
+		final int x0 = cx << CLUSTER_SIZE_BITS;
+		final int y0 = cy << CLUSTER_SIZE_BITS;
+		final int x1 = Math.min(x0 + CLUSTER_SIZE, width) - 1;
+		final int y1 = Math.min(y0 + CLUSTER_SIZE, height) - 1;
+
+		int[] crossingA = new int[CLUSTER_SIZE];
+		int[] crossingB = new int[CLUSTER_SIZE];
+		int length = 0;
+		int neighborCluster = NO_CONNECTION;
+
+		switch (border) {
+		case BORDER_RIGHT:
+			if (x1 + 1 < width) {
+				neighborCluster = getClusterIdx(x1 + 1, y0);
+				for (int y = y0; y <= y1; y++, length++) {
+					crossingA[length] = getFlatIdx(x1, y);
+					crossingB[length] = getCrossingTarget(x1, y, x1 + 1, y, x1 + 1, y + 1, y + 1 <= y1);
+				}
+			}
+			break;
+
+		case BORDER_DOWN:
+			if (y1 + 1 < height) {
+				neighborCluster = getClusterIdx(x0, y1 + 1);
+				for (int x = x0; x <= x1; x++, length++) {
+					crossingA[length] = getFlatIdx(x, y1);
+					crossingB[length] = getCrossingTarget(x, y1, x, y1 + 1, x + 1, y1 + 1, x + 1 <= x1);
+				}
+			}
+			break;
+
+		case BORDER_DIAGONAL:
+			if (x1 + 1 < width && y1 + 1 < height) {
+				neighborCluster = getClusterIdx(x1 + 1, y1 + 1);
+				crossingA[0] = getFlatIdx(x1, y1);
+				crossingB[0] = getCrossingTarget(x1, y1, x1 + 1, y1 + 1, 0, 0, false);
+				length = 1;
+			}
+			break;
+		}
+
+		int[] transitions = new int[2 * length];
+		int numberOfTransitions = 0;
+		int i = 0;
+		while (i < length) {
+			if (crossingB[i] == NO_CONNECTION) {
+				i++;
+				continue;
+			}
+
+			int entranceStart = i;
+			while (i < length && crossingB[i] != NO_CONNECTION) {
+				i++;
+			}
+			int entranceEnd = i - 1;
+
+			if (entranceEnd - entranceStart + 1 > MAX_SINGLE_PORTAL_ENTRANCE_LENGTH) {
+				transitions[numberOfTransitions++] = crossingA[entranceStart];
+				transitions[numberOfTransitions++] = crossingB[entranceStart];
+				transitions[numberOfTransitions++] = crossingA[entranceEnd];
+				transitions[numberOfTransitions++] = crossingB[entranceEnd];
+			} else {
+				int middle = (entranceStart + entranceEnd) / 2;
+				transitions[numberOfTransitions++] = crossingA[middle];
+				transitions[numberOfTransitions++] = crossingB[middle];
+			}
+		}
+
+		final int cluster = cy * clustersX + cx;
+		borderTransitions[cluster * NUMBER_OF_BORDERS + border] = Arrays.copyOf(transitions, numberOfTransitions);
+		changedClusters.set(cluster);
+		if (neighborCluster != NO_CONNECTION) {
+			changedClusters.set(neighborCluster);
+		}
+	}
+
+	private int getCrossingTarget(int ax, int ay, int bx, int by, int alternativeBx, int alternativeBy, boolean alternativeAllowed) {
+		if (blockingProvider.isBlocked(ax, ay)) {
+			return NO_CONNECTION;
+		} else if (!blockingProvider.isBlocked(bx, by)) {
+			return getFlatIdx(bx, by);
+		} else if (alternativeAllowed && !blockingProvider.isBlocked(alternativeBx, alternativeBy)) {
+			return getFlatIdx(alternativeBx, alternativeBy);
+		} else {
+			return NO_CONNECTION;
+		}
+	}
+
+	private void rebuildCluster(int cluster) {
+		if (portals[cluster] != null) {
+			for (int portal : portals[cluster]) {
+				portalIndexOfTile[portal] = NO_PORTAL;
+			}
+		}
+
+		final int cx = cluster % clustersX;
+		final int cy = cluster / clustersX;
+
+		// the cluster's tiles of its own borders are at even indexes, the ones of its neighbors' borders at odd indexes
+		int[][] clusterTransitions = new int[][] {
+				getBorderTransitions(cx, cy, BORDER_RIGHT),
+				getBorderTransitions(cx, cy, BORDER_DOWN),
+				getBorderTransitions(cx, cy, BORDER_DIAGONAL),
+				getBorderTransitions(cx - 1, cy, BORDER_RIGHT),
+				getBorderTransitions(cx, cy - 1, BORDER_DOWN),
+				getBorderTransitions(cx - 1, cy - 1, BORDER_DIAGONAL) };
+
+		int numberOfTiles = 0;
+		for (int[] transitions : clusterTransitions) {
+			numberOfTiles += transitions.length / 2;
+		}
+		int[] portalTiles = new int[numberOfTiles];
+		numberOfTiles = 0;
+		for (int border = 0; border < clusterTransitions.length; border++) {
+			int ownOffset = border < NUMBER_OF_BORDERS ? 0 : 1;
+			for (int i = ownOffset; i < clusterTransitions[border].length; i += 2) {
+				portalTiles[numberOfTiles++] = clusterTransitions[border][i];
+			}
+		}
+		Arrays.sort(portalTiles);
+		int numberOfPortals = 0;
+		for (int i = 0; i < portalTiles.length; i++) {
+			if (i == 0 || portalTiles[i] != portalTiles[i - 1]) {
+				portalTiles[numberOfPortals++] = portalTiles[i];
+			}
+		}
+		portalTiles = Arrays.copyOf(portalTiles, numberOfPortals);
+
+		for (int i = 0; i < numberOfPortals; i++) {
+			portalIndexOfTile[portalTiles[i]] = (byte) i;
+		}
+
+		int[][] portalPartners = new int[numberOfPortals][0];
+		for (int border = 0; border < clusterTransitions.length; border++) {
+			int ownOffset = border < NUMBER_OF_BORDERS ? 0 : 1;
+			int[] transitions = clusterTransitions[border];
+			for (int i = 0; i < transitions.length; i += 2) {
+				int portal = Arrays.binarySearch(portalTiles, transitions[i + ownOffset]);
+				int[] oldPartners = portalPartners[portal];
+				portalPartners[portal] = Arrays.copyOf(oldPartners, oldPartners.length + 1);
+				portalPartners[portal][oldPartners.length] = transitions[i + 1 - ownOffset];
+			}
+		}
+
+		int[] costs = new int[numberOfPortals * numberOfPortals];
+		for (int i = 0; i < numberOfPortals; i++) {
+			calculateLocalDistances(cluster, getX(portalTiles[i]), getY(portalTiles[i]));
+			for (int j = 0; j < numberOfPortals; j++) {
+				costs[i * numberOfPortals + j] = getLocalDistance(portalTiles[j]);
+			}
+		}
+
+		portals[cluster] = portalTiles;
+		partners[cluster] = portalPartners;
+		intraCosts[cluster] = costs;
+	}
+
+	private int[] getBorderTransitions(int cx, int cy, int border) {
+		if (cx < 0 || cy < 0) {
+			return new int[0];
+		}
+		return borderTransitions[(cy * clustersX + cx) * NUMBER_OF_BORDERS + border];
+	}
+
+	/**
+	 * Calculates the number of steps from the given position to every position of the given cluster that can be reached without leaving the
+	 * cluster. The results can be read with {@link #getLocalDistance(int)}.
+	 */
+	private void calculateLocalDistances(int cluster, int startX, int startY) {
+		final int x0 = (cluster % clustersX) << CLUSTER_SIZE_BITS;
+		final int y0 = (cluster / clustersX) << CLUSTER_SIZE_BITS;
+		final int x1 = Math.min(x0 + CLUSTER_SIZE, width);
+		final int y1 = Math.min(y0 + CLUSTER_SIZE, height);
+
+		localSearchId++;
+		int head = 0;
+		int tail = 0;
+
+		int startIdx = getLocalIdx(startX, startY);
+		localStamps[startIdx] = localSearchId;
+		localDistances[startIdx] = 0;
+		localQueue[tail++] = startIdx;
+
+		while (head < tail) {
+			final int currIdx = localQueue[head++];
+			final int x = x0 + (currIdx & CLUSTER_MASK);
+			final int y = y0 + (currIdx >> CLUSTER_SIZE_BITS);
+			final int distance = localDistances[currIdx] + 1;
+
+			for (int i = 0; i < EDirection.NUMBER_OF_DIRECTIONS; i++) {
+				final int neighborX = x + xDeltaArray[i];
+				final int neighborY = y + yDeltaArray[i];
+
+				if (neighborX >= x0 && neighborX < x1 && neighborY >= y0 && neighborY < y1 && !blockingProvider.isBlocked(neighborX, neighborY)) {
+					final int neighborIdx = getLocalIdx(neighborX, neighborY);
+					if (localStamps[neighborIdx] != localSearchId) {
+						localStamps[neighborIdx] = localSearchId;
+						localDistances[neighborIdx] = distance;
+						localQueue[tail++] = neighborIdx;
+					}
+				}
+			}
+		}
+	}
+
+	private int getLocalDistance(int flatIdx) {
+		final int localIdx = getLocalIdx(getX(flatIdx), getY(flatIdx));
+		return localStamps[localIdx] == localSearchId ? localDistances[localIdx] : NO_CONNECTION;
+	}
+
+	private long pollHeap() {
+		long result = heap[0];
+		heapSize--;
+		long last = heap[heapSize];
+
+		int idx = 0;
+		while (true) {
+			int child = 2 * idx + 1;
+			if (child >= heapSize) {
+				break;
+			}
+			if (child + 1 < heapSize && heap[child + 1] < heap[child]) {
+				child++;
+			}
+			if (last <= heap[child]) {
+				break;
+			}
+			heap[idx] = heap[child];
+			idx = child;
+		}
+		heap[idx] = last;
+
+		return result;
+	}
+
+	private void pushHeap(long value) {
+		if (heapSize == heap.length) {
+			heap = Arrays.copyOf(heap, heapSize * 2);
+		}
+
+		int idx = heapSize++;
+		while (idx > 0) {
+			int parent = (idx - 1) / 2;
+			if (heap[parent] <= value) {
+				break;
+			}
+			heap[idx] = heap[parent];
+			idx = parent;
+		}
+		heap[idx] = value;
+	}
+
+	private static int getNode(int cluster, int portal) {
+		return (cluster << MAX_PORTALS_BITS) | portal;
+	}
+
+	private int getNodeFlatIdx(int node) {
+		if (node == startNode) {
+			return startFlatIdx;
+		} else if (node == targetNode) {
+			return targetFlatIdx;
+		} else {
+			return portals[node >>> MAX_PORTALS_BITS][node & MAX_PORTALS_MASK];
+		}
+	}
+
+	private int getClusterIdx(int x, int y) {
+		return (y >> CLUSTER_SIZE_BITS) * clustersX + (x >> CLUSTER_SIZE_BITS);
+	}
+
+	private static int getLocalIdx(int x, int y) {
+		return ((y & CLUSTER_MASK) << CLUSTER_SIZE_BITS) | (x & CLUSTER_MASK);
+	}
+
+	private boolean isInBounds(int x, int y) {
+		return 0 <= x && x < width && 0 <= y && y < height;
+	}
+
+	private int getFlatIdx(int x, int y) {
+		return y * width + x;
+	}
+
+	private int getX(int flatIdx) {
+		return flatIdx % width;
+	}
+
+	private int getY(int flatIdx) {
+		return flatIdx / width;
+	}
+}
@@ -1,11 +1,10 @@
 package jsettlers.algorithms.path.astar.normal;
 
-import java.util.BitSet;
-
 import jsettlers.algorithms.AlgorithmConstants;
 import jsettlers.algorithms.path.IPathCalculatable;
 import jsettlers.algorithms.path.InvalidStartPositionException;
 import jsettlers.algorithms.path.Path;
+import jsettlers.algorithms.path.astar.AStarNodeStates;
 import jsettlers.algorithms.path.astar.AbstractAStar;
 import jsettlers.common.movable.EDirection;
 import jsettlers.common.position.ShortPoint2D;
@@ -25,8 +24,7 @@ public final class HexAStar extends AbstractAStar implements IAStarHeapable {
 	private final short height;
 	private final short width;
 
-	private final BitSet openList;
-	private final BitSet closedList;
+	private final AStarNodeStates nodeStates;
 
 	final float[] costsAndHeuristics;
 
@@ -42,8 +40,7 @@ public final class HexAStar extends AbstractAStar implements IAStarHeapable {
 		this.height = height;
 		this.open = new AStarMinHeap(this, AlgorithmConstants.MINHEAP_INIT_NUMBER_OF_ELEMENTS);
 
-		this.openList = new BitSet(width * height);
-		this.closedList = new BitSet(width * height);
+		this.nodeStates = new AStarNodeStates(width * height);
 		this.costsAndHeuristics = new float[width * height * 2];
 
 		this.depthParentHeap = new int[width * height * 3];
@@ -76,8 +73,7 @@ public final class HexAStar extends AbstractAStar implements IAStarHeapable {
 
 		final int targetFlatIdx = getFlatIdx(tx, ty);
 
-		closedList.clear();
-		openList.clear();
+		nodeStates.startNewSearch();
 
 		open.clear();
 		boolean found = false;
@@ -103,9 +99,9 @@ public final class HexAStar extends AbstractAStar implements IAStarHeapable {
 				if (isValidPosition(requester, neighborX, neighborY, blockedAtStart)) {
 					int flatNeighborIdx = getFlatIdx(neighborX, neighborY);
 
-					if (!closedList.get(flatNeighborIdx)) {
+					if (!nodeStates.isClosed(flatNeighborIdx)) {
 						float newCosts = costsAndHeuristics[getCostsIdx(currFlatIdx)] + map.getCost(x, y, neighborX, neighborY);
-						if (openList.get(flatNeighborIdx)) {
+						if (nodeStates.isOpen(flatNeighborIdx)) {
 							if (costsAndHeuristics[getCostsIdx(flatNeighborIdx)] > newCosts) {
 								float oldRank = getRank(flatNeighborIdx);
 
@@ -120,7 +116,7 @@ public final class HexAStar extends AbstractAStar implements IAStarHeapable {
 							costsAndHeuristics[getHeuristicIdx(flatNeighborIdx)] = getHeuristicCost(neighborX, neighborY, tx, ty);
 							depthParentHeap[getDepthIdx(flatNeighborIdx)] = depthParentHeap[getDepthIdx(currFlatIdx)] + 1;
 							depthParentHeap[getParentIdx(flatNeighborIdx)] = currFlatIdx;
-							openList.set(flatNeighborIdx);
+							nodeStates.setOpen(flatNeighborIdx);
 							open.insert(flatNeighborIdx);
 
 							map.markAsOpen(neighborX, neighborY);
@@ -172,14 +168,14 @@ public final class HexAStar extends AbstractAStar implements IAStarHeapable {
 	}
 
 	private final void setClosed(short x, short y) {
-		closedList.set(getFlatIdx(x, y));
+		nodeStates.setClosed(getFlatIdx(x, y));
 		map.markAsClosed(x, y);
 	}
 
 	private final void initStartNode(short sx, short sy, short tx, short ty) {
 		int flatIdx = getFlatIdx(sx, sy);
 		open.insert(flatIdx);
-		openList.set(flatIdx);
+		nodeStates.setOpen(flatIdx);
 		depthParentHeap[getDepthIdx(flatIdx)] = 0;
 		depthParentHeap[getParentIdx(flatIdx)] = -1;
 		costsAndHeuristics[getCostsIdx(flatIdx)] = 0;
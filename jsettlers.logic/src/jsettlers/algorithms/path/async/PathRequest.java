@@ -0,0 +1,92 @@
+package jsettlers.algorithms.path.async;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+
+import jsettlers.algorithms.path.Path;
+
+/**
+ * A path that is calculated in the background by a {@link PathRequestService}.
+ * <p />
+ * The requester may only use the path at the delivery time of the request. Until then, the path is calculated by a worker thread. If it isn't
+ * ready at the delivery time, {@link #getPath()} waits for it. Therefore the result is always used at the same game time, no matter how fast the
+ * worker threads are.
+ *
+ */
+public final class PathRequest implements Serializable {
+	private static final long serialVersionUID = 4325189046739813578L;
+
+	private final int deliveryTime;
+
+	private Path path;
+	private transient boolean done;
+	private transient PathRequestService service;
+
+	PathRequest(PathRequestService service, int deliveryTime) {
+		this.service = service;
+		this.deliveryTime = deliveryTime;
+	}
+
+	/**
+	 *
+	 * @return The game time at which the path of this request has to be used.
+	 */
+	public int getDeliveryTime() {
+		return deliveryTime;
+	}
+
+	/**
+	 * Gets the calculated path. If the worker threads didn't finish the request yet, this method waits for it.
+	 *
+	 * @return The path or null if no path has been found.
+	 */
+	public Path getPath() {
+		return awaitPath(true);
+	}
+
+	/**
+	 * Waits until the path has been calculated.
+	 *
+	 * @param delivery
+	 *            true if the path is needed at its delivery time. Only then a wait is counted as a stalled delivery of the service.
+	 * @return The path or null if no path has been found.
+	 */
+	private synchronized Path awaitPath(boolean delivery) {
+		if (!done) {
+			if (delivery && service != null) {
+				service.deliveryStalled();
+			}
+
+			boolean interrupted = false;
+			while (!done) {
+				try {
+					wait();
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		return path;
+	}
+
+	synchronized void setPath(Path path) {
+		this.path = path;
+		this.done = true;
+		notifyAll();
+	}
+
+	private void writeObject(ObjectOutputStream oos) throws IOException {
+		awaitPath(false); // a savegame must contain the result
+		oos.defaultWriteObject();
+	}
+
+	private void readObject(ObjectInputStream ois) throws IOException, ClassNotFoundException {
+		ois.defaultReadObject();
+		done = true;
+	}
+}
@@ -0,0 +1,277 @@
+package jsettlers.algorithms.path.async;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jsettlers.algorithms.partitions.IBlockingProvider;
+import jsettlers.algorithms.path.IPathCalculatable;
+import jsettlers.algorithms.path.Path;
+import jsettlers.algorithms.path.astar.BucketQueueAStar;
+import jsettlers.algorithms.path.astar.normal.IAStarPathMap;
+import jsettlers.common.Color;
+import jsettlers.common.position.ShortPoint2D;
+
+/**
+ * Calculates paths on worker threads.
+ * <p />
+ * The workers never access the live grid. Every request is calculated on a snapshot of the blocking information that has been taken by the game
+ * thread when the request was submitted. Together with the fixed delivery time of the {@link PathRequest}s, the results are the same on all
+ * clients, no matter when the workers actually run. For the same reason, a service without worker threads can solve the requests right when
+ * they are submitted.
+ *
+ */
+public final class PathRequestService {
+	private final short width;
+	private final short height;
+	private final int numberOfThreads;
+
+	private ExecutorService executor;
+	private boolean shutdown;
+
+	private final ThreadLocal<Worker> workers = new ThreadLocal<Worker>() {
+		@Override
+		protected Worker initialValue() {
+			return new Worker(width, height);
+		}
+	};
+
+	private final AtomicInteger queueDepth = new AtomicInteger();
+	private final AtomicInteger maxQueueDepth = new AtomicInteger();
+	private final AtomicLong solvedRequests = new AtomicLong();
+	private final AtomicLong totalSolveNanos = new AtomicLong();
+	private final AtomicLong maxSolveNanos = new AtomicLong();
+	private final AtomicLong stalledDeliveries = new AtomicLong();
+
+	/**
+	 * Creates a new {@link PathRequestService}. The worker threads are started with the first request.
+	 *
+	 * @param width
+	 *            width of the grid.
+	 * @param height
+	 *            height of the grid.
+	 * @param numberOfThreads
+	 *            number of worker threads. If this is 0, the requests are calculated synchronously by the thread submitting them.
+	 */
+	public PathRequestService(short width, short height, int numberOfThreads) {
+		this.width = width;
+		this.height = height;
+		this.numberOfThreads = numberOfThreads;
+	}
+
+	/**
+	 *
+	 * @return The executor of the worker threads or null if the requests have to be calculated by the submitting thread.
+	 */
+	private synchronized ExecutorService getExecutor() {
+		if (executor == null && numberOfThreads > 0 && !shutdown) {
+			executor = Executors.newFixedThreadPool(numberOfThreads, new ThreadFactory() {
+				private final AtomicInteger threadCounter = new AtomicInteger();
+
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "PathRequestWorker-" + threadCounter.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return shutdown ? null : executor;
+	}
+
+	/**
+	 * Submits a path request.
+	 *
+	 * @param start
+	 *            start position of the path.
+	 * @param target
+	 *            target position of the path.
+	 * @param blockingSnapshot
+	 *            snapshot of the blocking information. It must not be changed after this call. The caller has to check that start and target
+	 *            are in the same blocked partition.
+	 * @param deliveryTime
+	 *            game time at which the result will be used.
+	 * @return the request. After {@link #shutdown()}, it is calculated synchronously.
+	 */
+	public PathRequest submit(ShortPoint2D start, ShortPoint2D target, IBlockingProvider blockingSnapshot, int deliveryTime) {
+		PathRequest request = new PathRequest(this, deliveryTime);
+
+		updateMaximum(maxQueueDepth, queueDepth.incrementAndGet());
+		SolveTask task = new SolveTask(request, start, target, blockingSnapshot);
+		ExecutorService executor = getExecutor();
+		if (executor != null) {
+			try {
+				executor.execute(task);
+				return request;
+			} catch (RejectedExecutionException e) { // shut down concurrently
+			}
+		}
+		task.run();
+
+		return request;
+	}
+
+	private void solved(long solveNanos) {
+		solvedRequests.incrementAndGet();
+		totalSolveNanos.addAndGet(solveNanos);
+		updateMaximum(maxSolveNanos, solveNanos);
+	}
+
+	void deliveryStalled() {
+		stalledDeliveries.incrementAndGet();
+	}
+
+	private static void updateMaximum(AtomicInteger maximum, int value) {
+		int current;
+		while ((current = maximum.get()) < value && !maximum.compareAndSet(current, value)) {
+		}
+	}
+
+	private static void updateMaximum(AtomicLong maximum, long value) {
+		long current;
+		while ((current = maximum.get()) < value && !maximum.compareAndSet(current, value)) {
+		}
+	}
+
+	/**
+	 * Stops the worker threads. Requests that haven't been started yet won't be calculated, their path will be null. Requests submitted
+	 * afterwards are calculated by the submitting thread.
+	 */
+	public void shutdown() {
+		ExecutorService executor;
+		synchronized (this) {
+			shutdown = true;
+			executor = this.executor;
+		}
+		if (executor == null) {
+			return;
+		}
+
+		for (Runnable task : executor.shutdownNow()) {
+			((SolveTask) task).request.setPath(null);
+		}
+	}
+
+	/**
+	 *
+	 * @return The number of requests waiting for a worker thread.
+	 */
+	public int getQueueDepth() {
+		return queueDepth.get();
+	}
+
+	public int getMaxQueueDepth() {
+		return maxQueueDepth.get();
+	}
+
+	public long getSolvedRequests() {
+		return solvedRequests.get();
+	}
+
+	/**
+	 *
+	 * @return The average time between submitting a request and its result being available in nanoseconds.
+	 */
+	public long getAverageSolveLatencyNanos() {
+		long solved = solvedRequests.get();
+		return solved == 0 ? 0 : totalSolveNanos.get() / solved;
+	}
+
+	public long getMaxSolveLatencyNanos() {
+		return maxSolveNanos.get();
+	}
+
+	/**
+	 *
+	 * @return The number of requests that weren't solved at their delivery time, so the game thread had to wait for them.
+	 */
+	public long getStalledDeliveries() {
+		return stalledDeliveries.get();
+	}
+
+	@Override
+	public String toString() {
+		return "PathRequestService [queueDepth=" + getQueueDepth() + ", maxQueueDepth=" + getMaxQueueDepth() + ", solved=" + getSolvedRequests()
+				+ ", avgLatency=" + getAverageSolveLatencyNanos() / 1000 + "us, maxLatency=" + getMaxSolveLatencyNanos() / 1000 + "us, stalled="
+				+ getStalledDeliveries() + "]";
+	}
+
+	private final class SolveTask implements Runnable {
+		private final PathRequest request;
+		private final ShortPoint2D start;
+		private final ShortPoint2D target;
+		private final IBlockingProvider blockingSnapshot;
+		private final long submitTime = System.nanoTime();
+
+		SolveTask(PathRequest request, ShortPoint2D start, ShortPoint2D target, IBlockingProvider blockingSnapshot) {
+			this.request = request;
+			this.start = start;
+			this.target = target;
+			this.blockingSnapshot = blockingSnapshot;
+		}
+
+		@Override
+		public void run() {
+			queueDepth.decrementAndGet();
+			Path path = null;
+			try {
+				path = workers.get().findPath(blockingSnapshot, start, target);
+			} finally {
+				request.setPath(path);
+				solved(System.nanoTime() - submitTime);
+			}
+		}
+	}
+
+	/**
+	 * The pathfinder of a single worker thread. It works on the snapshot of the current request.
+	 */
+	private static final class Worker implements IAStarPathMap {
+		private final BucketQueueAStar aStar;
+		private IBlockingProvider blockingSnapshot;
+
+		Worker(short width, short height) {
+			this.aStar = new BucketQueueAStar(this, width, height);
+		}
+
+		Path findPath(IBlockingProvider blockingSnapshot, ShortPoint2D start, ShortPoint2D target) {
+			this.blockingSnapshot = blockingSnapshot;
+			try {
+				// the requester is never handed to the worker thread, the snapshot doesn't depend on it
+				return aStar.findPath(null, start.x, start.y, target.x, target.y);
+			} finally {
+				this.blockingSnapshot = null;
+			}
+		}
+
+		@Override
+		public boolean isBlocked(IPathCalculatable requester, int x, int y) {
+			return blockingSnapshot.isBlocked(x, y);
+		}
+
+		@Override
+		public float getCost(int sx, int sy, int tx, int ty) {
+			return 1;
+		}
+
+		@Override
+		public void markAsOpen(int x, int y) {
+		}
+
+		@Override
+		public void markAsClosed(int x, int y) {
+		}
+
+		@Override
+		public void setDebugColor(int x, int y, Color color) {
+		}
+
+		@Override
+		public short getBlockedPartition(int x, int y) {
+			return 0; // checked by the game thread when the request is submitted
+		}
+	}
+}
@@ -0,0 +1,32 @@
+package jsettlers.input;
+
+import jsettlers.logic.constants.Constants;
+import jsettlers.network.NetworkConstants;
+import jsettlers.network.client.interfaces.IGameClock;
+import jsettlers.network.synchronic.timer.INetworkTimerable;
+
+/**
+ * Saves the game every {@link Constants#AUTOSAVE_PERIOD} milliseconds of game time. The snapshot of the game is taken on the first tick of a
+ * lockstep, right after the tasks of the lockstep have been executed. It's compressed and written in the background, so an autosave only stalls
+ * the clock for taking the snapshot. If the previous save is still being written, the autosave is tried again at the next lockstep.
+ *
+ */
+public final class Autosaver implements INetworkTimerable {
+	private final GuiTaskExecutor taskExecutor;
+	private final IGameClock clock;
+	private int nextAutosaveTime;
+
+	public Autosaver(GuiTaskExecutor taskExecutor, IGameClock clock) {
+		this.taskExecutor = taskExecutor;
+		this.clock = clock;
+		this.nextAutosaveTime = clock.getTime() + Constants.AUTOSAVE_PERIOD;
+	}
+
+	@Override
+	public void timerEvent() {
+		int time = clock.getTime();
+		if (time >= nextAutosaveTime && time % NetworkConstants.Client.LOCKSTEP_PERIOD == 0 && taskExecutor.autosave()) {
+			nextAutosaveTime = time + Constants.AUTOSAVE_PERIOD;
+		}
+	}
+}
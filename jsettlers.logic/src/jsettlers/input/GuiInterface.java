@@ -35,17 +35,22 @@ import jsettlers.input.tasks.EGuiAction;
 import jsettlers.input.tasks.ConstructBuildingTask;
 import jsettlers.input.tasks.MovableGuiTask;
 import jsettlers.input.tasks.MoveToGuiTask;
+import jsettlers.input.tasks.SelectionDelta;
+import jsettlers.input.tasks.SelectionEncoder;
+import jsettlers.input.tasks.SelectionTable;
 import jsettlers.input.tasks.SetBuildingPriorityGuiTask;
 import jsettlers.input.tasks.SetMaterialDistributionSettingsGuiTask;
 import jsettlers.input.tasks.SetMaterialPrioritiesGuiTask;
 import jsettlers.input.tasks.SimpleGuiTask;
 import jsettlers.input.tasks.WorkAreaGuiTask;
 import jsettlers.logic.buildings.Building;
+import jsettlers.logic.constants.Constants;
 import jsettlers.logic.constants.MatchConstants;
 import jsettlers.logic.movable.interfaces.IDebugable;
 import jsettlers.logic.movable.interfaces.IIDable;
 import jsettlers.network.client.interfaces.IGameClock;
 import jsettlers.network.client.interfaces.ITaskScheduler;
+import jsettlers.network.synchronic.timer.NetworkTimer;
 
 /**
  * Class to handle the events provided by the user through jsettlers.graphics.
@@ -65,6 +70,8 @@ public class GuiInterface implements IMapInterfaceListener, ITaskExecutorGuiInte
 	private final byte playerId;
 	private final boolean multiplayer;
 	private final ConstructionMarksThread constructionMarksCalculator;
+	private final SelectionEncoder selectionEncoder;
+	private final Autosaver autosaver;
 
 	/**
 	 * The current active action that waits for the user to select a point.
@@ -75,7 +82,7 @@ public class GuiInterface implements IMapInterfaceListener, ITaskExecutorGuiInte
 
 	public GuiInterface(IMapInterfaceConnector connector, IGameClock clock, ITaskScheduler taskScheduler, IGuiInputGrid grid,
 			IGameStoppable gameStoppable, byte player,
-			boolean multiplayer) {
+			boolean multiplayer, PlayerState[] playerStates) {
 		this.connector = connector;
 		this.clock = clock;
 		this.taskScheduler = taskScheduler;
@@ -85,8 +92,21 @@ public class GuiInterface implements IMapInterfaceListener, ITaskExecutorGuiInte
 		this.multiplayer = multiplayer;
 		this.constructionMarksCalculator = new ConstructionMarksThread(grid.getConstructionMarksGrid(), clock, player);
 
+		SelectionTable selectionTable = null;
+		if (playerStates != null && player < playerStates.length && playerStates[player] != null) {
+			selectionTable = playerStates[player].getSelectionTable();
+		}
+		this.selectionEncoder = new SelectionEncoder(selectionTable != null ? selectionTable : new SelectionTable());
+
 		grid.getPlayer(player).setMessenger(connector);
-		clock.setTaskExecutor(new GuiTaskExecutor(grid, this, playerId));
+		GuiTaskExecutor taskExecutor = new GuiTaskExecutor(grid, this, playerId, playerStates);
+		clock.setTaskExecutor(taskExecutor);
+		if (Constants.AUTOSAVE_PERIOD > 0) {
+			autosaver = new Autosaver(taskExecutor, clock);
+			clock.schedule(autosaver, NetworkTimer.TIME_SLICE);
+		} else {
+			autosaver = null;
+		}
 		connector.addListener(this);
 	}
 
@@ -366,7 +386,7 @@ public class GuiInterface implements IMapInterfaceListener, ITaskExecutorGuiInte
 		} else if (currentSelection.getSize() == 1 && currentSelection.iterator().next() instanceof Building) {
 			taskScheduler.scheduleTask(new DestroyBuildingGuiTask(playerId, ((Building) currentSelection.iterator().next()).getPos()));
 		} else {
-			taskScheduler.scheduleTask(new MovableGuiTask(EGuiAction.DESTROY_MOVABLES, playerId, getIDsOfSelected()));
+			scheduleMovableTask(EGuiAction.DESTROY_MOVABLES);
 		}
 		setSelection(new SelectionSet());
 	}
@@ -402,12 +422,19 @@ public class GuiInterface implements IMapInterfaceListener, ITaskExecutorGuiInte
 	 *            if false, they will start working
 	 */
 	private void stopOrStartWorkingAction(boolean stop) {
-		taskScheduler.scheduleTask(new MovableGuiTask(stop ? EGuiAction.STOP_WORKING : EGuiAction.START_WORKING, playerId, getIDsOfSelected()));
+		scheduleMovableTask(stop ? EGuiAction.STOP_WORKING : EGuiAction.START_WORKING);
+	}
+
+	private void scheduleMovableTask(EGuiAction action) {
+		SelectionDelta selectionDelta = selectionEncoder.encode(getIDsOfSelected());
+		List<Integer> selectedIds = selectionEncoder.getSelection(selectionDelta.getHandle());
+		taskScheduler.scheduleTask(new MovableGuiTask(action, playerId, selectedIds, selectionDelta));
 	}
 
 	private void moveTo(ShortPoint2D pos) {
-		List<Integer> selectedIds = getIDsOfSelected();
-		scheduleTask(new MoveToGuiTask(playerId, pos, selectedIds));
+		SelectionDelta selectionDelta = selectionEncoder.encode(getIDsOfSelected());
+		List<Integer> selectedIds = selectionEncoder.getSelection(selectionDelta.getHandle());
+		scheduleTask(new MoveToGuiTask(playerId, pos, selectedIds, selectionDelta));
 	}
 
 	private final List<Integer> getIDsOfSelected() {
@@ -600,6 +627,9 @@ public class GuiInterface implements IMapInterfaceListener, ITaskExecutorGuiInte
 	public void stop() {
 		constructionMarksCalculator.cancel();
 		connector.removeListener(this);
+		if (autosaver != null) {
+			clock.remove(autosaver);
+		}
 	}
 
 }
@@ -14,6 +14,7 @@ import jsettlers.input.tasks.DestroyBuildingGuiTask;
 import jsettlers.input.tasks.EGuiAction;
 import jsettlers.input.tasks.MovableGuiTask;
 import jsettlers.input.tasks.MoveToGuiTask;
+import jsettlers.input.tasks.SelectionTable;
 import jsettlers.input.tasks.SetBuildingPriorityGuiTask;
 import jsettlers.input.tasks.SetMaterialDistributionSettingsGuiTask;
 import jsettlers.input.tasks.SetMaterialPrioritiesGuiTask;
@@ -35,11 +36,27 @@ public class GuiTaskExecutor implements ITaskExecutor {
 	private final IGuiInputGrid grid;
 	private final ITaskExecutorGuiInterface guiInterface;
 	private final byte playerId;
+	private final SelectionTable[] selectionTables;
 
-	public GuiTaskExecutor(IGuiInputGrid grid, ITaskExecutorGuiInterface guiInterface, byte playerId) {
+	/**
+	 * 
+	 * @param grid
+	 * @param guiInterface
+	 * @param playerId
+	 * @param playerStates
+	 *            The states of the players to get the selection tables from or null.
+	 */
+	public GuiTaskExecutor(IGuiInputGrid grid, ITaskExecutorGuiInterface guiInterface, byte playerId, PlayerState[] playerStates) {
 		this.grid = grid;
 		this.guiInterface = guiInterface;
 		this.playerId = playerId;
+
+		this.selectionTables = new SelectionTable[grid.getNumberOfPlayers()];
+		for (int i = 0; i < selectionTables.length; i++) {
+			boolean saved = playerStates != null && i < playerStates.length && playerStates[i] != null
+					&& playerStates[i].getSelectionTable() != null;
+			selectionTables[i] = saved ? playerStates[i].getSelectionTable() : new SelectionTable();
+		}
 	}
 
 	public static GuiTaskExecutor get() {
@@ -53,6 +70,9 @@ public class GuiTaskExecutor implements ITaskExecutor {
 		}
 
 		SimpleGuiTask guiTask = (SimpleGuiTask) iTask;
+		if (guiTask instanceof MovableGuiTask) {
+			((MovableGuiTask) guiTask).resolveSelection(selectionTables[guiTask.getPlayerId()]);
+		}
 
 		System.out.println("executeTask(GuiTask): " + guiTask.getGuiAction());
 		switch (guiTask.getGuiAction()) {
@@ -75,7 +95,7 @@ public class GuiTaskExecutor implements ITaskExecutor {
 			break;
 
 		case QUICK_SAVE:
-			save();
+			save(false);
 			break;
 
 		case DESTROY_BUILDING: {
@@ -122,23 +142,32 @@ public class GuiTaskExecutor implements ITaskExecutor {
 		}
 	}
 
-	private void save() {
+	/**
+	 * Saves the game to one of the autosave files in the background. This must be called by the clock thread, it's used for the autosaves (see
+	 * {@link Autosaver}).
+	 * 
+	 * @return false if the save has been skipped because the previous background save is still running.
+	 */
+	public boolean autosave() {
+		return save(true);
+	}
+
+	/**
+	 * 
+	 * @param autosave
+	 *            If true, the save is skipped if the previous background save is still running. Otherwise the game is saved synchronously in this case.
+	 * @return false if the save has been skipped.
+	 */
+	private boolean save(boolean autosave) {
 		try {
-			byte numberOfPlayers = grid.getNumberOfPlayers();
-			PlayerState[] playerStates = new PlayerState[numberOfPlayers];
-			for (byte playerId = 0; playerId < numberOfPlayers; playerId++) {
-				// find a tower of the player
-				UIState uiState = null;
-				for (Building building : Building.getAllBuildings()) {
-					if (building.getPlayer().playerId == playerId && building instanceof OccupyingBuilding) {
-						uiState = new UIState(building.getPos());
-						break;
-					}
-				}
+			PlayerState[] playerStates = createPlayerStates();
+			if (grid.saveInBackground(playerStates, autosave)) {
+				return true;
+			}
 
-				playerStates[playerId] = new PlayerState(playerId, uiState);
+			if (autosave) {
+				return false;
 			}
-			playerStates[playerId] = new PlayerState(this.playerId, guiInterface.getUIState(), grid.getFogOfWar());
 			grid.save(playerStates);
 		} catch (FileNotFoundException e) {
 			e.printStackTrace();
@@ -147,6 +176,26 @@ public class GuiTaskExecutor implements ITaskExecutor {
 		} catch (InterruptedException e) {
 			e.printStackTrace();
 		}
+		return true;
+	}
+
+	private PlayerState[] createPlayerStates() {
+		byte numberOfPlayers = grid.getNumberOfPlayers();
+		PlayerState[] playerStates = new PlayerState[numberOfPlayers];
+		for (byte playerId = 0; playerId < numberOfPlayers; playerId++) {
+			// find a tower of the player
+			UIState uiState = null;
+			for (Building building : Building.getAllBuildings()) {
+				if (building.getPlayer().playerId == playerId && building instanceof OccupyingBuilding) {
+					uiState = new UIState(building.getPos());
+					break;
+				}
+			}
+
+			playerStates[playerId] = new PlayerState(playerId, uiState, null, selectionTables[playerId]);
+		}
+		playerStates[playerId] = new PlayerState(this.playerId, guiInterface.getUIState(), grid.getFogOfWar(), selectionTables[playerId]);
+		return playerStates;
 	}
 
 	private void setBuildingPriority(SetBuildingPriorityGuiTask guiTask) {
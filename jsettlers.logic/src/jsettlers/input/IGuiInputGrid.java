@@ -58,6 +58,19 @@ public interface IGuiInputGrid {
 	 */
 	void save(PlayerState[] playerStates) throws FileNotFoundException, IOException, InterruptedException;
 
+	/**
+	 * Saves the map like {@link #save(PlayerState[])}, but the calling thread only takes a snapshot of the game. The snapshot is compressed and
+	 * written in the background.
+	 * 
+	 * @param playerStates
+	 * @param autosave
+	 *            If true, one of the autosave files is replaced instead of creating a new savegame.
+	 * @return true if the save has been started,<br>
+	 *         false if the previous background save is still running. Nothing is saved in this case.
+	 * @throws IOException
+	 */
+	boolean saveInBackground(PlayerState[] playerStates, boolean autosave) throws IOException;
+
 	void toggleFogOfWar();
 
 	AbstractConstructionMarkableMap getConstructionMarksGrid();
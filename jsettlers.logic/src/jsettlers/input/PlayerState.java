@@ -4,6 +4,7 @@ import java.io.Serializable;
 
 import jsettlers.algorithms.fogofwar.FogOfWar;
 import jsettlers.graphics.map.UIState;
+import jsettlers.input.tasks.SelectionTable;
 
 /**
  * 
@@ -16,11 +17,17 @@ public class PlayerState implements Serializable {
 	private final byte playerId;
 	private final UIState uiState;
 	private final FogOfWar fogOfWar;
+	private final SelectionTable selectionTable;
 
-	public PlayerState(byte playerId, UIState uiState, FogOfWar fogOfWar) {
+	public PlayerState(byte playerId, UIState uiState, FogOfWar fogOfWar, SelectionTable selectionTable) {
 		this.playerId = playerId;
 		this.uiState = uiState;
 		this.fogOfWar = fogOfWar;
+		this.selectionTable = selectionTable;
+	}
+
+	public PlayerState(byte playerId, UIState uiState, FogOfWar fogOfWar) {
+		this(playerId, uiState, fogOfWar, null);
 	}
 
 	public PlayerState(byte playerId, UIState uiState) {
@@ -38,4 +45,12 @@ public class PlayerState implements Serializable {
 	public FogOfWar getFogOfWar() {
 		return fogOfWar;
 	}
+
+	/**
+	 * 
+	 * @return The selection table of the player or null if it has not been saved.
+	 */
+	public SelectionTable getSelectionTable() {
+		return selectionTable;
+	}
 }
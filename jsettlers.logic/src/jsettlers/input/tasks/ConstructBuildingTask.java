@@ -6,6 +6,7 @@ import java.io.IOException;
 
 import jsettlers.common.buildings.EBuildingType;
 import jsettlers.common.position.ShortPoint2D;
+import jsettlers.network.client.task.packets.TaskCodec;
 
 /**
  * 
@@ -38,14 +39,14 @@ public class ConstructBuildingTask extends SimpleGuiTask {
 	protected void serializeTask(DataOutputStream dos) throws IOException {
 		super.serializeTask(dos);
 		SimpleGuiTask.serializePosition(dos, position);
-		dos.writeInt(type.ordinal);
+		TaskCodec.writeNumber(dos, type.ordinal);
 	}
 
 	@Override
 	protected void deserializeTask(DataInputStream dis) throws IOException {
 		super.deserializeTask(dis);
 		position = SimpleGuiTask.deserializePosition(dis);
-		type = EBuildingType.values[dis.readInt()];
+		type = EBuildingType.values[TaskCodec.readNumber(dis)];
 	}
 
 	@Override
@@ -6,6 +6,7 @@ import java.io.IOException;
 import java.util.List;
 
 import jsettlers.common.movable.EMovableType;
+import jsettlers.network.client.task.packets.TaskCodec;
 
 /**
  * 
@@ -30,13 +31,13 @@ public class ConvertGuiTask extends MovableGuiTask {
 	@Override
 	protected void serializeTask(DataOutputStream dos) throws IOException {
 		super.serializeTask(dos);
-		dos.writeInt(targetType.ordinal());
+		TaskCodec.writeNumber(dos, targetType.ordinal());
 	}
 
 	@Override
 	protected void deserializeTask(DataInputStream dis) throws IOException {
 		super.deserializeTask(dis);
-		targetType = EMovableType.values[dis.readInt()];
+		targetType = EMovableType.values[TaskCodec.readNumber(dis)];
 	}
 
 	@Override
@@ -0,0 +1,77 @@
+package jsettlers.input.tasks;
+
+import jsettlers.network.client.task.packets.ITaskPacketFactory;
+import jsettlers.network.client.task.packets.TaskCodec;
+
+/**
+ * Registers the gui tasks at the {@link TaskCodec}. The ids of the types must never be changed or reused, as they are sent over the network
+ * and stored in replays.
+ *
+ */
+public final class GuiTaskTypes {
+	private GuiTaskTypes() {
+	}
+
+	public static void register() {
+		TaskCodec.registerTaskType(1, SimpleGuiTask.class, new ITaskPacketFactory<SimpleGuiTask>() {
+			@Override
+			public SimpleGuiTask createTask() {
+				return new SimpleGuiTask();
+			}
+		});
+		TaskCodec.registerTaskType(2, MovableGuiTask.class, new ITaskPacketFactory<MovableGuiTask>() {
+			@Override
+			public MovableGuiTask createTask() {
+				return new MovableGuiTask();
+			}
+		});
+		TaskCodec.registerTaskType(3, MoveToGuiTask.class, new ITaskPacketFactory<MoveToGuiTask>() {
+			@Override
+			public MoveToGuiTask createTask() {
+				return new MoveToGuiTask();
+			}
+		});
+		TaskCodec.registerTaskType(4, ConvertGuiTask.class, new ITaskPacketFactory<ConvertGuiTask>() {
+			@Override
+			public ConvertGuiTask createTask() {
+				return new ConvertGuiTask();
+			}
+		});
+		TaskCodec.registerTaskType(5, ConstructBuildingTask.class, new ITaskPacketFactory<ConstructBuildingTask>() {
+			@Override
+			public ConstructBuildingTask createTask() {
+				return new ConstructBuildingTask();
+			}
+		});
+		TaskCodec.registerTaskType(6, DestroyBuildingGuiTask.class, new ITaskPacketFactory<DestroyBuildingGuiTask>() {
+			@Override
+			public DestroyBuildingGuiTask createTask() {
+				return new DestroyBuildingGuiTask();
+			}
+		});
+		TaskCodec.registerTaskType(7, WorkAreaGuiTask.class, new ITaskPacketFactory<WorkAreaGuiTask>() {
+			@Override
+			public WorkAreaGuiTask createTask() {
+				return new WorkAreaGuiTask();
+			}
+		});
+		TaskCodec.registerTaskType(8, SetBuildingPriorityGuiTask.class, new ITaskPacketFactory<SetBuildingPriorityGuiTask>() {
+			@Override
+			public SetBuildingPriorityGuiTask createTask() {
+				return new SetBuildingPriorityGuiTask();
+			}
+		});
+		TaskCodec.registerTaskType(9, SetMaterialDistributionSettingsGuiTask.class, new ITaskPacketFactory<SetMaterialDistributionSettingsGuiTask>() {
+			@Override
+			public SetMaterialDistributionSettingsGuiTask createTask() {
+				return new SetMaterialDistributionSettingsGuiTask();
+			}
+		});
+		TaskCodec.registerTaskType(10, SetMaterialPrioritiesGuiTask.class, new ITaskPacketFactory<SetMaterialPrioritiesGuiTask>() {
+			@Override
+			public SetMaterialPrioritiesGuiTask createTask() {
+				return new SetMaterialPrioritiesGuiTask();
+			}
+		});
+	}
+}
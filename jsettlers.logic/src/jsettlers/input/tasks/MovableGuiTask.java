@@ -3,36 +3,81 @@ package jsettlers.input.tasks;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.List;
 
+import jsettlers.network.client.task.packets.TaskCodec;
+
 /**
+ * A task for a selection of movables. The selection can be sent relative to a selection sent before with a {@link SelectionDelta}. Such tasks
+ * must be resolved with {@link #resolveSelection(SelectionTable)} before their selection can be accessed.
  * 
  * @author Andreas Eberle
  * 
  */
 public class MovableGuiTask extends SimpleGuiTask {
 	private List<Integer> selection;
+	private SelectionDelta selectionDelta;
 
 	public MovableGuiTask() {
 	}
 
 	public MovableGuiTask(EGuiAction action, byte playerId, List<Integer> selection) {
+		this(action, playerId, selection, null);
+	}
+
+	/**
+	 * 
+	 * @param action
+	 * @param playerId
+	 * @param selection
+	 *            The selection the delta resolves to.
+	 * @param selectionDelta
+	 *            The delta describing the selection or null.
+	 */
+	public MovableGuiTask(EGuiAction action, byte playerId, List<Integer> selection, SelectionDelta selectionDelta) {
 		super(action, playerId);
 		this.selection = selection;
+		this.selectionDelta = selectionDelta;
 	}
 
 	public List<Integer> getSelection() {
 		return selection;
 	}
 
+	public SelectionDelta getSelectionDelta() {
+		return selectionDelta;
+	}
+
+	/**
+	 * Applies the {@link SelectionDelta} of this task to the given table and sets the resulting selection.
+	 * 
+	 * @param table
+	 *            The selection table of the player that sent this task.
+	 */
+	public void resolveSelection(SelectionTable table) {
+		if (selectionDelta != null) {
+			selection = table.apply(selectionDelta, selection);
+		}
+	}
+
 	@Override
 	protected void serializeTask(DataOutputStream dos) throws IOException {
 		super.serializeTask(dos);
 
-		dos.writeInt(selection.size());
-		for (Integer curr : selection) {
-			dos.writeInt(curr);
+		if (TaskCodec.getVersion() < TaskCodec.SELECTION_DELTA_VERSION) {
+			TaskCodec.writeIds(dos, selection);
+		} else if (selectionDelta == null) {
+			TaskCodec.writeNumber(dos, 0);
+			TaskCodec.writeIds(dos, selection);
+		} else {
+			TaskCodec.writeNumber(dos, selectionDelta.getHandle());
+			dos.writeBoolean(selectionDelta.isDefinition());
+			if (selectionDelta.isDefinition()) {
+				TaskCodec.writeIds(dos, selection);
+			} else {
+				TaskCodec.writeIds(dos, selectionDelta.getRemovedIds());
+				TaskCodec.writeIds(dos, selectionDelta.getAddedIds());
+			}
 		}
 	}
 
@@ -40,10 +85,18 @@ public class MovableGuiTask extends SimpleGuiTask {
 	protected void deserializeTask(DataInputStream dis) throws IOException {
 		super.deserializeTask(dis);
 
-		int numberOfElements = dis.readInt();
-		selection = new ArrayList<Integer>(numberOfElements);
-		for (int i = 0; i < numberOfElements; i++) {
-			selection.add(dis.readInt());
+		int handle = TaskCodec.getVersion() < TaskCodec.SELECTION_DELTA_VERSION ? 0 : TaskCodec.readNumber(dis);
+		if (handle == 0) {
+			selection = TaskCodec.readIds(dis);
+			selectionDelta = null;
+		} else if (dis.readBoolean()) {
+			selection = TaskCodec.readIds(dis);
+			selectionDelta = SelectionDelta.createDefinition(handle);
+		} else {
+			selection = null;
+			List<Integer> removedIds = TaskCodec.readIds(dis);
+			List<Integer> addedIds = TaskCodec.readIds(dis);
+			selectionDelta = SelectionDelta.createDelta(handle, removedIds, addedIds);
 		}
 	}
 
@@ -52,6 +105,7 @@ public class MovableGuiTask extends SimpleGuiTask {
 		final int prime = 31;
 		int result = super.hashCode();
 		result = prime * result + ((selection == null) ? 0 : selection.hashCode());
+		result = prime * result + ((selectionDelta == null) ? 0 : selectionDelta.hashCode());
 		return result;
 	}
 
@@ -69,6 +123,11 @@ public class MovableGuiTask extends SimpleGuiTask {
 				return false;
 		} else if (!selection.equals(other.selection))
 			return false;
+		if (selectionDelta == null) {
+			if (other.selectionDelta != null)
+				return false;
+		} else if (!selectionDelta.equals(other.selectionDelta))
+			return false;
 		return true;
 	}
 }
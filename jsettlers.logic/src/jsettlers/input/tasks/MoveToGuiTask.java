@@ -23,6 +23,11 @@ public class MoveToGuiTask extends MovableGuiTask {
 		this.position = pos;
 	}
 
+	public MoveToGuiTask(byte playerId, ShortPoint2D pos, List<Integer> selection, SelectionDelta selectionDelta) {
+		super(EGuiAction.MOVE_TO, playerId, selection, selectionDelta);
+		this.position = pos;
+	}
+
 	public ShortPoint2D getPosition() {
 		return position;
 	}
@@ -0,0 +1,73 @@
+package jsettlers.input.tasks;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Describes a selection relative to a selection handle of the {@link SelectionTable} of the player. A definition sets the selection of the
+ * handle to the selection sent with the task, otherwise the selection is the one of the handle without the removed ids and with the added ids.
+ *
+ */
+public final class SelectionDelta {
+	private final int handle;
+	private final boolean definition;
+	private final List<Integer> removedIds;
+	private final List<Integer> addedIds;
+
+	private SelectionDelta(int handle, boolean definition, List<Integer> removedIds, List<Integer> addedIds) {
+		if (handle < 1 || handle > SelectionTable.MAX_HANDLES) {
+			throw new IllegalArgumentException("Invalid selection handle: " + handle);
+		}
+		this.handle = handle;
+		this.definition = definition;
+		this.removedIds = removedIds;
+		this.addedIds = addedIds;
+	}
+
+	public static SelectionDelta createDefinition(int handle) {
+		return new SelectionDelta(handle, true, Collections.<Integer> emptyList(), Collections.<Integer> emptyList());
+	}
+
+	public static SelectionDelta createDelta(int handle, List<Integer> removedIds, List<Integer> addedIds) {
+		return new SelectionDelta(handle, false, removedIds, addedIds);
+	}
+
+	public int getHandle() {
+		return handle;
+	}
+
+	public boolean isDefinition() {
+		return definition;
+	}
+
+	public List<Integer> getRemovedIds() {
+		return removedIds;
+	}
+
+	public List<Integer> getAddedIds() {
+		return addedIds;
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + handle;
+		result = prime * result + (definition ? 1231 : 1237);
+		result = prime * result + removedIds.hashCode();
+		result = prime * result + addedIds.hashCode();
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		SelectionDelta other = (SelectionDelta) obj;
+		return handle == other.handle && definition == other.definition && removedIds.equals(other.removedIds) && addedIds.equals(other.addedIds);
+	}
+}
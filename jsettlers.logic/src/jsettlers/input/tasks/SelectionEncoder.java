@@ -0,0 +1,69 @@
+package jsettlers.input.tasks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Creates the {@link SelectionDelta}s for the selections of the local player. It keeps a copy of the {@link SelectionTable} the other clients
+ * will have after executing the tasks sent so far, so a selection that has been sent before or differs only in a few ids can be sent as a small
+ * delta.
+ *
+ */
+public final class SelectionEncoder {
+	private final SelectionTable table;
+	private final long[] lastUses = new long[SelectionTable.MAX_HANDLES + 1];
+	private long uses = 0;
+
+	/**
+	 * 
+	 * @param table
+	 *            The selection table of the player when the game is started. It is copied.
+	 */
+	public SelectionEncoder(SelectionTable table) {
+		this.table = new SelectionTable(table);
+	}
+
+	/**
+	 * Creates the delta describing the given selection. If no handle is close to the selection, the least recently used handle is redefined.
+	 * 
+	 * @param selection
+	 * @return
+	 */
+	public SelectionDelta encode(List<Integer> selection) {
+		SelectionDelta delta = table.createSmallestDelta(selection);
+		if (delta == null) {
+			delta = SelectionDelta.createDefinition(getLeastRecentlyUsedHandle());
+		}
+
+		table.apply(delta, selection);
+		lastUses[delta.getHandle()] = ++uses;
+		return delta;
+	}
+
+	/**
+	 * 
+	 * @param handle
+	 * @return The selection of the given handle in the order the other clients will use after executing the tasks sent so far.
+	 */
+	public List<Integer> getSelection(int handle) {
+		int[] ids = table.getSelection(handle);
+		List<Integer> selection = new ArrayList<Integer>(ids.length);
+		for (int id : ids) {
+			selection.add(id);
+		}
+		return selection;
+	}
+
+	private int getLeastRecentlyUsedHandle() {
+		int leastRecentlyUsed = 1;
+		for (int handle = 1; handle <= SelectionTable.MAX_HANDLES; handle++) {
+			if (!table.isDefined(handle)) {
+				return handle;
+			}
+			if (lastUses[handle] < lastUses[leastRecentlyUsed]) {
+				leastRecentlyUsed = handle;
+			}
+		}
+		return leastRecentlyUsed;
+	}
+}
@@ -0,0 +1,120 @@
+package jsettlers.input.tasks;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The selections of the handles of one player. Every client applies the {@link SelectionDelta}s of a player's tasks in the order the tasks are
+ * executed, so all clients resolve a delta to the same selection.
+ *
+ */
+public final class SelectionTable implements Serializable {
+	private static final long serialVersionUID = -2710375813574029341L;
+
+	public static final int MAX_HANDLES = 16;
+
+	private final int[][] selections = new int[MAX_HANDLES + 1][];
+
+	public SelectionTable() {
+	}
+
+	/**
+	 * Creates a copy of the given table.
+	 * 
+	 * @param table
+	 */
+	public SelectionTable(SelectionTable table) {
+		System.arraycopy(table.selections, 0, selections, 0, selections.length); // the arrays are never changed, so they can be shared
+	}
+
+	/**
+	 * Applies the delta to the selection of its handle.
+	 * 
+	 * @param delta
+	 * @param definedSelection
+	 *            The selection sent with the task if the delta is a definition.
+	 * @return The resolved selection.
+	 */
+	public List<Integer> apply(SelectionDelta delta, List<Integer> definedSelection) {
+		List<Integer> selection;
+		if (delta.isDefinition()) {
+			selection = definedSelection;
+		} else {
+			Set<Integer> removedIds = new HashSet<Integer>(delta.getRemovedIds());
+			selection = new ArrayList<Integer>();
+			for (int id : getSelection(delta.getHandle())) {
+				if (!removedIds.contains(id)) {
+					selection.add(id);
+				}
+			}
+			selection.addAll(delta.getAddedIds());
+		}
+
+		int[] stored = new int[selection.size()];
+		for (int i = 0; i < stored.length; i++) {
+			stored[i] = selection.get(i);
+		}
+		selections[delta.getHandle()] = stored;
+		return selection;
+	}
+
+	/**
+	 * 
+	 * @param handle
+	 * @return The ids of the selection of the given handle. If the handle has not been defined, the array is empty.
+	 */
+	public int[] getSelection(int handle) {
+		int[] selection = selections[handle];
+		return selection != null ? selection : new int[0];
+	}
+
+	public boolean isDefined(int handle) {
+		return selections[handle] != null;
+	}
+
+	/**
+	 * Creates the delta with the fewest ids describing the given selection.
+	 * 
+	 * @param selection
+	 * @return The delta with the fewest ids or null if no defined handle is closer to the selection than an empty one.
+	 */
+	SelectionDelta createSmallestDelta(List<Integer> selection) {
+		Set<Integer> selectedIds = new HashSet<Integer>(selection);
+		SelectionDelta best = null;
+		int bestSize = selection.size();
+
+		for (int handle = 1; handle <= MAX_HANDLES; handle++) {
+			int[] handleSelection = selections[handle];
+			if (handleSelection == null) {
+				continue;
+			}
+
+			Set<Integer> handleIds = new HashSet<Integer>();
+			List<Integer> removedIds = new ArrayList<Integer>();
+			for (int id : handleSelection) {
+				handleIds.add(id);
+				if (!selectedIds.contains(id)) {
+					removedIds.add(id);
+				}
+			}
+			if (removedIds.size() >= bestSize) {
+				continue;
+			}
+
+			List<Integer> addedIds = new ArrayList<Integer>();
+			for (Integer id : selection) {
+				if (!handleIds.contains(id)) {
+					addedIds.add(id);
+				}
+			}
+			if (removedIds.size() + addedIds.size() < bestSize) {
+				best = SelectionDelta.createDelta(handle, removedIds, addedIds);
+				bestSize = removedIds.size() + addedIds.size();
+			}
+		}
+		return best;
+	}
+}
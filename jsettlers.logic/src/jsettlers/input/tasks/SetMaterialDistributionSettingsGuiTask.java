@@ -8,6 +8,7 @@ import java.util.Arrays;
 import jsettlers.common.buildings.EBuildingType;
 import jsettlers.common.material.EMaterialType;
 import jsettlers.common.position.ShortPoint2D;
+import jsettlers.network.client.task.packets.TaskCodec;
 
 /**
  * This task is used to set the distribution settings for a material in a manager.
@@ -78,7 +79,7 @@ public class SetMaterialDistributionSettingsGuiTask extends SimpleGuiTask {
 		SimpleGuiTask.serializePosition(dos, managerPosition);
 		dos.writeByte(materialType.ordinal);
 
-		dos.writeInt(probabilities.length);
+		TaskCodec.writeNumber(dos, probabilities.length);
 		for (int i = 0; i < probabilities.length; i++) {
 			dos.writeFloat(probabilities[i]);
 		}
@@ -90,7 +91,7 @@ public class SetMaterialDistributionSettingsGuiTask extends SimpleGuiTask {
 		managerPosition = SimpleGuiTask.deserializePosition(dis);
 		materialType = EMaterialType.values[dis.readByte()];
 
-		int length = dis.readInt();
+		int length = TaskCodec.readNumber(dis);
 		probabilities = new float[length];
 		for (int i = 0; i < length; i++) {
 			probabilities[i] = dis.readFloat();
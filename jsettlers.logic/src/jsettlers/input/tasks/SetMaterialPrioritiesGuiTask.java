@@ -7,6 +7,7 @@ import java.util.Arrays;
 
 import jsettlers.common.material.EMaterialType;
 import jsettlers.common.position.ShortPoint2D;
+import jsettlers.network.client.task.packets.TaskCodec;
 
 /**
  * This {@link Action} is used to set the priority order of {@link EMaterialType}s.
@@ -58,7 +59,7 @@ public class SetMaterialPrioritiesGuiTask extends SimpleGuiTask {
 		super.serializeTask(dos);
 		SimpleGuiTask.serializePosition(dos, managerPosition);
 
-		dos.writeInt(materialTypeForPriority.length);
+		TaskCodec.writeNumber(dos, materialTypeForPriority.length);
 		for (int i = 0; i < materialTypeForPriority.length; i++) {
 			dos.writeByte(materialTypeForPriority[i].ordinal);
 		}
@@ -69,7 +70,7 @@ public class SetMaterialPrioritiesGuiTask extends SimpleGuiTask {
 		super.deserializeTask(dis);
 		managerPosition = SimpleGuiTask.deserializePosition(dis);
 
-		int length = dis.readInt();
+		int length = TaskCodec.readNumber(dis);
 		materialTypeForPriority = new EMaterialType[length];
 		for (int i = 0; i < length; i++) {
 			materialTypeForPriority[i] = EMaterialType.values[dis.readByte()];
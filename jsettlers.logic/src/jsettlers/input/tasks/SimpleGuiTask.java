@@ -5,6 +5,7 @@ import java.io.DataOutputStream;
 import java.io.IOException;
 
 import jsettlers.common.position.ShortPoint2D;
+import jsettlers.network.client.task.packets.TaskCodec;
 import jsettlers.network.client.task.packets.TaskPacket;
 
 /**
@@ -34,13 +35,13 @@ public class SimpleGuiTask extends TaskPacket {
 
 	@Override
 	protected void serializeTask(DataOutputStream dos) throws IOException {
-		dos.writeInt(guiAction.ordinal());
+		TaskCodec.writeNumber(dos, guiAction.ordinal());
 		dos.writeByte(playerId);
 	}
 
 	@Override
 	protected void deserializeTask(DataInputStream dis) throws IOException {
-		guiAction = EGuiAction.values[dis.readInt()];
+		guiAction = EGuiAction.values[TaskCodec.readNumber(dis)];
 		playerId = dis.readByte();
 	}
 
@@ -70,11 +71,13 @@ public class SimpleGuiTask extends TaskPacket {
 	}
 
 	public static void serializePosition(DataOutputStream dos, ShortPoint2D position) throws IOException {
-		dos.writeShort(position.x);
-		dos.writeShort(position.y);
+		TaskCodec.writeCoordinate(dos, position.x);
+		TaskCodec.writeCoordinate(dos, position.y);
 	}
 
 	public static ShortPoint2D deserializePosition(DataInputStream dis) throws IOException {
-		return new ShortPoint2D(dis.readShort(), dis.readShort());
+		short x = TaskCodec.readCoordinate(dis);
+		short y = TaskCodec.readCoordinate(dis);
+		return new ShortPoint2D(x, y);
 	}
 }
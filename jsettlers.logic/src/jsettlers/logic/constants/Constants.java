@@ -16,6 +16,47 @@ public final class Constants {
 
 	public static final float TILE_PATHFINDER_COST = 1.0f;
 
+	/**
+	 * If true, the movables use the hierarchical pathfinder that searches long paths on an abstract graph of the map first. Otherwise every path
+	 * is searched directly on the map.
+	 * <p />
+	 * The hierarchical paths are only approximately the shortest ones, so enabling this changes how games are played and breaks their replays.
+	 */
+	public static final boolean USE_HIERARCHICAL_PATHFINDER = false;
+
+	/**
+	 * If true, the paths of move orders are calculated by worker threads. The movables wait {@link #PATH_REQUEST_DELIVERY_DELAY} ms for the path,
+	 * so all clients use it at the same game time.
+	 * <p />
+	 * The movables start moving later, so enabling this changes how games are played and breaks their replays.
+	 */
+	public static final boolean USE_ASYNCHRONOUS_PATH_REQUESTS = false;
+
+	public static final int PATH_REQUEST_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+
+	/**
+	 * If true, the material transport jobs of a partition are collected and assigned together, so that the total walking distance of the
+	 * bearers is reduced. Otherwise every job is given to the bearer closest to its offer.
+	 * <p />
+	 * The batches assign the jobs to other bearers, so enabling this changes how games are played and breaks their replays.
+	 */
+	public static final boolean USE_BATCHED_MATERIAL_DISTRIBUTION = false;
+
+	/**
+	 * If true, savegames are written deflated. The grids compress very well, so this makes savegames a lot smaller at little cost.
+	 */
+	public static boolean COMPRESS_SAVEGAMES = true;
+
+	/**
+	 * Game time in ms between two autosaves. The autosaves are written in the background. If this is 0, the game isn't saved automatically.
+	 */
+	public static int AUTOSAVE_PERIOD = 0;
+
+	/**
+	 * Number of files the autosaves are written to in turn. An autosave replaces the oldest one, so they don't fill the save directory.
+	 */
+	public static final int AUTOSAVE_SLOTS = 3;
+
 	public static final byte STACK_SIZE = 8;
 
 	public static final short WIDTH = 400;
@@ -27,6 +68,11 @@ public final class Constants {
 
 	public static final short MOVABLE_INTERRUPT_PERIOD = 1000 / MOVABLE_INTERRUPTS_PER_SECOND;
 
+	/**
+	 * Game time in ms between requesting a path with a move order and using it.
+	 */
+	public static final short PATH_REQUEST_DELIVERY_DELAY = 2 * MOVABLE_INTERRUPT_PERIOD;
+
 	/**
 	 * Step duration in ms
 	 */
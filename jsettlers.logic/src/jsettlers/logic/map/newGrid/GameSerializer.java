@@ -1,35 +1,124 @@
 package jsettlers.logic.map.newGrid;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
 
 import jsettlers.common.map.MapLoadException;
+import jsettlers.input.PlayerState;
 import jsettlers.logic.constants.MatchConstants;
+import jsettlers.logic.map.save.IGameCreator.MainGridWithUiSettings;
+import jsettlers.logic.timer.RescheduleTimer;
 import jsettlers.network.synchronic.random.RandomSingleton;
 
 /**
- * This class serializes and deserializes the {@link MainGrid} and therefore the complete game state.
+ * This class saves and loads the {@link MainGrid} and therefore the complete game state.
+ * <p />
+ * A savegame starts with {@link #MAGIC}, the {@link #FORMAT_VERSION} and flags telling if the rest is deflated. The rest contains the game time,
+ * the random number generator, the player states, the object graph of the grid and the timer. The big arrays of the landscape, flags and
+ * partitions grids are written by the grids as raw blocks (see {@link GridBlocks}) instead of serialized arrays, because that is a lot faster
+ * and they compress well.
  * 
  * @author Andreas Eberle
  * 
  */
 public class GameSerializer {
+	public static final int MAGIC = 0x4A53474D; // "JSGM"
+	public static final short FORMAT_VERSION = 2;
 
-	private static final long SAVE_STACK_SIZE = 1024 * 1024; // size of the save thread's stack
+	private static final byte FLAG_COMPRESSED = 1;
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private static final long SAVE_STACK_SIZE = 1024 * 1024; // size of the save thread's stack, the object graph is written recursively
 	private static final long LOAD_STACK_SIZE = 1024 * 1024; // size of the load thread's stack
 
 	/**
-	 * Saves the grid to the given output file.
+	 * Saves the game to the given stream. The stream isn't closed.
 	 * 
+	 * @param playerStates
+	 *            The ui states of the players.
 	 * @param grid
 	 *            The grid to use.
 	 * @param out
-	 *            The output file/stream for the game.
+	 *            The output stream for the game.
+	 * @param compress
+	 *            If true, everything after the format version is deflated.
+	 * @throws IOException
+	 */
+	public void save(PlayerState[] playerStates, MainGrid grid, OutputStream out, boolean compress) throws IOException {
+		DeflaterOutputStream deflaterStream = writeHeader(out, compress);
+		writeGame(playerStates, grid, deflaterStream != null ? deflaterStream : out);
+		if (deflaterStream != null) {
+			deflaterStream.finish();
+		}
+	}
+
+	/**
+	 * Takes a snapshot of the game that can be written later by {@link #write(GameSnapshot, OutputStream, boolean)}, e.g. by another thread. The
+	 * snapshot contains the serialized game, so it isn't affected by the game running on. It must be taken by the clock thread, like
+	 * {@link #save(PlayerState[], MainGrid, OutputStream, boolean)} is.
+	 * 
+	 * @param playerStates
+	 *            The ui states of the players.
+	 * @param grid
+	 *            The grid to use.
+	 * @return The snapshot.
+	 * @throws IOException
+	 */
+	public GameSnapshot takeSnapshot(PlayerState[] playerStates, MainGrid grid) throws IOException {
+		ByteArrayOutputStream data = new ByteArrayOutputStream(BUFFER_SIZE);
+		writeGame(playerStates, grid, data);
+		return new GameSnapshot(data);
+	}
+
+	/**
+	 * Writes the given snapshot in the same format as {@link #save(PlayerState[], MainGrid, OutputStream, boolean)}. The stream isn't closed.
+	 * 
+	 * @param snapshot
+	 * @param out
+	 * @param compress
+	 *            If true, everything after the format version is deflated.
 	 * @throws IOException
 	 */
-	public void save(MainGrid grid, final ObjectOutputStream oos) throws IOException {
-		GameSaveTask runnable = new GameSaveTask(grid, oos);
+	public void write(GameSnapshot snapshot, OutputStream out, boolean compress) throws IOException {
+		DeflaterOutputStream deflaterStream = writeHeader(out, compress);
+		if (deflaterStream != null) {
+			snapshot.writeTo(deflaterStream);
+			deflaterStream.finish();
+		} else {
+			snapshot.writeTo(out);
+			out.flush();
+		}
+	}
+
+	/**
+	 * 
+	 * @return The stream deflating the rest of the savegame or null if it isn't compressed.
+	 */
+	private static DeflaterOutputStream writeHeader(OutputStream out, boolean compress) throws IOException {
+		DataOutputStream headerStream = new DataOutputStream(out);
+		headerStream.writeInt(MAGIC);
+		headerStream.writeShort(FORMAT_VERSION);
+		headerStream.writeByte(compress ? FLAG_COMPRESSED : 0);
+		headerStream.flush();
+
+		return compress ? new DeflaterOutputStream(out, new Deflater(Deflater.BEST_SPEED), BUFFER_SIZE) : null;
+	}
+
+	private void writeGame(PlayerState[] playerStates, MainGrid grid, OutputStream bodyStream) throws IOException {
+		ObjectOutputStream oos = new ObjectOutputStream(new BufferedOutputStream(bodyStream, BUFFER_SIZE));
+		GameSaveTask runnable = new GameSaveTask(playerStates, grid, oos);
 		Thread t = new Thread(null, runnable, "SaveThread", SAVE_STACK_SIZE);
 		t.start();
 		try {
@@ -45,29 +134,56 @@ public class GameSerializer {
 		oos.flush();
 	}
 
-	public MainGrid load(final ObjectInputStream ois) throws MapLoadException {
+	/**
+	 * Loads a game saved by {@link #save(PlayerState[], MainGrid, OutputStream, boolean)}. The {@link RescheduleTimer}, the random number
+	 * generator and the game time of the clock are set to the loaded ones.
+	 * 
+	 * @param in
+	 *            The stream to read. It isn't closed.
+	 * @return The loaded grid and player states.
+	 * @throws MapLoadException
+	 *             If the savegame couldn't be read or has been written in an unsupported format.
+	 */
+	public MainGridWithUiSettings load(InputStream in) throws MapLoadException {
 		try {
-			LoadRunnable runnable = new LoadRunnable(ois);
+			DataInputStream headerStream = new DataInputStream(in);
+			int magic = headerStream.readInt();
+			short version = headerStream.readShort();
+			byte flags = headerStream.readByte();
+			if (magic != MAGIC || version != FORMAT_VERSION) {
+				throw new MapLoadException("Unsupported savegame format. Version: " + version);
+			}
+
+			InputStream bodyStream = in;
+			if ((flags & FLAG_COMPRESSED) != 0) {
+				bodyStream = new InflaterInputStream(in, new Inflater(), BUFFER_SIZE);
+			}
+
+			LoadRunnable runnable = new LoadRunnable(new ObjectInputStream(new BufferedInputStream(bodyStream, BUFFER_SIZE)));
 			Thread t = new Thread(null, runnable, "LoadThread", LOAD_STACK_SIZE);
 			t.start();
 			t.join();
 
-			if (runnable.grid != null) {
-				return runnable.grid;
+			if (runnable.result != null) {
+				return runnable.result;
 			} else {
 				throw new MapLoadException("Error loading map.", runnable.exception);
 			}
+		} catch (MapLoadException e) {
+			throw e;
 		} catch (Throwable t) {
 			throw new MapLoadException(t);
 		}
 	}
 
-	private final class GameSaveTask implements Runnable {
+	private static final class GameSaveTask implements Runnable {
+		private final PlayerState[] playerStates;
 		private final MainGrid grid;
 		private final ObjectOutputStream oos;
 		Throwable exception = null;
 
-		private GameSaveTask(MainGrid grid, ObjectOutputStream oos) {
+		private GameSaveTask(PlayerState[] playerStates, MainGrid grid, ObjectOutputStream oos) {
+			this.playerStates = playerStates;
 			this.grid = grid;
 			this.oos = oos;
 		}
@@ -75,11 +191,13 @@ public class GameSerializer {
 		@Override
 		public void run() {
 			try {
-				grid.waitForThreadsToFinish();
+				grid.finishBackgroundWork();
 
 				oos.writeInt(MatchConstants.clock.getTime());
 				RandomSingleton.serialize(oos);
+				oos.writeObject(playerStates);
 				oos.writeObject(grid);
+				RescheduleTimer.saveTo(oos);
 			} catch (Throwable t) {
 				t.printStackTrace();
 				this.exception = t;
@@ -89,7 +207,7 @@ public class GameSerializer {
 
 	private static final class LoadRunnable implements Runnable {
 		private final ObjectInputStream ois;
-		MainGrid grid = null;
+		MainGridWithUiSettings result = null;
 		Throwable exception = null;
 
 		private LoadRunnable(ObjectInputStream ois) {
@@ -101,7 +219,11 @@ public class GameSerializer {
 			try {
 				MatchConstants.clock.setTime(ois.readInt());
 				RandomSingleton.deserialize(ois);
-				grid = (MainGrid) ois.readObject();
+				PlayerState[] playerStates = (PlayerState[]) ois.readObject();
+				MainGrid grid = (MainGrid) ois.readObject();
+				RescheduleTimer.loadFrom(ois);
+
+				result = new MainGridWithUiSettings(grid, playerStates);
 			} catch (Throwable t) {
 				t.printStackTrace();
 				this.exception = t;
@@ -0,0 +1,30 @@
+package jsettlers.logic.map.newGrid;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A snapshot of the game taken by {@link GameSerializer#takeSnapshot(jsettlers.input.PlayerState[], MainGrid)}. It holds the uncompressed
+ * serialized game, so it can be compressed and written by another thread while the game goes on.
+ *
+ */
+public final class GameSnapshot {
+	private final ByteArrayOutputStream data;
+
+	GameSnapshot(ByteArrayOutputStream data) {
+		this.data = data;
+	}
+
+	/**
+	 *
+	 * @return The size of the snapshot in bytes.
+	 */
+	public int getSize() {
+		return data.size();
+	}
+
+	void writeTo(OutputStream out) throws IOException {
+		data.writeTo(out);
+	}
+}
@@ -0,0 +1,113 @@
+package jsettlers.logic.map.newGrid;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Writes and reads the arrays of the grids as raw blocks of big endian values prefixed with their length. The arrays are converted in chunks of
+ * {@link #CHUNK_SIZE} bytes, so the values don't need to be written one by one.
+ * <p />
+ * Grids of objects are mostly empty, so only their occupied positions are written as records of the index and the object.
+ *
+ */
+public final class GridBlocks {
+	private static final int CHUNK_SIZE = 64 * 1024;
+
+	private GridBlocks() {
+	}
+
+	public static void writeBytes(DataOutput out, byte[] values) throws IOException {
+		out.writeInt(values.length);
+		out.write(values);
+	}
+
+	public static byte[] readBytes(DataInput in) throws IOException {
+		byte[] values = new byte[in.readInt()];
+		in.readFully(values);
+		return values;
+	}
+
+	public static void writeSparseObjects(ObjectOutputStream oos, Object[] objects) throws IOException {
+		int count = 0;
+		for (Object object : objects) {
+			if (object != null) {
+				count++;
+			}
+		}
+
+		oos.writeInt(count);
+		for (int index = 0; index < objects.length; index++) {
+			if (objects[index] != null) {
+				oos.writeInt(index);
+				oos.writeObject(objects[index]);
+			}
+		}
+	}
+
+	/**
+	 * Reads the records written by {@link #writeSparseObjects(ObjectOutputStream, Object[])} into the given array.
+	 * 
+	 * @param ois
+	 * @param objects
+	 *            The array to fill. It must have the length of the written array.
+	 * @throws IOException
+	 * @throws ClassNotFoundException
+	 */
+	public static void readSparseObjects(ObjectInputStream ois, Object[] objects) throws IOException, ClassNotFoundException {
+		int count = ois.readInt();
+		for (int i = 0; i < count; i++) {
+			int index = ois.readInt();
+			objects[index] = ois.readObject();
+		}
+	}
+
+	public static void writeShorts(DataOutput out, short[] values) throws IOException {
+		out.writeInt(values.length);
+		ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE);
+		for (int offset = 0; offset < values.length; offset += CHUNK_SIZE / 2) {
+			int length = Math.min(CHUNK_SIZE / 2, values.length - offset);
+			buffer.clear();
+			buffer.asShortBuffer().put(values, offset, length);
+			out.write(buffer.array(), 0, length * 2);
+		}
+	}
+
+	public static short[] readShorts(DataInput in) throws IOException {
+		short[] values = new short[in.readInt()];
+		ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE);
+		for (int offset = 0; offset < values.length; offset += CHUNK_SIZE / 2) {
+			int length = Math.min(CHUNK_SIZE / 2, values.length - offset);
+			in.readFully(buffer.array(), 0, length * 2);
+			buffer.clear();
+			buffer.asShortBuffer().get(values, offset, length);
+		}
+		return values;
+	}
+
+	public static void writeInts(DataOutput out, int[] values) throws IOException {
+		out.writeInt(values.length);
+		ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE);
+		for (int offset = 0; offset < values.length; offset += CHUNK_SIZE / 4) {
+			int length = Math.min(CHUNK_SIZE / 4, values.length - offset);
+			buffer.clear();
+			buffer.asIntBuffer().put(values, offset, length);
+			out.write(buffer.array(), 0, length * 4);
+		}
+	}
+
+	public static int[] readInts(DataInput in) throws IOException {
+		int[] values = new int[in.readInt()];
+		ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE);
+		for (int offset = 0; offset < values.length; offset += CHUNK_SIZE / 4) {
+			int length = Math.min(CHUNK_SIZE / 4, values.length - offset);
+			in.readFully(buffer.array(), 0, length * 4);
+			buffer.clear();
+			buffer.asIntBuffer().get(values, offset, length);
+		}
+		return values;
+	}
+}
@@ -15,13 +15,17 @@ import jsettlers.algorithms.fogofwar.IFogOfWarGrid;
 import jsettlers.algorithms.fogofwar.IViewDistancable;
 import jsettlers.algorithms.landmarks.EnclosedBlockedAreaFinderAlgorithm;
 import jsettlers.algorithms.landmarks.IEnclosedBlockedAreaFinderGrid;
+import jsettlers.algorithms.partitions.IBlockingProvider;
 import jsettlers.algorithms.path.IPathCalculatable;
 import jsettlers.algorithms.path.Path;
 import jsettlers.algorithms.path.area.IInAreaFinderMap;
 import jsettlers.algorithms.path.area.InAreaFinder;
 import jsettlers.algorithms.path.astar.AbstractAStar;
 import jsettlers.algorithms.path.astar.BucketQueueAStar;
+import jsettlers.algorithms.path.astar.HierarchicalAStar;
 import jsettlers.algorithms.path.astar.normal.IAStarPathMap;
+import jsettlers.algorithms.path.async.PathRequest;
+import jsettlers.algorithms.path.async.PathRequestService;
 import jsettlers.algorithms.path.dijkstra.DijkstraAlgorithm;
 import jsettlers.algorithms.path.dijkstra.IDijkstraPathMap;
 import jsettlers.algorithms.previewimage.PreviewImageCreator;
@@ -32,6 +36,7 @@ import jsettlers.common.buildings.IBuilding;
 import jsettlers.common.landscape.ELandscapeType;
 import jsettlers.common.landscape.EResourceType;
 import jsettlers.common.map.EDebugColorModes;
+import jsettlers.common.map.IFogOfWarChangesProvider;
 import jsettlers.common.map.IGraphicsBackgroundListener;
 import jsettlers.common.map.IGraphicsGrid;
 import jsettlers.common.map.IMapData;
@@ -68,6 +73,7 @@ import jsettlers.logic.buildings.workers.WorkerBuilding;
 import jsettlers.logic.constants.Constants;
 import jsettlers.logic.constants.MatchConstants;
 import jsettlers.logic.map.newGrid.flags.FlagsGrid;
+import jsettlers.logic.map.newGrid.flags.IBlockingChangedListener;
 import jsettlers.logic.map.newGrid.landscape.LandscapeGrid;
 import jsettlers.logic.map.newGrid.movable.MovableGrid;
 import jsettlers.logic.map.newGrid.objects.AbstractHexMapObject;
@@ -94,14 +100,20 @@ import jsettlers.logic.objects.arrow.ArrowObject;
 import jsettlers.logic.objects.stack.StackMapObject;
 import jsettlers.logic.player.Player;
 import jsettlers.logic.stack.IRequestsStackGrid;
+import jsettlers.network.synchronic.random.RandomSingleton;
+import jsettlers.network.synchronic.timer.IGameStateHasher;
 
 /**
  * This is the main grid offering an interface for interacting with the grid.
  * 
  * @author Andreas Eberle
  */
-public final class MainGrid implements Serializable {
+public final class MainGrid implements Serializable, IGameStateHasher {
 	private static final long serialVersionUID = 3824511313693431423L;
+	/**
+	 * Every checkpoint only hashes every n-th row of the grids, so the whole grid is hashed once every n checkpoints.
+	 */
+	private static final int STATE_HASH_GRID_STRIPES = 4;
 
 	final String mapId;
 	final String mapName;
@@ -154,6 +166,7 @@ public final class MainGrid implements Serializable {
 		this.guiInputGrid = new GUIInputGrid();
 
 		this.partitionsGrid.setPlayerChangedListener(new PlayerChangedListener());
+		this.flagsGrid.setTransientBlockingChangedListener(movablePathfinderGrid);
 		this.enclosedBlockedAreaFinderGrid = new EnclosedBlockedAreaFinderGrid();
 	}
 
@@ -180,17 +193,86 @@ public final class MainGrid implements Serializable {
 
 	public void stopThreads() {
 		bordersThread.cancel();
+		movablePathfinderGrid.stopPathRequestService();
 		partitionsGrid.cancelThreads();
 		if (fogOfWar != null) {
 			fogOfWar.cancel();
 		}
 	}
 
-	public void waitForThreadsToFinish() {
-		try {
-			Thread.sleep(300); // TODO @Andreas Eberle: Wait for the threads to finish their work
-		} catch (InterruptedException e) {
+	/**
+	 * Prepares the grid to be run without its background threads, e.g. for a headless replay. The path requests are calculated synchronously
+	 * and the borders and partitions need to be updated by calling {@link #calculateBorders()} and {@link #normalizePartitions()}. The threads must
+	 * not be started with {@link #startThreads()} afterwards.
+	 */
+	public void runBackgroundTasksSynchronously() {
+		movablePathfinderGrid.useSynchronousPathRequests();
+	}
+
+	/**
+	 * Calculates the borders of all positions that changed their player since the last call. This replaces the borders thread.
+	 */
+	public void calculateBorders() {
+		bordersThread.calculateQueuedPositions();
+	}
+
+	/**
+	 * Normalizes the partitions if there are too much merged partitions. This replaces the partitions normalizer thread.
+	 */
+	public void normalizePartitions() {
+		partitionsGrid.normalizePartitions();
+	}
+
+	/**
+	 * Calculates the hash of the game state from the random number generator, the movables, the buildings, the offers of the partitions and one
+	 * stripe of the landscape, blocking and player grids. The data written by other threads, like the fog of war, is left out.
+	 */
+	@Override
+	public long calculateStateHash(int checkpoint) {
+		StateHashBuilder stateHash = new StateHashBuilder();
+		stateHash.add(RandomSingleton.getNumberOfDraws());
+
+		for (Movable movable : Movable.getAllMovables()) {
+			ShortPoint2D pos = movable.getPos();
+			stateHash.add(movable.getID());
+			stateHash.add(movable.getMovableType().ordinal());
+			stateHash.add(movable.getPlayerId());
+			stateHash.add(pos.x);
+			stateHash.add(pos.y);
+			stateHash.add(movable.getHealth());
+		}
+
+		for (Building building : Building.getAllBuildings()) {
+			ShortPoint2D pos = building.getPos();
+			stateHash.add(building.getBuildingType().ordinal());
+			stateHash.add(building.getPlayerId());
+			stateHash.add(pos.x);
+			stateHash.add(pos.y);
+			stateHash.add(building.getStateProgress());
+		}
+
+		partitionsGrid.addToStateHash(stateHash);
+
+		for (int y = checkpoint % STATE_HASH_GRID_STRIPES; y < height; y += STATE_HASH_GRID_STRIPES) {
+			for (int x = 0; x < width; x++) {
+				stateHash.add(landscapeGrid.getHeightAt(x, y));
+				stateHash.add(flagsGrid.isBlocked(x, y));
+				stateHash.add(partitionsGrid.getPlayerIdAt(x, y));
+			}
 		}
+
+		return stateHash.getHash();
+	}
+
+	/**
+	 * Waits until the borders thread has calculated the borders still queued for it, so that they are contained in a savegame. The borders
+	 * thread keeps running and the positions are not calculated by the calling thread, because both threads would write the same borders.
+	 * <p />
+	 * The partitions normalizer and the path requests are not waited for here: The partitions are locked against the normalizer thread while they
+	 * are saved and the path requests wait for their paths when they are serialized.
+	 */
+	public void finishBackgroundWork() {
+		bordersThread.waitForQueuedPositions();
 	}
 
 	public MainGrid(String mapId, String mapName, IMapData mapGrid, boolean[] availablePlayers) {
@@ -374,9 +456,14 @@ public final class MainGrid implements Serializable {
 				&& (!pathCalculatable.needsPlayersGround() || pathCalculatable.getPlayerId() == partitionsGrid.getPlayerIdAt(x, y));
 	}
 
-	final class PathfinderGrid implements IAStarPathMap, IDijkstraPathMap, IInAreaFinderMap, Serializable {
+	final class PathfinderGrid implements IAStarPathMap, IDijkstraPathMap, IInAreaFinderMap, IBlockingProvider, Serializable {
 		private static final long serialVersionUID = -2775530442375843213L;
 
+		@Override
+		public boolean isBlocked(int x, int y) {
+			return flagsGrid.isBlocked(x, y);
+		}
+
 		@Override
 		public boolean isBlocked(IPathCalculatable requester, int x, int y) {
 			return flagsGrid.isBlocked(x, y) || (requester.needsPlayersGround() && requester.getPlayerId() != partitionsGrid.getPlayerIdAt(x, y));
@@ -444,7 +531,7 @@ public final class MainGrid implements Serializable {
 				return hasSamePlayer(x, y, pathCalculable) && hasNeighbourLandscape(x, y, ELandscapeType.WATER1);
 
 			case NON_BLOCKED_OR_PROTECTED:
-				return !(flagsGrid.isProtected(x, y) || flagsGrid.isBlocked(x, y))
+				return !flagsGrid.isBlockedOrProtected(x, y)
 						&& (!pathCalculable.needsPlayersGround() || hasSamePlayer(x, y, pathCalculable)) && movableGrid.getMovableAt(x, y) == null;
 
 			case SOLDIER_BOWMAN:
@@ -593,7 +680,7 @@ public final class MainGrid implements Serializable {
 
 	}
 
-	final class GraphicsGrid implements IGraphicsGrid {
+	final class GraphicsGrid implements IGraphicsGrid, IFogOfWarChangesProvider {
 		@Override
 		public final short getHeight() {
 			return height;
@@ -679,6 +766,11 @@ public final class MainGrid implements Serializable {
 			return fogOfWar.isVisible(x, y);
 		}
 
+		@Override
+		public final boolean pollFogOfWarChanges(int[] changedMinX, int[] changedMaxX) {
+			return fogOfWar.pollFogOfWarChanges(changedMinX, changedMaxX);
+		}
+
 		@Override
 		public final void setBackgroundListener(IGraphicsBackgroundListener backgroundListener) {
 			landscapeGrid.setBackgroundListener(backgroundListener);
@@ -686,7 +778,9 @@ public final class MainGrid implements Serializable {
 
 		@Override
 		public int nextDrawableX(int x, int y, int maxX) {
-			return x + 1;
+			int next = objectsGrid.nextObjectX(x + 1, y, maxX);
+			next = movableGrid.nextMovableX(x + 1, y, next - 1);
+			return flagsGrid.nextBorderX(x + 1, y, next - 1);
 		}
 
 		@Override
@@ -917,7 +1011,7 @@ public final class MainGrid implements Serializable {
 		}
 	}
 
-	final class MovablePathfinderGrid extends AbstractNewMovableGrid {
+	final class MovablePathfinderGrid extends AbstractNewMovableGrid implements IBlockingChangedListener {
 		private static final long serialVersionUID = 4006228724969442801L;
 
 		private transient PathfinderGrid pathfinderGrid;
@@ -926,6 +1020,11 @@ public final class MainGrid implements Serializable {
 		transient DijkstraAlgorithm dijkstra; // not private, because it's used by BuildingsGrid
 		private transient InAreaFinder inAreaFinder;
 
+		private transient PathRequestService pathRequestService;
+		private transient int blockingVersion;
+		private transient int blockedSnapshotVersion;
+		private transient IBlockingProvider blockedSnapshot;
+
 		public MovablePathfinderGrid() {
 			initPathfinders();
 		}
@@ -938,9 +1037,25 @@ public final class MainGrid implements Serializable {
 		private final void initPathfinders() {
 			pathfinderGrid = new PathfinderGrid();
 
-			aStar = new BucketQueueAStar(pathfinderGrid, width, height);
+			if (Constants.USE_HIERARCHICAL_PATHFINDER) {
+				aStar = new HierarchicalAStar(pathfinderGrid, pathfinderGrid, width, height);
+			} else {
+				aStar = new BucketQueueAStar(pathfinderGrid, width, height);
+			}
 			dijkstra = new DijkstraAlgorithm(pathfinderGrid, aStar, width, height);
 			inAreaFinder = new InAreaFinder(pathfinderGrid, width, height);
+
+			pathRequestService = new PathRequestService(width, height, Constants.PATH_REQUEST_THREADS);
+			blockingVersion = 0;
+			blockedSnapshotVersion = -1;
+		}
+
+		@Override
+		public final void blockingChanged(int x, int y, boolean newBlockingValue) {
+			blockingVersion++;
+			if (aStar instanceof HierarchicalAStar) {
+				((HierarchicalAStar) aStar).blockingChanged(x, y);
+			}
 		}
 
 		@Override
@@ -955,7 +1070,7 @@ public final class MainGrid implements Serializable {
 
 		@Override
 		public final boolean isBlockedOrProtected(short x, short y) {
-			return isBlocked(x, y) || isProtected(x, y);
+			return flagsGrid.isBlockedOrProtected(x, y);
 		}
 
 		@Override
@@ -1167,6 +1282,32 @@ public final class MainGrid implements Serializable {
 			return aStar.findPath(pathRequester, targetPos);
 		}
 
+		@Override
+		public PathRequest requestPath(IPathCalculatable pathRequester, ShortPoint2D targetPos) {
+			ShortPoint2D pos = pathRequester.getPos();
+			if (!Constants.USE_ASYNCHRONOUS_PATH_REQUESTS || pathRequester.needsPlayersGround() || !isInBounds(targetPos.x, targetPos.y)
+					|| landscapeGrid.getBlockedPartitionAt(pos.x, pos.y) != landscapeGrid.getBlockedPartitionAt(targetPos.x, targetPos.y)) {
+				return null;
+			}
+
+			if (blockedSnapshotVersion != blockingVersion) { // only copy the blocking information if it changed since the last request
+				blockedSnapshot = flagsGrid.createBlockedSnapshot();
+				blockedSnapshotVersion = blockingVersion;
+			}
+
+			int deliveryTime = MatchConstants.clock.getTime() + Constants.PATH_REQUEST_DELIVERY_DELAY;
+			return pathRequestService.submit(pos, targetPos, blockedSnapshot, deliveryTime);
+		}
+
+		final void stopPathRequestService() {
+			pathRequestService.shutdown();
+		}
+
+		final void useSynchronousPathRequests() {
+			pathRequestService.shutdown();
+			pathRequestService = new PathRequestService(width, height, 0);
+		}
+
 		@Override
 		public Path searchDijkstra(IPathCalculatable pathCalculateable, short centerX, short centerY, short radius, ESearchType searchType) {
 			return dijkstra.find(pathCalculateable, centerX, centerY, (short) 1, radius, searchType);
@@ -1355,7 +1496,7 @@ public final class MainGrid implements Serializable {
 				short x = curr.x;
 				short y = curr.y;
 
-				if (!isInBounds(x, y) || flagsGrid.isProtected(x, y) || flagsGrid.isBlocked(x, y)) {
+				if (!isInBounds(x, y) || flagsGrid.isBlockedOrProtected(x, y)) {
 					return false;
 				}
 			}
@@ -1595,11 +1736,6 @@ public final class MainGrid implements Serializable {
 		public final void save(PlayerState[] playerStates) throws FileNotFoundException, IOException, InterruptedException {
 			boolean savedPausingState = MatchConstants.clock.isPausing();
 			MatchConstants.clock.setPausing(true);
-			try {
-				Thread.sleep(100); // FIXME @Andreas serializer should wait until threads did their work!
-			} catch (InterruptedException e) {
-				e.printStackTrace();
-			}
 
 			MapList list = MapList.getDefaultList();
 			list.saveMap(playerStates, MainGrid.this);
@@ -1607,6 +1743,11 @@ public final class MainGrid implements Serializable {
 			MatchConstants.clock.setPausing(savedPausingState);
 		}
 
+		@Override
+		public final boolean saveInBackground(PlayerState[] playerStates, boolean autosave) throws IOException {
+			return MapList.getDefaultList().saveMapInBackground(playerStates, MainGrid.this, autosave);
+		}
+
 		@Override
 		public final void toggleFogOfWar() {
 			fogOfWar.toggleEnabled();
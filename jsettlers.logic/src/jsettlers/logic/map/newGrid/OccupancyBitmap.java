@@ -0,0 +1,75 @@
+package jsettlers.logic.map.newGrid;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Stores one bit per position telling if something is located at the position. The bits of every row are packed into longs, so the next
+ * occupied position of a row can be found by skipping 64 free positions at once.
+ * <p />
+ * The grids use this to tell the graphics which positions contain something to draw (see
+ * {@link jsettlers.common.map.IGraphicsGrid#nextDrawableX(int, int, int)}). A long holds the bits of 64 positions that may be changed by different
+ * threads (e.g. the construction marks and the game objects), so the bits are changed with compare and set.
+ *
+ */
+public final class OccupancyBitmap {
+	private final short width;
+	private final int wordsPerRow;
+	private final AtomicLongArray words;
+
+	public OccupancyBitmap(short width, short height) {
+		this.width = width;
+		this.wordsPerRow = (width + 63) / 64;
+		this.words = new AtomicLongArray(wordsPerRow * height);
+	}
+
+	public void set(int x, int y, boolean occupied) {
+		int index = y * wordsPerRow + (x >> 6);
+		long bit = 1L << x;
+		long word;
+		long newWord;
+		do {
+			word = words.get(index);
+			newWord = occupied ? word | bit : word & ~bit;
+		} while (word != newWord && !words.compareAndSet(index, word, newWord));
+	}
+
+	public boolean isSet(int x, int y) {
+		return (words.get(y * wordsPerRow + (x >> 6)) & (1L << x)) != 0;
+	}
+
+	/**
+	 * Finds the first occupied position of a row in the given range.
+	 *
+	 * @param fromX
+	 *            The first x coordinate to check.
+	 * @param y
+	 *            The row.
+	 * @param maxX
+	 *            The last x coordinate to check.
+	 * @return The x coordinate of the first occupied position or maxX + 1 if there is none.
+	 */
+	public int nextSet(int fromX, int y, int maxX) {
+		int lastX = Math.min(maxX, width - 1);
+		if (fromX < 0) {
+			fromX = 0;
+		}
+		if (fromX > lastX) {
+			return maxX + 1;
+		}
+
+		int rowStart = y * wordsPerRow;
+		int wordIndex = fromX >> 6;
+		int lastWordIndex = lastX >> 6;
+		long word = words.get(rowStart + wordIndex) & (-1L << fromX);
+		while (word == 0) {
+			wordIndex++;
+			if (wordIndex > lastWordIndex) {
+				return maxX + 1;
+			}
+			word = words.get(rowStart + wordIndex);
+		}
+
+		int x = (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+		return x <= lastX ? x : maxX + 1;
+	}
+}
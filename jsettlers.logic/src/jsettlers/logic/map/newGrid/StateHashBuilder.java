@@ -0,0 +1,29 @@
+package jsettlers.logic.map.newGrid;
+
+/**
+ * Builds the hash of the game state that is compared between the clients to detect desynchronized games. The values are combined with the
+ * 64 bit FNV-1a function, which is cheap enough to hash the whole grid.
+ *
+ */
+public final class StateHashBuilder {
+	private static final long OFFSET_BASIS = 0xcbf29ce484222325L;
+	private static final long PRIME = 0x100000001b3L;
+
+	private long hash = OFFSET_BASIS;
+
+	public void add(long value) {
+		hash = (hash ^ value) * PRIME;
+	}
+
+	public void add(boolean value) {
+		add(value ? 1 : 0);
+	}
+
+	public void add(float value) {
+		add(Float.floatToIntBits(value));
+	}
+
+	public long getHash() {
+		return hash;
+	}
+}
@@ -2,30 +2,47 @@ package jsettlers.logic.map.newGrid.flags;
 
 import java.io.IOException;
 import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
-import java.util.BitSet;
 
 import jsettlers.algorithms.interfaces.IContainingProvider;
 import jsettlers.algorithms.partitions.IBlockingProvider;
+import jsettlers.logic.map.newGrid.GridBlocks;
+import jsettlers.logic.map.newGrid.OccupancyBitmap;
 import jsettlers.logic.map.newGrid.partition.IPartitionsGridBlockingProvider;
 
 /**
  * Grid that's storing the blocked information for fast access.
+ * <p />
+ * The blocked, marked and protected flags of a position are stored as bits of a single byte, so checking several flags of a position (e.g.
+ * blocked or protected) only needs a single memory access. These flags are only changed by the game thread. The borders are written by the
+ * borders thread, so they are kept in their own {@link OccupancyBitmap} and not in the byte, where the threads could overwrite each other's
+ * changes.
  * 
  * @author Andreas Eberle
  * 
  */
 public final class FlagsGrid implements Serializable, IBlockingProvider, IPartitionsGridBlockingProvider, IProtectedProvider {
-	private static final long serialVersionUID = -413005884613149208L;
+	private static final long serialVersionUID = 5162736512489125313L;
+
+	private static final int BLOCKED = 1;
+	private static final int MARKED = 1 << 1;
+	private static final int PROTECTED = 1 << 2;
+	/**
+	 * Only used in the saved blocks, see {@link #writeObject(ObjectOutputStream)}.
+	 */
+	private static final int BORDER = 1 << 3;
 
 	private final short width;
 
-	private final BitSet blockedGrid;
-	private final BitSet markedGrid;
-	private final BitSet protectedGrid;
-	private final BitSet bordersGrid;
+	private transient byte[] flags; // saved by writeObject()
+	/**
+	 * The border flags of all positions, so the borders of a row can be found without checking every position.
+	 */
+	private transient OccupancyBitmap borders;
 
 	private IBlockingChangedListener blockingChangedListener = null;
+	private transient IBlockingChangedListener transientBlockingChangedListener = null;
 	private IProtectedChangedListener protectedChangedListener = null;
 
 	private transient IContainingProvider blockedContainingProvider;
@@ -33,16 +50,43 @@ public final class FlagsGrid implements Serializable, IBlockingProvider, IPartit
 	public FlagsGrid(final short width, final short height) {
 		this.width = width;
 
-		this.blockedGrid = new BitSet(width * height);
-		this.protectedGrid = new BitSet(width * height);
-		this.markedGrid = new BitSet(width * height);
-		this.bordersGrid = new BitSet(width * height);
+		this.flags = new byte[width * height];
+		this.borders = new OccupancyBitmap(width, height);
 
 		initAdditional();
 	}
 
+	/**
+	 * Writes the flags as a raw block of one byte per position. The borders are added to the bytes as the {@link #BORDER} flag.
+	 * 
+	 * @param oos
+	 * @throws IOException
+	 */
+	private void writeObject(ObjectOutputStream oos) throws IOException {
+		oos.defaultWriteObject();
+
+		byte[] savedFlags = flags.clone();
+		for (int idx = 0; idx < savedFlags.length; idx++) {
+			if (borders.isSet(idx % width, idx / width)) {
+				savedFlags[idx] |= BORDER;
+			}
+		}
+		GridBlocks.writeBytes(oos, savedFlags);
+	}
+
 	private void readObject(ObjectInputStream ois) throws IOException, ClassNotFoundException {
 		ois.defaultReadObject();
+
+		flags = GridBlocks.readBytes(ois);
+
+		borders = new OccupancyBitmap(width, (short) (flags.length / width));
+		for (int idx = 0; idx < flags.length; idx++) {
+			if ((flags[idx] & BORDER) != 0) {
+				borders.set(idx % width, idx / width, true);
+				flags[idx] &= ~BORDER;
+			}
+		}
+
 		initAdditional();
 	}
 
@@ -50,14 +94,43 @@ public final class FlagsGrid implements Serializable, IBlockingProvider, IPartit
 		this.blockedContainingProvider = new IContainingProvider() {
 			@Override
 			public boolean contains(int x, int y) {
-				return blockedGrid.get(x + y * width);
+				return isBlocked(x, y);
 			}
 		};
 	}
 
 	@Override
 	public boolean isBlocked(int x, int y) {
-		return blockedGrid.get(x + y * width);
+		return (flags[x + y * width] & BLOCKED) != 0;
+	}
+
+	public boolean isBlockedOrProtected(int x, int y) {
+		return (flags[x + y * width] & (BLOCKED | PROTECTED)) != 0;
+	}
+
+	private void setFlag(int index, int flag, boolean value) {
+		if (value) {
+			flags[index] |= flag;
+		} else {
+			flags[index] &= ~flag;
+		}
+	}
+
+	/**
+	 * Creates a copy of the current blocking information. Later changes of this grid are not visible in the snapshot, therefore it can be used by
+	 * other threads.
+	 *
+	 * @return snapshot of the blocked positions.
+	 */
+	public IBlockingProvider createBlockedSnapshot() {
+		final byte[] flagsSnapshot = flags.clone();
+		final short width = this.width;
+		return new IBlockingProvider() {
+			@Override
+			public boolean isBlocked(int x, int y) {
+				return (flagsSnapshot[x + y * width] & BLOCKED) != 0;
+			}
+		};
 	}
 
 	/**
@@ -89,32 +162,34 @@ public final class FlagsGrid implements Serializable, IBlockingProvider, IPartit
 	 */
 	public void setBlockedAndProtected(int x, int y, boolean blocked, boolean newProtected) {
 		final int idx = x + y * width;
-		this.blockedGrid.set(idx, blocked);
-		this.protectedGrid.set(idx, newProtected);
+		this.flags[idx] = (byte) ((flags[idx] & ~(BLOCKED | PROTECTED)) | (blocked ? BLOCKED : 0) | (newProtected ? PROTECTED : 0));
 
 		if (blockingChangedListener != null) {
 			this.blockingChangedListener.blockingChanged(x, y, blocked);
 		}
+		if (transientBlockingChangedListener != null) {
+			this.transientBlockingChangedListener.blockingChanged(x, y, blocked);
+		}
 		if (protectedChangedListener != null) {
 			this.protectedChangedListener.protectedChanged(x, y, newProtected);
 		}
 	}
 
 	public boolean isMarked(int x, int y) {
-		return this.markedGrid.get(x + y * width);
+		return (flags[x + y * width] & MARKED) != 0;
 	}
 
 	public void setMarked(short x, short y, boolean marked) {
-		this.markedGrid.set(x + y * width, marked);
+		setFlag(x + y * width, MARKED, marked);
 	}
 
 	@Override
 	public boolean isProtected(int x, int y) {
-		return this.protectedGrid.get(x + y * width);
+		return (flags[x + y * width] & PROTECTED) != 0;
 	}
 
 	public void setProtected(int x, int y, boolean newProtected) {
-		this.protectedGrid.set(x + y * width, newProtected);
+		setFlag(x + y * width, PROTECTED, newProtected);
 
 		if (protectedChangedListener != null) {
 			this.protectedChangedListener.protectedChanged(x, y, newProtected);
@@ -122,11 +197,19 @@ public final class FlagsGrid implements Serializable, IBlockingProvider, IPartit
 	}
 
 	public boolean isBorderAt(int x, int y) {
-		return this.bordersGrid.get(x + y * width);
+		return borders.isSet(x, y);
 	}
 
-	public void setBorderAt(short x, short y, boolean setProtected) {
-		this.bordersGrid.set(x + y * width, setProtected);
+	public void setBorderAt(short x, short y, boolean isBorder) {
+		borders.set(x, y, isBorder);
+	}
+
+	/**
+	 * 
+	 * @return The x coordinate of the first border position in the given range of the row or maxX + 1 if there is none.
+	 */
+	public int nextBorderX(int fromX, int y, int maxX) {
+		return borders.nextSet(fromX, y, maxX);
 	}
 
 	@Override
@@ -134,6 +217,17 @@ public final class FlagsGrid implements Serializable, IBlockingProvider, IPartit
 		this.blockingChangedListener = listener;
 	}
 
+	/**
+	 * Sets a listener that is informed about blocking changes in addition to the one registered with
+	 * {@link #registerBlockingChangedListener(IBlockingChangedListener)}. This listener is not serialized, so it needs to be set again after
+	 * loading the grid.
+	 * 
+	 * @param listener
+	 */
+	public void setTransientBlockingChangedListener(IBlockingChangedListener listener) {
+		this.transientBlockingChangedListener = listener;
+	}
+
 	@Override
 	public void setProtectedChangedListener(IProtectedChangedListener protectedChangedListener) {
 		this.protectedChangedListener = protectedChangedListener;
@@ -2,6 +2,7 @@ package jsettlers.logic.map.newGrid.landscape;
 
 import java.io.IOException;
 import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 
 import jsettlers.algorithms.previewimage.IPreviewImageDataSupplier;
@@ -11,12 +12,23 @@ import jsettlers.common.landscape.EResourceType;
 import jsettlers.common.map.IGraphicsBackgroundListener;
 import jsettlers.common.position.RelativePoint;
 import jsettlers.common.position.ShortPoint2D;
+import jsettlers.logic.map.newGrid.GridBlocks;
 import jsettlers.logic.map.newGrid.flags.IProtectedProvider;
 import jsettlers.logic.map.newGrid.flags.IProtectedProvider.IProtectedChangedListener;
 import jsettlers.network.synchronic.random.RandomSingleton;
 
 /**
  * This grid stores the height and the {@link ELandscapeType} of every position.
+ * <p />
+ * The height, the landscape type and the resource type and amount of a position are packed into one int (one byte each), so reading all of them
+ * for a position or iterating over neighboring positions only touches one array.
+ * <p />
+ * The player and the blocked partition of a position are not packed into the int. The player isn't stored per position at all, it is the player of
+ * the partition the {@link jsettlers.logic.map.newGrid.partition.PartitionsGrid} stores for the position, and it changes when partitions are
+ * merged by the game and the partitions normalizer thread. The blocked partition is a short and the four bytes of the int are taken by the other
+ * values.
+ * <p />
+ * The arrays are written as raw blocks (see {@link GridBlocks}) by the serialization of the grid.
  * 
  * @author Andreas Eberle
  */
@@ -34,14 +46,19 @@ public final class LandscapeGrid implements Serializable, IWalkableGround, IFlat
 		}
 	}
 
-	private static final long serialVersionUID = -751261669662036483L;
+	private static final long serialVersionUID = 7093513398423145716L;
 
-	private final byte[] heightGrid;
-	private final byte[] landscapeGrid;
-	private final byte[] resourceAmount;
-	private final byte[] temporaryFlatened;
-	private final byte[] resourceType;
-	private final short[] blockedPartitions;
+	private static final int HEIGHT_SHIFT = 0;
+	private static final int LANDSCAPE_SHIFT = 8;
+	private static final int RESOURCE_TYPE_SHIFT = 16;
+	private static final int RESOURCE_AMOUNT_SHIFT = 24;
+
+	/**
+	 * height | landscape type | resource type | resource amount of every position. The arrays are saved by {@link #writeObject(ObjectOutputStream)}.
+	 */
+	private transient int[] tiles;
+	private transient byte[] temporaryFlatened;
+	private transient short[] blockedPartitions;
 
 	private final short width;
 	private final short height;
@@ -57,10 +74,7 @@ public final class LandscapeGrid implements Serializable, IWalkableGround, IFlat
 		this.height = height;
 		this.protectedProvider = protectedProvider;
 		final int tiles = width * height;
-		this.heightGrid = new byte[tiles];
-		this.landscapeGrid = new byte[tiles];
-		this.resourceAmount = new byte[tiles];
-		this.resourceType = new byte[tiles];
+		this.tiles = new int[tiles];
 		this.temporaryFlatened = new byte[tiles];
 		this.blockedPartitions = new short[tiles];
 
@@ -72,8 +86,18 @@ public final class LandscapeGrid implements Serializable, IWalkableGround, IFlat
 		protectedProvider.setProtectedChangedListener(this);
 	}
 
+	private void writeObject(ObjectOutputStream oos) throws IOException {
+		oos.defaultWriteObject();
+		GridBlocks.writeInts(oos, tiles);
+		GridBlocks.writeBytes(oos, temporaryFlatened);
+		GridBlocks.writeShorts(oos, blockedPartitions);
+	}
+
 	private void readObject(ObjectInputStream ois) throws IOException, ClassNotFoundException {
 		ois.defaultReadObject();
+		tiles = GridBlocks.readInts(ois);
+		temporaryFlatened = GridBlocks.readBytes(ois);
+		blockedPartitions = GridBlocks.readShorts(ois);
 		setBackgroundListener(null);
 
 		initDebugColors();
@@ -87,12 +111,20 @@ public final class LandscapeGrid implements Serializable, IWalkableGround, IFlat
 		}
 	}
 
+	private static byte getByte(int tile, int shift) {
+		return (byte) (tile >> shift);
+	}
+
+	private static int setByte(int tile, int shift, int value) {
+		return (tile & ~(0xFF << shift)) | ((value & 0xFF) << shift);
+	}
+
 	public final byte getHeightAt(int x, int y) {
-		return heightGrid[x + y * width];
+		return getByte(tiles[x + y * width], HEIGHT_SHIFT);
 	}
 
 	public final ELandscapeType getLandscapeTypeAt(int x, int y) {
-		return ELandscapeType.values[landscapeGrid[x + y * width]];
+		return ELandscapeType.values[getByte(tiles[x + y * width], LANDSCAPE_SHIFT)];
 	}
 
 	@Override
@@ -119,24 +151,29 @@ public final class LandscapeGrid implements Serializable, IWalkableGround, IFlat
 	}
 
 	public final void setLandscapeTypeAt(int x, int y, ELandscapeType landscapeType) {
-		if (landscapeType == ELandscapeType.FLATTENED && this.landscapeGrid[x + y * width] != ELandscapeType.FLATTENED.ordinal) {
+		final int index = x + y * width;
+		if (landscapeType == ELandscapeType.FLATTENED && getByte(tiles[index], LANDSCAPE_SHIFT) != ELandscapeType.FLATTENED.ordinal) {
 			flattenedResetter.addPosition(x, y);
 		}
 
-		this.landscapeGrid[x + y * width] = landscapeType.ordinal;
+		this.tiles[index] = setByte(tiles[index], LANDSCAPE_SHIFT, landscapeType.ordinal);
 		backgroundListener.backgroundChangedAt(x, y);
 	}
 
 	public final void setHeightAt(short x, short y, byte height) {
-		this.heightGrid[x + y * width] = height;
+		final int index = x + y * width;
+		this.tiles[index] = setByte(tiles[index], HEIGHT_SHIFT, height);
 		backgroundListener.backgroundChangedAt(x, y);
 	}
 
 	public void flattenAndChangeHeightTowards(int x, int y, byte targetHeight) {
 		final int index = x + y * width;
 
-		this.heightGrid[index] += Math.signum(targetHeight - this.heightGrid[index]);
-		this.landscapeGrid[index] = ELandscapeType.FLATTENED.ordinal;
+		final int tile = tiles[index];
+		final byte height = getByte(tile, HEIGHT_SHIFT);
+
+		this.tiles[index] = setByte(setByte(tile, HEIGHT_SHIFT, height + (int) Math.signum(targetHeight - height)), LANDSCAPE_SHIFT,
+				ELandscapeType.FLATTENED.ordinal);
 		this.temporaryFlatened[index] = Byte.MAX_VALUE; // cancel the flattening
 
 		backgroundListener.backgroundChangedAt(x, y);
@@ -151,8 +188,8 @@ public final class LandscapeGrid implements Serializable, IWalkableGround, IFlat
 	}
 
 	public final void setResourceAt(short x, short y, EResourceType resourceType, byte amount) {
-		this.resourceType[x + y * width] = resourceType.ordinal;
-		this.resourceAmount[x + y * width] = amount;
+		final int index = x + y * width;
+		this.tiles[index] = setByte(setByte(tiles[index], RESOURCE_TYPE_SHIFT, resourceType.ordinal), RESOURCE_AMOUNT_SHIFT, amount);
 	}
 
 	/**
@@ -163,19 +200,21 @@ public final class LandscapeGrid implements Serializable, IWalkableGround, IFlat
 	 * @return The amount of resources, where 0 is no resources and {@link Byte.MAX_VALUE} means full resources.
 	 */
 	public final byte getResourceAmountAt(int x, int y) {
-		return resourceAmount[x + y * width];
+		return getByte(tiles[x + y * width], RESOURCE_AMOUNT_SHIFT);
 	}
 
 	public final EResourceType getResourceTypeAt(int x, int y) {
-		return EResourceType.values[resourceType[x + y * width]];
+		return EResourceType.values[getByte(tiles[x + y * width], RESOURCE_TYPE_SHIFT)];
 	}
 
 	public final boolean hasResourceAt(int x, int y, EResourceType resourceType) {
-		return getResourceTypeAt(x, y) == resourceType && resourceAmount[x + y * width] > 0;
+		final int tile = tiles[x + y * width];
+		return getByte(tile, RESOURCE_TYPE_SHIFT) == resourceType.ordinal && getByte(tile, RESOURCE_AMOUNT_SHIFT) > 0;
 	}
 
 	public final void pickResourceAt(short x, short y) {
-		resourceAmount[x + y * width]--;
+		final int index = x + y * width;
+		tiles[index] = setByte(tiles[index], RESOURCE_AMOUNT_SHIFT, getByte(tiles[index], RESOURCE_AMOUNT_SHIFT) - 1);
 	}
 
 	@Override
@@ -213,9 +252,9 @@ public final class LandscapeGrid implements Serializable, IWalkableGround, IFlat
 		int area = 0;
 		for (int currentX = minx; currentX <= maxx; currentX++) {
 			for (int currentY = miny; currentY <= maxy; currentY++) {
-				int idx = currentX + currentY * width;
-				if (resourceType[idx] == type.ordinal) {
-					amount += resourceAmount[idx];
+				int tile = tiles[currentX + currentY * width];
+				if (getByte(tile, RESOURCE_TYPE_SHIFT) == type.ordinal) {
+					amount += getByte(tile, RESOURCE_AMOUNT_SHIFT);
 					area++;
 				}
 			}
@@ -232,9 +271,11 @@ public final class LandscapeGrid implements Serializable, IWalkableGround, IFlat
 		for (int currentX = minx; currentX <= maxx; currentX++) {
 			for (int currentY = miny; currentY <= maxy; currentY++) {
 				int idx = currentX + currentY * width;
-				if (resourceType[idx] == type.ordinal && resourceAmount[idx] > 0) {
-					int delta = Math.min(amount, resourceAmount[idx]);
-					resourceAmount[idx] -= delta;
+				int tile = tiles[idx];
+				byte resourceAmount = getByte(tile, RESOURCE_AMOUNT_SHIFT);
+				if (getByte(tile, RESOURCE_TYPE_SHIFT) == type.ordinal && resourceAmount > 0) {
+					int delta = Math.min(amount, resourceAmount);
+					tiles[idx] = setByte(tile, RESOURCE_AMOUNT_SHIFT, resourceAmount - delta);
 					amount -= delta;
 
 					if (amount <= 0)
@@ -314,7 +355,8 @@ public final class LandscapeGrid implements Serializable, IWalkableGround, IFlat
 		for (RelativePoint currPos : positions) {
 			int index = currPos.calculateX(position.x) + currPos.calculateY(position.y) * width;
 
-			if (heightGrid[index] != expectedHeight || landscapeGrid[index] != ELandscapeType.FLATTENED.ordinal) {
+			int tile = tiles[index];
+			if (getByte(tile, HEIGHT_SHIFT) != expectedHeight || getByte(tile, LANDSCAPE_SHIFT) != ELandscapeType.FLATTENED.ordinal) {
 				return false;
 			}
 		}
@@ -1,5 +1,8 @@
 package jsettlers.logic.map.newGrid.movable;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 
 import jsettlers.common.map.shapes.HexBorderArea;
@@ -9,6 +12,8 @@ import jsettlers.common.movable.EMovableType;
 import jsettlers.common.movable.IMovable;
 import jsettlers.common.position.ShortPoint2D;
 import jsettlers.logic.constants.Constants;
+import jsettlers.logic.map.newGrid.GridBlocks;
+import jsettlers.logic.map.newGrid.OccupancyBitmap;
 import jsettlers.logic.map.newGrid.landscape.IWalkableGround;
 import jsettlers.logic.movable.Movable;
 import jsettlers.logic.movable.interfaces.IAttackable;
@@ -21,7 +26,8 @@ import jsettlers.logic.movable.interfaces.IAttackable;
 public final class MovableGrid implements Serializable {
 	private static final long serialVersionUID = 7003522358013103962L;
 
-	private final Movable[] movableGrid;
+	private transient Movable[] movableGrid; // written sparse by writeObject()
+	private transient OccupancyBitmap occupiedPositions;
 	private final IWalkableGround ground;
 	private final short width;
 
@@ -32,20 +38,49 @@ public final class MovableGrid implements Serializable {
 		this.height = height;
 		this.ground = ground;
 		this.movableGrid = new Movable[width * height];
+		this.occupiedPositions = new OccupancyBitmap(width, height);
+	}
+
+	private void writeObject(ObjectOutputStream oos) throws IOException {
+		oos.defaultWriteObject();
+		GridBlocks.writeSparseObjects(oos, movableGrid);
+	}
+
+	private void readObject(ObjectInputStream ois) throws IOException, ClassNotFoundException {
+		ois.defaultReadObject();
+		movableGrid = new Movable[width * height];
+		GridBlocks.readSparseObjects(ois, movableGrid);
+
+		occupiedPositions = new OccupancyBitmap(width, height);
+		for (int idx = 0; idx < movableGrid.length; idx++) {
+			if (movableGrid[idx] != null) {
+				occupiedPositions.set(idx % width, idx / width, true);
+			}
+		}
 	}
 
 	public final Movable getMovableAt(int x, int y) {
 		return this.movableGrid[x + y * width];
 	}
 
+	/**
+	 * 
+	 * @return The x coordinate of the first position in the given range of the row that contains a movable or maxX + 1 if there is none.
+	 */
+	public final int nextMovableX(int fromX, int y, int maxX) {
+		return occupiedPositions.nextSet(fromX, y, maxX);
+	}
+
 	public final void setMovable(short x, short y, Movable movable) {
 		this.movableGrid[x + y * width] = movable;
+		occupiedPositions.set(x, y, movable != null);
 	}
 
 	public final void movableLeft(ShortPoint2D position, Movable movable) {
 		int idx = position.x + position.y * width;
 		if (this.movableGrid[idx] == movable) {
 			this.movableGrid[idx] = null;
+			occupiedPositions.set(position.x, position.y, false);
 		}
 	}
 
@@ -67,6 +102,7 @@ public final class MovableGrid implements Serializable {
 		}
 
 		this.movableGrid[idx] = movable;
+		occupiedPositions.set(x, y, movable != null);
 		if (movable != null && movable.getMovableType() == EMovableType.BEARER) {
 			ground.walkOn(x, y);
 		}
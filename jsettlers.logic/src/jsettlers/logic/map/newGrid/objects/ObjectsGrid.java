@@ -14,6 +14,8 @@ import jsettlers.common.movable.EDirection;
 import jsettlers.common.position.ShortPoint2D;
 import jsettlers.logic.buildings.Building;
 import jsettlers.logic.constants.Constants;
+import jsettlers.logic.map.newGrid.GridBlocks;
+import jsettlers.logic.map.newGrid.OccupancyBitmap;
 import jsettlers.logic.movable.interfaces.IAttackable;
 import jsettlers.logic.movable.interfaces.IInformable;
 
@@ -30,23 +32,30 @@ public final class ObjectsGrid implements Serializable {
 	private final short height;
 
 	private transient AbstractHexMapObject[] objectsGrid; // don't use default serialization for this => transient
-	private final Building[] buildingsGrid;
+	private transient Building[] buildingsGrid;
+	private transient OccupancyBitmap occupiedPositions;
 
 	public ObjectsGrid(short width, short height) {
 		this.width = width;
 		this.height = height;
 		this.objectsGrid = new AbstractHexMapObject[width * height];
 		this.buildingsGrid = new Building[width * height];
+		this.occupiedPositions = new OccupancyBitmap(width, height);
 	}
 
+	/**
+	 * Only the positions with objects are written: their index is followed by the objects at the position and null.
+	 */
 	private final void writeObject(ObjectOutputStream oos) throws IOException {
 		oos.defaultWriteObject();
-		int length = objectsGrid.length;
-		oos.writeInt(length);
 
-		for (int idx = 0; idx < length; idx++) {
+		for (int idx = 0; idx < objectsGrid.length; idx++) {
 			AbstractHexMapObject currObject = objectsGrid[idx];
+			if (currObject == null) {
+				continue;
+			}
 
+			oos.writeInt(idx);
 			while (currObject != null) {
 				if (currObject.getObjectType() != EMapObjectType.WORKAREA_MARK) {
 					oos.writeObject(currObject);
@@ -55,16 +64,21 @@ public final class ObjectsGrid implements Serializable {
 			}
 			oos.writeObject(null);
 		}
+		oos.writeInt(-1);
+
+		GridBlocks.writeSparseObjects(oos, buildingsGrid);
 	}
 
 	private final void readObject(ObjectInputStream ois) throws IOException, ClassNotFoundException {
 		ois.defaultReadObject();
-		int length = ois.readInt();
-		objectsGrid = new AbstractHexMapObject[length];
+		objectsGrid = new AbstractHexMapObject[width * height];
+		buildingsGrid = new Building[width * height];
+		occupiedPositions = new OccupancyBitmap(width, height);
 
-		for (int idx = 0; idx < length; idx++) {
+		for (int idx = ois.readInt(); idx >= 0; idx = ois.readInt()) {
 			AbstractHexMapObject currObject = (AbstractHexMapObject) ois.readObject();
 			objectsGrid[idx] = currObject;
+			occupiedPositions.set(idx % width, idx / width, currObject != null);
 
 			while (currObject != null) {
 				AbstractHexMapObject newObject = (AbstractHexMapObject) ois.readObject();
@@ -72,6 +86,8 @@ public final class ObjectsGrid implements Serializable {
 				currObject = newObject;
 			}
 		}
+
+		GridBlocks.readSparseObjects(ois, buildingsGrid);
 	}
 
 	public final AbstractHexMapObject getObjectsAt(int x, int y) {
@@ -96,6 +112,7 @@ public final class ObjectsGrid implements Serializable {
 			} else {
 				removed = mapObjectHead.removeMapObjectType(mapObjectType);
 			}
+			occupiedPositions.set(x, y, objectsGrid[idx] != null);
 		}
 		return removed;
 	}
@@ -111,6 +128,7 @@ public final class ObjectsGrid implements Serializable {
 			} else {
 				removed = mapObjectHead.removeMapObject(mapObject);
 			}
+			occupiedPositions.set(x, y, objectsGrid[idx] != null);
 
 			return removed;
 		} else
@@ -124,11 +142,20 @@ public final class ObjectsGrid implements Serializable {
 
 		if (mapObjectHead == null) {
 			objectsGrid[idx] = mapObject;
+			occupiedPositions.set(x, y, mapObject != null);
 		} else {
 			mapObjectHead.addMapObject(mapObject);
 		}
 	}
 
+	/**
+	 * 
+	 * @return The x coordinate of the first position in the given range of the row that contains an object or maxX + 1 if there is none.
+	 */
+	public final int nextObjectX(int fromX, int y, int maxX) {
+		return occupiedPositions.nextSet(fromX, y, maxX);
+	}
+
 	public final boolean hasCuttableObject(int x, int y, EMapObjectType mapObjectType) {
 		AbstractHexMapObject mapObjectHead = objectsGrid[x + y * width];
 
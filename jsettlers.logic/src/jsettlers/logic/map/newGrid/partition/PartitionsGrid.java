@@ -2,6 +2,7 @@ package jsettlers.logic.map.newGrid.partition;
 
 import java.io.IOException;
 import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -19,6 +20,7 @@ import jsettlers.common.map.shapes.FilteredMapArea;
 import jsettlers.common.map.shapes.FreeMapArea;
 import jsettlers.common.map.shapes.IMapArea;
 import jsettlers.common.map.shapes.MapCircle;
+import jsettlers.common.material.EMaterialType;
 import jsettlers.common.movable.EDirection;
 import jsettlers.common.position.ILocatable;
 import jsettlers.common.position.SRectangle;
@@ -27,6 +29,8 @@ import jsettlers.common.utils.Tuple;
 import jsettlers.common.utils.collections.IPredicate;
 import jsettlers.common.utils.collections.ISerializablePredicate;
 import jsettlers.common.utils.collections.IteratorFilter;
+import jsettlers.logic.map.newGrid.GridBlocks;
+import jsettlers.logic.map.newGrid.StateHashBuilder;
 import jsettlers.logic.map.newGrid.flags.IBlockingChangedListener;
 import jsettlers.logic.map.newGrid.partition.manager.PartitionManager;
 import jsettlers.logic.map.newGrid.partition.manager.settings.PartitionManagerSettings;
@@ -54,8 +58,8 @@ public final class PartitionsGrid implements Serializable, IBlockingChangedListe
 	final Player[] players;
 	private final IBlockingProvider blockingProvider;
 
-	final short[] partitions;
-	final byte[] towers;
+	transient short[] partitions; // saved by writeObject() as raw blocks
+	transient byte[] towers;
 
 	Partition[] partitionObjects = new Partition[NUMBER_OF_START_PARTITION_OBJECTS];
 	short[] partitionRepresentatives = new short[NUMBER_OF_START_PARTITION_OBJECTS];
@@ -90,8 +94,18 @@ public final class PartitionsGrid implements Serializable, IBlockingChangedListe
 		initAdditionalFields();
 	}
 
+	private void writeObject(ObjectOutputStream oos) throws IOException {
+		synchronized (partitionsWriteLock) { // the normalizer thread must not merge partitions while they are saved
+			oos.defaultWriteObject();
+			GridBlocks.writeShorts(oos, partitions);
+			GridBlocks.writeBytes(oos, towers);
+		}
+	}
+
 	private void readObject(ObjectInputStream ois) throws IOException, ClassNotFoundException {
 		ois.defaultReadObject();
+		partitions = GridBlocks.readShorts(ois);
+		towers = GridBlocks.readBytes(ois);
 		initAdditionalFields();
 	}
 
@@ -108,6 +122,36 @@ public final class PartitionsGrid implements Serializable, IBlockingChangedListe
 		this.gridNormalizer.cancel();
 	}
 
+	/**
+	 * Normalizes the partitions in the calling thread. This must only be used if the threads haven't been started.
+	 */
+	public void normalizePartitions() {
+		this.gridNormalizer.normalize();
+	}
+
+	/**
+	 * Adds the players and the offered materials of the partitions to the given hash of the game state. Merged partitions are skipped, because
+	 * the normalizer thread removes them at nondeterministic times.
+	 * 
+	 * @param stateHash
+	 */
+	public void addToStateHash(StateHashBuilder stateHash) {
+		synchronized (partitionsWriteLock) {
+			for (int partitionId = 0; partitionId < partitionObjects.length; partitionId++) {
+				Partition partition = partitionObjects[partitionId];
+				if (partition == null || partitionRepresentatives[partitionId] != partitionId) {
+					continue;
+				}
+
+				stateHash.add(partitionId);
+				stateHash.add(partition.playerId);
+				for (EMaterialType material : EMaterialType.values) {
+					stateHash.add(partition.getNumberOfOfferedMaterials(material));
+				}
+			}
+		}
+	}
+
 	public boolean isDefaultPartition(short partitionId) {
 		return partitionId == NO_PLAYER_PARTITION_ID;
 	}
@@ -42,59 +42,65 @@ final class PartitionsGridNormalizerThread extends Thread {
 
 	@Override
 	public void run() {
-		int width = grid.width;
-		int height = grid.height;
-
-		MilliStopWatch milliWatch = new MilliStopWatch();
-
 		while (running) {
 			try {
 				Thread.sleep(CHECK_DELAY_MS);
 			} catch (InterruptedException e) {
 			}
 
-			milliWatch.restart();
+			normalize();
+		}
+	}
 
-			int maxPartitions = grid.partitionRepresentatives.length;
-			BitSet stoppedManagers = new BitSet(maxPartitions);
+	/**
+	 * Normalizes the grid if there are too much merged partitions. This is called by the thread every {@link #CHECK_DELAY_MS} milliseconds, but can
+	 * also be called by another thread if this one isn't started.
+	 */
+	void normalize() {
+		int width = grid.width;
+		int height = grid.height;
 
-			int counter = 0;
+		MilliStopWatch milliWatch = new MilliStopWatch();
 
-			for (int i = 1; i < maxPartitions; i++) {
-				PartitionManager partitionObject = grid.partitionObjects[i];
+		int maxPartitions = grid.partitionRepresentatives.length;
+		BitSet stoppedManagers = new BitSet(maxPartitions);
 
-				if (partitionObject != null && grid.partitionRepresentatives[i] != i) {
-					stoppedManagers.set(i);
-					counter++;
-				}
-			}
+		int counter = 0;
 
-			if (counter <= MERGED_PARTITIONS_THRESHOLD) {
-				continue;// skip the rest if nothing is to do.
+		for (int i = 1; i < maxPartitions; i++) {
+			PartitionManager partitionObject = grid.partitionObjects[i];
+
+			if (partitionObject != null && grid.partitionRepresentatives[i] != i) {
+				stoppedManagers.set(i);
+				counter++;
 			}
+		}
 
-			// normalize the partitions
-			for (int y = 0; y < height; y++) {
-				synchronized (lock) { // the lock is acquired here to prevent holding it for a long time without requesting it every time
-					for (int x = 0; x < width; x++) {
-						int idx = x + y * width;
-						grid.partitions[idx] = grid.partitionRepresentatives[grid.partitions[idx]];
-					}
+		if (counter <= MERGED_PARTITIONS_THRESHOLD) {
+			return;// skip the rest if nothing is to do.
+		}
+
+		// normalize the partitions
+		for (int y = 0; y < height; y++) {
+			synchronized (lock) { // the lock is acquired here to prevent holding it for a long time without requesting it every time
+				for (int x = 0; x < width; x++) {
+					int idx = x + y * width;
+					grid.partitions[idx] = grid.partitionRepresentatives[grid.partitions[idx]];
 				}
 			}
+		}
 
-			// clear the partition objects
-			synchronized (lock) {
-				for (int i = 1; i < maxPartitions; i++) {
-					if (stoppedManagers.get(i)) {
-						grid.partitionObjects[i] = null;
-					}
+		// clear the partition objects
+		synchronized (lock) {
+			for (int i = 1; i < maxPartitions; i++) {
+				if (stoppedManagers.get(i)) {
+					grid.partitionObjects[i] = null;
 				}
 			}
-
-			System.out.println("PartitionsGridNormalizerThread: NORMALIZED " + counter + " partitions in " + milliWatch.getDiff()
-					+ "ms!-----------------------------------");
 		}
+
+		System.out.println("PartitionsGridNormalizerThread: NORMALIZED " + counter + " partitions in " + milliWatch.getDiff()
+				+ "ms!-----------------------------------");
 	}
 
 }
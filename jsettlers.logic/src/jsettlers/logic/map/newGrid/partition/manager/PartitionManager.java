@@ -132,6 +132,7 @@ public class PartitionManager implements IScheduledTimerable, Serializable, IWor
 	}
 
 	public IManageableBearer removeJobless(ShortPoint2D position) {
+		joblessBearer.updatePositions();
 		return joblessBearer.removeObjectAt(position);
 	}
 
@@ -189,6 +190,7 @@ public class PartitionManager implements IScheduledTimerable, Serializable, IWor
 		if (newHasSamePlayer) {
 			materialsManager.movePositionTo(position, newManager.materialsManager);
 
+			updateJoblessPositions();
 			IManageableBearer bearer = joblessBearer.removeObjectAt(position);
 			if (bearer != null)
 				newManager.addJobless(bearer);
@@ -208,6 +210,16 @@ public class PartitionManager implements IScheduledTimerable, Serializable, IWor
 		removePositionTo(position, this.workerRequests, newManager.workerRequests, newHasSamePlayer);
 	}
 
+	/**
+	 * The jobless movables may have walked around since they have been added to the lists.
+	 */
+	private void updateJoblessPositions() {
+		joblessBearer.updatePositions();
+		joblessBricklayers.updatePositions();
+		joblessDiggers.updatePositions();
+		joblessWorkers.updatePositions();
+	}
+
 	private <T extends ILocatable> void removePositionTo(ShortPoint2D pos, LinkedList<T> fromList, LinkedList<T> toList, boolean newHasSamePlayer) {
 		Iterator<T> iter = fromList.iterator();
 		while (iter.hasNext()) {
@@ -245,6 +257,8 @@ public class PartitionManager implements IScheduledTimerable, Serializable, IWor
 			return -1; // unschedule
 		}
 
+		updateJoblessPositions();
+
 		materialsManager.distributeJobs();
 
 		handleWorkerCreationRequest();
@@ -476,6 +490,10 @@ public class PartitionManager implements IScheduledTimerable, Serializable, IWor
 		return this.materialOffers.getOfferObjectAt(pos, material);
 	}
 
+	public int getNumberOfOfferedMaterials(EMaterialType material) {
+		return materialOffers.getNumberOfOfferedMaterials(material);
+	}
+
 	public PartitionManagerSettings getSettings() {
 		return settings;
 	}
@@ -1,8 +1,12 @@
 package jsettlers.logic.map.newGrid.partition.manager.datastructures;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 import jsettlers.algorithms.queue.ITypeAcceptor;
 import jsettlers.common.position.ILocatable;
@@ -12,27 +16,100 @@ import jsettlers.common.utils.MathUtils;
 /**
  * This is a data structure for storing and retrieving objects at given positions.<br>
  * It is also possible to find the nearest object arround a given position.
- * 
+ * <p />
+ * The objects are sorted into buckets of {@link #BUCKET_SIZE} x {@link #BUCKET_SIZE} positions. Therefore position lookups only look at a single
+ * bucket and the search for the nearest object stops as soon as the remaining buckets are further away than the best object found. Iterating
+ * the list returns the objects in the order they have been inserted.
+ * <p />
+ * The position of an object is read when it is inserted. If the objects can change their position (e.g. movables), {@link #updatePositions()}
+ * needs to be called before the list is searched.
+ *
  * @author Andreas Eberle
- * 
+ *
  * @param <T>
  */
 public class PositionableList<T extends ILocatable> implements Iterable<T>, Serializable {
-	private static final long serialVersionUID = 414099060331344505L;
+	private static final long serialVersionUID = -4425069472314810212L;
 
-	private ArrayList<T> data;
+	private static final int BUCKET_SIZE_BITS = 4;
+	private static final int BUCKET_SIZE = 1 << BUCKET_SIZE_BITS;
+
+	/**
+	 * Lists with up to this number of objects are searched linearly.
+	 */
+	private static final int LINEAR_SEARCH_THRESHOLD = 16;
+
+	private transient Node<T> first;
+	private transient Node<T> last;
+	private transient int size;
+	private transient long nextOrder;
+
+	/**
+	 * First node of every bucket, indexed by [bucketY][bucketX]. The arrays grow when objects are inserted at new positions.
+	 */
+	private transient Node<T>[][] buckets;
+
+	private static final class Node<T> {
+		final T object;
+		/**
+		 * Position of the insertion order. Nodes inserted later have a higher order.
+		 */
+		final long order;
+		ShortPoint2D position;
+
+		Node<T> previous;
+		Node<T> next;
+		Node<T> bucketPrevious;
+		Node<T> bucketNext;
+
+		Node(T object, ShortPoint2D position, long order) {
+			this.object = object;
+			this.position = position;
+			this.order = order;
+		}
+	}
 
 	public PositionableList() {
-		data = new ArrayList<T>();
+		initBuckets();
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" }) // arrays of the generic Node can only be created raw
+	private void initBuckets() {
+		buckets = new Node[0][];
 	}
 
 	public void insert(T object) {
-		data.add(object);
+		Node<T> node = new Node<T>(object, object.getPos(), nextOrder++);
+
+		if (last == null) {
+			first = node;
+		} else {
+			last.next = node;
+			node.previous = last;
+		}
+		last = node;
+		size++;
+
+		addToBucket(node);
+	}
+
+	/**
+	 * Updates the positions of all objects that changed their position since they have been inserted or since the last call of this method.
+	 */
+	public void updatePositions() {
+		for (Node<T> node = first; node != null; node = node.next) {
+			ShortPoint2D currentPosition = node.object.getPos();
+			if (currentPosition != node.position && !currentPosition.equals(node.position)) {
+				removeFromBucket(node);
+				node.position = currentPosition;
+				addToBucket(node);
+			}
+		}
 	}
 
 	/**
 	 * Finds the object that's closest to the given position and removes it.
-	 * 
+	 *
 	 * @param position
 	 *            position to be used to find the nearest accepted neighbor around it.
 	 * @return object that's nearest to position
@@ -43,40 +120,70 @@ public class PositionableList<T extends ILocatable> implements Iterable<T>, Seri
 
 	@Override
 	public Iterator<T> iterator() {
-		return data.iterator();
+		return new Iterator<T>() {
+			private Node<T> next = first;
+			private Node<T> lastReturned = null;
+
+			@Override
+			public boolean hasNext() {
+				return next != null;
+			}
+
+			@Override
+			public T next() {
+				if (next == null) {
+					throw new NoSuchElementException();
+				}
+				lastReturned = next;
+				next = next.next;
+				return lastReturned.object;
+			}
+
+			@Override
+			public void remove() {
+				if (lastReturned == null) {
+					throw new IllegalStateException();
+				}
+				removeNode(lastReturned);
+				lastReturned = null;
+			}
+		};
 	}
 
 	public T removeObjectAt(ShortPoint2D position) {
-		Iterator<T> iter = data.iterator();
-		while (iter.hasNext()) {
-			T curr = iter.next();
-			if (curr.getPos().equals(position)) {
-				iter.remove();
-				return curr;
-			}
+		Node<T> node = getNodeAt(position);
+		if (node != null) {
+			removeNode(node);
+			return node.object;
 		}
 		return null;
 	}
 
 	/**
 	 * Returns the first object found at the given position or null.
-	 * 
+	 *
 	 * @param position
 	 *            The position to look for.
 	 * @return Returns the found object at the given position or null if no object has been found.
 	 */
 	public T getObjectAt(ShortPoint2D position) {
-		for (T curr : data) {
-			if (curr.getPos().equals(position)) {
-				return curr;
+		Node<T> node = getNodeAt(position);
+		return node != null ? node.object : null;
+	}
+
+	private Node<T> getNodeAt(ShortPoint2D position) {
+		Node<T> found = null;
+		for (Node<T> node = getBucket(position.x >> BUCKET_SIZE_BITS, position.y >> BUCKET_SIZE_BITS); node != null; node = node.bucketNext) {
+			if (node.position.equals(position) && (found == null || node.order < found.order)) {
+				found = node;
 			}
 		}
-		return null;
+		return found;
 	}
 
 	/**
 	 * Finds the object that's closest to the given position and removes it.
-	 * 
+	 *
 	 * @param position
 	 *            position to be used to find the nearest accepted neighbor around it.
 	 * @param acceptor
@@ -85,63 +192,241 @@ public class PositionableList<T extends ILocatable> implements Iterable<T>, Seri
 	 * @return accepted object that's nearest to position
 	 */
 	public T removeObjectNextTo(ShortPoint2D position, ITypeAcceptor<T> acceptor) {
-		T currBest = getObjectCloseTo(position, acceptor);
+		Node<T> currBest = getNodeCloseTo(position, acceptor);
+
+		if (currBest != null) {
+			removeNode(currBest);
+			return currBest.object;
+		}
+
+		return null;
+	}
+
+	/**
+	 * Finds the accepted node that's closest to the given position. If several nodes have the same distance, the one inserted first is returned.
+	 */
+	private Node<T> getNodeCloseTo(ShortPoint2D position, ITypeAcceptor<T> acceptor) { // TODO: @Andreas Eberle: check if the acceptor is needed any more
+		if (size <= LINEAR_SEARCH_THRESHOLD) {
+			return getNodeCloseToLinear(position, acceptor);
+		}
 
-		if (currBest != null)
-			data.remove(currBest);
+		final int centerX = position.x >> BUCKET_SIZE_BITS;
+		final int centerY = position.y >> BUCKET_SIZE_BITS;
+		final int maxRadius = Math.max(Math.max(centerY, buckets.length - 1 - centerY), Math.max(centerX, getMaxBucketsWidth() - 1 - centerX));
+
+		Node<T> currBest = null;
+		int bestDistance = Integer.MAX_VALUE;
+		int visitedBuckets = 0;
+
+		for (int radius = 0; radius <= maxRadius; radius++) {
+			if (currBest != null && radius > 0) {
+				int minDistance = (radius - 1) * BUCKET_SIZE + 1; // minimum distance in x or y direction to a position in this ring
+				if (minDistance * minDistance > bestDistance) {
+					break;
+				}
+			}
+
+			visitedBuckets += radius == 0 ? 1 : 8 * radius;
+			if (visitedBuckets > size) { // searching the rings gets more expensive than looking at every object
+				return getNodeCloseToLinear(position, acceptor);
+			}
+
+			for (int bucketY = centerY - radius; bucketY <= centerY + radius; bucketY++) {
+				boolean borderRow = bucketY == centerY - radius || bucketY == centerY + radius;
+				int step = borderRow ? 1 : 2 * radius;
+
+				for (int bucketX = centerX - radius; bucketX <= centerX + radius; bucketX += step) {
+					for (Node<T> node = getBucket(bucketX, bucketY); node != null; node = node.bucketNext) {
+						if (acceptor != null && !acceptor.accepts(node.object)) {
+							continue;
+						}
+
+						int currDist = MathUtils.squareHypot(position, node.position);
+						if (currDist < bestDistance || (currDist == bestDistance && node.order < currBest.order)) {
+							bestDistance = currDist;
+							currBest = node;
+						}
+					}
+				}
+			}
+		}
 
 		return currBest;
 	}
 
-	private T getObjectCloseTo(ShortPoint2D position, ITypeAcceptor<T> acceptor) { // TODO: @Andreas Eberle: check if the acceptor is needed any more
+	private Node<T> getNodeCloseToLinear(ShortPoint2D position, ITypeAcceptor<T> acceptor) {
 		int bestDistance = Integer.MAX_VALUE;
-		T currBest = null;
+		Node<T> currBest = null;
 
-		for (T currEntry : data) {
-			if (acceptor != null && !acceptor.accepts(currEntry))
+		for (Node<T> node = first; node != null; node = node.next) {
+			if (acceptor != null && !acceptor.accepts(node.object))
 				continue;
 
-			ShortPoint2D currPosition = currEntry.getPos();
-			int currDist = MathUtils.squareHypot(position, currPosition);
+			int currDist = MathUtils.squareHypot(position, node.position);
 
 			if (bestDistance > currDist) {
 				bestDistance = currDist;
-				currBest = currEntry;
+				currBest = node;
 			}
 		}
 		return currBest;
 	}
 
 	public T getObjectCloseTo(ShortPoint2D position) {
-		return getObjectCloseTo(position, null);
+		Node<T> node = getNodeCloseTo(position, null);
+		return node != null ? node.object : null;
 	}
 
 	@Override
 	public String toString() {
-		return data.toString();
+		StringBuilder builder = new StringBuilder("[");
+		for (Node<T> node = first; node != null; node = node.next) {
+			if (node != first) {
+				builder.append(", ");
+			}
+			builder.append(node.object);
+		}
+		return builder.append(']').toString();
 	}
 
 	public void addAll(PositionableList<T> otherList) {
-		this.data.addAll(otherList.data);
+		for (Node<T> node = otherList.first; node != null; node = node.next) {
+			insert(node.object);
+		}
 	}
 
 	public void remove(T object) {
-		this.data.remove(object);
+		Node<T> found = null;
+
+		ShortPoint2D position = object.getPos();
+		for (Node<T> node = getBucket(position.x >> BUCKET_SIZE_BITS, position.y >> BUCKET_SIZE_BITS); node != null; node = node.bucketNext) {
+			if (node.object.equals(object) && (found == null || node.order < found.order)) {
+				found = node;
+			}
+		}
+
+		if (found == null) { // the object changed its position since the last update
+			for (Node<T> node = first; node != null && found == null; node = node.next) {
+				if (node.object.equals(object)) {
+					found = node;
+				}
+			}
+		}
+
+		if (found != null) {
+			removeNode(found);
+		}
 	}
 
 	public boolean isEmpty() {
-		return data.isEmpty();
+		return size == 0;
+	}
+
+	public int size() {
+		return size;
 	}
 
 	public void moveObjectsAtPositionTo(ShortPoint2D position, PositionableList<T> newList) {
-		Iterator<T> iter = data.iterator();
-		while (iter.hasNext()) {
-			T curr = iter.next();
-			if (curr.getPos().equals(position)) {
-				iter.remove();
-				newList.data.add(curr);
+		Node<T> node;
+		while ((node = getNodeAt(position)) != null) { // the nodes are moved in their insertion order
+			removeNode(node);
+			newList.insert(node.object);
+		}
+	}
+
+	private void removeNode(Node<T> node) {
+		if (node.previous == null) {
+			first = node.next;
+		} else {
+			node.previous.next = node.next;
+		}
+		if (node.next == null) {
+			last = node.previous;
+		} else {
+			node.next.previous = node.previous;
+		}
+		size--;
+
+		removeFromBucket(node);
+	}
+
+	private Node<T> getBucket(int bucketX, int bucketY) {
+		if (bucketY < 0 || bucketY >= buckets.length) {
+			return null;
+		}
+		Node<T>[] row = buckets[bucketY];
+		if (row == null || bucketX < 0 || bucketX >= row.length) {
+			return null;
+		}
+		return row[bucketX];
+	}
+
+	private int getMaxBucketsWidth() {
+		int maxWidth = 0;
+		for (Node<T>[] row : buckets) {
+			if (row != null) {
+				maxWidth = Math.max(maxWidth, row.length);
 			}
 		}
+		return maxWidth;
 	}
 
+	private void addToBucket(Node<T> node) {
+		int bucketX = node.position.x >> BUCKET_SIZE_BITS;
+		int bucketY = node.position.y >> BUCKET_SIZE_BITS;
+
+		if (bucketY >= buckets.length) {
+			buckets = Arrays.copyOf(buckets, bucketY + 1);
+		}
+		Node<T>[] row = buckets[bucketY];
+		if (row == null) {
+			@SuppressWarnings({ "unchecked", "rawtypes" }) // arrays of the generic Node can only be created raw
+			Node<T>[] newRow = new Node[bucketX + 1];
+			row = newRow;
+			buckets[bucketY] = row;
+		} else if (bucketX >= row.length) {
+			row = Arrays.copyOf(row, bucketX + 1);
+			buckets[bucketY] = row;
+		}
+
+		Node<T> bucketFirst = row[bucketX];
+		node.bucketPrevious = null;
+		node.bucketNext = bucketFirst;
+		if (bucketFirst != null) {
+			bucketFirst.bucketPrevious = node;
+		}
+		row[bucketX] = node;
+	}
+
+	private void removeFromBucket(Node<T> node) {
+		if (node.bucketPrevious != null) {
+			node.bucketPrevious.bucketNext = node.bucketNext;
+		} else {
+			buckets[node.position.y >> BUCKET_SIZE_BITS][node.position.x >> BUCKET_SIZE_BITS] = node.bucketNext;
+		}
+		if (node.bucketNext != null) {
+			node.bucketNext.bucketPrevious = node.bucketPrevious;
+		}
+		node.bucketPrevious = null;
+		node.bucketNext = null;
+	}
+
+	private void writeObject(ObjectOutputStream oos) throws IOException {
+		oos.defaultWriteObject();
+		oos.writeInt(size);
+		for (Node<T> node = first; node != null; node = node.next) {
+			oos.writeObject(node.object);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private void readObject(ObjectInputStream ois) throws IOException, ClassNotFoundException {
+		ois.defaultReadObject();
+		initBuckets();
+
+		int size = ois.readInt();
+		for (int i = 0; i < size; i++) {
+			insert((T) ois.readObject());
+		}
+	}
 }
@@ -0,0 +1,147 @@
+package jsettlers.logic.map.newGrid.partition.manager.materials;
+
+import java.util.Arrays;
+
+import jsettlers.common.material.EMaterialType;
+import jsettlers.common.position.ShortPoint2D;
+import jsettlers.logic.map.newGrid.partition.manager.materials.interfaces.IManagerBearer;
+import jsettlers.logic.map.newGrid.partition.manager.materials.requests.MaterialRequestObject;
+
+/**
+ * The material transport jobs collected by the {@link MaterialsManager} in one scheduling period.
+ * <p />
+ * The jobs are collected one by one, so every job gets the bearer closest to its offer at the time it's added. {@link #minimizeWalkingDistance()}
+ * then reassigns the bearers to the offers and the requests to the offers of the same material, so that the total walking distance of all jobs
+ * is reduced. The result only depends on the order of the jobs, so it's the same on all clients.
+ *
+ */
+final class MaterialJobBatch {
+	private static final int MAX_IMPROVEMENT_ROUNDS = 8;
+
+	private final EMaterialType[] materialTypes;
+	private final ShortPoint2D[] offerPositions;
+	private final MaterialRequestObject[] requests;
+	private final IManagerBearer[] bearers;
+
+	private int size = 0;
+
+	MaterialJobBatch(int capacity) {
+		materialTypes = new EMaterialType[capacity];
+		offerPositions = new ShortPoint2D[capacity];
+		requests = new MaterialRequestObject[capacity];
+		bearers = new IManagerBearer[capacity];
+	}
+
+	void addJob(EMaterialType materialType, ShortPoint2D offerPosition, MaterialRequestObject request, IManagerBearer bearer) {
+		materialTypes[size] = materialType;
+		offerPositions[size] = offerPosition;
+		requests[size] = request;
+		bearers[size] = bearer;
+		size++;
+	}
+
+	boolean isFull() {
+		return size == bearers.length;
+	}
+
+	int size() {
+		return size;
+	}
+
+	EMaterialType getMaterialType(int job) {
+		return materialTypes[job];
+	}
+
+	ShortPoint2D getOfferPosition(int job) {
+		return offerPositions[job];
+	}
+
+	MaterialRequestObject getRequest(int job) {
+		return requests[job];
+	}
+
+	IManagerBearer getBearer(int job) {
+		return bearers[job];
+	}
+
+	/**
+	 * Reassigns the bearers and the requests of the jobs to reduce the sum of the distances from the bearers to their offers and from the offers
+	 * to their requests.
+	 * <p />
+	 * First the bearers are matched greedily to the offers by ascending distance. Afterwards, bearers of two jobs and requests of two jobs with the
+	 * same material are swapped as long as this shortens the walks.
+	 */
+	void minimizeWalkingDistance() {
+		if (size < 2) {
+			return;
+		}
+
+		assignBearersGreedily();
+
+		boolean improved = true;
+		for (int round = 0; round < MAX_IMPROVEMENT_ROUNDS && improved; round++) {
+			improved = false;
+
+			for (int job1 = 0; job1 < size; job1++) {
+				for (int job2 = job1 + 1; job2 < size; job2++) {
+					int currentBearerDistance = getDistance(bearers[job1].getPos(), offerPositions[job1])
+							+ getDistance(bearers[job2].getPos(), offerPositions[job2]);
+					int swappedBearerDistance = getDistance(bearers[job2].getPos(), offerPositions[job1])
+							+ getDistance(bearers[job1].getPos(), offerPositions[job2]);
+					if (swappedBearerDistance < currentBearerDistance) {
+						swap(bearers, job1, job2);
+						improved = true;
+					}
+
+					if (materialTypes[job1] == materialTypes[job2]) {
+						int currentRequestDistance = getDistance(offerPositions[job1], requests[job1].getPos())
+								+ getDistance(offerPositions[job2], requests[job2].getPos());
+						int swappedRequestDistance = getDistance(offerPositions[job1], requests[job2].getPos())
+								+ getDistance(offerPositions[job2], requests[job1].getPos());
+						if (swappedRequestDistance < currentRequestDistance) {
+							swap(requests, job1, job2);
+							improved = true;
+						}
+					}
+				}
+			}
+		}
+	}
+
+	private void assignBearersGreedily() {
+		// every edge is encoded as distance | job | bearer, so sorting them orders them by distance and resolves ties deterministically
+		long[] edges = new long[size * size];
+		for (int job = 0; job < size; job++) {
+			for (int bearer = 0; bearer < size; bearer++) {
+				long distance = getDistance(bearers[bearer].getPos(), offerPositions[job]);
+				edges[job * size + bearer] = distance << 32 | job << 16 | bearer;
+			}
+		}
+		Arrays.sort(edges);
+
+		IManagerBearer[] assignedBearers = new IManagerBearer[size];
+		boolean[] bearerAssigned = new boolean[size];
+		int assigned = 0;
+		for (int i = 0; i < edges.length && assigned < size; i++) {
+			int job = (int) (edges[i] >>> 16) & 0xFFFF;
+			int bearer = (int) edges[i] & 0xFFFF;
+			if (assignedBearers[job] == null && !bearerAssigned[bearer]) {
+				assignedBearers[job] = bearers[bearer];
+				bearerAssigned[bearer] = true;
+				assigned++;
+			}
+		}
+
+		System.arraycopy(assignedBearers, 0, bearers, 0, size);
+	}
+
+	private static int getDistance(ShortPoint2D position1, ShortPoint2D position2) {
+		return position1.getOnGridDistTo(position2);
+	}
+
+	private static <T> void swap(T[] array, int index1, int index2) {
+		T temp = array[index1];
+		array[index1] = array[index2];
+		array[index2] = temp;
+	}
+}
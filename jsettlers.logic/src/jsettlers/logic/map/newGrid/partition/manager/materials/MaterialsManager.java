@@ -5,6 +5,7 @@ import java.io.Serializable;
 import jsettlers.common.map.partition.IPartitionSettings;
 import jsettlers.common.material.EMaterialType;
 import jsettlers.common.position.ShortPoint2D;
+import jsettlers.logic.constants.Constants;
 import jsettlers.logic.map.newGrid.partition.manager.materials.interfaces.IJoblessSupplier;
 import jsettlers.logic.map.newGrid.partition.manager.materials.interfaces.IManagerBearer;
 import jsettlers.logic.map.newGrid.partition.manager.materials.offers.MaterialOffer;
@@ -23,14 +24,21 @@ import jsettlers.logic.map.newGrid.partition.manager.materials.requests.SimpleMa
 public final class MaterialsManager implements Serializable {
 	private static final long serialVersionUID = 6395951461349453696L;
 
+	/**
+	 * Maximum number of jobs assigned together in one call of {@link #distributeJobs()}.
+	 */
+	private static final int MAX_JOBS_PER_BATCH = 16;
+
 	private final OffersList offersList;
 	private final AbstractMaterialRequestPriorityQueue[] requestQueues;
 	private final IJoblessSupplier joblessSupplier;
 
 	private final IPartitionSettings settings;
+	private final boolean batched;
 
 	/**
-	 * Creates a new {@link MaterialsManager} that uses the given {@link IJoblessSupplier} and {@link OffersList} for it's operations.
+	 * Creates a new {@link MaterialsManager} that uses the given {@link IJoblessSupplier} and {@link OffersList} for it's operations. The jobs are
+	 * batched if {@link Constants#USE_BATCHED_MATERIAL_DISTRIBUTION} is set.
 	 * 
 	 * @param joblessSupplier
 	 *            {@link IJoblessSupplier} providing the jobless bearers.
@@ -38,9 +46,25 @@ public final class MaterialsManager implements Serializable {
 	 *            {@link OffersList} providing the offered materials.
 	 */
 	public MaterialsManager(IJoblessSupplier joblessSupplier, OffersList offersList, IPartitionSettings settings) {
+		this(joblessSupplier, offersList, settings, Constants.USE_BATCHED_MATERIAL_DISTRIBUTION);
+	}
+
+	/**
+	 * Creates a new {@link MaterialsManager} that uses the given {@link IJoblessSupplier} and {@link OffersList} for it's operations.
+	 * 
+	 * @param joblessSupplier
+	 *            {@link IJoblessSupplier} providing the jobless bearers.
+	 * @param offersList
+	 *            {@link OffersList} providing the offered materials.
+	 * @param batched
+	 *            If true, the jobs are collected and assigned together (see {@link Constants#USE_BATCHED_MATERIAL_DISTRIBUTION}). The mode is
+	 *            saved with the manager, so a loaded game keeps it.
+	 */
+	public MaterialsManager(IJoblessSupplier joblessSupplier, OffersList offersList, IPartitionSettings settings, boolean batched) {
 		this.joblessSupplier = joblessSupplier;
 		this.offersList = offersList;
 		this.settings = settings;
+		this.batched = batched;
 
 		requestQueues = new AbstractMaterialRequestPriorityQueue[EMaterialType.NUMBER_OF_MATERIALS];
 		for (int i = 0; i < EMaterialType.NUMBER_OF_MATERIALS; i++) {
@@ -66,8 +90,66 @@ public final class MaterialsManager implements Serializable {
 	}
 
 	public void distributeJobs() {
-		for (int i = 0; i < EMaterialType.NUMBER_OF_DROPPABLE_MATERIALS && !joblessSupplier.isEmpty(); i++) {
-			distributeJobForMaterial(settings.getMaterialTypeForPrio(i));
+		if (batched) {
+			distributeJobsBatched();
+		} else {
+			for (int i = 0; i < EMaterialType.NUMBER_OF_DROPPABLE_MATERIALS && !joblessSupplier.isEmpty(); i++) {
+				distributeJobForMaterial(settings.getMaterialTypeForPrio(i));
+			}
+		}
+	}
+
+	/**
+	 * Collects up to {@link #MAX_JOBS_PER_BATCH} jobs and assigns them together, so that the bearers have to walk less.
+	 */
+	private void distributeJobsBatched() {
+		MaterialJobBatch batch = null;
+
+		boolean jobAdded = true;
+		while (jobAdded) { // every round adds at most one job per material, so the priorities of the materials are kept
+			jobAdded = false;
+
+			for (int i = 0; i < EMaterialType.NUMBER_OF_DROPPABLE_MATERIALS && !joblessSupplier.isEmpty(); i++) {
+				EMaterialType materialType = settings.getMaterialTypeForPrio(i);
+				if (offersList.isEmpty(materialType))
+					continue;
+
+				MaterialRequestObject request = requestQueues[materialType.ordinal].getHighestRequest();
+				if (request == null)
+					continue;
+
+				MaterialOffer offer = offersList.removeOfferCloseTo(materialType, request.getPos());
+				IManagerBearer jobless = joblessSupplier.removeJoblessCloseTo(offer.getPos());
+
+				request.deliveryAccepted(); // reserve the request until the batch is assigned, otherwise it would be returned again
+
+				if (batch == null) {
+					batch = new MaterialJobBatch(MAX_JOBS_PER_BATCH);
+				}
+				batch.addJob(materialType, offer.getPos(), request, jobless);
+				jobAdded = true;
+
+				if (batch.isFull()) {
+					jobAdded = false;
+					break;
+				}
+			}
+		}
+
+		if (batch == null) {
+			return;
+		}
+
+		batch.minimizeWalkingDistance();
+
+		for (int job = 0; job < batch.size(); job++) {
+			EMaterialType materialType = batch.getMaterialType(job);
+			MaterialRequestObject request = batch.getRequest(job);
+			request.deliveryAborted(); // release the reservation, the bearer accepts the delivery itself
+
+			if (!batch.getBearer(job).deliver(materialType, batch.getOfferPosition(job), request)) {
+				offersList.addOffer(batch.getOfferPosition(job), materialType);
+			}
 		}
 	}
 
@@ -101,6 +101,19 @@ public final class OffersList implements Serializable {
 		}
 	}
 
+	/**
+	 * 
+	 * @param materialType
+	 * @return The sum of the amounts of all offers of the given {@link EMaterialType}.
+	 */
+	public int getNumberOfOfferedMaterials(EMaterialType materialType) {
+		int amount = 0;
+		for (MaterialOffer offer : offersLists[materialType.ordinal]) {
+			amount += offer.getAmount();
+		}
+		return amount;
+	}
+
 	/**
 	 * FOR TESTS ONLY!
 	 * 
@@ -118,4 +118,17 @@ public class DirectoryMapLister implements IMapLister {
 		}
 	}
 
+	@Override
+	public OutputStream getOutputStream(String fileName) throws IOException {
+		if (!writeable) {
+			throw new UnsupportedOperationException();
+		}
+
+		try {
+			return new BufferedOutputStream(new FileOutputStream(new File(directory, fileName + MapList.MAP_EXTENSION)));
+		} catch (FileNotFoundException e) {
+			throw new IOException(e);
+		}
+	}
+
 }
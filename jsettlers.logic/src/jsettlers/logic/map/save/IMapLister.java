@@ -20,4 +20,15 @@ public interface IMapLister {
 	 */
 	OutputStream getOutputStream(MapFileHeader header)
 			throws IOException;
+
+	/**
+	 * Gets an output stream to the file with the given name. Unlike {@link #getOutputStream(MapFileHeader)}, an existing file with this name is
+	 * replaced.
+	 * 
+	 * @param fileName
+	 *            The name of the file without the extension.
+	 * @return A output stream to the file.
+	 * @throws IOException
+	 */
+	OutputStream getOutputStream(String fileName) throws IOException;
 }
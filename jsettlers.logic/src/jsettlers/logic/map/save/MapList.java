@@ -2,21 +2,25 @@ package jsettlers.logic.map.save;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.ObjectOutputStream;
 import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import jsettlers.common.map.IMapData;
 import jsettlers.common.map.MapLoadException;
 import jsettlers.common.resources.ResourceManager;
 import jsettlers.input.PlayerState;
+import jsettlers.logic.constants.Constants;
 import jsettlers.logic.map.newGrid.GameSerializer;
+import jsettlers.logic.map.newGrid.GameSnapshot;
 import jsettlers.logic.map.newGrid.MainGrid;
 import jsettlers.logic.map.save.IMapLister.IMapListerCallable;
 import jsettlers.logic.map.save.MapFileHeader.MapType;
 import jsettlers.logic.map.save.loader.MapLoader;
-import jsettlers.logic.timer.RescheduleTimer;
 
 /**
  * This is the main map list.
@@ -38,6 +42,14 @@ public class MapList implements IMapListerCallable {
 
 	public static final String MAP_EXTENSION = ".map";
 	private static IMapListFactory mapListFactory = new DefaultMapListFactory();
+
+	/**
+	 * At most one game is saved in the background at a time, so there is never more than one snapshot in memory.
+	 */
+	private static final AtomicBoolean backgroundSaveRunning = new AtomicBoolean(false);
+	private static ExecutorService backgroundSaveExecutor;
+	private static int nextAutosaveSlot = 0;
+
 	private final IMapLister mapsDir;
 	private final IMapLister saveDir;
 
@@ -169,19 +181,95 @@ public class MapList implements IMapListerCallable {
 		MapFileHeader header = grid.generateSaveHeader();
 		OutputStream outStream = saveDir.getOutputStream(header);
 
-		header.writeTo(outStream);
+		try {
+			header.writeTo(outStream);
+
+			GameSerializer gameSerializer = new GameSerializer();
+			gameSerializer.save(playerStates, grid, outStream, Constants.COMPRESS_SAVEGAMES);
+		} finally {
+			outStream.close();
+		}
 
-		ObjectOutputStream oos = new ObjectOutputStream(outStream);
-		oos.writeObject(playerStates);
-		GameSerializer gameSerializer = new GameSerializer();
-		gameSerializer.save(grid, oos);
-		RescheduleTimer.saveTo(oos);
+		loadFileList();
+	}
 
-		oos.close();
+	/**
+	 * Saves a map to disk without stalling the game for the whole time. The calling thread only takes a snapshot of the game, it's compressed and
+	 * written by a background thread. Like {@link #saveMap(PlayerState[], MainGrid)}, this must be called by the clock thread.
+	 * 
+	 * @param playerStates
+	 * @param grid
+	 * @param autosave
+	 *            If true, the game is written to the next of the {@link Constants#AUTOSAVE_SLOTS} autosave files instead of a new file.
+	 * @return true if the save has been started,<br>
+	 *         false if the previous background save hasn't finished yet. Nothing is saved in this case.
+	 * @throws IOException
+	 */
+	public boolean saveMapInBackground(PlayerState[] playerStates, MainGrid grid, boolean autosave) throws IOException {
+		if (!backgroundSaveRunning.compareAndSet(false, true)) {
+			return false;
+		}
+
+		try {
+			final MapFileHeader header = grid.generateSaveHeader();
+			final GameSnapshot snapshot = new GameSerializer().takeSnapshot(playerStates, grid);
+			final String autosaveFileName;
+			if (autosave) {
+				autosaveFileName = "autosave-" + nextAutosaveSlot;
+				nextAutosaveSlot = (nextAutosaveSlot + 1) % Constants.AUTOSAVE_SLOTS;
+			} else {
+				autosaveFileName = null;
+			}
+
+			getBackgroundSaveExecutor().execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						writeSnapshot(header, snapshot, autosaveFileName);
+					} catch (IOException e) {
+						e.printStackTrace();
+					} finally {
+						backgroundSaveRunning.set(false);
+					}
+				}
+			});
+			return true;
+		} catch (IOException e) {
+			backgroundSaveRunning.set(false);
+			throw e;
+		} catch (RuntimeException e) {
+			backgroundSaveRunning.set(false);
+			throw e;
+		}
+	}
+
+	private synchronized void writeSnapshot(MapFileHeader header, GameSnapshot snapshot, String fileName) throws IOException {
+		OutputStream outStream = fileName != null ? saveDir.getOutputStream(fileName) : saveDir.getOutputStream(header);
+
+		try {
+			header.writeTo(outStream);
+			new GameSerializer().write(snapshot, outStream, Constants.COMPRESS_SAVEGAMES);
+		} finally {
+			outStream.close();
+		}
 
 		loadFileList();
 	}
 
+	private static synchronized ExecutorService getBackgroundSaveExecutor() {
+		if (backgroundSaveExecutor == null) {
+			backgroundSaveExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "BackgroundSaveThread");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return backgroundSaveExecutor;
+	}
+
 	/**
 	 * Saves a random map to the given file.
 	 * 
@@ -9,6 +9,7 @@ import java.util.concurrent.ConcurrentLinkedQueue;
 import jsettlers.algorithms.fogofwar.IViewDistancable;
 import jsettlers.algorithms.path.IPathCalculatable;
 import jsettlers.algorithms.path.Path;
+import jsettlers.algorithms.path.async.PathRequest;
 import jsettlers.common.mapobject.EMapObjectType;
 import jsettlers.common.material.EMaterialType;
 import jsettlers.common.material.ESearchType;
@@ -67,6 +68,7 @@ public final class Movable implements IScheduledTimerable, IPathCalculatable, II
 	private ShortPoint2D position;
 
 	private ShortPoint2D moveToRequest = null;
+	private PathRequest pathRequest = null;
 	private Path path;
 
 	private float health = 1.0f;
@@ -184,6 +186,13 @@ public final class Movable implements IScheduledTimerable, IPathCalculatable, II
 				this.path = null;
 
 			case DOING_NOTHING:
+				pathRequest = grid.requestPath(this, moveToRequest); // replaces a pending request
+				if (pathRequest != null) { // the path is calculated in the background, wait for it
+					moveToRequest = null;
+					wait((short) (pathRequest.getDeliveryTime() - MatchConstants.clock.getTime()));
+					return animationDuration;
+				}
+
 				ShortPoint2D oldTargetPos = path != null ? path.getTargetPos() : null;
 				ShortPoint2D oldPos = position;
 				boolean foundPath = goToPos(moveToRequest); // progress is reset in here
@@ -201,6 +210,19 @@ public final class Movable implements IScheduledTimerable, IPathCalculatable, II
 			}
 		}
 
+		if (pathRequest != null && state == ENewMovableState.DOING_NOTHING) { // the delivery time of the requested path has been reached
+			Path requestedPath = pathRequest.getPath();
+			pathRequest = null;
+
+			if (requestedPath != null) {
+				ShortPoint2D oldTargetPos = path != null ? path.getTargetPos() : null;
+				ShortPoint2D oldPos = position;
+				followPath(requestedPath);
+				this.strategy.moveToPathSet(oldPos, oldTargetPos, requestedPath.getTargetPos());
+				return animationDuration;
+			}
+		}
+
 		switch (state) {
 		case GOING_SINGLE_STEP:
 		case PLAYING_ACTION:
@@ -2,6 +2,7 @@ package jsettlers.logic.movable.interfaces;
 
 import jsettlers.algorithms.path.IPathCalculatable;
 import jsettlers.algorithms.path.Path;
+import jsettlers.algorithms.path.async.PathRequest;
 import jsettlers.common.mapobject.EMapObjectType;
 import jsettlers.common.material.ESearchType;
 import jsettlers.common.position.ShortPoint2D;
@@ -47,6 +48,18 @@ public abstract class AbstractNewMovableGrid extends AbstractStrategyGrid {
 
 	public abstract Path calculatePathTo(IPathCalculatable pathCalculatable, ShortPoint2D targetPos);
 
+	/**
+	 * Requests a path that is calculated in the background.
+	 * 
+	 * @param pathCalculatable
+	 *            requester of the path.
+	 * @param targetPos
+	 *            target of the path.
+	 * @return the request or null if the path can't be calculated in the background. In this case {@link #calculatePathTo(IPathCalculatable, ShortPoint2D)}
+	 *         has to be used.
+	 */
+	public abstract PathRequest requestPath(IPathCalculatable pathCalculatable, ShortPoint2D targetPos);
+
 	public abstract Path searchDijkstra(IPathCalculatable pathCalculateable, short centerX, short centerY, short radius, ESearchType searchType);
 
 	public abstract Path searchInArea(IPathCalculatable pathCalculateable, short centerX, short centerY, short radius, ESearchType searchType);
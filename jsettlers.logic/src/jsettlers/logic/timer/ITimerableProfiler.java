@@ -0,0 +1,18 @@
+package jsettlers.logic.timer;
+
+/**
+ * Receives the execution times of the {@link IScheduledTimerable}s run by the {@link RescheduleTimer}.
+ *
+ * @see RescheduleTimer#setProfiler(ITimerableProfiler)
+ */
+public interface ITimerableProfiler {
+
+	/**
+	 *
+	 * @param timerable
+	 *            The timerable that has been executed.
+	 * @param nanos
+	 *            The time the execution of {@link IScheduledTimerable#timerEvent()} took in nanoseconds.
+	 */
+	void timerableExecuted(IScheduledTimerable timerable, long nanos);
+}
@@ -4,29 +4,73 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
-import java.util.ArrayList;
 
 import jsettlers.common.map.MapLoadException;
 import jsettlers.logic.constants.MatchConstants;
 import jsettlers.network.client.interfaces.IGameClock;
 import jsettlers.network.synchronic.timer.INetworkTimerable;
 
+/**
+ * This timer schedules {@link IScheduledTimerable}s with a hierarchical timing wheel.
+ * <p />
+ * The first level has one slot per {@link #TIME_SLICE}. Every higher level covers a whole turn of the level below and is cascaded down when the
+ * lower level wraps around. Timerables scheduled even further in the future are kept in an overflow list. The entries are stored in primitive
+ * indexed pools, so scheduling does not create any garbage.
+ * <p />
+ * Timerables due in the same time slice are executed in the order they have been scheduled. This keeps the execution deterministic, which is
+ * required for the lockstep multiplayer.
+ */
 public final class RescheduleTimer implements INetworkTimerable, Serializable {
-	private static final long serialVersionUID = -1962430988827211391L;
+	private static final long serialVersionUID = 4291803664155872147L;
 
-	private static final short FUTURE_TIME = 11000;
 	private static final short TIME_SLICE = 25; // ms
-	private static final short TIME_SLOTS = FUTURE_TIME / TIME_SLICE;
+
+	private static final int LEVEL0_BITS = 9; // 512 slots => 12.8s
+	private static final int LEVEL1_BITS = 6; // 64 slots => 13.6min
+	private static final int LEVEL2_BITS = 6; // 64 slots => 14.5h
+
+	private static final int LEVEL0_SLOTS = 1 << LEVEL0_BITS;
+	private static final int LEVEL1_SLOTS = 1 << LEVEL1_BITS;
+	private static final int LEVEL2_SLOTS = 1 << LEVEL2_BITS;
+
+	private static final int LEVEL1_SHIFT = LEVEL0_BITS;
+	private static final int LEVEL2_SHIFT = LEVEL0_BITS + LEVEL1_BITS;
+
+	private static final int LEVEL1_RANGE = 1 << LEVEL2_SHIFT;
+	private static final int LEVEL2_RANGE = 1 << (LEVEL2_SHIFT + LEVEL2_BITS);
+
+	private static final int LEVEL1_OFFSET = LEVEL0_SLOTS;
+	private static final int LEVEL2_OFFSET = LEVEL1_OFFSET + LEVEL1_SLOTS;
+	private static final int OVERFLOW_SLOT = LEVEL2_OFFSET + LEVEL2_SLOTS;
+	private static final int NUMBER_OF_SLOTS = OVERFLOW_SLOT + 1;
+
+	private static final int INITIAL_CAPACITY = 256;
+	private static final int NO_ENTRY = -1;
 
 	private static RescheduleTimer uniIns;
+	private static ITimerableProfiler profiler;
+
+	private final int[] slotHeads = new int[NUMBER_OF_SLOTS];
+	private final int[] slotTails = new int[NUMBER_OF_SLOTS];
+	private final boolean[] slotUnsorted = new boolean[LEVEL0_SLOTS];
+
+	private IScheduledTimerable[] entryTimerables = new IScheduledTimerable[INITIAL_CAPACITY];
+	private int[] entryDueTimes = new int[INITIAL_CAPACITY];
+	private long[] entrySequences = new long[INITIAL_CAPACITY];
+	private int[] entryNext = new int[INITIAL_CAPACITY];
+	private int freeHead = NO_ENTRY;
+	private int usedEntries = 0;
+
+	private int currTime = 0;
+	private long nextSequence = 0;
 
-	@SuppressWarnings("unchecked")
-	private final ArrayList<IScheduledTimerable> timerables[] = new ArrayList[TIME_SLOTS];
-	private int currTimeSlot = 0;
+	private transient int[] fireBuffer;
+	private transient int[] sortBuffer;
 
 	protected RescheduleTimer() {
-		for (int i = 0; i < TIME_SLOTS; i++) {
-			timerables[i] = new ArrayList<IScheduledTimerable>();
+		for (int i = 0; i < NUMBER_OF_SLOTS; i++) {
+			slotHeads[i] = NO_ENTRY;
+			slotTails[i] = NO_ENTRY;
 		}
 	}
 
@@ -39,7 +83,7 @@ public final class RescheduleTimer implements INetworkTimerable, Serializable {
 
 	/**
 	 * Schedules the given {@link IScheduledTimerable} in max delay milliseconds.
-	 * 
+	 *
 	 * @param t
 	 * @param delay
 	 */
@@ -47,7 +91,7 @@ public final class RescheduleTimer implements INetworkTimerable, Serializable {
 		get().addTimerable(t, delay);
 	}
 
-	private void addTimerable(IScheduledTimerable t, int delay) {
+	void addTimerable(IScheduledTimerable t, int delay) {
 		if (delay <= 0) {
 			return; // don't schedule if requested delay is negative or zero
 		}
@@ -55,9 +99,12 @@ public final class RescheduleTimer implements INetworkTimerable, Serializable {
 		int delaySlots = delay / TIME_SLICE;
 		delaySlots = delaySlots > 0 ? delaySlots : 1; // ensure at least one slot delay
 
-		assert delaySlots < TIME_SLOTS : "SCHEDULED TO FAR IN THE FUTURE! " + delay + "ms";
+		int entry = allocateEntry();
+		entryTimerables[entry] = t;
+		entryDueTimes[entry] = currTime + delaySlots;
+		entrySequences[entry] = nextSequence++;
 
-		timerables[(currTimeSlot + delaySlots) % TIME_SLOTS].add(t);
+		insertEntry(entry);
 	}
 
 	private static synchronized RescheduleTimer get() {
@@ -69,11 +116,25 @@ public final class RescheduleTimer implements INetworkTimerable, Serializable {
 
 	@Override
 	public void timerEvent() {
-		ArrayList<IScheduledTimerable> queue = timerables[currTimeSlot];
+		if ((currTime & (LEVEL0_SLOTS - 1)) == 0) {
+			cascade();
+		}
+
+		int slot = currTime & (LEVEL0_SLOTS - 1);
+		int count = detachSlot(slot);
+		ITimerableProfiler profiler = RescheduleTimer.profiler;
+
+		for (int i = 0; i < count; i++) {
+			int entry = fireBuffer[i];
+			IScheduledTimerable curr = entryTimerables[entry];
+			freeEntry(entry);
 
-		for (IScheduledTimerable curr : queue) {
 			try {
+				long startTime = profiler != null ? System.nanoTime() : 0;
 				int delay = curr.timerEvent();
+				if (profiler != null) {
+					profiler.timerableExecuted(curr, System.nanoTime() - startTime);
+				}
 				addTimerable(curr, delay);
 			} catch (Throwable t) {
 				System.err.println("RescheduleTimer catched: ");
@@ -87,8 +148,152 @@ public final class RescheduleTimer implements INetworkTimerable, Serializable {
 			}
 		}
 
-		queue.clear();
-		currTimeSlot = (currTimeSlot + 1) % TIME_SLOTS;
+		currTime++;
+	}
+
+	/**
+	 * Moves the entries of the higher levels, that are now in range of a lower level, down. Higher levels are cascaded first, so every entry
+	 * ends up in the lowest level it can be stored in.
+	 */
+	private void cascade() {
+		int level1Index = (currTime >>> LEVEL1_SHIFT) & (LEVEL1_SLOTS - 1);
+		if (level1Index == 0) {
+			int level2Index = (currTime >>> LEVEL2_SHIFT) & (LEVEL2_SLOTS - 1);
+			if (level2Index == 0) {
+				reinsertSlot(OVERFLOW_SLOT);
+			}
+			reinsertSlot(LEVEL2_OFFSET + level2Index);
+		}
+		reinsertSlot(LEVEL1_OFFSET + level1Index);
+	}
+
+	private void reinsertSlot(int slot) {
+		int entry = slotHeads[slot];
+		slotHeads[slot] = NO_ENTRY;
+		slotTails[slot] = NO_ENTRY;
+
+		while (entry != NO_ENTRY) {
+			int next = entryNext[entry];
+			insertEntry(entry);
+			entry = next;
+		}
+	}
+
+	private void insertEntry(int entry) {
+		int dueTime = entryDueTimes[entry];
+		int delta = dueTime - currTime;
+
+		int slot;
+		if (delta < LEVEL0_SLOTS) {
+			slot = dueTime & (LEVEL0_SLOTS - 1);
+		} else if (delta < LEVEL1_RANGE) {
+			slot = LEVEL1_OFFSET + ((dueTime >>> LEVEL1_SHIFT) & (LEVEL1_SLOTS - 1));
+		} else if (delta < LEVEL2_RANGE) {
+			slot = LEVEL2_OFFSET + ((dueTime >>> LEVEL2_SHIFT) & (LEVEL2_SLOTS - 1));
+		} else {
+			slot = OVERFLOW_SLOT;
+		}
+
+		entryNext[entry] = NO_ENTRY;
+		int tail = slotTails[slot];
+		if (tail == NO_ENTRY) {
+			slotHeads[slot] = entry;
+		} else {
+			entryNext[tail] = entry;
+			if (slot < LEVEL0_SLOTS && entrySequences[tail] > entrySequences[entry]) {
+				slotUnsorted[slot] = true; // cascaded entries have been appended behind newer ones
+			}
+		}
+		slotTails[slot] = entry;
+	}
+
+	/**
+	 * Removes all entries of the given first level slot and stores them in scheduling order in the {@link #fireBuffer}.
+	 *
+	 * @param slot
+	 * @return Number of entries written to the {@link #fireBuffer}.
+	 */
+	private int detachSlot(int slot) {
+		if (fireBuffer == null || fireBuffer.length < entryNext.length) {
+			fireBuffer = new int[entryNext.length];
+		}
+
+		int count = 0;
+		for (int entry = slotHeads[slot]; entry != NO_ENTRY; entry = entryNext[entry]) {
+			fireBuffer[count++] = entry;
+		}
+		slotHeads[slot] = NO_ENTRY;
+		slotTails[slot] = NO_ENTRY;
+
+		if (slotUnsorted[slot]) {
+			slotUnsorted[slot] = false;
+			if (sortBuffer == null || sortBuffer.length < fireBuffer.length) {
+				sortBuffer = new int[fireBuffer.length];
+			}
+			mergeSortBySequence(fireBuffer, sortBuffer, 0, count);
+		}
+
+		return count;
+	}
+
+	private void mergeSortBySequence(int[] entries, int[] buffer, int from, int to) {
+		if (to - from < 2) {
+			return;
+		}
+
+		int middle = (from + to) >>> 1;
+		mergeSortBySequence(entries, buffer, from, middle);
+		mergeSortBySequence(entries, buffer, middle, to);
+
+		if (entrySequences[entries[middle - 1]] <= entrySequences[entries[middle]]) {
+			return; // already in order
+		}
+
+		System.arraycopy(entries, from, buffer, from, to - from);
+		int left = from;
+		int right = middle;
+		for (int i = from; i < to; i++) {
+			if (right >= to || (left < middle && entrySequences[buffer[left]] <= entrySequences[buffer[right]])) {
+				entries[i] = buffer[left++];
+			} else {
+				entries[i] = buffer[right++];
+			}
+		}
+	}
+
+	private int allocateEntry() {
+		if (freeHead != NO_ENTRY) {
+			int entry = freeHead;
+			freeHead = entryNext[entry];
+			return entry;
+		}
+
+		if (usedEntries == entryNext.length) {
+			int newCapacity = entryNext.length * 2;
+			IScheduledTimerable[] newTimerables = new IScheduledTimerable[newCapacity];
+			System.arraycopy(entryTimerables, 0, newTimerables, 0, usedEntries);
+			entryTimerables = newTimerables;
+
+			int[] newDueTimes = new int[newCapacity];
+			System.arraycopy(entryDueTimes, 0, newDueTimes, 0, usedEntries);
+			entryDueTimes = newDueTimes;
+
+			long[] newSequences = new long[newCapacity];
+			System.arraycopy(entrySequences, 0, newSequences, 0, usedEntries);
+			entrySequences = newSequences;
+
+			int[] newNext = new int[newCapacity];
+			System.arraycopy(entryNext, 0, newNext, 0, usedEntries);
+			entryNext = newNext;
+		}
+
+		return usedEntries++;
+	}
+
+	private void freeEntry(int entry) {
+		entryTimerables[entry] = null;
+		entryNext[entry] = freeHead;
+		freeHead = entry;
 	}
 
 	public static void loadFrom(ObjectInputStream ois) throws MapLoadException {
@@ -105,6 +310,15 @@ public final class RescheduleTimer implements INetworkTimerable, Serializable {
 		oos.flush();
 	}
 
+	/**
+	 * Sets the profiler that gets the execution time of every timerable. Profiling is disabled if the profiler is null.
+	 *
+	 * @param profiler
+	 */
+	public static void setProfiler(ITimerableProfiler profiler) {
+		RescheduleTimer.profiler = profiler;
+	}
+
 	public static void schedule(IGameClock gameClock) {
 		gameClock.schedule(get(), TIME_SLICE);
 	}
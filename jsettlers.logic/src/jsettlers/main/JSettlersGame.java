@@ -26,6 +26,7 @@ import jsettlers.graphics.startscreen.interfaces.IStartingGameListener;
 import jsettlers.input.GuiInterface;
 import jsettlers.input.IGameStoppable;
 import jsettlers.input.PlayerState;
+import jsettlers.input.tasks.GuiTaskTypes;
 import jsettlers.logic.buildings.Building;
 import jsettlers.logic.constants.MatchConstants;
 import jsettlers.logic.map.newGrid.MainGrid;
@@ -39,6 +40,7 @@ import jsettlers.logic.timer.RescheduleTimer;
 import jsettlers.network.client.OfflineNetworkConnector;
 import jsettlers.network.client.interfaces.IGameClock;
 import jsettlers.network.client.interfaces.INetworkConnector;
+import jsettlers.network.client.task.packets.TaskCodec;
 import jsettlers.network.synchronic.random.RandomSingleton;
 
 /**
@@ -49,6 +51,10 @@ import jsettlers.network.synchronic.random.RandomSingleton;
 public class JSettlersGame {
 	private static final SimpleDateFormat logDateFormat = new SimpleDateFormat("yyyy-MM-dd_HH-mm-ss");
 
+	static {
+		GuiTaskTypes.register();
+	}
+
 	private final Object stopMutex = new Object();
 
 	private final IGameCreator mapcreator;
@@ -109,6 +115,7 @@ public class JSettlersGame {
 			ReplayStartInformation replayStartInformation) throws IOException {
 		DataInputStream replayFileInputStream = new DataInputStream(new FileInputStream(loadableReplayFile));
 		replayStartInformation.deserialize(replayFileInputStream);
+		TaskCodec.setVersion(replayStartInformation.getTaskCodecVersion());
 
 		MapLoader mapCreator = MapList.getDefaultList().getMapById(replayStartInformation.getMapId());
 		return new JSettlersGame(mapCreator, replayStartInformation.getRandomSeed(), networkConnector,
@@ -164,6 +171,7 @@ public class JSettlersGame {
 				PlayerState playerState = gridWithUiState.getPlayerState(playerId);
 
 				RescheduleTimer.schedule(gameClock); // schedule timer
+				gameClock.setStateHasher(mainGrid);
 
 				updateProgressListener(EProgressState.LOADING_IMAGES, 0.7f);
 				statistics = new GameStatistics(gameClock);
@@ -185,7 +193,7 @@ public class JSettlersGame {
 				connector.loadUIState(playerState.getUiState());
 
 				GuiInterface guiInterface = new GuiInterface(connector, gameClock, networkConnector.getTaskScheduler(), mainGrid.getGuiInputGrid(),
-						this, playerId, multiplayer);
+						this, playerId, multiplayer, gridWithUiState.getPlayerStates());
 
 				if (replayFileInputStream != null) {
 					gameClock.loadReplayLogFromStream(replayFileInputStream);
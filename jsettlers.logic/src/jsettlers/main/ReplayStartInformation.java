@@ -4,18 +4,30 @@ import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 
+import jsettlers.network.client.task.packets.TaskCodec;
+
 /**
+ * The information needed to start a replay. It is written at the beginning of the replay file.
+ * <p />
+ * Replays written before the header had a version start directly with the random seed. They are recognized by the missing
+ * {@link #HEADER_MAGIC} and always use the {@link TaskCodec#CLASS_NAME_VERSION}.
  * 
  * @author Andreas Eberle
  * 
  */
 public class ReplayStartInformation {
+	/**
+	 * "JSREPLAY" in ASCII.
+	 */
+	private static final long HEADER_MAGIC = 0x4a535245504c4159L;
+	private static final int HEADER_VERSION = 1;
 
 	private long randomSeed;
 	private String mapName;
 	private String mapId;
 	private int playerId;
 	private boolean[] availablePlayers;
+	private int taskCodecVersion;
 
 	public ReplayStartInformation() {
 	}
@@ -26,6 +38,7 @@ public class ReplayStartInformation {
 		this.mapName = mapName;
 		this.mapId = mapId;
 		this.availablePlayers = availablePlayers;
+		this.taskCodecVersion = TaskCodec.getVersion();
 	}
 
 	public long getRandomSeed() {
@@ -48,7 +61,19 @@ public class ReplayStartInformation {
 		return availablePlayers;
 	}
 
+	/**
+	 * 
+	 * @return The {@link TaskCodec} version used to write the tasks of the replay.
+	 */
+	public int getTaskCodecVersion() {
+		return taskCodecVersion;
+	}
+
 	public void serialize(DataOutputStream oos) throws IOException {
+		oos.writeLong(HEADER_MAGIC);
+		oos.writeByte(HEADER_VERSION);
+		oos.writeByte(taskCodecVersion);
+
 		oos.writeLong(randomSeed);
 		oos.writeByte(playerId);
 		oos.writeUTF(mapName);
@@ -61,7 +86,18 @@ public class ReplayStartInformation {
 	}
 
 	public void deserialize(DataInputStream ois) throws IOException {
-		randomSeed = ois.readLong();
+		long firstLong = ois.readLong();
+		if (firstLong == HEADER_MAGIC) {
+			int headerVersion = ois.readByte();
+			if (headerVersion != HEADER_VERSION) {
+				throw new IOException("Unsupported replay header version: " + headerVersion);
+			}
+			taskCodecVersion = ois.readByte();
+			randomSeed = ois.readLong();
+		} else { // replay written before the header had a version
+			taskCodecVersion = TaskCodec.CLASS_NAME_VERSION;
+			randomSeed = firstLong;
+		}
 		playerId = ois.readByte();
 		mapName = ois.readUTF();
 		mapId = ois.readUTF();
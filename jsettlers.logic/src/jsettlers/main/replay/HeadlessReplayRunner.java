@@ -0,0 +1,250 @@
+package jsettlers.main.replay;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+
+import jsettlers.common.map.MapLoadException;
+import jsettlers.graphics.map.UIState;
+import jsettlers.input.GuiTaskExecutor;
+import jsettlers.input.ITaskExecutorGuiInterface;
+import jsettlers.input.PlayerState;
+import jsettlers.input.tasks.GuiTaskTypes;
+import jsettlers.logic.buildings.Building;
+import jsettlers.logic.constants.MatchConstants;
+import jsettlers.logic.map.newGrid.MainGrid;
+import jsettlers.logic.map.newGrid.objects.MapObjectsManager;
+import jsettlers.logic.map.newGrid.partition.manager.PartitionManager;
+import jsettlers.logic.map.save.IGameCreator;
+import jsettlers.logic.map.save.IGameCreator.MainGridWithUiSettings;
+import jsettlers.logic.map.save.MapList;
+import jsettlers.logic.movable.Movable;
+import jsettlers.logic.timer.IScheduledTimerable;
+import jsettlers.logic.timer.ITimerableProfiler;
+import jsettlers.logic.timer.RescheduleTimer;
+import jsettlers.main.ReplayStartInformation;
+import jsettlers.main.replay.ReplayRunReport.ESubsystem;
+import jsettlers.network.NetworkConstants;
+import jsettlers.network.client.task.packets.TaskCodec;
+import jsettlers.network.client.task.packets.TaskPacket;
+import jsettlers.network.synchronic.random.RandomSingleton;
+import jsettlers.network.synchronic.timer.ITaskExecutor;
+import jsettlers.network.synchronic.timer.NetworkTimer;
+
+/**
+ * Runs a replay as fast as possible without any user interface.
+ * <p />
+ * Everything is simulated by the calling thread: The clock isn't started but played forward, the path requests are calculated when they are
+ * submitted and the borders and partitions are updated every {@link #BACKGROUND_TASKS_PERIOD} milliseconds of game time instead of by their
+ * threads. This makes the runs reproducible and the measured times only contain the work of the simulation.
+ * <p />
+ * The hashes of the game state are compared with the ones stored in the replay, so the runner also detects if the game doesn't replay the
+ * same way it has been played.
+ *
+ */
+public final class HeadlessReplayRunner {
+	private static final int BACKGROUND_TASKS_PERIOD = 1000; // ms of game time
+
+	static {
+		GuiTaskTypes.register();
+	}
+
+	private HeadlessReplayRunner() {
+	}
+
+	/**
+	 * Runs the given replay file. The map of the replay is looked up in the default {@link MapList}.
+	 *
+	 * @param replayFile
+	 * @param targetGameTime
+	 *            The game time in milliseconds the replay is run to.
+	 * @return The report of the run.
+	 * @throws IOException
+	 * @throws MapLoadException
+	 */
+	public static ReplayRunReport run(File replayFile, int targetGameTime) throws IOException, MapLoadException {
+		DataInputStream replayStream = new DataInputStream(new BufferedInputStream(new FileInputStream(replayFile)));
+		try {
+			ReplayStartInformation replayStartInformation = new ReplayStartInformation();
+			replayStartInformation.deserialize(replayStream);
+
+			IGameCreator mapCreator = MapList.getDefaultList().getMapById(replayStartInformation.getMapId());
+			if (mapCreator == null) {
+				throw new MapLoadException("Map of the replay not found: " + replayStartInformation.getMapName());
+			}
+			return run(mapCreator, replayStartInformation, replayStream, targetGameTime);
+		} finally {
+			replayStream.close();
+		}
+	}
+
+	/**
+	 * Runs the replay on the given map.
+	 *
+	 * @param mapCreator
+	 *            The map the replay has been recorded on.
+	 * @param replayStartInformation
+	 *            The start information of the replay.
+	 * @param tasksStream
+	 *            The stream containing the tasks of the replay. It may be empty to run the game without any tasks.
+	 * @param targetGameTime
+	 *            The game time in milliseconds the replay is run to.
+	 * @return The report of the run.
+	 * @throws MapLoadException
+	 */
+	public static ReplayRunReport run(IGameCreator mapCreator, ReplayStartInformation replayStartInformation, DataInputStream tasksStream,
+			int targetGameTime) throws MapLoadException {
+		byte playerId = (byte) replayStartInformation.getPlayerId();
+		ReplayRunReport report = new ReplayRunReport();
+
+		TaskCodec.setVersion(replayStartInformation.getTaskCodecVersion());
+		NetworkTimer clock = new NetworkTimer(true);
+		MatchConstants.clock = clock;
+		RandomSingleton.load(replayStartInformation.getRandomSeed());
+		Movable.resetState();
+
+		MainGrid mainGrid = null;
+		try {
+			MainGridWithUiSettings gridWithUiState = mapCreator.loadMainGrid(replayStartInformation.getAvailablePlayers());
+			mainGrid = gridWithUiState.getMainGrid();
+			PlayerState playerState = gridWithUiState.getPlayerState(playerId);
+
+			RescheduleTimer.schedule(clock);
+			clock.setStateHasher(mainGrid);
+			mainGrid.initForPlayer(playerId, playerState.getFogOfWar());
+			mainGrid.runBackgroundTasksSynchronously();
+
+			GuiTaskExecutor taskExecutor = new GuiTaskExecutor(mainGrid.getGuiInputGrid(), new HeadlessGuiInterface(playerState.getUiState()),
+					playerId, gridWithUiState.getPlayerStates());
+			clock.setTaskExecutor(new ProfilingTaskExecutor(taskExecutor, report));
+			clock.loadReplayLogFromStream(tasksStream);
+
+			RescheduleTimer.setProfiler(new SubsystemProfiler(report));
+			simulate(clock, mainGrid, targetGameTime, report);
+		} finally {
+			RescheduleTimer.setProfiler(null);
+			clock.stopExecution();
+			if (mainGrid != null) {
+				mainGrid.stopThreads();
+			}
+			RescheduleTimer.stop();
+			Movable.resetState();
+			Building.dropAllBuildings();
+		}
+
+		return report;
+	}
+
+	private static void simulate(NetworkTimer clock, MainGrid mainGrid, int targetGameTime, ReplayRunReport report) {
+		int startGameTime = clock.getTime();
+		long startAllocatedBytes = getAllocatedBytesOfCurrentThread();
+		long startTime = System.nanoTime();
+
+		while (clock.getTime() < targetGameTime) {
+			clock.fastForwardTo(Math.min(targetGameTime, clock.getTime() + BACKGROUND_TASKS_PERIOD));
+
+			long bordersStart = System.nanoTime();
+			mainGrid.calculateBorders();
+			long normalizationStart = System.nanoTime();
+			mainGrid.normalizePartitions();
+			long end = System.nanoTime();
+
+			report.addSubsystemNanos(ESubsystem.BORDERS, normalizationStart - bordersStart);
+			report.addSubsystemNanos(ESubsystem.PARTITION_NORMALIZATION, end - normalizationStart);
+		}
+
+		long wallNanos = System.nanoTime() - startTime;
+		long endAllocatedBytes = getAllocatedBytesOfCurrentThread();
+		long allocatedBytes = startAllocatedBytes >= 0 && endAllocatedBytes >= 0 ? endAllocatedBytes - startAllocatedBytes : -1;
+		long stateHash = mainGrid.calculateStateHash(clock.getTime() / NetworkConstants.Client.LOCKSTEP_PERIOD);
+		report.setResult(clock.getTime() - startGameTime, wallNanos, allocatedBytes, clock.getFirstDesyncLockstep(), stateHash);
+	}
+
+	/**
+	 * The allocated bytes are only available with the HotSpot extension of the {@link java.lang.management.ThreadMXBean}. It's accessed by
+	 * reflection, so this class can be loaded on every JVM.
+	 *
+	 * @return The number of bytes allocated by the current thread or -1 if this isn't supported.
+	 */
+	private static long getAllocatedBytesOfCurrentThread() {
+		try {
+			Class<?> threadBeanClass = Class.forName("com.sun.management.ThreadMXBean");
+			Object threadBean = ManagementFactory.getThreadMXBean();
+			if (!threadBeanClass.isInstance(threadBean)) {
+				return -1;
+			}
+			Method getAllocatedBytes = threadBeanClass.getMethod("getThreadAllocatedBytes", long.class);
+			return (Long) getAllocatedBytes.invoke(threadBean, Thread.currentThread().getId());
+		} catch (Throwable t) {
+			return -1;
+		}
+	}
+
+	/**
+	 * Accounts the execution times of the {@link IScheduledTimerable}s to the subsystems they belong to.
+	 */
+	private static final class SubsystemProfiler implements ITimerableProfiler {
+		private final ReplayRunReport report;
+
+		SubsystemProfiler(ReplayRunReport report) {
+			this.report = report;
+		}
+
+		@Override
+		public void timerableExecuted(IScheduledTimerable timerable, long nanos) {
+			report.addSubsystemNanos(getSubsystem(timerable), nanos);
+		}
+
+		private static ESubsystem getSubsystem(IScheduledTimerable timerable) {
+			if (timerable instanceof Movable) {
+				return ESubsystem.MOVABLES;
+			} else if (timerable instanceof Building) {
+				return ESubsystem.BUILDINGS;
+			} else if (timerable instanceof PartitionManager) {
+				return ESubsystem.PARTITION_MANAGERS;
+			} else if (timerable instanceof MapObjectsManager) {
+				return ESubsystem.MAP_OBJECTS;
+			} else {
+				return ESubsystem.OTHER_TIMERABLES;
+			}
+		}
+	}
+
+	private static final class ProfilingTaskExecutor implements ITaskExecutor {
+		private final ITaskExecutor taskExecutor;
+		private final ReplayRunReport report;
+
+		ProfilingTaskExecutor(ITaskExecutor taskExecutor, ReplayRunReport report) {
+			this.taskExecutor = taskExecutor;
+			this.report = report;
+		}
+
+		@Override
+		public void executeTask(TaskPacket task) {
+			long startTime = System.nanoTime();
+			taskExecutor.executeTask(task);
+			report.addSubsystemNanos(ESubsystem.TASKS, System.nanoTime() - startTime);
+		}
+	}
+
+	private static final class HeadlessGuiInterface implements ITaskExecutorGuiInterface {
+		private final UIState uiState;
+
+		HeadlessGuiInterface(UIState uiState) {
+			this.uiState = uiState;
+		}
+
+		@Override
+		public void refreshSelection() {
+		}
+
+		@Override
+		public UIState getUIState() {
+			return uiState;
+		}
+	}
+}
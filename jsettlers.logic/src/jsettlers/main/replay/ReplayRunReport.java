@@ -0,0 +1,142 @@
+package jsettlers.main.replay;
+
+/**
+ * The results of a replay run by the {@link HeadlessReplayRunner}: how fast the game has been simulated, where the time has been spent and how
+ * much memory has been allocated.
+ *
+ */
+public final class ReplayRunReport {
+
+	/**
+	 * The parts of the simulation the time is accounted to.
+	 */
+	public enum ESubsystem {
+		TASKS,
+		MOVABLES,
+		BUILDINGS,
+		PARTITION_MANAGERS,
+		MAP_OBJECTS,
+		OTHER_TIMERABLES,
+		BORDERS,
+		PARTITION_NORMALIZATION;
+
+		public static final ESubsystem[] values = values();
+	}
+
+	private final long[] subsystemNanos = new long[ESubsystem.values.length];
+	private int simulatedTime;
+	private long wallNanos;
+	private long allocatedBytes = -1;
+	private int firstDesyncLockstep = -1;
+	private long stateHash;
+
+	void addSubsystemNanos(ESubsystem subsystem, long nanos) {
+		subsystemNanos[subsystem.ordinal()] += nanos;
+	}
+
+	void setResult(int simulatedTime, long wallNanos, long allocatedBytes, int firstDesyncLockstep, long stateHash) {
+		this.simulatedTime = simulatedTime;
+		this.wallNanos = wallNanos;
+		this.allocatedBytes = allocatedBytes;
+		this.firstDesyncLockstep = firstDesyncLockstep;
+		this.stateHash = stateHash;
+	}
+
+	/**
+	 *
+	 * @return The game time that has been simulated in milliseconds.
+	 */
+	public int getSimulatedTime() {
+		return simulatedTime;
+	}
+
+	public long getWallNanos() {
+		return wallNanos;
+	}
+
+	/**
+	 *
+	 * @return The simulated milliseconds per wall clock millisecond.
+	 */
+	public float getSpeed() {
+		return wallNanos == 0 ? 0 : simulatedTime * 1000000f / wallNanos;
+	}
+
+	public long getSubsystemNanos(ESubsystem subsystem) {
+		return subsystemNanos[subsystem.ordinal()];
+	}
+
+	/**
+	 *
+	 * @return The time that isn't accounted to any {@link ESubsystem}, e.g. the bookkeeping of the timers.
+	 */
+	public long getUntrackedNanos() {
+		long untracked = wallNanos;
+		for (long nanos : subsystemNanos) {
+			untracked -= nanos;
+		}
+		return untracked;
+	}
+
+	/**
+	 *
+	 * @return The number of bytes allocated by the simulating thread or -1 if the JVM doesn't support measuring it.
+	 */
+	public long getAllocatedBytes() {
+		return allocatedBytes;
+	}
+
+	/**
+	 *
+	 * @return The allocated bytes per simulated second or -1 if the JVM doesn't support measuring them.
+	 */
+	public long getAllocationRate() {
+		if (allocatedBytes < 0 || simulatedTime == 0) {
+			return -1;
+		}
+		return allocatedBytes * 1000 / simulatedTime;
+	}
+
+	/**
+	 *
+	 * @return The first lockstep at which the game state differed from the one recorded in the replay or -1 if the replay has been played
+	 *         the same way.
+	 */
+	public int getFirstDesyncLockstep() {
+		return firstDesyncLockstep;
+	}
+
+	/**
+	 *
+	 * @return The hash of the game state at the end of the run. Two runs of the same replay to the same game time have the same hash.
+	 */
+	public long getStateHash() {
+		return stateHash;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		builder.append(String.format("simulated: %dms   wall: %dms   speed: %.1fx%n", simulatedTime, wallNanos / 1000000, getSpeed()));
+		for (ESubsystem subsystem : ESubsystem.values) {
+			appendSubsystem(builder, subsystem.toString(), getSubsystemNanos(subsystem));
+		}
+		appendSubsystem(builder, "UNTRACKED", getUntrackedNanos());
+		if (allocatedBytes >= 0) {
+			builder.append(String.format("allocated: %dKB   allocation rate: %dKB per simulated second", allocatedBytes / 1024,
+					getAllocationRate() / 1024));
+		} else {
+			builder.append("allocated: not supported by this JVM");
+		}
+		builder.append(String.format("%nstate hash: %016x", stateHash));
+		if (firstDesyncLockstep >= 0) {
+			builder.append(String.format("%nDESYNC: the game state differs from the replay since lockstep %d", firstDesyncLockstep));
+		}
+		return builder.toString();
+	}
+
+	private void appendSubsystem(StringBuilder builder, String name, long nanos) {
+		float percentage = wallNanos == 0 ? 0 : nanos * 100f / wallNanos;
+		builder.append(String.format("  %-24s %8dms %5.1f%%%n", name, nanos / 1000000, percentage));
+	}
+}
@@ -27,6 +27,7 @@ public class ReplayTool {
 
 		// schedule the save task and run the game to the target game time
 		networkConnector.scheduleTaskAt(targetGameTime / NetworkConstants.Client.LOCKSTEP_PERIOD, new SimpleGuiTask(EGuiAction.QUICK_SAVE, (byte) 0));
+		System.out.println("Playing game forward to game time: " + targetGameTime);
 		MatchConstants.clock.fastForwardTo(targetGameTime);
 
 		// create a replay basing on the savegame and containing the remaining tasks.
@@ -64,4 +64,9 @@ public class AndroidAssetsMapLister implements IMapLister {
 			throws IOException {
 		throw new UnsupportedOperationException();
 	}
+
+	@Override
+	public OutputStream getOutputStream(String fileName) throws IOException {
+		throw new UnsupportedOperationException();
+	}
 }
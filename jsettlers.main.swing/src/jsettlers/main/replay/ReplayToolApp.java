@@ -6,6 +6,7 @@ import java.io.IOException;
 import java.util.HashMap;
 
 import jsettlers.common.CommonConstants;
+import jsettlers.common.map.MapLoadException;
 import jsettlers.common.utils.MainUtils;
 import jsettlers.graphics.swing.resources.SwingResourceLoader;
 import jsettlers.main.swing.SwingManagedJSettlers;
@@ -17,7 +18,7 @@ import jsettlers.main.swing.SwingManagedJSettlers;
  */
 public class ReplayToolApp {
 
-	public static void main(String[] args) throws FileNotFoundException, IOException, InterruptedException {
+	public static void main(String[] args) throws FileNotFoundException, IOException, InterruptedException, MapLoadException {
 		CommonConstants.ENABLE_CONSOLE_LOGGING = true;
 
 		HashMap<String, String> argsMap = MainUtils.createArgumentsMap(args);
@@ -33,6 +34,11 @@ public class ReplayToolApp {
 		if (!replayFile.exists())
 			throw new FileNotFoundException("Found replayFile parameter, but file can not be found: " + replayFile);
 
+		if (argsMap.containsKey("headless")) {
+			System.out.println("Replay run:\n" + HeadlessReplayRunner.run(replayFile, targetGameTime));
+			System.exit(0);
+		}
+
 		ReplayTool.replayAndCreateSavegame(replayFile, targetGameTime);
 
 		Thread.sleep(2000);
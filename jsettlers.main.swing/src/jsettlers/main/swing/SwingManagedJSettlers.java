@@ -164,6 +164,7 @@ public class SwingManagedJSettlers {
 					} catch (InterruptedException e) {
 					}
 				}
+				System.out.println("Playing game forward to game time: " + targetGameTime);
 				MatchConstants.clock.fastForwardTo(targetGameTime);
 			}
 		} else {
@@ -38,6 +38,12 @@ public final class NetworkConstants {
 		public static final int BROADCAST_BUFFER_LENGTH = BROADCAST_MESSAGE.length();
 
 		public static final long OPEN_MATCHES_SEND_INTERVAL_MS = 5 * 1000;
+
+		/**
+		 * If true, the server serves its clients with a few {@link java.nio.channels.Selector} threads instead of one thread per client.
+		 */
+		public static final boolean USE_NIO_SOCKETS = true;
+		public static final int NIO_EVENT_LOOP_THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
 	}
 
 	public final static class Client {
@@ -51,6 +57,16 @@ public final class NetworkConstants {
 		 */
 		public static int TIME_SYNC_TOLERATED_DIFFERENCE = 100;
 		public static float TIME_SYNC_APPROACH_FACTOR = 0.7f;
+		/**
+		 * A client that is behind another client by more than {@link #TIME_SYNC_TOLERATED_DIFFERENCE} runs faster by this factor until it has
+		 * caught up.
+		 */
+		public static float TIME_SYNC_CATCH_UP_SPEED_FACTOR = 1.5f;
+		/**
+		 * A client only pauses to let another client catch up if the difference is higher than this. Smaller differences are caught up by the
+		 * client that is behind, so the other clients don't need to stop.
+		 */
+		public static int TIME_SYNC_MAX_CATCH_UP_DIFFERENCE = 500;
 
 		/**
 		 * The number of milliseconds between a lockstep event.
@@ -60,6 +76,15 @@ public final class NetworkConstants {
 		 * The number of steps the server can run ahead of the clients.
 		 */
 		public static int LOCKSTEP_DEFAULT_LEAD_STEPS = 3;
+		/**
+		 * The maximum number of ticks the game clock executes immediately after it has been delayed, e.g. by the garbage collector. Older
+		 * ticks are skipped.
+		 */
+		public static int CLOCK_MAX_CATCH_UP_TICKS = 4;
+		/**
+		 * The number of locksteps between two checkpoints at which the clients compare the hashes of their game states.
+		 */
+		public static int STATE_HASH_PERIOD = 10;
 	}
 
 	/**
@@ -130,7 +155,10 @@ public final class NetworkConstants {
 		CHAT_MESSAGE,
 		TIME_SYNC,
 
-		CHANGE_START_FINISHED;
+		CHANGE_START_FINISHED,
+
+		STATE_HASH,
+		STATE_HASH_MISMATCH;
 
 		private static final ENetworkKey[] values = ENetworkKey.values();
 		private final byte ordinal;
@@ -150,5 +178,15 @@ public final class NetworkConstants {
 				throw new IOException(ex);
 			}
 		}
+
+		/**
+		 * 
+		 * @param ordinal
+		 *            The ordinal of a key as it is written by {@link #writeTo(DataOutputStream)}.
+		 * @return The key with the given ordinal or <code>null</code> if there is no such key.
+		 */
+		public static ENetworkKey fromOrdinal(int ordinal) {
+			return ordinal >= 0 && ordinal < values.length ? values[ordinal] : null;
+		}
 	}
 }
@@ -1,15 +1,17 @@
 package jsettlers.network.client;
 
 import jsettlers.network.client.interfaces.IGameClock;
+import jsettlers.network.client.statehash.IStateHashCheckingClock;
 import jsettlers.network.client.task.ISyncTasksPacketScheduler;
 import jsettlers.network.client.time.ISynchronizableClock;
 
 /**
- * This interface combines the three interfaces {@link IGameClock}, {@link ISynchronizableClock}, {@link ISyncTasksPacketScheduler}.
+ * This interface combines the interfaces {@link IGameClock}, {@link ISynchronizableClock}, {@link ISyncTasksPacketScheduler} and
+ * {@link IStateHashCheckingClock}.
  * 
  * @author Andreas Eberle
  * 
  */
-public interface INetworkClientClock extends IGameClock, ISynchronizableClock, ISyncTasksPacketScheduler {
+public interface INetworkClientClock extends IGameClock, ISynchronizableClock, ISyncTasksPacketScheduler, IStateHashCheckingClock {
 
 }
@@ -5,6 +5,7 @@ import java.io.IOException;
 import jsettlers.network.NetworkConstants;
 import jsettlers.network.NetworkConstants.ENetworkKey;
 import jsettlers.network.client.receiver.IPacketReceiver;
+import jsettlers.network.client.task.packets.TaskCodec;
 import jsettlers.network.common.packets.MatchStartPacket;
 import jsettlers.network.infrastructure.channel.GenericDeserializer;
 import jsettlers.network.infrastructure.channel.listeners.PacketChannelListener;
@@ -27,6 +28,7 @@ public class MatchStartedListener extends PacketChannelListener<MatchStartPacket
 
 	@Override
 	protected void receivePacket(ENetworkKey key, MatchStartPacket packet) throws IOException {
+		TaskCodec.setVersion(packet.getTaskCodecVersion());
 		networkClient.matchStartedEvent();
 
 		if (matchStartedListener != null)
@@ -11,6 +11,9 @@ import jsettlers.network.client.interfaces.INetworkClient;
 import jsettlers.network.client.interfaces.INetworkConnector;
 import jsettlers.network.client.interfaces.ITaskScheduler;
 import jsettlers.network.client.receiver.IPacketReceiver;
+import jsettlers.network.client.statehash.IStateHashCheckingClock;
+import jsettlers.network.client.statehash.StateHashMismatchListener;
+import jsettlers.network.client.statehash.StateHashSender;
 import jsettlers.network.client.task.TaskPacketListener;
 import jsettlers.network.client.task.packets.TaskPacket;
 import jsettlers.network.client.time.ISynchronizableClock;
@@ -228,6 +231,7 @@ public class NetworkClient implements ITaskScheduler, INetworkConnector, INetwor
 		channel.removeListener(NetworkConstants.ENetworkKey.MATCH_STARTED);
 
 		startTimeSynchronization(clock);
+		startStateHashComparison(clock);
 		channel.initPinging();
 	}
 
@@ -237,6 +241,11 @@ public class NetworkClient implements ITaskScheduler, INetworkConnector, INetwor
 		timer.schedule(timeSyncSender, 0, NetworkConstants.Client.TIME_SYNC_SEND_INTERVALL);
 	}
 
+	private void startStateHashComparison(IStateHashCheckingClock clock) {
+		channel.registerListener(new StateHashMismatchListener(clock));
+		clock.setStateHashListener(new StateHashSender(channel));
+	}
+
 	void matchInfoUpdated(MatchInfoUpdatePacket matchInfoUpdate) {
 		switch (matchInfoUpdate.getUpdateReason()) {
 		case PLAYER_LEFT:
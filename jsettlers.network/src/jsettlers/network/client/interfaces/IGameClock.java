@@ -4,6 +4,7 @@ import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 
+import jsettlers.network.synchronic.timer.IGameStateHasher;
 import jsettlers.network.synchronic.timer.INetworkTimerable;
 import jsettlers.network.synchronic.timer.ITaskExecutor;
 
@@ -21,6 +22,21 @@ public interface IGameClock extends IPausingSupplier {
 
 	void setTaskExecutor(ITaskExecutor taskExecutor);
 
+	/**
+	 * Sets the hasher used to calculate the hashes of the game state at the checkpoints. These hashes are written to the replay and compared
+	 * with the ones of the other clients or the replay that is played.
+	 * 
+	 * @param stateHasher
+	 */
+	void setStateHasher(IGameStateHasher stateHasher);
+
+	/**
+	 * 
+	 * @return The lockstep of the first checkpoint at which the game state differed from the one of another client or the replay or -1 if no
+	 *         difference has been detected.
+	 */
+	int getFirstDesyncLockstep();
+
 	void multiplyGameSpeed(float factor);
 
 	void setGameSpeed(float speedFactor);
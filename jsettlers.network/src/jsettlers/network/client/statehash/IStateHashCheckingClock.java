@@ -0,0 +1,22 @@
+package jsettlers.network.client.statehash;
+
+/**
+ * A clock that calculates the hashes of the game state at the checkpoints, so they can be compared with the ones of the other clients.
+ *
+ */
+public interface IStateHashCheckingClock {
+
+	/**
+	 * Sets the listener that gets the calculated hashes of the game state.
+	 *
+	 * @param stateHashListener
+	 */
+	void setStateHashListener(IStateHashListener stateHashListener);
+
+	/**
+	 * Called when the hash of the game state of this client differs from another one at the given lockstep.
+	 *
+	 * @param lockstep
+	 */
+	void stateHashMismatch(int lockstep);
+}
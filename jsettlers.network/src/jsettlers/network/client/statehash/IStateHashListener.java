@@ -0,0 +1,17 @@
+package jsettlers.network.client.statehash;
+
+/**
+ * Gets the hashes of the game state calculated by the clock at the checkpoints.
+ *
+ */
+public interface IStateHashListener {
+
+	/**
+	 *
+	 * @param lockstep
+	 *            The lockstep of the checkpoint.
+	 * @param stateHash
+	 *            The hash of the game state.
+	 */
+	void stateHashCalculated(int lockstep, long stateHash);
+}
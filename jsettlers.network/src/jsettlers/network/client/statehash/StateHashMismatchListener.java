@@ -0,0 +1,28 @@
+package jsettlers.network.client.statehash;
+
+import java.io.IOException;
+
+import jsettlers.network.NetworkConstants;
+import jsettlers.network.NetworkConstants.ENetworkKey;
+import jsettlers.network.common.packets.StateHashPacket;
+import jsettlers.network.infrastructure.channel.GenericDeserializer;
+import jsettlers.network.infrastructure.channel.listeners.PacketChannelListener;
+
+/**
+ * Receives the notification of the server that the game states of the clients differ.
+ *
+ */
+public class StateHashMismatchListener extends PacketChannelListener<StateHashPacket> {
+
+	private final IStateHashCheckingClock clock;
+
+	public StateHashMismatchListener(IStateHashCheckingClock clock) {
+		super(NetworkConstants.ENetworkKey.STATE_HASH_MISMATCH, new GenericDeserializer<StateHashPacket>(StateHashPacket.class));
+		this.clock = clock;
+	}
+
+	@Override
+	protected void receivePacket(ENetworkKey key, StateHashPacket packet) throws IOException {
+		clock.stateHashMismatch(packet.getLockstep());
+	}
+}
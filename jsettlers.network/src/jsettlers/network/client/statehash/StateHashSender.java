@@ -0,0 +1,23 @@
+package jsettlers.network.client.statehash;
+
+import jsettlers.network.NetworkConstants;
+import jsettlers.network.common.packets.StateHashPacket;
+import jsettlers.network.infrastructure.channel.AsyncChannel;
+
+/**
+ * Sends the hashes of the game state to the server, which compares them with the ones of the other clients.
+ *
+ */
+public class StateHashSender implements IStateHashListener {
+
+	private final AsyncChannel channel;
+
+	public StateHashSender(AsyncChannel channel) {
+		this.channel = channel;
+	}
+
+	@Override
+	public void stateHashCalculated(int lockstep, long stateHash) {
+		channel.sendPacketAsync(NetworkConstants.ENetworkKey.STATE_HASH, new StateHashPacket(lockstep, stateHash));
+	}
+}
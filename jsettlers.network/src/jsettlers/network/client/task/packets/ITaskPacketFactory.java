@@ -0,0 +1,11 @@
+package jsettlers.network.client.task.packets;
+
+/**
+ * Creates empty instances of a {@link TaskPacket} type that are filled by {@link TaskPacket#deserializeTask(java.io.DataInputStream)}.
+ *
+ * @param <T>
+ *            The type of the created tasks.
+ */
+public interface ITaskPacketFactory<T extends TaskPacket> {
+	T createTask();
+}
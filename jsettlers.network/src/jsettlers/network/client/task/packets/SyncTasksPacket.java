@@ -38,7 +38,19 @@ public class SyncTasksPacket extends Packet {
 
 	@Override
 	public void deserialize(DataInputStream dis) throws IOException {
-		lockstepNumber = dis.readInt();
+		deserializeTasks(dis.readInt(), dis);
+	}
+
+	/**
+	 * Deserializes the packet after its lockstep number has already been read, e.g. to distinguish it from other entries of a replay.
+	 * 
+	 * @param lockstepNumber
+	 *            The lockstep number read from the stream.
+	 * @param dis
+	 * @throws IOException
+	 */
+	public void deserializeTasks(int lockstepNumber, DataInputStream dis) throws IOException {
+		this.lockstepNumber = lockstepNumber;
 		int numberOfTasks = dis.readInt();
 		tasks = new LinkedList<TaskPacket>();
 
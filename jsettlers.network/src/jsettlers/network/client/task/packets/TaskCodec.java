@@ -0,0 +1,263 @@
+package jsettlers.network.client.task.packets;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encodes the types and the data of {@link TaskPacket}s.
+ * <p />
+ * With the {@link #CLASS_NAME_VERSION} every task is identified by its class name and instantiated by reflection. With the
+ * {@link #COMPACT_VERSION} tasks registered with {@link #registerTaskType(int, Class, ITaskPacketFactory)} are identified by their varint encoded
+ * type id and created by their factory. Numbers, coordinates and id lists written with the methods of this class are varint encoded, too.
+ * <p />
+ * All players of a match need to use the same version. The server chooses the highest version supported by all players of a match and sends it
+ * with the {@link jsettlers.network.common.packets.MatchStartPacket}.
+ *
+ */
+public final class TaskCodec {
+	public static final int CLASS_NAME_VERSION = 0;
+	public static final int COMPACT_VERSION = 1;
+	/**
+	 * Like the {@link #COMPACT_VERSION}, but tasks may describe selections relative to selections sent before.
+	 */
+	public static final int SELECTION_DELTA_VERSION = 2;
+	public static final int SUPPORTED_VERSION = SELECTION_DELTA_VERSION;
+
+	/**
+	 * Type id used by the {@link #COMPACT_VERSION} for tasks that have not been registered. It is followed by the class name of the task.
+	 */
+	private static final int UNREGISTERED_TYPE_ID = 0;
+
+	private static volatile int version = CLASS_NAME_VERSION;
+
+	private static final Object registryLock = new Object();
+	private static volatile Map<Class<? extends TaskPacket>, Integer> typeIds = new HashMap<Class<? extends TaskPacket>, Integer>();
+	private static volatile Map<String, ITaskPacketFactory<?>> factoriesByName = new HashMap<String, ITaskPacketFactory<?>>();
+	private static volatile ITaskPacketFactory<?>[] factoriesById = new ITaskPacketFactory<?>[1];
+
+	private TaskCodec() {
+	}
+
+	/**
+	 * Registers a task type. Every client of a match must register the same types with the same ids.
+	 *
+	 * @param typeId
+	 *            The id identifying the type. It must be greater than 0 and should be small, as it's varint encoded.
+	 * @param taskClass
+	 * @param factory
+	 *            A factory creating empty instances of the given class.
+	 * @throws IllegalArgumentException
+	 *             If the id is used for another type.
+	 */
+	public static <T extends TaskPacket> void registerTaskType(int typeId, Class<T> taskClass, ITaskPacketFactory<T> factory) {
+		if (typeId <= UNREGISTERED_TYPE_ID) {
+			throw new IllegalArgumentException("Task type ids must be greater than " + UNREGISTERED_TYPE_ID + ": " + typeId);
+		}
+
+		synchronized (registryLock) {
+			Integer registeredId = typeIds.get(taskClass);
+			if (registeredId != null && registeredId == typeId) {
+				return; // already registered
+			}
+			if (registeredId != null || (typeId < factoriesById.length && factoriesById[typeId] != null)) {
+				throw new IllegalArgumentException("Can't register " + taskClass.getName() + " with id " + typeId + ".");
+			}
+
+			ITaskPacketFactory<?>[] newFactoriesById = Arrays.copyOf(factoriesById, Math.max(factoriesById.length, typeId + 1));
+			newFactoriesById[typeId] = factory;
+			Map<Class<? extends TaskPacket>, Integer> newTypeIds = new HashMap<Class<? extends TaskPacket>, Integer>(typeIds);
+			newTypeIds.put(taskClass, typeId);
+			Map<String, ITaskPacketFactory<?>> newFactoriesByName = new HashMap<String, ITaskPacketFactory<?>>(factoriesByName);
+			newFactoriesByName.put(taskClass.getName(), factory);
+
+			factoriesById = newFactoriesById;
+			typeIds = newTypeIds;
+			factoriesByName = newFactoriesByName;
+		}
+	}
+
+	/**
+	 * Sets the version used to encode and decode tasks.
+	 *
+	 * @param version
+	 *            A version between {@link #CLASS_NAME_VERSION} and {@link #SUPPORTED_VERSION}.
+	 */
+	public static void setVersion(int version) {
+		if (version < CLASS_NAME_VERSION || version > SUPPORTED_VERSION) {
+			throw new IllegalArgumentException("Unsupported task codec version: " + version);
+		}
+		TaskCodec.version = version;
+	}
+
+	public static int getVersion() {
+		return version;
+	}
+
+	static void writeType(DataOutputStream dos, TaskPacket task) throws IOException {
+		if (version == CLASS_NAME_VERSION) {
+			dos.writeUTF(task.getClass().getName());
+			return;
+		}
+
+		Integer typeId = typeIds.get(task.getClass());
+		if (typeId != null) {
+			writeVarInt(dos, typeId);
+		} else {
+			writeVarInt(dos, UNREGISTERED_TYPE_ID);
+			dos.writeUTF(task.getClass().getName());
+		}
+	}
+
+	static TaskPacket readTypeAndCreateTask(DataInputStream dis) throws IOException {
+		if (version != CLASS_NAME_VERSION) {
+			int typeId = readVarInt(dis);
+			if (typeId != UNREGISTERED_TYPE_ID) {
+				ITaskPacketFactory<?>[] factoriesById = TaskCodec.factoriesById;
+				if (typeId >= factoriesById.length || factoriesById[typeId] == null) {
+					throw new IOException("Unknown task type id: " + typeId);
+				}
+				return factoriesById[typeId].createTask();
+			}
+		}
+
+		String className = dis.readUTF();
+		ITaskPacketFactory<?> factory = factoriesByName.get(className);
+		if (factory != null) {
+			return factory.createTask();
+		}
+
+		try {
+			@SuppressWarnings("unchecked")
+			Class<? extends TaskPacket> taskClass = (Class<? extends TaskPacket>) Class.forName(className);
+			return taskClass.newInstance();
+		} catch (Exception e) {
+			throw new IOException(e);
+		}
+	}
+
+	/**
+	 * Writes a non negative number. It is written as an int by the {@link #CLASS_NAME_VERSION} and as a varint by the {@link #COMPACT_VERSION}.
+	 *
+	 * @param dos
+	 * @param value
+	 * @throws IOException
+	 */
+	public static void writeNumber(DataOutputStream dos, int value) throws IOException {
+		if (version == CLASS_NAME_VERSION) {
+			dos.writeInt(value);
+		} else {
+			writeVarInt(dos, value);
+		}
+	}
+
+	public static int readNumber(DataInputStream dis) throws IOException {
+		if (version == CLASS_NAME_VERSION) {
+			return dis.readInt();
+		} else {
+			return readVarInt(dis);
+		}
+	}
+
+	/**
+	 * Writes a coordinate. It is written as a short by the {@link #CLASS_NAME_VERSION} and as a varint by the {@link #COMPACT_VERSION}, which needs
+	 * two bytes for the coordinates of all maps with less than 16384 positions per row.
+	 *
+	 * @param dos
+	 * @param coordinate
+	 * @throws IOException
+	 */
+	public static void writeCoordinate(DataOutputStream dos, short coordinate) throws IOException {
+		if (version == CLASS_NAME_VERSION) {
+			dos.writeShort(coordinate);
+		} else {
+			writeVarInt(dos, coordinate & 0xFFFF);
+		}
+	}
+
+	public static short readCoordinate(DataInputStream dis) throws IOException {
+		if (version == CLASS_NAME_VERSION) {
+			return dis.readShort();
+		} else {
+			return (short) readVarInt(dis);
+		}
+	}
+
+	/**
+	 * Writes a list of ids, e.g. the ids of selected movables. The {@link #COMPACT_VERSION} writes the zigzag encoded difference of every id to
+	 * its predecessor as a varint, so ids close to each other need a single byte.
+	 *
+	 * @param dos
+	 * @param ids
+	 * @throws IOException
+	 */
+	public static void writeIds(DataOutputStream dos, List<Integer> ids) throws IOException {
+		if (version == CLASS_NAME_VERSION) {
+			dos.writeInt(ids.size());
+			for (Integer id : ids) {
+				dos.writeInt(id);
+			}
+		} else {
+			writeVarInt(dos, ids.size());
+			int previous = 0;
+			for (Integer id : ids) {
+				int delta = id - previous;
+				writeVarInt(dos, (delta << 1) ^ (delta >> 31));
+				previous = id;
+			}
+		}
+	}
+
+	public static List<Integer> readIds(DataInputStream dis) throws IOException {
+		if (version == CLASS_NAME_VERSION) {
+			int size = dis.readInt();
+			List<Integer> ids = new ArrayList<Integer>(size);
+			for (int i = 0; i < size; i++) {
+				ids.add(dis.readInt());
+			}
+			return ids;
+		} else {
+			int size = readVarInt(dis);
+			List<Integer> ids = new ArrayList<Integer>(size);
+			int previous = 0;
+			for (int i = 0; i < size; i++) {
+				int zigzag = readVarInt(dis);
+				previous += (zigzag >>> 1) ^ -(zigzag & 1);
+				ids.add(previous);
+			}
+			return ids;
+		}
+	}
+
+	/**
+	 * Writes the given value in groups of 7 bits, starting with the lowest ones. The highest bit of every byte is set if more bytes follow.
+	 *
+	 * @param dos
+	 * @param value
+	 * @throws IOException
+	 */
+	public static void writeVarInt(DataOutputStream dos, int value) throws IOException {
+		while ((value & ~0x7F) != 0) {
+			dos.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		dos.writeByte(value);
+	}
+
+	public static int readVarInt(DataInputStream dis) throws IOException {
+		int value = 0;
+		for (int shift = 0; shift < 32; shift += 7) {
+			int b = dis.readUnsignedByte();
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new IOException("Malformed varint.");
+	}
+}
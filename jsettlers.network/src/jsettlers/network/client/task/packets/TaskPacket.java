@@ -7,9 +7,11 @@ import java.io.IOException;
 
 import jsettlers.network.NetworkConstants.ENetworkKey;
 import jsettlers.network.infrastructure.channel.IDeserializingable;
+import jsettlers.network.infrastructure.channel.buffer.PacketOutputStream;
 import jsettlers.network.infrastructure.channel.packet.Packet;
 
 /**
+ * A task sent to all clients of a match. The type of the task is encoded by the {@link TaskCodec}.
  * 
  * @author Andreas Eberle
  * 
@@ -19,26 +21,30 @@ public abstract class TaskPacket extends Packet {
 
 		@Override
 		public TaskPacket deserialize(ENetworkKey key, DataInputStream dis) throws IOException {
-			try {
-				dis.readInt(); // read the length in bytes from the stream. We don't need it here, only the server needs it.
-				String className = dis.readUTF();
-				@SuppressWarnings("unchecked")
-				Class<? extends TaskPacket> taskClass = (Class<? extends TaskPacket>) Class.forName(className);
-				TaskPacket packet = taskClass.newInstance();
-				packet.deserializeTask(dis);
-				return packet;
-			} catch (Exception e) {
-				throw new IOException(e);
-			}
+			dis.readInt(); // read the length in bytes from the stream. We don't need it here, only the server needs it.
+			TaskPacket packet = TaskCodec.readTypeAndCreateTask(dis);
+			packet.deserializeTask(dis);
+			return packet;
 		}
 	};
 
 	@Override
 	public final void serialize(DataOutputStream dos) throws IOException {
+		if (dos instanceof PacketOutputStream) { // the length can be written in place
+			PacketOutputStream packetStream = (PacketOutputStream) dos;
+			int lengthPosition = packetStream.reserveInt();
+
+			TaskCodec.writeType(dos, this);
+			serializeTask(dos);
+
+			packetStream.setIntAt(lengthPosition, packetStream.getLength() - lengthPosition - 4);
+			return;
+		}
+
 		ByteArrayOutputStream bufferOutStream = new ByteArrayOutputStream();
 		DataOutputStream bufferDataOutStream = new DataOutputStream(bufferOutStream);
 
-		bufferDataOutStream.writeUTF(this.getClass().getName());
+		TaskCodec.writeType(bufferDataOutStream, this);
 		serializeTask(bufferDataOutStream);
 		bufferDataOutStream.flush();
 
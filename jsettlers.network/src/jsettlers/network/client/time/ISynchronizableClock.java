@@ -21,4 +21,12 @@ public interface ISynchronizableClock {
 	 */
 	void pauseClockFor(int timeDelta);
 
+	/**
+	 * Runs the clock faster until it gained the given period of time.
+	 * 
+	 * @param timeDelta
+	 *            milliseconds the clock is behind
+	 */
+	void catchUpFor(int timeDelta);
+
 }
@@ -33,8 +33,10 @@ public class TimeSynchronizationListener extends PacketChannelListener<TimeSyncP
 
 		int deltaTime = localTime - expectedRemoteTime;
 
-		if (deltaTime > Client.TIME_SYNC_TOLERATED_DIFFERENCE) {
+		if (deltaTime > Client.TIME_SYNC_MAX_CATCH_UP_DIFFERENCE) {
 			clock.pauseClockFor((int) (deltaTime * Client.TIME_SYNC_APPROACH_FACTOR));
+		} else if (-deltaTime > Client.TIME_SYNC_TOLERATED_DIFFERENCE) {
+			clock.catchUpFor(-deltaTime);
 		}
 	}
 
@@ -4,6 +4,7 @@ import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 
+import jsettlers.network.client.task.packets.TaskCodec;
 import jsettlers.network.infrastructure.channel.packet.Packet;
 
 /**
@@ -16,19 +17,26 @@ public class MatchStartPacket extends Packet {
 
 	private MatchInfoPacket matchInfo;
 	private long randomSeed;
+	private int taskCodecVersion;
 
 	public MatchStartPacket() {
 	}
 
 	public MatchStartPacket(MatchInfoPacket matchInfo, long seed) {
+		this(matchInfo, seed, TaskCodec.CLASS_NAME_VERSION);
+	}
+
+	public MatchStartPacket(MatchInfoPacket matchInfo, long seed, int taskCodecVersion) {
 		this.matchInfo = matchInfo;
 		this.randomSeed = seed;
+		this.taskCodecVersion = taskCodecVersion;
 	}
 
 	@Override
 	public void serialize(DataOutputStream dos) throws IOException {
 		matchInfo.serialize(dos);
 		dos.writeLong(randomSeed);
+		dos.writeByte(taskCodecVersion);
 	}
 
 	@Override
@@ -37,6 +45,7 @@ public class MatchStartPacket extends Packet {
 		match.deserialize(dis);
 		this.matchInfo = match;
 		randomSeed = dis.readLong();
+		taskCodecVersion = dis.readByte();
 	}
 
 	@Override
@@ -45,6 +54,7 @@ public class MatchStartPacket extends Packet {
 		int result = 1;
 		result = prime * result + ((matchInfo == null) ? 0 : matchInfo.hashCode());
 		result = prime * result + (int) (randomSeed ^ (randomSeed >>> 32));
+		result = prime * result + taskCodecVersion;
 		return result;
 	}
 
@@ -64,6 +74,8 @@ public class MatchStartPacket extends Packet {
 			return false;
 		if (randomSeed != other.randomSeed)
 			return false;
+		if (taskCodecVersion != other.taskCodecVersion)
+			return false;
 		return true;
 	}
 
@@ -80,4 +92,11 @@ public class MatchStartPacket extends Packet {
 	public long getRandomSeed() {
 		return randomSeed;
 	}
+
+	/**
+	 * @return the {@link TaskCodec} version to be used by all players of the match
+	 */
+	public int getTaskCodecVersion() {
+		return taskCodecVersion;
+	}
 }
@@ -4,6 +4,7 @@ import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 
+import jsettlers.network.client.task.packets.TaskCodec;
 import jsettlers.network.infrastructure.channel.packet.Packet;
 
 /**
@@ -16,14 +17,20 @@ public class PlayerInfoPacket extends Packet {
 	private String name;
 	private boolean ready;
 	private boolean startFinished;
+	private int taskCodecVersion;
 
 	public PlayerInfoPacket() {
 	}
 
 	public PlayerInfoPacket(String id, String name, boolean ready) {
+		this(id, name, ready, TaskCodec.SUPPORTED_VERSION);
+	}
+
+	public PlayerInfoPacket(String id, String name, boolean ready, int taskCodecVersion) {
 		this.id = id;
 		this.name = name;
 		this.ready = ready;
+		this.taskCodecVersion = taskCodecVersion;
 	}
 
 	@Override
@@ -32,6 +39,7 @@ public class PlayerInfoPacket extends Packet {
 		dos.writeUTF(name);
 		dos.writeBoolean(ready);
 		dos.writeBoolean(startFinished);
+		dos.writeByte(taskCodecVersion);
 	}
 
 	@Override
@@ -40,6 +48,7 @@ public class PlayerInfoPacket extends Packet {
 		name = dis.readUTF();
 		ready = dis.readBoolean();
 		startFinished = dis.readBoolean();
+		taskCodecVersion = dis.readByte();
 	}
 
 	public String getId() {
@@ -66,6 +75,14 @@ public class PlayerInfoPacket extends Packet {
 		this.startFinished = startFinished;
 	}
 
+	/**
+	 * 
+	 * @return The highest {@link TaskCodec} version supported by the player.
+	 */
+	public int getTaskCodecVersion() {
+		return taskCodecVersion;
+	}
+
 	@Override
 	public int hashCode() {
 		final int prime = 31;
@@ -73,6 +90,7 @@ public class PlayerInfoPacket extends Packet {
 		result = prime * result + ((id == null) ? 0 : id.hashCode());
 		result = prime * result + ((name == null) ? 0 : name.hashCode());
 		result = prime * result + (ready ? 1231 : 1237);
+		result = prime * result + taskCodecVersion;
 		return result;
 	}
 
@@ -97,6 +115,8 @@ public class PlayerInfoPacket extends Packet {
 			return false;
 		if (ready != other.ready)
 			return false;
+		if (taskCodecVersion != other.taskCodecVersion)
+			return false;
 		return true;
 	}
 
@@ -0,0 +1,70 @@
+package jsettlers.network.common.packets;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import jsettlers.network.infrastructure.channel.packet.Packet;
+
+/**
+ * The hash of the game state of a client at a checkpoint lockstep.
+ *
+ */
+public class StateHashPacket extends Packet {
+
+	private int lockstep;
+	private long stateHash;
+
+	public StateHashPacket() {
+	}
+
+	public StateHashPacket(int lockstep, long stateHash) {
+		this.lockstep = lockstep;
+		this.stateHash = stateHash;
+	}
+
+	@Override
+	public void serialize(DataOutputStream dos) throws IOException {
+		dos.writeInt(lockstep);
+		dos.writeLong(stateHash);
+	}
+
+	@Override
+	public void deserialize(DataInputStream dis) throws IOException {
+		lockstep = dis.readInt();
+		stateHash = dis.readLong();
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + lockstep;
+		result = prime * result + (int) (stateHash ^ (stateHash >>> 32));
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		StateHashPacket other = (StateHashPacket) obj;
+		if (lockstep != other.lockstep)
+			return false;
+		if (stateHash != other.stateHash)
+			return false;
+		return true;
+	}
+
+	public int getLockstep() {
+		return lockstep;
+	}
+
+	public long getStateHash() {
+		return stateHash;
+	}
+}
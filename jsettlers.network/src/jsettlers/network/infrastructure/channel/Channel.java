@@ -1,16 +1,18 @@
 package jsettlers.network.infrastructure.channel;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.BufferedInputStream;
 import java.io.DataInputStream;
-import java.io.DataOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.net.Socket;
 import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
 import java.util.HashMap;
 
 import jsettlers.network.NetworkConstants;
 import jsettlers.network.NetworkConstants.ENetworkKey;
+import jsettlers.network.infrastructure.channel.buffer.PacketInputStream;
+import jsettlers.network.infrastructure.channel.buffer.PacketOutputStream;
 import jsettlers.network.infrastructure.channel.packet.Packet;
 import jsettlers.network.infrastructure.channel.ping.IPingUpdateListener;
 import jsettlers.network.infrastructure.channel.ping.IRoundTripTimeSupplier;
@@ -18,6 +20,8 @@ import jsettlers.network.infrastructure.channel.ping.PingPacket;
 import jsettlers.network.infrastructure.channel.ping.PingPacketListener;
 import jsettlers.network.infrastructure.channel.ping.RoundTripTime;
 import jsettlers.network.infrastructure.channel.reject.RejectPacket;
+import jsettlers.network.infrastructure.channel.socket.IFrameReceiver;
+import jsettlers.network.infrastructure.channel.socket.IFramedSocket;
 import jsettlers.network.infrastructure.channel.socket.ISocket;
 import jsettlers.network.infrastructure.channel.socket.ISocketFactory;
 import jsettlers.network.infrastructure.log.ConsoleLogger;
@@ -27,20 +31,36 @@ import jsettlers.network.infrastructure.log.SwitchableLogger;
 /**
  * This class builds up a logical channel between to network partners. The class allows to send data of type {@link Packet} to the partner and to
  * register {@link IChannelListener}s to receive incoming data as a callback.
+ * <p />
+ * If the socket is an {@link IFramedSocket}, the packets are delivered by the thread of the socket. Otherwise the channel reads the socket with
+ * an own thread.
+ * <p />
+ * Packets are framed in place in a reusable send buffer and received packets are read from a reusable receive buffer, so sending and receiving
+ * does not allocate memory once the buffers are large enough.
  * 
  * @author Andreas Eberle
  * 
  */
 public class Channel implements Runnable, IRoundTripTimeSupplier {
-	private final Thread thread;
+	private static final int INITIAL_BUFFER_SIZE = 1024;
+	private static final int HEADER_LENGTH = 5; // key (byte) and length (int)
+
+	private final Thread thread; // null if the socket delivers frames itself
 
 	private final SwitchableLogger logger;
 	private final ISocket socket;
-	private final DataOutputStream outStream;
-	private final DataInputStream inStream;
+	private final OutputStream outStream;
+	private final DataInputStream inStream; // null if the socket delivers frames itself
+
+	private final PacketOutputStream sendBuffer = new PacketOutputStream(INITIAL_BUFFER_SIZE);
+	private final PacketInputStream packetInStream = new PacketInputStream();
+	private ByteBuffer receiveBuffer; // only used if the channel reads the socket itself
 
-	private final ByteArrayOutputStream byteBufferOutStream = new ByteArrayOutputStream();
-	private final DataOutputStream bufferDataOutStream = new DataOutputStream(byteBufferOutStream);
+	private volatile long sentPackets;
+	private volatile long sentBytes;
+	private volatile long receivedPackets;
+	private volatile long receivedBytes;
+	private volatile long allocatedReceiveBufferBytes;
 
 	private final HashMap<ENetworkKey, IChannelListener> listenerRegistry = new HashMap<ENetworkKey, IChannelListener>();
 
@@ -69,13 +89,20 @@ public class Channel implements Runnable, IRoundTripTimeSupplier {
 	public Channel(Logger logger, ISocket socket) throws IOException {
 		this.logger = new SwitchableLogger(logger);
 		this.socket = socket;
-		outStream = new DataOutputStream(socket.getOutputStream());
-		inStream = new DataInputStream(socket.getInputStream());
+		outStream = socket.getOutputStream();
 
 		pingPacketListener = new PingPacketListener(this.logger, this);
 		registerListener(pingPacketListener);
 
-		thread = new Thread(this, "ChannelForSocket_" + socket);
+		if (socket instanceof IFramedSocket) {
+			inStream = null;
+			thread = null;
+		} else {
+			inStream = new DataInputStream(new BufferedInputStream(socket.getInputStream(), INITIAL_BUFFER_SIZE));
+			receiveBuffer = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+			allocatedReceiveBufferBytes = INITIAL_BUFFER_SIZE;
+			thread = new Thread(this, "ChannelForSocket_" + socket);
+		}
 	}
 
 	/**
@@ -90,7 +117,11 @@ public class Channel implements Runnable, IRoundTripTimeSupplier {
 	 */
 	public void start() {
 		started = true;
-		thread.start();
+		if (thread != null) {
+			thread.start();
+		} else {
+			((IFramedSocket) socket).startReceiving(new FrameReceiver());
+		}
 	}
 
 	public synchronized void sendPacket(ENetworkKey key, Packet packet) {
@@ -104,18 +135,18 @@ public class Channel implements Runnable, IRoundTripTimeSupplier {
 	}
 
 	private void sendPacketData(ENetworkKey key, Packet packet) throws IOException {
-		bufferDataOutStream.flush();
-		byteBufferOutStream.reset();
+		sendBuffer.reset();
 
-		packet.serialize(bufferDataOutStream); // write packet to buffer to calculate length
-		bufferDataOutStream.flush();
-		final int length = byteBufferOutStream.size();
-
-		key.writeTo(outStream); // write key, length and the data
-		outStream.writeInt(length);
-		byteBufferOutStream.writeTo(outStream);
+		key.writeTo(sendBuffer); // write key, length and the data
+		int lengthPosition = sendBuffer.reserveInt();
+		packet.serialize(sendBuffer);
+		sendBuffer.setIntAt(lengthPosition, sendBuffer.getLength() - HEADER_LENGTH);
 
+		sendBuffer.writeTo(outStream);
 		outStream.flush();
+
+		sentPackets++;
+		sentBytes += sendBuffer.getLength();
 	}
 
 	/**
@@ -142,36 +173,52 @@ public class Channel implements Runnable, IRoundTripTimeSupplier {
 				ENetworkKey key = ENetworkKey.readFrom(inStream);
 				int length = inStream.readInt();
 
-				DataInputStream bufferIn = readBytesToBuffer(inStream, length);
-
-				IChannelListener listener = listenerRegistry.get(key);
-
-				if (listener != null) {
-					try {
-						listener.receive(key, length, bufferIn);
-						if (bufferIn.available() > 0) {
-							logger.warn("Deserialization did not read all bytes of input: " + key + " " + length + " " + bufferIn.available());
-						}
-					} catch (Exception e) { // ignore exceptions thrown in receive
-						e.printStackTrace();
-					}
-				} else {
-					logger.warn("NO LISTENER FOUND for key: " + key + "   (" + socket + ")");
-
-					if (key != NetworkConstants.ENetworkKey.REJECT_PACKET) { // prevent endless loop
-						sendPacket(NetworkConstants.ENetworkKey.REJECT_PACKET,
-								new RejectPacket(NetworkConstants.ENetworkMessage.NO_LISTENER_FOUND, key));
-					}
-				}
+				readBytesToReceiveBuffer(inStream, length);
 
+				receivePacket(key, receiveBuffer);
 			} catch (Exception e) {
-				try {
-					socket.close();
-				} catch (IOException ex) {
+				closeSocket();
+			}
+		}
+
+		shutDown();
+	}
+
+	private void receivePacket(ENetworkKey key, ByteBuffer data) throws IOException {
+		final int length = data.remaining();
+		receivedPackets++;
+		receivedBytes += HEADER_LENGTH + length;
+
+		IChannelListener listener = listenerRegistry.get(key);
+
+		if (listener != null) {
+			try {
+				packetInStream.setData(data);
+				listener.receive(key, length, packetInStream);
+				if (packetInStream.available() > 0) {
+					logger.warn("Deserialization did not read all bytes of input: " + key + " " + length + " " + packetInStream.available());
 				}
+			} catch (Exception e) { // ignore exceptions thrown in receive
+				e.printStackTrace();
 			}
+		} else {
+			logger.warn("NO LISTENER FOUND for key: " + key + "   (" + socket + ")");
+
+			if (key != NetworkConstants.ENetworkKey.REJECT_PACKET) { // prevent endless loop
+				sendPacket(NetworkConstants.ENetworkKey.REJECT_PACKET,
+						new RejectPacket(NetworkConstants.ENetworkMessage.NO_LISTENER_FOUND, key));
+			}
+		}
+	}
+
+	private void closeSocket() {
+		try {
+			socket.close();
+		} catch (IOException ex) {
 		}
+	}
 
+	private void shutDown() {
 		close(); // release the resources
 
 		if (channelClosedListener != null) {
@@ -180,8 +227,15 @@ public class Channel implements Runnable, IRoundTripTimeSupplier {
 		logger.info("Channel listener shut down: " + socket);
 	}
 
-	private DataInputStream readBytesToBuffer(DataInputStream inStream, int length) throws IOException {
-		byte[] data = new byte[length];
+	private void readBytesToReceiveBuffer(DataInputStream inStream, int length) throws IOException {
+		if (length < 0) {
+			throw new IOException("Invalid packet length: " + length);
+		}
+		if (length > receiveBuffer.capacity()) {
+			receiveBuffer = ByteBuffer.allocate(Math.max(length, 2 * receiveBuffer.capacity()));
+			allocatedReceiveBufferBytes += receiveBuffer.capacity();
+		}
+		byte[] data = receiveBuffer.array();
 
 		int alreadyRead = 0;
 		while (length - alreadyRead > 0) {
@@ -193,16 +247,19 @@ public class Channel implements Runnable, IRoundTripTimeSupplier {
 			alreadyRead += numberOfBytesRead;
 		}
 
-		return new DataInputStream(new ByteArrayInputStream(data));
+		receiveBuffer.clear();
+		receiveBuffer.limit(length);
 	}
 
 	/**
 	 * Closes this {@link Channel} and releases the contained {@link Socket} and the stream resources.
 	 */
 	public void close() {
-		try {
-			inStream.close();
-		} catch (IOException e1) {
+		if (inStream != null) {
+			try {
+				inStream.close();
+			} catch (IOException e1) {
+			}
 		}
 
 		try {
@@ -215,7 +272,9 @@ public class Channel implements Runnable, IRoundTripTimeSupplier {
 		} catch (IOException e) {
 		}
 
-		thread.interrupt();
+		if (thread != null) {
+			thread.interrupt();
+		}
 	}
 
 	/**
@@ -264,4 +323,61 @@ public class Channel implements Runnable, IRoundTripTimeSupplier {
 	public void setLogger(Logger newLogger) {
 		this.logger.setLogger(newLogger);
 	}
+
+	public long getSentPackets() {
+		return sentPackets;
+	}
+
+	/**
+	 * 
+	 * @return The number of bytes sent by this channel, including the headers of the packets.
+	 */
+	public long getSentBytes() {
+		return sentBytes;
+	}
+
+	public long getReceivedPackets() {
+		return receivedPackets;
+	}
+
+	/**
+	 * 
+	 * @return The number of bytes received by this channel, including the headers of the packets.
+	 */
+	public long getReceivedBytes() {
+		return receivedBytes;
+	}
+
+	/**
+	 * 
+	 * @return The number of bytes allocated for the send and receive buffers of this channel since its creation. This only grows if a packet
+	 *         is larger than all packets before.
+	 */
+	public long getAllocatedBufferBytes() {
+		return sendBuffer.getAllocatedBytes() + allocatedReceiveBufferBytes;
+	}
+
+	/**
+	 * Receives the packets of an {@link IFramedSocket}.
+	 */
+	private class FrameReceiver implements IFrameReceiver {
+		@Override
+		public void receiveFrame(ENetworkKey key, ByteBuffer data) {
+			try {
+				receivePacket(key, data);
+			} catch (Exception e) {
+				closeSocket();
+			}
+		}
+
+		@Override
+		public void socketFailed(Throwable cause) {
+			logger.error(cause);
+		}
+
+		@Override
+		public void socketClosed() {
+			shutDown();
+		}
+	}
 }
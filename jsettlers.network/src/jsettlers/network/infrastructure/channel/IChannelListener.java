@@ -22,6 +22,8 @@ public interface IChannelListener {
 	/**
 	 * This method is called when the {@link Channel} received a message of the given type and the given length. Access to the data is supplied by the
 	 * given {@link DataInputStream}.
+	 * <p />
+	 * NOTE: The stream reads from a buffer that is reused for the next message, so it may only be used during this call.
 	 * 
 	 * @param key
 	 *            The key of the message.
@@ -0,0 +1,67 @@
+package jsettlers.network.infrastructure.channel.buffer;
+
+import java.io.DataInputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link DataInputStream} reading the remaining bytes of a {@link ByteBuffer}. The buffer can be exchanged with {@link #setData(ByteBuffer)},
+ * so one stream can be used for all packets received by a channel without copying their data.
+ * 
+ */
+public final class PacketInputStream extends DataInputStream {
+	private final ByteBufferInputStream bufferStream;
+
+	public PacketInputStream() {
+		this(new ByteBufferInputStream());
+	}
+
+	private PacketInputStream(ByteBufferInputStream bufferStream) {
+		super(bufferStream);
+		this.bufferStream = bufferStream;
+	}
+
+	/**
+	 * Sets the buffer read by this stream. The stream reads the bytes between the position and the limit of the buffer and advances its position.
+	 * 
+	 * @param data
+	 */
+	public void setData(ByteBuffer data) {
+		bufferStream.buffer = data;
+	}
+
+	private static final class ByteBufferInputStream extends InputStream {
+		private ByteBuffer buffer;
+
+		@Override
+		public int read() {
+			return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+		}
+
+		@Override
+		public int read(byte[] data, int offset, int length) {
+			if (length == 0) {
+				return 0;
+			}
+			if (!buffer.hasRemaining()) {
+				return -1;
+			}
+
+			int bytesToRead = Math.min(length, buffer.remaining());
+			buffer.get(data, offset, bytesToRead);
+			return bytesToRead;
+		}
+
+		@Override
+		public long skip(long n) {
+			int bytesToSkip = (int) Math.max(0, Math.min(n, buffer.remaining()));
+			buffer.position(buffer.position() + bytesToSkip);
+			return bytesToSkip;
+		}
+
+		@Override
+		public int available() {
+			return buffer.remaining();
+		}
+	}
+}
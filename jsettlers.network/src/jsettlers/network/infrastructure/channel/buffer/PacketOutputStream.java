@@ -0,0 +1,118 @@
+package jsettlers.network.infrastructure.channel.buffer;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A {@link DataOutputStream} writing into a reusable, growing byte array. Lengths that are only known after the following data has been written
+ * can be reserved with {@link #reserveInt()} and filled in place with {@link #setIntAt(int, int)}, so no intermediate buffers are needed to
+ * frame packets.
+ * 
+ */
+public final class PacketOutputStream extends DataOutputStream {
+	private final ByteArrayBuilder builder;
+
+	public PacketOutputStream(int initialCapacity) {
+		this(new ByteArrayBuilder(initialCapacity));
+	}
+
+	private PacketOutputStream(ByteArrayBuilder builder) {
+		super(builder);
+		this.builder = builder;
+	}
+
+	/**
+	 * Discards the written data. The buffer is kept for reuse.
+	 */
+	public void reset() {
+		builder.count = 0;
+		written = 0;
+	}
+
+	/**
+	 * Reserves four bytes for an int that is set later with {@link #setIntAt(int, int)}.
+	 * 
+	 * @return The position of the reserved bytes.
+	 * @throws IOException
+	 */
+	public int reserveInt() throws IOException {
+		int position = builder.count;
+		writeInt(0);
+		return position;
+	}
+
+	/**
+	 * Overwrites the four bytes at the given position with the given value.
+	 * 
+	 * @param position
+	 *            A position returned by {@link #reserveInt()}.
+	 * @param value
+	 */
+	public void setIntAt(int position, int value) {
+		byte[] buffer = builder.buffer;
+		buffer[position] = (byte) (value >>> 24);
+		buffer[position + 1] = (byte) (value >>> 16);
+		buffer[position + 2] = (byte) (value >>> 8);
+		buffer[position + 3] = (byte) value;
+	}
+
+	/**
+	 * 
+	 * @return The number of bytes written since the last {@link #reset()}.
+	 */
+	public int getLength() {
+		return builder.count;
+	}
+
+	/**
+	 * Writes the data written since the last {@link #reset()} to the given stream with a single call.
+	 * 
+	 * @param out
+	 * @throws IOException
+	 */
+	public void writeTo(OutputStream out) throws IOException {
+		out.write(builder.buffer, 0, builder.count);
+	}
+
+	/**
+	 * 
+	 * @return The number of bytes allocated for the buffer of this stream since its creation.
+	 */
+	public long getAllocatedBytes() {
+		return builder.allocatedBytes;
+	}
+
+	private static final class ByteArrayBuilder extends OutputStream {
+		private byte[] buffer;
+		private int count;
+		private long allocatedBytes;
+
+		ByteArrayBuilder(int initialCapacity) {
+			buffer = new byte[initialCapacity];
+			allocatedBytes = initialCapacity;
+		}
+
+		private void ensureCapacity(int capacity) {
+			if (capacity > buffer.length) {
+				byte[] newBuffer = new byte[Math.max(capacity, 2 * buffer.length)];
+				System.arraycopy(buffer, 0, newBuffer, 0, count);
+				buffer = newBuffer;
+				allocatedBytes += newBuffer.length;
+			}
+		}
+
+		@Override
+		public void write(int b) {
+			ensureCapacity(count + 1);
+			buffer[count++] = (byte) b;
+		}
+
+		@Override
+		public void write(byte[] data, int offset, int length) {
+			ensureCapacity(count + length);
+			System.arraycopy(data, offset, buffer, count, length);
+			count += length;
+		}
+	}
+}
@@ -0,0 +1,35 @@
+package jsettlers.network.infrastructure.channel.socket;
+
+import java.nio.ByteBuffer;
+
+import jsettlers.network.NetworkConstants.ENetworkKey;
+
+/**
+ * Receives the frames of an {@link IFramedSocket}. A frame consists of the key, the length and the data of a packet.
+ * 
+ */
+public interface IFrameReceiver {
+	/**
+	 * Called for every received frame.
+	 * 
+	 * @param key
+	 *            The key of the frame.
+	 * @param data
+	 *            The data of the frame are the bytes between the position and the limit of the buffer. The buffer is reused by the socket, so it
+	 *            may only be used during this call.
+	 */
+	void receiveFrame(ENetworkKey key, ByteBuffer data);
+
+	/**
+	 * Called if the socket is closed because of an unexpected error. {@link #socketClosed()} is called afterwards.
+	 * 
+	 * @param cause
+	 *            The error.
+	 */
+	void socketFailed(Throwable cause);
+
+	/**
+	 * Called once when the socket has been closed, either locally or by the partner.
+	 */
+	void socketClosed();
+}
@@ -0,0 +1,18 @@
+package jsettlers.network.infrastructure.channel.socket;
+
+/**
+ * An {@link ISocket} that splits the received data into frames itself and pushes them to an {@link IFrameReceiver}. A channel using such a
+ * socket does not need to read the {@link #getInputStream()} with an own thread.
+ * 
+ */
+public interface IFramedSocket extends ISocket {
+	/**
+	 * Starts delivering the received frames to the given receiver. The receiver is called by the thread of the socket, one frame after another.
+	 * <p />
+	 * NOTE: This method may only be called once!
+	 * 
+	 * @param receiver
+	 *            The receiver of the frames and of the closing of the socket.
+	 */
+	void startReceiving(IFrameReceiver receiver);
+}
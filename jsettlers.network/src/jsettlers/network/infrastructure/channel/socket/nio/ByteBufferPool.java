@@ -0,0 +1,81 @@
+package jsettlers.network.infrastructure.channel.socket.nio;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A thread safe pool of direct {@link ByteBuffer}s of the same size. Direct buffers are expensive to allocate, so they are kept for reuse after
+ * they have been released.
+ * 
+ */
+public final class ByteBufferPool {
+	private final int bufferSize;
+	private final int maxPooledBuffers;
+
+	private final ConcurrentLinkedQueue<ByteBuffer> buffers = new ConcurrentLinkedQueue<ByteBuffer>();
+	private final AtomicInteger pooledBuffers = new AtomicInteger();
+	private final AtomicLong allocatedBuffers = new AtomicLong();
+
+	/**
+	 * 
+	 * @param bufferSize
+	 *            The capacity of the buffers.
+	 * @param maxPooledBuffers
+	 *            The maximum number of released buffers kept for reuse.
+	 */
+	public ByteBufferPool(int bufferSize, int maxPooledBuffers) {
+		this.bufferSize = bufferSize;
+		this.maxPooledBuffers = maxPooledBuffers;
+	}
+
+	/**
+	 * 
+	 * @return An empty buffer, that is used exclusively by the caller until it is given to {@link #release(ByteBuffer)}.
+	 */
+	public ByteBuffer acquire() {
+		ByteBuffer buffer = buffers.poll();
+		if (buffer == null) {
+			allocatedBuffers.incrementAndGet();
+			return ByteBuffer.allocateDirect(bufferSize);
+		}
+
+		pooledBuffers.decrementAndGet();
+		buffer.clear();
+		return buffer;
+	}
+
+	/**
+	 * Gives a buffer back to the pool. The buffer must not be used after this call.
+	 * 
+	 * @param buffer
+	 */
+	public void release(ByteBuffer buffer) {
+		if (pooledBuffers.incrementAndGet() <= maxPooledBuffers) {
+			buffers.offer(buffer);
+		} else {
+			pooledBuffers.decrementAndGet();
+		}
+	}
+
+	public int getBufferSize() {
+		return bufferSize;
+	}
+
+	/**
+	 * 
+	 * @return The number of buffers currently available for reuse.
+	 */
+	public int getPooledBuffers() {
+		return pooledBuffers.get();
+	}
+
+	/**
+	 * 
+	 * @return The number of buffers allocated by this pool since its creation.
+	 */
+	public long getAllocatedBuffers() {
+		return allocatedBuffers.get();
+	}
+}
@@ -0,0 +1,117 @@
+package jsettlers.network.infrastructure.channel.socket.nio;
+
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import jsettlers.network.infrastructure.log.ConsoleLogger;
+import jsettlers.network.infrastructure.log.Logger;
+
+/**
+ * A thread handling the I/O of many {@link NioSocket}s with one {@link Selector}.
+ * <p />
+ * All changes of the registrations are done by tasks executed on the thread of the loop, because {@link SelectionKey}s may block while the
+ * selector is selecting.
+ * 
+ */
+final class NioEventLoop implements Runnable {
+	private final Selector selector;
+	private final Thread thread;
+	private final ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<Runnable>();
+	private final Logger logger;
+
+	private volatile boolean running = true;
+	/**
+	 * The error that stopped the selector. It is reported to the sockets when they are closed.
+	 */
+	private IOException failure;
+
+	NioEventLoop(String name) throws IOException {
+		this.selector = Selector.open();
+		this.logger = new ConsoleLogger(name);
+		this.thread = new Thread(this, name);
+		this.thread.setDaemon(true);
+		this.thread.start();
+	}
+
+	/**
+	 * Executes the given task on the thread of this loop.
+	 * 
+	 * @param task
+	 */
+	void execute(Runnable task) {
+		tasks.offer(task);
+		if (Thread.currentThread() != thread) {
+			selector.wakeup();
+		}
+	}
+
+	/**
+	 * Registers the given channel. May only be called on the thread of the loop.
+	 * 
+	 * @throws ClosedChannelException
+	 *             If the channel has already been closed.
+	 */
+	SelectionKey register(SocketChannel channel, NioSocket socket) throws ClosedChannelException {
+		return channel.register(selector, 0, socket);
+	}
+
+	@Override
+	public void run() {
+		try {
+			while (running) {
+				runTasks();
+				selector.select();
+
+				Iterator<SelectionKey> iterator = selector.selectedKeys().iterator();
+				while (iterator.hasNext()) {
+					SelectionKey key = iterator.next();
+					iterator.remove();
+					((NioSocket) key.attachment()).handleReady(key);
+				}
+			}
+		} catch (IOException e) {
+			failure = e;
+		} finally {
+			runTasks();
+			for (SelectionKey key : selector.keys()) {
+				NioSocket socket = (NioSocket) key.attachment();
+				if (failure != null) {
+					socket.handleFailure(failure);
+				} else {
+					socket.handleClose();
+				}
+			}
+			try {
+				selector.close();
+			} catch (IOException e) {
+			}
+		}
+	}
+
+	/**
+	 * Runs the queued tasks. A failing task is logged and doesn't keep the other tasks from being run.
+	 */
+	private void runTasks() {
+		Runnable task;
+		while ((task = tasks.poll()) != null) {
+			try {
+				task.run();
+			} catch (RuntimeException e) {
+				logger.error(e);
+			}
+		}
+	}
+
+	/**
+	 * Stops the loop and closes all sockets registered on it.
+	 */
+	void shutdown() {
+		running = false;
+		selector.wakeup();
+	}
+}
@@ -0,0 +1,438 @@
+package jsettlers.network.infrastructure.channel.socket.nio;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+
+import jsettlers.network.NetworkConstants.ENetworkKey;
+import jsettlers.network.infrastructure.channel.socket.IFrameReceiver;
+import jsettlers.network.infrastructure.channel.socket.IFramedSocket;
+
+/**
+ * An {@link IFramedSocket} using a non blocking {@link SocketChannel} that is served by a {@link NioEventLoop}.
+ * <p />
+ * The received bytes are read into pooled direct buffers and split into the frames written by the channels (key, length and data). Frames that
+ * fit into the buffer are handed to the receiver as a part of the buffer, larger ones are assembled in a reused heap buffer. Data written
+ * to the {@link #getOutputStream()} is collected in pooled direct buffers and written when the stream is flushed. If the socket can't take all of
+ * it, the rest is written by the event loop as soon as the socket is writable again, so writing never blocks. If the partner doesn't read the
+ * data and more than {@link #MAX_PENDING_WRITES} buffers are waiting, the socket is closed.
+ * 
+ */
+public final class NioSocket implements IFramedSocket {
+	private static final int HEADER_LENGTH = 5; // key (byte) and length (int)
+	/**
+	 * The maximum number of buffers waiting to be written. If the partner doesn't read the data, the socket is closed instead of buffering
+	 * more and more of it.
+	 */
+	static final int MAX_PENDING_WRITES = 64;
+
+	private final SocketChannel channel;
+	private final NioEventLoop eventLoop;
+	private final ByteBufferPool bufferPool;
+	private final String name;
+
+	private final NioOutputStream outputStream = new NioOutputStream();
+	private final ArrayDeque<ByteBuffer> pendingWrites = new ArrayDeque<ByteBuffer>();
+
+	private final Runnable updateInterestOpsTask = new Runnable() {
+		@Override
+		public void run() {
+			updateInterestOps();
+		}
+	};
+	private final Runnable closeTask = new Runnable() {
+		@Override
+		public void run() {
+			handleClose();
+		}
+	};
+
+	// the following fields are only accessed by the thread of the event loop
+	private SelectionKey selectionKey;
+	private IFrameReceiver receiver;
+	private ByteBuffer readBuffer;
+	private ByteBuffer largeFrameBuffer;
+	private ENetworkKey largeFrameKey;
+	private boolean readingLargeFrame;
+	private boolean closeHandled;
+	private Throwable failure;
+
+	NioSocket(SocketChannel channel, NioEventLoop eventLoop, ByteBufferPool bufferPool) throws IOException {
+		this.channel = channel;
+		this.eventLoop = eventLoop;
+		this.bufferPool = bufferPool;
+		this.name = channel.socket().toString();
+
+		channel.configureBlocking(false);
+		eventLoop.execute(new Runnable() {
+			@Override
+			public void run() {
+				register();
+			}
+		});
+	}
+
+	private void register() {
+		try {
+			selectionKey = eventLoop.register(channel, this);
+			updateInterestOps();
+		} catch (IOException e) {
+			handleClose();
+		}
+	}
+
+	@Override
+	public void startReceiving(final IFrameReceiver receiver) {
+		eventLoop.execute(new Runnable() {
+			@Override
+			public void run() {
+				NioSocket.this.receiver = receiver;
+				if (closeHandled) {
+					notifyReceiverOfClose();
+				} else {
+					updateInterestOps();
+				}
+			}
+		});
+	}
+
+	private void updateInterestOps() {
+		if (selectionKey == null || !selectionKey.isValid()) {
+			return;
+		}
+
+		int interestOps = receiver != null ? SelectionKey.OP_READ : 0;
+		synchronized (pendingWrites) {
+			if (!pendingWrites.isEmpty()) {
+				interestOps |= SelectionKey.OP_WRITE;
+			}
+		}
+		selectionKey.interestOps(interestOps);
+	}
+
+	void handleReady(SelectionKey key) {
+		try {
+			if (key.isWritable()) {
+				writePendingBuffers();
+				updateInterestOps();
+			}
+			if (key.isValid() && key.isReadable()) {
+				read();
+			}
+		} catch (IOException e) {
+			handleClose();
+		} catch (CancelledKeyException e) {
+			handleClose();
+		} catch (RuntimeException e) {
+			handleFailure(e);
+		}
+	}
+
+	private void read() throws IOException {
+		if (readBuffer == null) {
+			readBuffer = bufferPool.acquire();
+		}
+
+		if (channel.read(readBuffer) < 0) {
+			handleClose();
+			return;
+		}
+
+		readBuffer.flip();
+		readFrames();
+
+		if (readBuffer.hasRemaining()) {
+			readBuffer.compact();
+		} else { // nothing left over, so the buffer isn't needed until the next data arrives
+			bufferPool.release(readBuffer);
+			readBuffer = null;
+		}
+	}
+
+	private void readFrames() throws IOException {
+		while (channel.isOpen()) {
+			if (readingLargeFrame) {
+				if (!readLargeFrame()) {
+					return;
+				}
+				continue;
+			}
+
+			if (readBuffer.remaining() < HEADER_LENGTH) {
+				return;
+			}
+
+			int position = readBuffer.position();
+			int keyOrdinal = readBuffer.get(position);
+			int length = readBuffer.getInt(position + 1);
+			ENetworkKey key = ENetworkKey.fromOrdinal(keyOrdinal);
+			if (key == null || length < 0) {
+				throw new IOException("Received an invalid frame header: " + keyOrdinal + " " + length);
+			}
+
+			if (readBuffer.remaining() >= HEADER_LENGTH + length) { // hand the frame to the receiver without copying it
+				int frameEnd = position + HEADER_LENGTH + length;
+				int limit = readBuffer.limit();
+				readBuffer.position(position + HEADER_LENGTH);
+				readBuffer.limit(frameEnd);
+
+				receiver.receiveFrame(key, readBuffer);
+
+				readBuffer.limit(limit);
+				readBuffer.position(frameEnd);
+			} else if (HEADER_LENGTH + length <= readBuffer.capacity()) {
+				return; // the rest of the frame will fit into the buffer after compacting it
+			} else {
+				readBuffer.position(position + HEADER_LENGTH);
+				startLargeFrame(key, length);
+			}
+		}
+	}
+
+	private void startLargeFrame(ENetworkKey key, int length) {
+		if (largeFrameBuffer == null || largeFrameBuffer.capacity() < length) {
+			largeFrameBuffer = ByteBuffer.allocate(length);
+		}
+		largeFrameBuffer.clear();
+		largeFrameBuffer.limit(length);
+		largeFrameKey = key;
+		readingLargeFrame = true;
+	}
+
+	/**
+	 * 
+	 * @return true if the large frame has been completed.
+	 */
+	private boolean readLargeFrame() {
+		int bytesToCopy = Math.min(readBuffer.remaining(), largeFrameBuffer.remaining());
+		int limit = readBuffer.limit();
+		readBuffer.limit(readBuffer.position() + bytesToCopy);
+		largeFrameBuffer.put(readBuffer);
+		readBuffer.limit(limit);
+
+		if (largeFrameBuffer.hasRemaining()) {
+			return false;
+		}
+
+		readingLargeFrame = false;
+		largeFrameBuffer.flip();
+		receiver.receiveFrame(largeFrameKey, largeFrameBuffer);
+		return true;
+	}
+
+	/**
+	 * Queues the given buffer for writing and tries to write it immediately. If the socket can't take all of the data, the event loop continues
+	 * writing as soon as the socket is writable.
+	 * 
+	 * @param buffer
+	 *            A buffer of the pool in write mode. It is released after it has been written.
+	 * @throws IOException
+	 */
+	private void write(ByteBuffer buffer) throws IOException {
+		buffer.flip();
+
+		boolean allWritten;
+		synchronized (pendingWrites) {
+			if (pendingWrites.size() >= MAX_PENDING_WRITES) {
+				bufferPool.release(buffer);
+				final IOException e = new IOException("The partner doesn't read the data sent to it: " + name);
+				eventLoop.execute(new Runnable() {
+					@Override
+					public void run() {
+						handleFailure(e);
+					}
+				});
+				throw e;
+			}
+
+			pendingWrites.add(buffer);
+			if (pendingWrites.size() > 1) {
+				return; // the event loop is already waiting to write the buffers queued before
+			}
+
+			try {
+				allWritten = writePendingBuffers();
+			} catch (IOException e) {
+				close();
+				throw e;
+			}
+		}
+
+		if (!allWritten) {
+			eventLoop.execute(updateInterestOpsTask);
+		}
+	}
+
+	/**
+	 * 
+	 * @return true if all pending buffers have been written.
+	 * @throws IOException
+	 */
+	private boolean writePendingBuffers() throws IOException {
+		synchronized (pendingWrites) {
+			while (!pendingWrites.isEmpty()) {
+				ByteBuffer buffer = pendingWrites.peek();
+				channel.write(buffer);
+				if (buffer.hasRemaining()) {
+					return false;
+				}
+
+				pendingWrites.poll();
+				bufferPool.release(buffer);
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Closes the socket because of an unexpected error, which is reported to the receiver. Must be called on the thread of the event loop.
+	 * 
+	 * @param cause
+	 */
+	void handleFailure(Throwable cause) {
+		if (!closeHandled) {
+			failure = cause;
+		}
+		handleClose();
+	}
+
+	/**
+	 * Closes the socket, releases its buffers and informs the receiver. Must be called on the thread of the event loop.
+	 */
+	void handleClose() {
+		if (closeHandled) {
+			return;
+		}
+		closeHandled = true;
+
+		if (selectionKey != null) {
+			selectionKey.cancel();
+		}
+		try {
+			channel.close();
+		} catch (IOException e) {
+		}
+
+		if (readBuffer != null) {
+			bufferPool.release(readBuffer);
+			readBuffer = null;
+		}
+		outputStream.release();
+		synchronized (pendingWrites) {
+			for (ByteBuffer buffer : pendingWrites) {
+				bufferPool.release(buffer);
+			}
+			pendingWrites.clear();
+		}
+
+		if (receiver != null) {
+			notifyReceiverOfClose();
+		}
+	}
+
+	private void notifyReceiverOfClose() {
+		if (failure != null) {
+			receiver.socketFailed(failure);
+		}
+		receiver.socketClosed();
+	}
+
+	@Override
+	public OutputStream getOutputStream() {
+		return outputStream;
+	}
+
+	/**
+	 * The received data is delivered as frames to the receiver given to {@link #startReceiving(IFrameReceiver)}.
+	 * 
+	 * @throws IOException
+	 *             always.
+	 */
+	@Override
+	public InputStream getInputStream() throws IOException {
+		throw new IOException("The data of a NioSocket can only be received as frames.");
+	}
+
+	@Override
+	public boolean isClosed() {
+		return !channel.isOpen();
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+		eventLoop.execute(closeTask);
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+
+	/**
+	 * Collects the written data in buffers of the pool and hands them to the socket when they are full or the stream is flushed.
+	 */
+	private class NioOutputStream extends OutputStream {
+		private ByteBuffer buffer;
+		private boolean released;
+
+		@Override
+		public synchronized void write(int b) throws IOException {
+			ensureBuffer();
+			buffer.put((byte) b);
+			if (!buffer.hasRemaining()) {
+				writeBuffer();
+			}
+		}
+
+		@Override
+		public synchronized void write(byte[] data, int offset, int length) throws IOException {
+			while (length > 0) {
+				ensureBuffer();
+				int bytesToPut = Math.min(length, buffer.remaining());
+				buffer.put(data, offset, bytesToPut);
+				offset += bytesToPut;
+				length -= bytesToPut;
+
+				if (!buffer.hasRemaining()) {
+					writeBuffer();
+				}
+			}
+		}
+
+		@Override
+		public synchronized void flush() throws IOException {
+			if (buffer != null && buffer.position() > 0) {
+				writeBuffer();
+			}
+		}
+
+		private void ensureBuffer() throws IOException {
+			if (released || !channel.isOpen()) {
+				throw new IOException("Socket closed: " + name);
+			}
+			if (buffer == null) {
+				buffer = bufferPool.acquire();
+			}
+		}
+
+		private void writeBuffer() throws IOException {
+			ByteBuffer fullBuffer = buffer;
+			buffer = null;
+			NioSocket.this.write(fullBuffer);
+		}
+
+		synchronized void release() {
+			released = true;
+			if (buffer != null) {
+				bufferPool.release(buffer);
+				buffer = null;
+			}
+		}
+	}
+}
@@ -0,0 +1,88 @@
+package jsettlers.network.infrastructure.channel.socket.nio;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jsettlers.network.infrastructure.channel.socket.ISocket;
+import jsettlers.network.infrastructure.channel.socket.ISocketFactory;
+import jsettlers.network.infrastructure.channel.socket.SocketConnectException;
+
+/**
+ * Factory for {@link NioSocket}s. The sockets are distributed round robin over a fixed number of {@link NioEventLoop}s and share one
+ * {@link ByteBufferPool}.
+ * 
+ */
+public class NioSocketFactory implements ISocketFactory {
+	private static final int BUFFER_SIZE = 16 * 1024;
+	private static final int MAX_POOLED_BUFFERS = 256;
+
+	private final NioEventLoop[] eventLoops;
+	private final ByteBufferPool bufferPool = new ByteBufferPool(BUFFER_SIZE, MAX_POOLED_BUFFERS);
+	private final AtomicInteger nextEventLoop = new AtomicInteger();
+
+	/**
+	 * Creates a new factory and starts its event loop threads.
+	 * 
+	 * @param numberOfEventLoops
+	 *            The number of threads serving the sockets of this factory.
+	 * @throws IOException
+	 *             If a selector could not be opened.
+	 */
+	public NioSocketFactory(int numberOfEventLoops) throws IOException {
+		eventLoops = new NioEventLoop[numberOfEventLoops];
+		for (int i = 0; i < numberOfEventLoops; i++) {
+			eventLoops[i] = new NioEventLoop("NioEventLoop-" + i);
+		}
+	}
+
+	@Override
+	public ISocket generateSocket(String host, int port) throws SocketConnectException {
+		SocketChannel channel;
+		try {
+			channel = SocketChannel.open(new InetSocketAddress(host, port));
+		} catch (IOException e) {
+			throw new SocketConnectException(e);
+		}
+		return generateSocket(channel);
+	}
+
+	/**
+	 * Only sockets with a {@link SocketChannel} are supported, e.g. the ones accepted by a {@link java.nio.channels.ServerSocketChannel}.
+	 */
+	@Override
+	public ISocket generateSocket(Socket socket) throws SocketConnectException {
+		if (socket.getChannel() == null) {
+			throw new SocketConnectException("Socket has no channel: " + socket);
+		}
+		return generateSocket(socket.getChannel());
+	}
+
+	public NioSocket generateSocket(SocketChannel channel) throws SocketConnectException {
+		NioEventLoop eventLoop = eventLoops[(nextEventLoop.getAndIncrement() & Integer.MAX_VALUE) % eventLoops.length];
+		try {
+			return new NioSocket(channel, eventLoop, bufferPool);
+		} catch (IOException e) {
+			try {
+				channel.close();
+			} catch (IOException ex) {
+			}
+			throw new SocketConnectException(e);
+		}
+	}
+
+	public ByteBufferPool getBufferPool() {
+		return bufferPool;
+	}
+
+	/**
+	 * Stops the event loops. All sockets created by this factory are closed.
+	 */
+	public void shutdown() {
+		for (NioEventLoop eventLoop : eventLoops) {
+			eventLoop.shutdown();
+		}
+	}
+}
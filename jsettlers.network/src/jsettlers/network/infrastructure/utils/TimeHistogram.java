@@ -0,0 +1,74 @@
+package jsettlers.network.infrastructure.utils;
+
+/**
+ * Histogram of durations in milliseconds. The bucket {@code i} counts the durations in the range [2^(i-1), 2^i), the first bucket counts the
+ * durations below one millisecond and the last bucket all durations that are too long for the other buckets.
+ * <p />
+ * The histogram is synchronized, so it can be read while another thread records durations.
+ *
+ */
+public class TimeHistogram {
+	public static final int BUCKETS = 16;
+
+	private final int[] counts = new int[BUCKETS];
+	private long totalTime = 0;
+	private int maximum = 0;
+
+	public synchronized void record(int milliseconds) {
+		if (milliseconds < 0) {
+			return;
+		}
+
+		counts[getBucket(milliseconds)]++;
+		totalTime += milliseconds;
+		maximum = Math.max(maximum, milliseconds);
+	}
+
+	private static int getBucket(int milliseconds) {
+		int bucket = 32 - Integer.numberOfLeadingZeros(milliseconds);
+		return Math.min(bucket, BUCKETS - 1);
+	}
+
+	/**
+	 *
+	 * @param bucket
+	 * @return The exclusive upper bound of the durations counted by the given bucket or {@link Integer#MAX_VALUE} for the last bucket.
+	 */
+	public static int getUpperBound(int bucket) {
+		return bucket < BUCKETS - 1 ? 1 << bucket : Integer.MAX_VALUE;
+	}
+
+	public synchronized int getCount(int bucket) {
+		return counts[bucket];
+	}
+
+	public synchronized int getTotalCount() {
+		int totalCount = 0;
+		for (int count : counts) {
+			totalCount += count;
+		}
+		return totalCount;
+	}
+
+	public synchronized long getTotalTime() {
+		return totalTime;
+	}
+
+	public synchronized int getMaximum() {
+		return maximum;
+	}
+
+	@Override
+	public synchronized String toString() {
+		StringBuilder builder = new StringBuilder();
+		builder.append("count: ").append(getTotalCount()).append("   total: ").append(totalTime).append("ms   max: ").append(maximum).append("ms");
+		for (int bucket = 0; bucket < BUCKETS; bucket++) {
+			if (counts[bucket] > 0) {
+				builder.append("   ");
+				builder.append(bucket < BUCKETS - 1 ? "<" + getUpperBound(bucket) : ">=" + getUpperBound(bucket - 1));
+				builder.append("ms: ").append(counts[bucket]);
+			}
+		}
+		return builder.toString();
+	}
+}
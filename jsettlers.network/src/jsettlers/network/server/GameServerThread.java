@@ -1,13 +1,17 @@
 package jsettlers.network.server;
 
 import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.SocketException;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.ServerSocketChannel;
 
 import jsettlers.network.NetworkConstants;
 import jsettlers.network.infrastructure.channel.Channel;
 import jsettlers.network.infrastructure.channel.socket.ISocketFactory;
+import jsettlers.network.infrastructure.channel.socket.nio.NioSocketFactory;
 import jsettlers.network.infrastructure.log.Logger;
 import jsettlers.network.infrastructure.log.LoggerManager;
 import jsettlers.network.server.db.IDBFacade;
@@ -16,6 +20,10 @@ import jsettlers.network.server.lan.LanServerAddressBroadcastListener;
 import jsettlers.network.server.lan.LanServerBroadcastThread;
 
 /**
+ * Accepts the clients and hands their channels to the {@link ServerManager}.
+ * <p />
+ * If {@link NetworkConstants.Server#USE_NIO_SOCKETS} is set, the sockets of all clients are served by the few threads of a
+ * {@link NioSocketFactory}. Otherwise every client channel gets its own thread.
  * 
  * @author Andreas Eberle
  * 
@@ -25,6 +33,8 @@ public class GameServerThread extends Thread {
 	private static final Logger LOGGER = LoggerManager.ROOT_LOGGER;
 
 	private final ServerSocket serverSocket;
+	private final ISocketFactory socketFactory;
+	private final NioSocketFactory nioSocketFactory;
 	private final ServerManager manager;
 	private final LanServerBroadcastThread lanBroadcastThread;
 
@@ -33,7 +43,17 @@ public class GameServerThread extends Thread {
 
 	public GameServerThread(boolean lan) throws IOException {
 		super("GameServer");
-		this.serverSocket = new ServerSocket(NetworkConstants.Server.SERVER_PORT);
+		if (NetworkConstants.Server.USE_NIO_SOCKETS) {
+			// the sockets accepted by a channel based server socket can be used by the nio sockets
+			this.serverSocket = ServerSocketChannel.open().socket();
+			this.serverSocket.bind(new InetSocketAddress(NetworkConstants.Server.SERVER_PORT));
+			this.nioSocketFactory = new NioSocketFactory(NetworkConstants.Server.NIO_EVENT_LOOP_THREADS);
+			this.socketFactory = nioSocketFactory;
+		} else {
+			this.serverSocket = new ServerSocket(NetworkConstants.Server.SERVER_PORT);
+			this.nioSocketFactory = null;
+			this.socketFactory = ISocketFactory.DEFAULT_FACTORY;
+		}
 		this.manager = new ServerManager(new InMemoryDB());
 
 		this.setDaemon(true);
@@ -54,12 +74,13 @@ public class GameServerThread extends Thread {
 			try {
 				Socket clientSocket = serverSocket.accept();
 
-				Channel clientChannel = new Channel(LOGGER, ISocketFactory.DEFAULT_FACTORY.generateSocket(clientSocket));
+				Channel clientChannel = new Channel(LOGGER, socketFactory.generateSocket(clientSocket));
 				manager.identifyNewChannel(clientChannel);
 				clientChannel.start();
 
 				LOGGER.log("accepted new client (" + ++counter + "): " + clientSocket);
 			} catch (SocketException e) {
+			} catch (AsynchronousCloseException e) { // thrown instead of the SocketException by channel based server sockets
 			} catch (IOException e) {
 				e.printStackTrace();
 			}
@@ -115,6 +136,10 @@ public class GameServerThread extends Thread {
 			lanBroadcastThread.shutdown();
 
 		manager.shutdown();
+
+		if (nioSocketFactory != null) {
+			nioSocketFactory.shutdown();
+		}
 	}
 
 	public boolean isLanBroadcasterAlive() {
@@ -2,6 +2,7 @@ package jsettlers.network.server;
 
 import jsettlers.network.common.packets.ChatMessagePacket;
 import jsettlers.network.common.packets.OpenNewMatchPacket;
+import jsettlers.network.common.packets.StateHashPacket;
 import jsettlers.network.common.packets.TimeSyncPacket;
 import jsettlers.network.server.match.Player;
 
@@ -41,6 +42,15 @@ public interface IServerManager {
 	 */
 	void distributeTimeSync(Player player, TimeSyncPacket packet);
 
+	/**
+	 * Compares the given hash of the game state with the ones of the other players in the {@link Player}s match.
+	 * 
+	 * @param player
+	 *            The player that sent the {@link StateHashPacket}.
+	 * @param packet
+	 */
+	void compareStateHash(Player player, StateHashPacket packet);
+
 	void joinMatch(String matchId, Player player);
 
 	void setReadyStateForPlayer(Player player, boolean ready);
@@ -5,6 +5,7 @@ import java.util.Timer;
 import jsettlers.network.NetworkConstants;
 import jsettlers.network.common.packets.ChatMessagePacket;
 import jsettlers.network.common.packets.OpenNewMatchPacket;
+import jsettlers.network.common.packets.StateHashPacket;
 import jsettlers.network.common.packets.TimeSyncPacket;
 import jsettlers.network.infrastructure.channel.Channel;
 import jsettlers.network.infrastructure.channel.reject.RejectPacket;
@@ -15,6 +16,7 @@ import jsettlers.network.server.listeners.IdentifyUserListener;
 import jsettlers.network.server.listeners.ReadyStatePacketListener;
 import jsettlers.network.server.listeners.ServerChannelClosedListener;
 import jsettlers.network.server.listeners.StartFinishedSignalListener;
+import jsettlers.network.server.listeners.StateHashPacketListener;
 import jsettlers.network.server.listeners.TimeSyncForwardingListener;
 import jsettlers.network.server.listeners.matches.JoinMatchListener;
 import jsettlers.network.server.listeners.matches.LeaveMatchListener;
@@ -72,6 +74,7 @@ public class ServerManager implements IServerManager {
 			channel.registerListener(new TimeSyncForwardingListener(this, player));
 			channel.registerListener(new ReadyStatePacketListener(this, player));
 			channel.registerListener(new StartFinishedSignalListener(this, player));
+			channel.registerListener(new StateHashPacketListener(this, player));
 
 			return true;
 		} else {
@@ -147,6 +150,15 @@ public class ServerManager implements IServerManager {
 		}
 	}
 
+	@Override
+	public void compareStateHash(Player player, StateHashPacket packet) {
+		try {
+			player.compareStateHash(packet);
+		} catch (IllegalStateException e) {
+			e.printStackTrace();
+		}
+	}
+
 	@Override
 	public void joinMatch(String matchId, Player player) {
 		Match match = database.getMatchById(matchId);
@@ -0,0 +1,32 @@
+package jsettlers.network.server.listeners;
+
+import java.io.IOException;
+
+import jsettlers.network.NetworkConstants.ENetworkKey;
+import jsettlers.network.common.packets.StateHashPacket;
+import jsettlers.network.infrastructure.channel.GenericDeserializer;
+import jsettlers.network.infrastructure.channel.listeners.PacketChannelListener;
+import jsettlers.network.server.IServerManager;
+import jsettlers.network.server.match.Player;
+
+/**
+ * Receives the hashes of the game state of a player, so they can be compared with the ones of the other players in the match.
+ *
+ */
+public class StateHashPacketListener extends PacketChannelListener<StateHashPacket> {
+
+	private final IServerManager serverManager;
+	private final Player player;
+
+	public StateHashPacketListener(IServerManager serverManager, Player player) {
+		super(ENetworkKey.STATE_HASH, new GenericDeserializer<StateHashPacket>(StateHashPacket.class));
+		this.serverManager = serverManager;
+		this.player = player;
+	}
+
+	@Override
+	protected void receivePacket(ENetworkKey key, StateHashPacket packet) throws IOException {
+		serverManager.compareStateHash(player, packet);
+	}
+
+}
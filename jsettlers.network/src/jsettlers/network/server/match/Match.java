@@ -7,16 +7,19 @@ import java.util.UUID;
 import jsettlers.network.NetworkConstants;
 import jsettlers.network.NetworkConstants.ENetworkKey;
 import jsettlers.network.NetworkConstants.ENetworkMessage;
+import jsettlers.network.client.task.packets.TaskCodec;
 import jsettlers.network.common.packets.MapInfoPacket;
 import jsettlers.network.common.packets.MatchInfoPacket;
 import jsettlers.network.common.packets.MatchInfoUpdatePacket;
 import jsettlers.network.common.packets.MatchStartPacket;
 import jsettlers.network.common.packets.PlayerInfoPacket;
+import jsettlers.network.common.packets.StateHashPacket;
 import jsettlers.network.common.packets.TimeSyncPacket;
 import jsettlers.network.infrastructure.channel.packet.Packet;
 import jsettlers.network.infrastructure.log.Logger;
 import jsettlers.network.infrastructure.log.LoggerManager;
 import jsettlers.network.server.exceptions.NotAllPlayersReadyException;
+import jsettlers.network.server.match.lockstep.StateHashComparator;
 import jsettlers.network.server.match.lockstep.TaskCollectingListener;
 import jsettlers.network.server.match.lockstep.TaskSendingTimerTask;
 
@@ -35,10 +38,12 @@ public class Match {
 	private final MapInfoPacket map;
 	private final String name;
 	private final long randomSeed;
+	private final StateHashComparator stateHashComparator = new StateHashComparator();
 
 	private EMatchState state = EMatchState.OPENED;
 	private TaskCollectingListener taskCollectingListener;
 	private TaskSendingTimerTask taskSendingTimerTask;
+	private int taskCodecVersion = TaskCodec.CLASS_NAME_VERSION;
 
 	public Match(String name, int maxPlayers, MapInfoPacket map, long randomSeed) {
 		this.maxPlayers = maxPlayers;
@@ -178,6 +183,7 @@ public class Match {
 				synchronized (leftPlayers) {
 					leftPlayers.add(player);
 				}
+				taskSendingTimerTask.removeClient(player.getId());
 			}
 		}
 	}
@@ -193,6 +199,11 @@ public class Match {
 					throw new NotAllPlayersReadyException();
 				}
 			}
+
+			taskCodecVersion = TaskCodec.SUPPORTED_VERSION;
+			for (Player player : players) { // use the highest version all players support
+				taskCodecVersion = Math.min(taskCodecVersion, player.getPlayerInfo().getTaskCodecVersion());
+			}
 		}
 
 		state = EMatchState.RUNNING;
@@ -202,25 +213,29 @@ public class Match {
 		timer.schedule(taskSendingTimerTask, NetworkConstants.Client.LOCKSTEP_PERIOD, NetworkConstants.Client.LOCKSTEP_PERIOD / 2 - 2);
 
 		synchronized (players) {
-			int i = 0;
 			for (Player player : players) {
 				sendMatchStartPacketToPlayer(player);
-
-				// needed so that the sending task can adapt to the ping
-				player.getChannel().setPingUpdateListener(taskSendingTimerTask.getPingListener(i));
-				i++;
 			}
 		}
 	}
 
 	private void sendMatchStartPacketToPlayer(Player player) {
 		player.matchStarted(taskCollectingListener);
-		player.sendPacket(NetworkConstants.ENetworkKey.MATCH_STARTED, new MatchStartPacket(new MatchInfoPacket(this), 0L));
+		// needed so that the sending task can adapt to the ping
+		player.getChannel().setPingUpdateListener(taskSendingTimerTask.getPingListener(player.getId()));
+		player.sendPacket(NetworkConstants.ENetworkKey.MATCH_STARTED, new MatchStartPacket(new MatchInfoPacket(this), 0L, taskCodecVersion));
 	}
 
 	public void distributeTimeSync(Player player, TimeSyncPacket packet) {
 		sendMessage(player, NetworkConstants.ENetworkKey.TIME_SYNC, packet);
-		taskSendingTimerTask.receivedLockstepAcknowledge(packet.getTime() / NetworkConstants.Client.LOCKSTEP_PERIOD);
+		taskSendingTimerTask.receivedLockstepAcknowledge(player.getId(), packet.getTime() / NetworkConstants.Client.LOCKSTEP_PERIOD);
+	}
+
+	public void compareStateHash(Player player, StateHashPacket packet) {
+		if (stateHashComparator.compare(packet.getLockstep(), packet.getStateHash())) {
+			logger.warn("Desync detected: the game state of " + player.getId() + " differs from the other players at lockstep " + packet.getLockstep());
+			broadcastMessage(NetworkConstants.ENetworkKey.STATE_HASH_MISMATCH, packet);
+		}
 	}
 
 	public Logger getMatchLogger() {
@@ -7,6 +7,7 @@ import jsettlers.network.NetworkConstants.ENetworkKey;
 import jsettlers.network.NetworkConstants.ENetworkMessage;
 import jsettlers.network.common.packets.ChatMessagePacket;
 import jsettlers.network.common.packets.PlayerInfoPacket;
+import jsettlers.network.common.packets.StateHashPacket;
 import jsettlers.network.common.packets.TimeSyncPacket;
 import jsettlers.network.infrastructure.channel.Channel;
 import jsettlers.network.infrastructure.channel.packet.Packet;
@@ -91,6 +92,11 @@ public class Player {
 		match.distributeTimeSync(this, packet);
 	}
 
+	public void compareStateHash(StateHashPacket packet) throws IllegalStateException {
+		EPlayerState.assertState(state, EPlayerState.IN_RUNNING_MATCH);
+		match.compareStateHash(this, packet);
+	}
+
 	public void setReady(boolean ready) throws IllegalStateException {
 		EPlayerState.assertState(state, EPlayerState.IN_MATCH);
 		if (playerInfo.isReady() != ready) { // only update if there is a real change
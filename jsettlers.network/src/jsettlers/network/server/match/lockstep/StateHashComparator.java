@@ -0,0 +1,45 @@
+package jsettlers.network.server.match.lockstep;
+
+import java.util.TreeMap;
+
+import jsettlers.network.NetworkConstants;
+
+/**
+ * Compares the hashes of the game states the players of a match calculated at the checkpoints. The first hash received for a lockstep is
+ * kept until the checkpoint is {@link #KEPT_CHECKPOINTS} checkpoints older than the newest one, so every player that isn't lagging behind
+ * further can be compared with it.
+ * <p />
+ * A game doesn't get in sync again after it desynchronized, so only the first mismatch is reported.
+ *
+ */
+public class StateHashComparator {
+	public static final int KEPT_CHECKPOINTS = 100;
+
+	private final TreeMap<Integer, Long> stateHashes = new TreeMap<Integer, Long>();
+	private boolean mismatchFound = false;
+
+	/**
+	 *
+	 * @param lockstep
+	 *            The lockstep of the checkpoint.
+	 * @param stateHash
+	 *            The hash of the game state of a player.
+	 * @return true if the given hash differs from the hash of another player and this is the first mismatch in this match,<br>
+	 *         false otherwise.
+	 */
+	public synchronized boolean compare(int lockstep, long stateHash) {
+		if (mismatchFound) {
+			return false;
+		}
+
+		Long otherStateHash = stateHashes.get(lockstep);
+		if (otherStateHash == null) {
+			stateHashes.put(lockstep, stateHash);
+			stateHashes.headMap(lockstep - KEPT_CHECKPOINTS * NetworkConstants.Client.STATE_HASH_PERIOD).clear();
+			return false;
+		}
+
+		mismatchFound = otherStateHash != stateHash;
+		return mismatchFound;
+	}
+}
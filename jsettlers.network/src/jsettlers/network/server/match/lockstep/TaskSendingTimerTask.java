@@ -1,33 +1,40 @@
 package jsettlers.network.server.match.lockstep;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.TimerTask;
 
 import jsettlers.network.NetworkConstants;
 import jsettlers.network.infrastructure.channel.ping.IPingUpdateListener;
 import jsettlers.network.infrastructure.channel.ping.RoundTripTime;
 import jsettlers.network.infrastructure.log.Logger;
-import jsettlers.network.infrastructure.utils.MaximumSlotBuffer;
+import jsettlers.network.infrastructure.utils.TimeHistogram;
 import jsettlers.network.server.match.Match;
 import jsettlers.network.server.packets.ServersideSyncTasksPacket;
 import jsettlers.network.server.packets.ServersideTaskPacket;
 
 /**
- * 
+ * Sends the collected tasks of every lockstep to the clients of a match.
+ * <p />
+ * Every client gets its own number of lead steps derived from its round trip time and jitter. The server runs ahead of the clients as far as
+ * the client needing the most lead steps relative to its acknowledged lockstep needs it. So a client with a high latency doesn't increase the
+ * delay of the tasks of all others and a lagging client doesn't hold back the others; it catches up on its own (see
+ * {@link jsettlers.network.client.time.ISynchronizableClock#catchUpFor(int)}). The lag of every client behind the most advanced client is
+ * recorded in a {@link TimeHistogram}.
+ *
  * @author Andreas Eberle
- * 
+ *
  */
 public class TaskSendingTimerTask extends TimerTask {
 	private final Logger logger;
 	private final TaskCollectingListener taskCollectingListener;
 	private final Match match;
+	private final Map<String, ClientState> clients = new HashMap<String, ClientState>();
 
 	private int lockstepCounter = 0;
 	private int currentLockstepMax = NetworkConstants.Client.LOCKSTEP_DEFAULT_LEAD_STEPS;
 
-	private int minimumLeadTimeMs = NetworkConstants.Client.LOCKSTEP_DEFAULT_LEAD_STEPS * NetworkConstants.Client.LOCKSTEP_PERIOD;
-	private int leadSteps = minimumLeadTimeMs / NetworkConstants.Client.LOCKSTEP_PERIOD;
-
 	public TaskSendingTimerTask(Logger logger, TaskCollectingListener taskCollectingListener, Match match) {
 		this.logger = logger;
 		this.taskCollectingListener = taskCollectingListener;
@@ -36,7 +43,7 @@ public class TaskSendingTimerTask extends TimerTask {
 
 	@Override
 	public void run() {
-		if (lockstepCounter > currentLockstepMax) {
+		if (lockstepCounter > getAllowedLockstep()) {
 			return;
 		}
 
@@ -45,48 +52,100 @@ public class TaskSendingTimerTask extends TimerTask {
 		match.broadcastMessage(NetworkConstants.ENetworkKey.SYNCHRONOUS_TASK, syncTasksPacket);
 	}
 
-	public void receivedLockstepAcknowledge(int acknowledgedLockstep) {
-		currentLockstepMax = Math.max(currentLockstepMax, acknowledgedLockstep + leadSteps);
-		// logger.info("lead steps: " + leadSteps);
+	/**
+	 *
+	 * @return The highest lockstep that may be sent to the clients.
+	 */
+	public synchronized int getAllowedLockstep() {
+		return currentLockstepMax;
+	}
+
+	public synchronized void receivedLockstepAcknowledge(String clientId, int acknowledgedLockstep) {
+		ClientState client = getClient(clientId);
+		client.acknowledgedLockstep = Math.max(client.acknowledgedLockstep, acknowledgedLockstep);
+
+		int mostAdvancedLockstep = 0;
+		for (ClientState curr : clients.values()) {
+			mostAdvancedLockstep = Math.max(mostAdvancedLockstep, curr.acknowledgedLockstep);
+			currentLockstepMax = Math.max(currentLockstepMax, curr.acknowledgedLockstep + curr.leadSteps);
+		}
+
+		client.lagHistogram.record((mostAdvancedLockstep - client.acknowledgedLockstep) * NetworkConstants.Client.LOCKSTEP_PERIOD);
+	}
+
+	/**
+	 * Stops considering the given client, e.g. because it left the match.
+	 *
+	 * @param clientId
+	 */
+	public synchronized void removeClient(String clientId) {
+		ClientState client = clients.remove(clientId);
+		if (client != null) {
+			logger.info("lockstep lag of " + clientId + ": " + client.lagHistogram);
+		}
+	}
+
+	/**
+	 *
+	 * @param clientId
+	 * @return The histogram of the lag of the given client behind the most advanced client in milliseconds.
+	 */
+	public synchronized TimeHistogram getLagHistogram(String clientId) {
+		return getClient(clientId).lagHistogram;
 	}
 
-	final void pingUpdated(int rtt, int jitter) {
+	/**
+	 *
+	 * @param clientId
+	 * @return The number of locksteps the server runs ahead of the given client.
+	 */
+	public synchronized int getLeadSteps(String clientId) {
+		return getClient(clientId).leadSteps;
+	}
+
+	private ClientState getClient(String clientId) {
+		ClientState client = clients.get(clientId);
+		if (client == null) {
+			client = new ClientState();
+			clients.put(clientId, client);
+		}
+		return client;
+	}
+
+	synchronized void pingUpdated(String clientId, int rtt, int jitter) {
 		if (rtt < 0 || rtt > 10000 || jitter > 5000) {
 			return; // this is an exceptional high rtt, we can not adapt to this
 		}
 
+		ClientState client = getClient(clientId);
 		int newLeadTime = (int) (rtt / 2 * 1.1f + jitter * 2f + NetworkConstants.Client.LOCKSTEP_PERIOD * 1.5f);
-		if (newLeadTime > minimumLeadTimeMs) {
-			minimumLeadTimeMs = newLeadTime;
+		if (newLeadTime > client.minimumLeadTimeMs) {
+			client.minimumLeadTimeMs = newLeadTime;
 		} else {
-			minimumLeadTimeMs -= (minimumLeadTimeMs - newLeadTime) / 4;
+			client.minimumLeadTimeMs -= (client.minimumLeadTimeMs - newLeadTime) / 4;
 		}
 
-		leadSteps = (int) Math.ceil(((float) minimumLeadTimeMs) / NetworkConstants.Client.LOCKSTEP_PERIOD);
+		client.leadSteps = (int) Math.ceil(((float) client.minimumLeadTimeMs) / NetworkConstants.Client.LOCKSTEP_PERIOD);
 
 		if (rtt > NetworkConstants.RTT_LOGGING_THRESHOLD || jitter > NetworkConstants.JITTER_LOGGING_THRESHOLD) {
-			logger.info(String.format("rtt/2: %5d   jitter: %d   min lead time: %4d   lead steps: %2d",
-					rtt / 2, jitter, minimumLeadTimeMs, leadSteps));
+			logger.info(String.format("%s: rtt/2: %5d   jitter: %d   min lead time: %4d   lead steps: %2d",
+					clientId, rtt / 2, jitter, client.minimumLeadTimeMs, client.leadSteps));
 		}
 	}
 
-	private MaximumSlotBuffer rttMaximum = new MaximumSlotBuffer(0);
-	private MaximumSlotBuffer jitterMaximum = new MaximumSlotBuffer(0);
-
-	public IPingUpdateListener getPingListener(final int index) {
-		if (rttMaximum.getLength() <= index) {
-			rttMaximum = new MaximumSlotBuffer(index + 1);
-			jitterMaximum = new MaximumSlotBuffer(index + 1);
-		}
-
+	public IPingUpdateListener getPingListener(final String clientId) {
 		return new IPingUpdateListener() {
 			@Override
 			public void pingUpdated(RoundTripTime rtt) {
-				rttMaximum.insert(index, rtt.getRtt());
-				jitterMaximum.insert(index, rtt.getAveragedJitter());
-
-				TaskSendingTimerTask.this.pingUpdated(rttMaximum.getMax(), jitterMaximum.getMax());
+				TaskSendingTimerTask.this.pingUpdated(clientId, rtt.getRtt(), rtt.getAveragedJitter());
 			}
 		};
 	}
+
+	private static class ClientState {
+		private final TimeHistogram lagHistogram = new TimeHistogram();
+		private int acknowledgedLockstep = 0;
+		private int minimumLeadTimeMs = NetworkConstants.Client.LOCKSTEP_DEFAULT_LEAD_STEPS * NetworkConstants.Client.LOCKSTEP_PERIOD;
+		private int leadSteps = NetworkConstants.Client.LOCKSTEP_DEFAULT_LEAD_STEPS;
+	}
 }
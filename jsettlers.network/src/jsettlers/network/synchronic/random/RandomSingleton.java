@@ -17,10 +17,18 @@ public final class RandomSingleton extends Random {
 
 	private static RandomSingleton uniIns;
 
+	private long draws = 0;
+
 	private RandomSingleton(long seed) {
 		super(seed);
 	}
 
+	@Override
+	protected int next(int bits) {
+		draws++;
+		return super.next(bits);
+	}
+
 	/**
 	 * loads the list of double random numbers with the given seed.
 	 */
@@ -41,6 +49,15 @@ public final class RandomSingleton extends Random {
 		return uniIns.nextFloat();
 	}
 
+	/**
+	 * 
+	 * @return The number of random values drawn since the seed has been set. It is part of the hash of the game state, because a different
+	 *         number of draws desynchronizes the game.
+	 */
+	public static long getNumberOfDraws() {
+		return uniIns.draws;
+	}
+
 	public static RandomSingleton get() {
 		return uniIns;
 	}
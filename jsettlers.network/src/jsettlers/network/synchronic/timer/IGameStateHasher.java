@@ -0,0 +1,19 @@
+package jsettlers.network.synchronic.timer;
+
+/**
+ * Calculates the hashes of the game state that are compared at the checkpoints to detect desynchronized clients. The hashes must only depend
+ * on the deterministic game state, so that they are equal on all clients as long as the games are in sync.
+ *
+ */
+public interface IGameStateHasher {
+
+	/**
+	 * Calculates the hash of the current game state. This is called by the clock thread every
+	 * {@link jsettlers.network.NetworkConstants.Client#STATE_HASH_PERIOD} locksteps.
+	 *
+	 * @param checkpoint
+	 *            The number of the checkpoint. It can be used to spread the hashing of big parts of the state over several checkpoints.
+	 * @return The hash of the game state.
+	 */
+	long calculateStateHash(int checkpoint);
+}
@@ -6,26 +6,45 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.Map;
+import java.util.concurrent.locks.LockSupport;
 
 import jsettlers.network.NetworkConstants;
 import jsettlers.network.client.INetworkClientClock;
+import jsettlers.network.client.statehash.IStateHashListener;
 import jsettlers.network.client.task.packets.SyncTasksPacket;
 import jsettlers.network.client.task.packets.TaskPacket;
+import jsettlers.network.common.packets.StateHashPacket;
+import jsettlers.network.infrastructure.utils.TimeHistogram;
 
 /**
  * This is a basic game timer. All synchronous actions must be based on this clock. The {@link NetworkTimer} also triggers the execution of
  * synchronous tasks in the network game.
+ * <p />
+ * The clock is driven by its own thread, which executes a tick every {@link #TIME_SLICE} milliseconds. The ticks are scheduled by absolute
+ * {@link System#nanoTime()} deadlines, so delayed ticks don't shift the following ones. Missed ticks are caught up as soon as possible, but not
+ * more than {@link NetworkConstants.Client#CLOCK_MAX_CATCH_UP_TICKS}; older ones are skipped. Every tick advances the game time by exactly
+ * {@link #TIME_SLICE} times the game speed.
+ * <p />
+ * Every {@link NetworkConstants.Client#STATE_HASH_PERIOD} locksteps, the hash of the game state is calculated at the beginning of the lockstep.
+ * It is written to the replay between the {@link SyncTasksPacket}s and compared with the hash of the other clients or the replay that is
+ * played, so a desynchronized game is detected within seconds and the first lockstep with a different state is known.
  * 
  * @author Andreas Eberle
  * 
  */
-public final class NetworkTimer extends TimerTask implements INetworkClientClock {
+public final class NetworkTimer implements INetworkClientClock, Runnable {
 	public static final short TIME_SLICE = 50;
+	private static final long TIME_SLICE_NANOS = TIME_SLICE * 1000000L;
+	/**
+	 * Marks a state hash in the replay. The entries for {@link SyncTasksPacket}s start with their lockstep, which is never negative.
+	 */
+	private static final int REPLAY_STATE_HASH_ENTRY = -1;
+
 	private Comparator<SyncTasksPacket> tasksByTimeComperator = new Comparator<SyncTasksPacket>() {
 		@Override
 		public int compare(SyncTasksPacket o1, SyncTasksPacket o2) {
@@ -33,31 +52,40 @@ public final class NetworkTimer extends TimerTask implements INetworkClientClock
 		}
 	};
 
-	private final Timer timer;
 	private final Object lockstepLock = new Object();
+	private final Object stateHashLock = new Object();
+	private final Object replayLock = new Object(); // the tasks are written to the replay by the network thread, the state hashes by the clock
 
 	private final List<ScheduledTimerable> timerables = new ArrayList<ScheduledTimerable>();
 	private final List<ScheduledTimerable> newTimerables = new LinkedList<ScheduledTimerable>();
 	private final List<INetworkTimerable> timerablesToBeRemoved = new LinkedList<INetworkTimerable>();
 
 	private final LinkedList<SyncTasksPacket> tasks = new LinkedList<SyncTasksPacket>();
+	private final TimeHistogram lockstepStalls = new TimeHistogram();
+	private final TickStatistics tickStatistics = new TickStatistics();
+	private final Map<Integer, Long> replayStateHashes = new HashMap<Integer, Long>();
 
 	private int time = 0;
 	private int maxAllowedLockstep = -1;
 
 	private boolean isPausing;
 	private int pauseTime;
+	private volatile int catchUpTime; // set by the network thread
 	private float speedFactor = 1.0f;
 	private float progress = 0.0f;
 
-	private boolean scheduled = false;
+	private Thread clockThread;
+	private volatile boolean stopped = false;
+	private long tickStallNanos;
+
+	private int firstDesyncLockstep = -1;
 
 	private ITaskExecutor taskExecutor;
+	private IGameStateHasher stateHasher;
+	private IStateHashListener stateHashListener;
 	private DataOutputStream replayLogStream;
 
 	public NetworkTimer() {
-		super();
-		this.timer = new Timer("NetworkTimer");
 	}
 
 	public NetworkTimer(boolean disableLockstepWaiting) {
@@ -70,25 +98,64 @@ public final class NetworkTimer extends TimerTask implements INetworkClientClock
 
 	@Override
 	public synchronized void startExecution() {
-		if (!scheduled) {
-			scheduled = true;
-			timer.schedule(this, 0, TIME_SLICE);
+		if (clockThread == null && !stopped) {
+			clockThread = new Thread(this, "NetworkTimer");
+			clockThread.start();
 		}
 	}
 
 	@Override
 	public void stopExecution() {
 		setPausing(true);
-		timer.cancel();
+		stopped = true;
+		synchronized (lockstepLock) {
+			lockstepLock.notifyAll();
+		}
 
 		closeReplayLogStreamIfNeeded();
 	}
 
+	/**
+	 * The loop of the clock thread.
+	 */
 	@Override
 	public void run() {
+		long nextTickTime = System.nanoTime();
+
+		while (!stopped) {
+			long now = System.nanoTime();
+			if (now < nextTickTime) {
+				LockSupport.parkNanos(nextTickTime - now);
+				continue;
+			}
+
+			long missedTicks = (now - nextTickTime) / TIME_SLICE_NANOS;
+			if (missedTicks > NetworkConstants.Client.CLOCK_MAX_CATCH_UP_TICKS) {
+				long skippedTicks = missedTicks - NetworkConstants.Client.CLOCK_MAX_CATCH_UP_TICKS;
+				tickStatistics.recordSkippedTicks(skippedTicks);
+				nextTickTime += skippedTicks * TIME_SLICE_NANOS;
+			}
+
+			tickStallNanos = 0;
+			tick();
+			tickStatistics.recordTick(System.nanoTime() - now - tickStallNanos); // waiting for locksteps is recorded separately
+			nextTickTime += TIME_SLICE_NANOS;
+		}
+	}
+
+	/**
+	 * Executes one tick of the clock. This is called by the clock thread every {@link #TIME_SLICE} milliseconds.
+	 */
+	void tick() {
 		if (!isPausing) {
 			if (pauseTime <= 0) { // this is used for synchronizing the network clients
-				progress += speedFactor;
+				float speed = speedFactor;
+				if (catchUpTime > 0) {
+					float additionalSpeed = speedFactor * (NetworkConstants.Client.TIME_SYNC_CATCH_UP_SPEED_FACTOR - 1);
+					speed += additionalSpeed;
+					catchUpTime -= additionalSpeed * TIME_SLICE;
+				}
+				progress += speed;
 
 				while (progress >= 1) {
 					executeRun();
@@ -107,12 +174,24 @@ public final class NetworkTimer extends TimerTask implements INetworkClientClock
 
 			// check if the lockstep is allowed
 			synchronized (lockstepLock) {
-				while (lockstep > maxAllowedLockstep) {
-					System.out.println("WAITING for lockstep!");
-					lockstepLock.wait();
+				if (lockstep > maxAllowedLockstep) {
+					long startTime = System.nanoTime();
+					while (lockstep > maxAllowedLockstep) {
+						if (stopped) {
+							return;
+						}
+						lockstepLock.wait();
+					}
+					long stallNanos = System.nanoTime() - startTime;
+					tickStallNanos += stallNanos;
+					lockstepStalls.record((int) (stallNanos / 1000000));
 				}
 			}
 
+			if (time % NetworkConstants.Client.LOCKSTEP_PERIOD == 0 && lockstep % NetworkConstants.Client.STATE_HASH_PERIOD == 0) {
+				checkStateHash(lockstep);
+			}
+
 			SyncTasksPacket tasksPacket;
 			synchronized (tasks) {
 				tasksPacket = tasks.peekFirst();
@@ -153,6 +232,45 @@ public final class NetworkTimer extends TimerTask implements INetworkClientClock
 		}
 	}
 
+	private void checkStateHash(int lockstep) {
+		if (stateHasher == null) {
+			return;
+		}
+
+		long stateHash = stateHasher.calculateStateHash(lockstep / NetworkConstants.Client.STATE_HASH_PERIOD);
+		saveReplayIfNeeded(new StateHashPacket(lockstep, stateHash));
+
+		if (stateHashListener != null) {
+			stateHashListener.stateHashCalculated(lockstep, stateHash);
+		}
+
+		Long replayStateHash;
+		synchronized (stateHashLock) {
+			replayStateHash = replayStateHashes.remove(lockstep);
+		}
+		if (replayStateHash != null && replayStateHash != stateHash) {
+			stateHashMismatch(lockstep);
+		}
+	}
+
+	@Override
+	public void stateHashMismatch(int lockstep) {
+		synchronized (stateHashLock) {
+			if (firstDesyncLockstep >= 0 && firstDesyncLockstep <= lockstep) {
+				return;
+			}
+			firstDesyncLockstep = lockstep;
+		}
+		System.err.println("DESYNC: The game state differs from the other clients or the replay since lockstep " + lockstep + "!");
+	}
+
+	@Override
+	public int getFirstDesyncLockstep() {
+		synchronized (stateHashLock) {
+			return firstDesyncLockstep;
+		}
+	}
+
 	private void executeTasksPacket(SyncTasksPacket tasksPacket) {
 		if (taskExecutor != null) {
 			for (TaskPacket currTask : tasksPacket.getTasks()) {
@@ -233,8 +351,6 @@ public final class NetworkTimer extends TimerTask implements INetworkClientClock
 	public synchronized void fastForwardTo(int targetGameTime) {
 		this.setPausing(true);
 
-		System.out.println("Playing game forward to game time: " + targetGameTime);
-
 		while (time < targetGameTime) {
 			executeRun();
 		}
@@ -260,9 +376,27 @@ public final class NetworkTimer extends TimerTask implements INetworkClientClock
 	@Override
 	public void pauseClockFor(int timeDelta) {
 		this.pauseTime = timeDelta;
+		this.catchUpTime = 0;
 		System.err.println("pausing for " + timeDelta + " ms");
 	}
 
+	@Override
+	public void catchUpFor(int timeDelta) {
+		this.catchUpTime = timeDelta;
+	}
+
+	/**
+	 * 
+	 * @return The histogram of the times this clock had to wait for the server to allow the next lockstep.
+	 */
+	public TimeHistogram getLockstepStallHistogram() {
+		return lockstepStalls;
+	}
+
+	public TickStatistics getTickStatistics() {
+		return tickStatistics;
+	}
+
 	@Override
 	public void setGameSpeed(float speedFactor) {
 		this.speedFactor = speedFactor;
@@ -278,6 +412,16 @@ public final class NetworkTimer extends TimerTask implements INetworkClientClock
 		this.taskExecutor = taskExecutor;
 	}
 
+	@Override
+	public void setStateHasher(IGameStateHasher stateHasher) {
+		this.stateHasher = stateHasher;
+	}
+
+	@Override
+	public void setStateHashListener(IStateHashListener stateHashListener) {
+		this.stateHashListener = stateHashListener;
+	}
+
 	@Override
 	public void scheduleSyncTasksPacket(SyncTasksPacket tasksPacket) {
 		assert maxAllowedLockstep == Integer.MAX_VALUE || maxAllowedLockstep + 1 == tasksPacket.getLockstepNumber() : "received unlock for wrong step! current max allowed: "
@@ -287,8 +431,8 @@ public final class NetworkTimer extends TimerTask implements INetworkClientClock
 			synchronized (tasks) {
 				tasks.addLast(tasksPacket);
 				Collections.sort(tasks, tasksByTimeComperator);
-				saveReplayIfNeeded(tasksPacket);
 			}
+			saveReplayIfNeeded(tasksPacket);
 		}
 		maxAllowedLockstep = Math.max(maxAllowedLockstep, tasksPacket.getLockstepNumber());
 
@@ -298,12 +442,28 @@ public final class NetworkTimer extends TimerTask implements INetworkClientClock
 	}
 
 	private void saveReplayIfNeeded(SyncTasksPacket tasksPacket) {
-		if (replayLogStream != null) {
-			try {
-				tasksPacket.serialize(replayLogStream);
-				replayLogStream.flush();
-			} catch (IOException e) {
-				e.printStackTrace();
+		synchronized (replayLock) {
+			if (replayLogStream != null) {
+				try {
+					tasksPacket.serialize(replayLogStream);
+					replayLogStream.flush();
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			}
+		}
+	}
+
+	private void saveReplayIfNeeded(StateHashPacket stateHashPacket) {
+		synchronized (replayLock) {
+			if (replayLogStream != null) {
+				try {
+					replayLogStream.writeInt(REPLAY_STATE_HASH_ENTRY);
+					stateHashPacket.serialize(replayLogStream);
+					replayLogStream.flush();
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
 			}
 		}
 	}
@@ -340,14 +500,16 @@ public final class NetworkTimer extends TimerTask implements INetworkClientClock
 	}
 
 	private void closeReplayLogStreamIfNeeded() {
-		if (replayLogStream != null) {
-			try {
-				replayLogStream.flush();
-				replayLogStream.close();
-			} catch (IOException e) {
-				e.printStackTrace();
-			} finally {
-				replayLogStream = null;
+		synchronized (replayLock) {
+			if (replayLogStream != null) {
+				try {
+					replayLogStream.flush();
+					replayLogStream.close();
+				} catch (IOException e) {
+					e.printStackTrace();
+				} finally {
+					replayLogStream = null;
+				}
 			}
 		}
 	}
@@ -356,9 +518,18 @@ public final class NetworkTimer extends TimerTask implements INetworkClientClock
 	public void loadReplayLogFromStream(DataInputStream dataInputStream) {
 		try {
 			while (true) {
-				SyncTasksPacket currPacket = new SyncTasksPacket();
-				currPacket.deserialize(dataInputStream);
-				scheduleSyncTasksPacket(currPacket);
+				int lockstep = dataInputStream.readInt();
+				if (lockstep == REPLAY_STATE_HASH_ENTRY) {
+					StateHashPacket stateHashPacket = new StateHashPacket();
+					stateHashPacket.deserialize(dataInputStream);
+					synchronized (stateHashLock) {
+						replayStateHashes.put(stateHashPacket.getLockstep(), stateHashPacket.getStateHash());
+					}
+				} else {
+					SyncTasksPacket currPacket = new SyncTasksPacket();
+					currPacket.deserializeTasks(lockstep, dataInputStream);
+					scheduleSyncTasksPacket(currPacket);
+				}
 			}
 		} catch (IOException e1) { // something went wrong, or the stream was empty
 			try {
@@ -0,0 +1,69 @@
+package jsettlers.network.synchronic.timer;
+
+import java.util.Arrays;
+
+/**
+ * Statistics about the ticks of the {@link NetworkTimer}. The percentiles of the tick durations are calculated from the last {@link #SAMPLES}
+ * ticks. The time the clock waited for the server to allow the next lockstep is not included in the durations.
+ * <p />
+ * A tick that takes longer than {@link NetworkTimer#TIME_SLICE} is counted as an overrun. If the clock is so late that it can't catch up the
+ * missed ticks, they are skipped and counted, too.
+ *
+ */
+public final class TickStatistics {
+	public static final int SAMPLES = 1024;
+
+	private final long[] durations = new long[SAMPLES];
+	private long ticks = 0;
+	private long overruns = 0;
+	private long skippedTicks = 0;
+
+	synchronized void recordTick(long durationNanos) {
+		durations[(int) (ticks % SAMPLES)] = durationNanos;
+		ticks++;
+
+		if (durationNanos > NetworkTimer.TIME_SLICE * 1000000L) {
+			overruns++;
+		}
+	}
+
+	synchronized void recordSkippedTicks(long skippedTicks) {
+		this.skippedTicks += skippedTicks;
+	}
+
+	public synchronized long getTickCount() {
+		return ticks;
+	}
+
+	public synchronized long getOverrunCount() {
+		return overruns;
+	}
+
+	public synchronized long getSkippedTickCount() {
+		return skippedTicks;
+	}
+
+	/**
+	 *
+	 * @param percentile
+	 *            A value between 0 and 100.
+	 * @return The duration in nanoseconds that the given percentage of the last ticks didn't exceed or 0 if there has been no tick yet.
+	 */
+	public synchronized long getPercentileNanos(double percentile) {
+		int samples = (int) Math.min(ticks, SAMPLES);
+		if (samples == 0) {
+			return 0;
+		}
+
+		long[] sorted = Arrays.copyOf(durations, samples);
+		Arrays.sort(sorted);
+		int index = (int) Math.ceil(percentile / 100 * samples) - 1;
+		return sorted[Math.max(0, Math.min(samples - 1, index))];
+	}
+
+	@Override
+	public synchronized String toString() {
+		return String.format("ticks: %d   p50: %dus   p99: %dus   overruns: %d   skipped ticks: %d", ticks, getPercentileNanos(50) / 1000,
+				getPercentileNanos(99) / 1000, overruns, skippedTicks);
+	}
+}
@@ -0,0 +1,144 @@
+package jsettlers.algorithms.fogofwar;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import jsettlers.algorithms.path.astar.normal.IAStarPathMap;
+import jsettlers.benchmarks.Benchmark;
+import jsettlers.benchmarks.BenchmarkFixtures;
+import jsettlers.benchmarks.BenchmarkPathRequester;
+import jsettlers.common.mapobject.IMapObject;
+import jsettlers.common.movable.IMovable;
+import jsettlers.common.position.ShortPoint2D;
+import jsettlers.logic.map.newGrid.MainGrid;
+
+/**
+ * Measures the update of the {@link FogOfWar} of a bundled map with viewers placed on random unblocked positions.
+ */
+public final class FogOfWarBenchmark extends Benchmark {
+	private static final int NUMBER_OF_VIEWERS = 2000;
+	/**
+	 * Every how many viewers one moves before an incremental update.
+	 */
+	private static final int MOVING_VIEWERS_RATIO = 10;
+
+	public enum EUpdateMode {
+		FULL_REBUILD_SEQUENTIAL,
+		FULL_REBUILD_PARALLEL,
+		INCREMENTAL,
+	}
+
+	private final EUpdateMode mode;
+	private final List<BenchmarkViewer> viewerList = new ArrayList<BenchmarkViewer>();
+	private final ConcurrentLinkedQueue<BenchmarkViewer> viewers = new ConcurrentLinkedQueue<BenchmarkViewer>();
+	private FogOfWar fogOfWar;
+	private int step;
+
+	private static final class BenchmarkViewer implements IViewDistancable {
+		private final ShortPoint2D origin;
+		private final ShortPoint2D moved;
+		private final short viewDistance;
+		private boolean atOrigin = true;
+
+		BenchmarkViewer(ShortPoint2D origin, short viewDistance) {
+			this.origin = origin;
+			this.moved = new ShortPoint2D(origin.x + 1, origin.y);
+			this.viewDistance = viewDistance;
+		}
+
+		void move() {
+			atOrigin = !atOrigin;
+		}
+
+		@Override
+		public ShortPoint2D getPos() {
+			return atOrigin ? origin : moved;
+		}
+
+		@Override
+		public byte getPlayerId() {
+			return 0;
+		}
+
+		@Override
+		public short getViewDistance() {
+			return viewDistance;
+		}
+	}
+
+	public FogOfWarBenchmark(EUpdateMode mode) {
+		super("FogOfWar.update[" + mode + "]");
+		this.mode = mode;
+	}
+
+	@Override
+	public void setUp() throws Exception {
+		MainGrid grid = BenchmarkFixtures.getDefaultMap();
+		short width = grid.getGraphicsGrid().getWidth();
+		short height = grid.getGraphicsGrid().getHeight();
+		IAStarPathMap map = grid.getPathfinderGrid();
+
+		Random random = new Random(BenchmarkFixtures.RANDOM_SEED);
+		BenchmarkPathRequester requester = new BenchmarkPathRequester(null);
+		viewerList.clear();
+		viewers.clear();
+		for (int i = 0; i < NUMBER_OF_VIEWERS; i++) {
+			ShortPoint2D pos;
+			do {
+				pos = BenchmarkFixtures.getUnblockedRandomPosition(map, requester, random, width, height);
+			} while (pos.x >= width - 1);
+
+			BenchmarkViewer viewer = new BenchmarkViewer(pos, (short) (5 + random.nextInt(20)));
+			viewerList.add(viewer);
+			viewers.add(viewer);
+		}
+
+		fogOfWar = new FogOfWar(width, height, (byte) 0, false);
+		fogOfWar.init(new IFogOfWarGrid() {
+			@Override
+			public IMovable getMovableAt(short x, short y) {
+				return null;
+			}
+
+			@Override
+			public IMapObject getMapObjectsAt(short x, short y) {
+				return null;
+			}
+
+			@Override
+			public ConcurrentLinkedQueue<? extends IViewDistancable> getMovableViewDistancables() {
+				return viewers;
+			}
+
+			@Override
+			public ConcurrentLinkedQueue<? extends IViewDistancable> getBuildingViewDistancables() {
+				return new ConcurrentLinkedQueue<IViewDistancable>();
+			}
+		});
+		fogOfWar.updateSight();
+		step = 0;
+	}
+
+	@Override
+	public int runOperation() {
+		switch (mode) {
+		case FULL_REBUILD_SEQUENTIAL:
+			fogOfWar.rebuildSight(false);
+			break;
+		case FULL_REBUILD_PARALLEL:
+			fogOfWar.rebuildSight(true);
+			break;
+		case INCREMENTAL:
+			for (int i = step % MOVING_VIEWERS_RATIO; i < viewerList.size(); i += MOVING_VIEWERS_RATIO) {
+				viewerList.get(i).move();
+			}
+			fogOfWar.updateSight();
+			break;
+		}
+
+		step++;
+		return fogOfWar.sight[step % fogOfWar.sight.length];
+	}
+}
@@ -0,0 +1,45 @@
+package jsettlers.algorithms.partitions;
+
+import java.util.BitSet;
+
+import jsettlers.benchmarks.Benchmark;
+import jsettlers.benchmarks.BenchmarkFixtures;
+import jsettlers.logic.map.newGrid.MainGridDataAccessor;
+import jsettlers.logic.map.newGrid.landscape.LandscapeGrid;
+
+/**
+ * Measures the time the {@link PartitionCalculatorAlgorithm} needs to partition the not blocked landscape of a whole bundled map.
+ */
+public final class PartitionCalculatorAlgorithmBenchmark extends Benchmark {
+	private short width;
+	private short height;
+	private BitSet notBlockingSet;
+
+	public PartitionCalculatorAlgorithmBenchmark() {
+		super("PartitionCalculatorAlgorithm.calculatePartitions");
+	}
+
+	@Override
+	public void setUp() throws Exception {
+		MainGridDataAccessor gridAccessor = new MainGridDataAccessor(BenchmarkFixtures.getDefaultMap());
+
+		width = gridAccessor.getWidth();
+		height = gridAccessor.getHeight();
+		notBlockingSet = new BitSet(width * height);
+		LandscapeGrid landscapeGrid = gridAccessor.getLandscapeGrid();
+
+		for (short y = 0; y < height; y++) {
+			for (short x = 0; x < width; x++) {
+				notBlockingSet.set(x + y * width, !landscapeGrid.getLandscapeTypeAt(x, y).isBlocking);
+			}
+		}
+	}
+
+	@Override
+	public int runOperation() {
+		PartitionCalculatorAlgorithm partitioner = new PartitionCalculatorAlgorithm(0, 0, width, height, notBlockingSet,
+				IBlockingProvider.DEFAULT_IMPLEMENTATION);
+		partitioner.calculatePartitions();
+		return partitioner.getNumberOfPartitions();
+	}
+}
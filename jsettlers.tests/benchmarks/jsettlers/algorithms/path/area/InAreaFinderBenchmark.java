@@ -0,0 +1,61 @@
+package jsettlers.algorithms.path.area;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import jsettlers.algorithms.path.astar.normal.IAStarPathMap;
+import jsettlers.benchmarks.Benchmark;
+import jsettlers.benchmarks.BenchmarkFixtures;
+import jsettlers.benchmarks.BenchmarkPathRequester;
+import jsettlers.common.material.ESearchType;
+import jsettlers.common.position.ShortPoint2D;
+import jsettlers.logic.map.newGrid.MainGrid;
+import jsettlers.network.synchronic.random.RandomSingleton;
+
+/**
+ * Measures the time the {@link InAreaFinder} needs to find a position of a given search type around random positions of a bundled map.
+ */
+public final class InAreaFinderBenchmark extends Benchmark {
+	private static final int NUMBER_OF_CENTERS = 64;
+	private static final short SEARCH_RADIUS = 30;
+
+	private final ESearchType searchType;
+	private final BenchmarkPathRequester requester = new BenchmarkPathRequester(null);
+	private InAreaFinder inAreaFinder;
+	private List<ShortPoint2D> centers;
+	private int nextCenter;
+
+	public InAreaFinderBenchmark(ESearchType searchType) {
+		super("InAreaFinder.find[" + searchType + "]");
+		this.searchType = searchType;
+	}
+
+	@Override
+	public void setUp() throws Exception {
+		MainGrid grid = BenchmarkFixtures.getDefaultMap();
+		short width = grid.getGraphicsGrid().getWidth();
+		short height = grid.getGraphicsGrid().getHeight();
+		IAStarPathMap map = grid.getPathfinderGrid();
+
+		inAreaFinder = new InAreaFinder((IInAreaFinderMap) map, width, height);
+
+		Random random = new Random(BenchmarkFixtures.RANDOM_SEED);
+		centers = new ArrayList<ShortPoint2D>(NUMBER_OF_CENTERS);
+		for (int i = 0; i < NUMBER_OF_CENTERS; i++) {
+			centers.add(BenchmarkFixtures.getUnblockedRandomPosition(map, requester, random, width, height));
+		}
+		nextCenter = 0;
+		RandomSingleton.load(BenchmarkFixtures.RANDOM_SEED);
+	}
+
+	@Override
+	public int runOperation() {
+		ShortPoint2D center = centers.get(nextCenter);
+		nextCenter = (nextCenter + 1) % NUMBER_OF_CENTERS;
+
+		requester.setPos(center);
+		ShortPoint2D found = inAreaFinder.find(requester, center.x, center.y, SEARCH_RADIUS, searchType);
+		return found == null ? 0 : found.x;
+	}
+}
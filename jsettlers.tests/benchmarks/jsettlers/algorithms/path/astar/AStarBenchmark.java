@@ -0,0 +1,85 @@
+package jsettlers.algorithms.path.astar;
+
+import java.util.List;
+
+import jsettlers.algorithms.path.Path;
+import jsettlers.algorithms.path.astar.normal.IAStarPathMap;
+import jsettlers.benchmarks.Benchmark;
+import jsettlers.benchmarks.BenchmarkFixtures;
+import jsettlers.benchmarks.BenchmarkPathRequester;
+import jsettlers.benchmarks.GeneratedPathMap;
+import jsettlers.common.position.ShortPoint2D;
+import jsettlers.logic.map.newGrid.MainGrid;
+
+/**
+ * Measures the time an {@link AbstractAStar} implementation needs to find a path between two random positions of the default bundled map or of
+ * a {@link GeneratedPathMap}.
+ */
+public abstract class AStarBenchmark extends Benchmark {
+	private static final int NUMBER_OF_PATHS = 64;
+
+	private final short generatedMapSize;
+	private final int minDistance;
+	private final int maxDistance;
+
+	private final BenchmarkPathRequester requester = new BenchmarkPathRequester(null);
+	private AbstractAStar aStar;
+	private List<ShortPoint2D> endpoints;
+	private int nextPath;
+
+	/**
+	 * Creates a benchmark using the default bundled map.
+	 */
+	protected AStarBenchmark(String name, int minDistance, int maxDistance) {
+		super(name + "[" + minDistance + "-" + maxDistance + "]");
+		this.generatedMapSize = 0;
+		this.minDistance = minDistance;
+		this.maxDistance = maxDistance;
+	}
+
+	/**
+	 * Creates a benchmark using a {@link GeneratedPathMap} of the given size.
+	 */
+	protected AStarBenchmark(String name, short generatedMapSize, int minDistance, int maxDistance) {
+		super(name + "[" + generatedMapSize + "x" + generatedMapSize + "," + minDistance + "-" + maxDistance + "]");
+		this.generatedMapSize = generatedMapSize;
+		this.minDistance = minDistance;
+		this.maxDistance = maxDistance;
+	}
+
+	protected abstract AbstractAStar createAStar(IAStarPathMap map, short width, short height);
+
+	@Override
+	public void setUp() throws Exception {
+		short width;
+		short height;
+		IAStarPathMap map;
+		if (generatedMapSize > 0) {
+			GeneratedPathMap generatedMap = BenchmarkFixtures.getGeneratedMap(generatedMapSize);
+			width = generatedMap.getWidth();
+			height = generatedMap.getHeight();
+			map = generatedMap;
+		} else {
+			MainGrid grid = BenchmarkFixtures.getDefaultMap();
+			width = grid.getGraphicsGrid().getWidth();
+			height = grid.getGraphicsGrid().getHeight();
+			map = grid.getPathfinderGrid();
+		}
+
+		aStar = createAStar(map, width, height);
+		endpoints = BenchmarkFixtures.createPathEndpoints(map, width, height, NUMBER_OF_PATHS, minDistance, maxDistance,
+				BenchmarkFixtures.RANDOM_SEED);
+		nextPath = 0;
+	}
+
+	@Override
+	public int runOperation() {
+		ShortPoint2D start = endpoints.get(nextPath * 2);
+		ShortPoint2D target = endpoints.get(nextPath * 2 + 1);
+		nextPath = (nextPath + 1) % NUMBER_OF_PATHS;
+
+		requester.setPos(start);
+		Path path = aStar.findPath(requester, start.x, start.y, target.x, target.y);
+		return path == null ? 0 : path.getLength();
+	}
+}
@@ -0,0 +1,60 @@
+package jsettlers.algorithms.path.dijkstra;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import jsettlers.algorithms.path.Path;
+import jsettlers.algorithms.path.astar.BucketQueueAStar;
+import jsettlers.algorithms.path.astar.normal.IAStarPathMap;
+import jsettlers.benchmarks.Benchmark;
+import jsettlers.benchmarks.BenchmarkFixtures;
+import jsettlers.benchmarks.BenchmarkPathRequester;
+import jsettlers.common.material.ESearchType;
+import jsettlers.common.position.ShortPoint2D;
+import jsettlers.logic.map.newGrid.MainGrid;
+
+/**
+ * Measures the time the {@link DijkstraAlgorithm} needs to find a path to a free position in a ring around random positions of a bundled map.
+ */
+public final class DijkstraAlgorithmBenchmark extends Benchmark {
+	private static final int NUMBER_OF_CENTERS = 64;
+	private static final short MIN_RADIUS = 10;
+	private static final short MAX_RADIUS = 40;
+
+	private final BenchmarkPathRequester requester = new BenchmarkPathRequester(null);
+	private DijkstraAlgorithm dijkstra;
+	private List<ShortPoint2D> centers;
+	private int nextCenter;
+
+	public DijkstraAlgorithmBenchmark() {
+		super("DijkstraAlgorithm.find");
+	}
+
+	@Override
+	public void setUp() throws Exception {
+		MainGrid grid = BenchmarkFixtures.getDefaultMap();
+		short width = grid.getGraphicsGrid().getWidth();
+		short height = grid.getGraphicsGrid().getHeight();
+		IAStarPathMap map = grid.getPathfinderGrid();
+
+		dijkstra = new DijkstraAlgorithm((IDijkstraPathMap) map, new BucketQueueAStar(map, width, height), width, height);
+
+		Random random = new Random(BenchmarkFixtures.RANDOM_SEED);
+		centers = new ArrayList<ShortPoint2D>(NUMBER_OF_CENTERS);
+		for (int i = 0; i < NUMBER_OF_CENTERS; i++) {
+			centers.add(BenchmarkFixtures.getUnblockedRandomPosition(map, requester, random, width, height));
+		}
+		nextCenter = 0;
+	}
+
+	@Override
+	public int runOperation() {
+		ShortPoint2D center = centers.get(nextCenter);
+		nextCenter = (nextCenter + 1) % NUMBER_OF_CENTERS;
+
+		requester.setPos(center);
+		Path path = dijkstra.find(requester, center.x, center.y, MIN_RADIUS, MAX_RADIUS, ESearchType.NON_BLOCKED_OR_PROTECTED);
+		return path == null ? 0 : path.getLength();
+	}
+}
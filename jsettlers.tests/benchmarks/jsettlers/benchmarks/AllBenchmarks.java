@@ -0,0 +1,125 @@
+package jsettlers.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import jsettlers.algorithms.fogofwar.FogOfWarBenchmark;
+import jsettlers.algorithms.fogofwar.FogOfWarBenchmark.EUpdateMode;
+import jsettlers.algorithms.partitions.IBlockingProvider;
+import jsettlers.algorithms.partitions.PartitionCalculatorAlgorithmBenchmark;
+import jsettlers.algorithms.path.area.InAreaFinderBenchmark;
+import jsettlers.algorithms.path.astar.AStarBenchmark;
+import jsettlers.algorithms.path.astar.AbstractAStar;
+import jsettlers.algorithms.path.astar.BucketQueueAStar;
+import jsettlers.algorithms.path.astar.HierarchicalAStar;
+import jsettlers.algorithms.path.astar.normal.AStarJPS;
+import jsettlers.algorithms.path.astar.normal.HexAStar;
+import jsettlers.algorithms.path.astar.normal.IAStarPathMap;
+import jsettlers.algorithms.path.dijkstra.DijkstraAlgorithmBenchmark;
+import jsettlers.common.material.ESearchType;
+import jsettlers.graphics.map.MapContentDrawBenchmark;
+import jsettlers.logic.map.newGrid.GameSerializerBenchmark;
+import jsettlers.logic.map.newGrid.flags.FlagsGridBenchmark;
+import jsettlers.logic.map.newGrid.flags.FlagsGridBenchmark.ELayout;
+import jsettlers.logic.map.newGrid.partition.manager.datastructures.PositionableListBenchmark;
+import jsettlers.logic.timer.RescheduleTimerBenchmark;
+import jsettlers.main.replay.HeadlessReplayBenchmark;
+import jsettlers.network.client.task.packets.TaskCodec;
+import jsettlers.network.infrastructure.channel.LockstepTrafficBenchmark;
+
+/**
+ * Runs all benchmarks of the hot paths of the game logic. See {@link BenchmarkRunner#parseArguments(String[])} for the supported arguments.
+ */
+public final class AllBenchmarks {
+	private static final int[][] PATH_DISTANCES = { { 10, 30 }, { 100, 200 }, { 300, 10000 } };
+	private static final short[] GENERATED_MAP_SIZES = { 512, 1024 };
+	private static final int[] POSITIONABLE_LIST_SIZES = { 100, 1000, 5000 };
+
+	private AllBenchmarks() {
+	}
+
+	public static List<Benchmark> createBenchmarks() {
+		List<Benchmark> benchmarks = new ArrayList<Benchmark>();
+
+		for (int[] distances : PATH_DISTANCES) {
+			benchmarks.add(new AStarBenchmark("BucketQueueAStar.findPath", distances[0], distances[1]) {
+				@Override
+				protected AbstractAStar createAStar(IAStarPathMap map, short width, short height) {
+					return new BucketQueueAStar(map, width, height);
+				}
+			});
+			benchmarks.add(new AStarBenchmark("HexAStar.findPath", distances[0], distances[1]) {
+				@Override
+				protected AbstractAStar createAStar(IAStarPathMap map, short width, short height) {
+					return new HexAStar(map, width, height);
+				}
+			});
+			benchmarks.add(new AStarBenchmark("HierarchicalAStar.findPath", distances[0], distances[1]) {
+				@Override
+				protected AbstractAStar createAStar(IAStarPathMap map, short width, short height) {
+					return new HierarchicalAStar(map, (IBlockingProvider) map, width, height);
+				}
+			});
+			benchmarks.add(new AStarBenchmark("AStarJPS.findPath", distances[0], distances[1]) {
+				@Override
+				protected AbstractAStar createAStar(IAStarPathMap map, short width, short height) {
+					return new AStarJPS(map, width, height);
+				}
+			});
+		}
+
+		// per query latency of the plain AStar implementations depending on the map size
+		for (short mapSize : GENERATED_MAP_SIZES) {
+			for (int[] distances : PATH_DISTANCES) {
+				benchmarks.add(new AStarBenchmark("BucketQueueAStar.findPath", mapSize, distances[0], distances[1]) {
+					@Override
+					protected AbstractAStar createAStar(IAStarPathMap map, short width, short height) {
+						return new BucketQueueAStar(map, width, height);
+					}
+				});
+				benchmarks.add(new AStarBenchmark("HexAStar.findPath", mapSize, distances[0], distances[1]) {
+					@Override
+					protected AbstractAStar createAStar(IAStarPathMap map, short width, short height) {
+						return new HexAStar(map, width, height);
+					}
+				});
+			}
+		}
+
+		benchmarks.add(new DijkstraAlgorithmBenchmark());
+		benchmarks.add(new InAreaFinderBenchmark(ESearchType.NON_BLOCKED_OR_PROTECTED));
+		benchmarks.add(new PartitionCalculatorAlgorithmBenchmark());
+		for (EUpdateMode mode : EUpdateMode.values()) {
+			benchmarks.add(new FogOfWarBenchmark(mode));
+		}
+		benchmarks.add(new RescheduleTimerBenchmark());
+		for (int numberOfObjects : POSITIONABLE_LIST_SIZES) {
+			benchmarks.add(new PositionableListBenchmark(numberOfObjects));
+		}
+		for (ELayout layout : ELayout.values()) {
+			benchmarks.add(new FlagsGridBenchmark(layout));
+		}
+		for (int taskCodecVersion = TaskCodec.CLASS_NAME_VERSION; taskCodecVersion <= TaskCodec.SUPPORTED_VERSION; taskCodecVersion++) {
+			benchmarks.add(new LockstepTrafficBenchmark(taskCodecVersion));
+		}
+		benchmarks.add(new HeadlessReplayBenchmark());
+		for (GameSerializerBenchmark.EOperation operation : GameSerializerBenchmark.EOperation.values()) {
+			benchmarks.add(new GameSerializerBenchmark(operation, false));
+			if (operation != GameSerializerBenchmark.EOperation.SNAPSHOT) { // a snapshot is never compressed
+				benchmarks.add(new GameSerializerBenchmark(operation, true));
+			}
+		}
+		benchmarks.add(new MapContentDrawBenchmark(false));
+		benchmarks.add(new MapContentDrawBenchmark(true));
+
+		return benchmarks;
+	}
+
+	public static void main(String[] args) throws Exception {
+		BenchmarkRunner runner = new BenchmarkRunner();
+		runner.parseArguments(args);
+		runner.run(createBenchmarks());
+
+		System.exit(0);
+	}
+}
@@ -0,0 +1,46 @@
+package jsettlers.benchmarks;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Counts the bytes allocated by all live threads of the JVM. This needs the allocation counters of the HotSpot {@link ThreadMXBean}; on other
+ * JVMs the counter is not supported.
+ * <p />
+ * NOTE: The allocations of threads that end while counting are lost.
+ */
+final class AllocationCounter {
+	private final com.sun.management.ThreadMXBean threadBean;
+
+	AllocationCounter() {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()) {
+			threadBean = (com.sun.management.ThreadMXBean) bean;
+			threadBean.setThreadAllocatedMemoryEnabled(true);
+		} else {
+			threadBean = null;
+		}
+	}
+
+	boolean isSupported() {
+		return threadBean != null;
+	}
+
+	/**
+	 * 
+	 * @return The sum of the bytes allocated by all live threads or 0 if counting allocations is not supported.
+	 */
+	long getAllocatedBytes() {
+		if (threadBean == null) {
+			return 0;
+		}
+
+		long sum = 0;
+		for (long allocated : threadBean.getThreadAllocatedBytes(threadBean.getAllThreadIds())) {
+			if (allocated > 0) {
+				sum += allocated;
+			}
+		}
+		return sum;
+	}
+}
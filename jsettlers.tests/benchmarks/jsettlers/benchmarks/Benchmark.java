@@ -0,0 +1,39 @@
+package jsettlers.benchmarks;
+
+/**
+ * A benchmark measuring the average time of a single operation. Every operation should do the same amount of work, so that the results of
+ * different runs can be compared.
+ */
+public abstract class Benchmark {
+	private final String name;
+
+	protected Benchmark(String name) {
+		this.name = name;
+	}
+
+	public final String getName() {
+		return name;
+	}
+
+	/**
+	 * Prepares the fixture of the benchmark. This is called once before the warmup.
+	 *
+	 * @throws Exception
+	 */
+	public void setUp() throws Exception {
+	}
+
+	/**
+	 * Executes one operation of the benchmark.
+	 *
+	 * @return A value depending on the result of the operation. It is consumed by the {@link BenchmarkRunner}, so the JIT can not eliminate the
+	 *         measured code.
+	 */
+	public abstract int runOperation();
+
+	/**
+	 * Releases the fixture of the benchmark. This is called once after the measurement.
+	 */
+	public void tearDown() {
+	}
+}
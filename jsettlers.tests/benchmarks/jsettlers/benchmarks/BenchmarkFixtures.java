@@ -0,0 +1,114 @@
+package jsettlers.benchmarks;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import jsettlers.TestUtils;
+import jsettlers.algorithms.path.IPathCalculatable;
+import jsettlers.algorithms.path.astar.normal.IAStarPathMap;
+import jsettlers.common.map.MapLoadException;
+import jsettlers.common.position.ShortPoint2D;
+import jsettlers.logic.constants.MatchConstants;
+import jsettlers.logic.map.newGrid.MainGrid;
+import jsettlers.logic.map.save.DirectoryMapLister;
+import jsettlers.logic.map.save.loader.MapLoader;
+import jsettlers.network.synchronic.random.RandomSingleton;
+import jsettlers.network.synchronic.timer.NetworkTimer;
+
+/**
+ * Reproducible fixtures for the benchmarks. The maps are loaded from the maps bundled with jsettlers.common and every random choice uses a fixed
+ * seed.
+ */
+public final class BenchmarkFixtures {
+	public static final String DEFAULT_MAP = "nicemap.map";
+	public static final long RANDOM_SEED = 1234;
+
+	private static final Map<String, MainGrid> loadedMaps = new HashMap<String, MainGrid>();
+	private static final Map<Short, GeneratedPathMap> generatedMaps = new HashMap<Short, GeneratedPathMap>();
+
+	private BenchmarkFixtures() {
+	}
+
+	/**
+	 * Loads the given bundled map. Every map is only loaded once, so all benchmarks using it share the same grid.
+	 *
+	 * @param mapFile
+	 *            The name of the map file in jsettlers.common/resources/maps.
+	 * @return The loaded {@link MainGrid}.
+	 * @throws MapLoadException
+	 */
+	public static synchronized MainGrid getMap(String mapFile) throws MapLoadException {
+		MainGrid grid = loadedMaps.get(mapFile);
+		if (grid == null) {
+			TestUtils.setupResourcesManager();
+			RandomSingleton.load(RANDOM_SEED);
+			MatchConstants.clock = new NetworkTimer(true);
+
+			MapLoader loader = MapLoader.getLoaderForFile(new DirectoryMapLister.ListedMapFile(new File("../jsettlers.common/resources/maps/"
+					+ mapFile), false));
+			grid = loader.loadMainGrid(null).getMainGrid();
+			loadedMaps.put(mapFile, grid);
+		}
+		return grid;
+	}
+
+	public static MainGrid getDefaultMap() throws MapLoadException {
+		return getMap(DEFAULT_MAP);
+	}
+
+	/**
+	 * Gets a square {@link GeneratedPathMap} of the given size. Every size is only generated once.
+	 *
+	 * @param size
+	 *            width and height of the map.
+	 * @return
+	 */
+	public static synchronized GeneratedPathMap getGeneratedMap(short size) {
+		GeneratedPathMap map = generatedMaps.get(size);
+		if (map == null) {
+			map = new GeneratedPathMap(size, size, RANDOM_SEED);
+			generatedMaps.put(size, map);
+		}
+		return map;
+	}
+
+	/**
+	 * Creates pairs of unblocked positions in the same blocked partition, which therefore can be connected by a path.
+	 *
+	 * @return A list of start and target positions (start at even, target at odd indexes).
+	 */
+	public static List<ShortPoint2D> createPathEndpoints(IAStarPathMap map, short width, short height, int numberOfPaths, int minDistance,
+			int maxDistance, long seed) {
+		Random random = new Random(seed);
+		IPathCalculatable requester = new BenchmarkPathRequester(null);
+		List<ShortPoint2D> endpoints = new ArrayList<ShortPoint2D>(numberOfPaths * 2);
+
+		while (endpoints.size() < numberOfPaths * 2) {
+			ShortPoint2D start = getUnblockedRandomPosition(map, requester, random, width, height);
+			ShortPoint2D target = getUnblockedRandomPosition(map, requester, random, width, height);
+
+			int distance = ShortPoint2D.getOnGridDist(target.x - start.x, target.y - start.y);
+			if (distance >= minDistance && distance <= maxDistance
+					&& map.getBlockedPartition(start.x, start.y) == map.getBlockedPartition(target.x, target.y)) {
+				endpoints.add(start);
+				endpoints.add(target);
+			}
+		}
+
+		return endpoints;
+	}
+
+	public static ShortPoint2D getUnblockedRandomPosition(IAStarPathMap map, IPathCalculatable requester, Random random, short width, short height) {
+		short x, y;
+		do {
+			x = (short) random.nextInt(width);
+			y = (short) random.nextInt(height);
+		} while (map.isBlocked(requester, x, y));
+
+		return new ShortPoint2D(x, y);
+	}
+}
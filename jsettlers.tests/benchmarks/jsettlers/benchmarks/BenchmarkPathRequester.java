@@ -0,0 +1,34 @@
+package jsettlers.benchmarks;
+
+import jsettlers.algorithms.path.IPathCalculatable;
+import jsettlers.common.position.ShortPoint2D;
+
+/**
+ * {@link IPathCalculatable} of player 0 that can be moved to the start position of the next path request.
+ */
+public final class BenchmarkPathRequester implements IPathCalculatable {
+	private ShortPoint2D pos;
+
+	public BenchmarkPathRequester(ShortPoint2D pos) {
+		this.pos = pos;
+	}
+
+	public void setPos(ShortPoint2D pos) {
+		this.pos = pos;
+	}
+
+	@Override
+	public byte getPlayerId() {
+		return 0;
+	}
+
+	@Override
+	public ShortPoint2D getPos() {
+		return pos;
+	}
+
+	@Override
+	public boolean needsPlayersGround() {
+		return false;
+	}
+}
@@ -0,0 +1,91 @@
+package jsettlers.benchmarks;
+
+/**
+ * The measured average operation times and allocated bytes per operation of all measurement iterations of a {@link Benchmark}.
+ */
+public final class BenchmarkResult {
+	private final String name;
+	private final int warmupIterations;
+	private final double[] nanosPerOperation;
+	private final double[] bytesPerOperation;
+
+	BenchmarkResult(String name, int warmupIterations, double[] nanosPerOperation, double[] bytesPerOperation) {
+		this.name = name;
+		this.warmupIterations = warmupIterations;
+		this.nanosPerOperation = nanosPerOperation;
+		this.bytesPerOperation = bytesPerOperation;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public int getWarmupIterations() {
+		return warmupIterations;
+	}
+
+	public int getMeasurementIterations() {
+		return nanosPerOperation.length;
+	}
+
+	public double[] getNanosPerOperation() {
+		return nanosPerOperation.clone();
+	}
+
+	public double getMean() {
+		return getMean(nanosPerOperation);
+	}
+
+	/**
+	 * 
+	 * @return true if the allocated bytes have been measured.
+	 */
+	public boolean hasAllocations() {
+		return bytesPerOperation != null;
+	}
+
+	public double[] getBytesPerOperation() {
+		return bytesPerOperation.clone();
+	}
+
+	public double getMeanBytesPerOperation() {
+		return getMean(bytesPerOperation);
+	}
+
+	private static double getMean(double[] values) {
+		double sum = 0;
+		for (double curr : values) {
+			sum += curr;
+		}
+		return sum / values.length;
+	}
+
+	public double getStandardDeviation() {
+		if (nanosPerOperation.length < 2) {
+			return 0;
+		}
+
+		double mean = getMean();
+		double squaredSum = 0;
+		for (double curr : nanosPerOperation) {
+			squaredSum += (curr - mean) * (curr - mean);
+		}
+		return Math.sqrt(squaredSum / (nanosPerOperation.length - 1));
+	}
+
+	public double getMin() {
+		double min = Double.MAX_VALUE;
+		for (double curr : nanosPerOperation) {
+			min = Math.min(min, curr);
+		}
+		return min;
+	}
+
+	public double getMax() {
+		double max = 0;
+		for (double curr : nanosPerOperation) {
+			max = Math.max(max, curr);
+		}
+		return max;
+	}
+}
@@ -0,0 +1,179 @@
+package jsettlers.benchmarks;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Runs {@link Benchmark}s and reports their results.
+ * <p />
+ * Every benchmark is first warmed up and then measured for a number of iterations with a fixed duration. The results are printed as a table and
+ * can be written to a JSON file that uses the layout of the JMH result files, so existing tooling for regression checks can read it.
+ * <p />
+ * If the JVM supports it, the bytes allocated by all threads during the measurement are reported per operation, like the normalized allocation
+ * rate of the JMH GC profiler.
+ */
+public final class BenchmarkRunner {
+	private int warmupIterations = 5;
+	private int measurementIterations = 5;
+	private long iterationTimeMs = 1000;
+	private Pattern filter = null;
+	private File resultFile = null;
+
+	private final AllocationCounter allocationCounter = new AllocationCounter();
+
+	private int sink;
+	private double lastBytesPerOperation;
+
+	/**
+	 * Configures the runner with the given command line arguments.
+	 * <p />
+	 * Supported arguments: <code>-wi &lt;warmup iterations&gt; -i &lt;measurement iterations&gt; -r &lt;iteration time in ms&gt;
+	 * -rf &lt;JSON result file&gt; [regular expression for benchmark names]</code>
+	 *
+	 * @param args
+	 */
+	public void parseArguments(String[] args) {
+		for (int i = 0; i < args.length; i++) {
+			String arg = args[i];
+			if ("-wi".equals(arg)) {
+				warmupIterations = Integer.parseInt(args[++i]);
+			} else if ("-i".equals(arg)) {
+				measurementIterations = Integer.parseInt(args[++i]);
+			} else if ("-r".equals(arg)) {
+				iterationTimeMs = Long.parseLong(args[++i]);
+			} else if ("-rf".equals(arg)) {
+				resultFile = new File(args[++i]);
+			} else {
+				filter = Pattern.compile(arg);
+			}
+		}
+	}
+
+	public List<BenchmarkResult> run(List<? extends Benchmark> benchmarks) throws Exception {
+		List<BenchmarkResult> results = new ArrayList<BenchmarkResult>();
+
+		for (Benchmark benchmark : benchmarks) {
+			if (filter != null && !filter.matcher(benchmark.getName()).find()) {
+				continue;
+			}
+
+			results.add(run(benchmark));
+		}
+
+		printResults(results);
+		if (resultFile != null) {
+			writeJson(resultFile, results);
+			System.out.println("results written to " + resultFile.getAbsolutePath());
+		}
+
+		return results;
+	}
+
+	private BenchmarkResult run(Benchmark benchmark) throws Exception {
+		System.out.println("# benchmark: " + benchmark.getName());
+		benchmark.setUp();
+		try {
+			for (int i = 0; i < warmupIterations; i++) {
+				System.out.println(String.format(Locale.ENGLISH, "  warmup %d: %.3f ns/op", i + 1, runIteration(benchmark)));
+			}
+
+			double[] nanosPerOperation = new double[measurementIterations];
+			double[] bytesPerOperation = new double[measurementIterations];
+			for (int i = 0; i < measurementIterations; i++) {
+				nanosPerOperation[i] = runIteration(benchmark);
+				bytesPerOperation[i] = lastBytesPerOperation;
+				System.out.println(String.format(Locale.ENGLISH, "  iteration %d: %.3f ns/op", i + 1, nanosPerOperation[i]));
+			}
+
+			return new BenchmarkResult(benchmark.getName(), warmupIterations, nanosPerOperation,
+					allocationCounter.isSupported() ? bytesPerOperation : null);
+		} finally {
+			benchmark.tearDown();
+		}
+	}
+
+	private double runIteration(Benchmark benchmark) {
+		long iterationTimeNs = iterationTimeMs * 1000000L;
+		long operations = 0;
+		long allocatedAtStart = allocationCounter.getAllocatedBytes();
+		long start = System.nanoTime();
+		long elapsed;
+
+		do {
+			sink += benchmark.runOperation();
+			operations++;
+			elapsed = System.nanoTime() - start;
+		} while (elapsed < iterationTimeNs);
+
+		lastBytesPerOperation = ((double) (allocationCounter.getAllocatedBytes() - allocatedAtStart)) / operations;
+		return ((double) elapsed) / operations;
+	}
+
+	private void printResults(List<BenchmarkResult> results) {
+		System.out.println();
+		System.out.println(String.format(Locale.ENGLISH, "%-60s %5s %16s %14s  %-6s %12s", "Benchmark", "Cnt", "Score", "Error", "Units", "Alloc B/op"));
+		for (BenchmarkResult result : results) {
+			System.out.println(String.format(Locale.ENGLISH, "%-60s %5d %16.3f +- %11.3f  ns/op  %12s", result.getName(),
+					result.getMeasurementIterations(), result.getMean(), result.getStandardDeviation(),
+					result.hasAllocations() ? String.format(Locale.ENGLISH, "%.1f", result.getMeanBytesPerOperation()) : "-"));
+		}
+		System.out.println("(sink: " + sink + ")");
+	}
+
+	public static void writeJson(File file, List<BenchmarkResult> results) throws IOException {
+		PrintWriter writer = new PrintWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+		try {
+			writer.println("[");
+			for (int i = 0; i < results.size(); i++) {
+				BenchmarkResult result = results.get(i);
+				writer.println("    {");
+				writer.println("        \"benchmark\" : \"" + result.getName() + "\",");
+				writer.println("        \"mode\" : \"avgt\",");
+				writer.println("        \"threads\" : 1,");
+				writer.println("        \"forks\" : 1,");
+				writer.println("        \"warmupIterations\" : " + result.getWarmupIterations() + ",");
+				writer.println("        \"measurementIterations\" : " + result.getMeasurementIterations() + ",");
+				writer.println("        \"primaryMetric\" : {");
+				writer.println("            \"score\" : " + format(result.getMean()) + ",");
+				writer.println("            \"scoreError\" : " + format(result.getStandardDeviation()) + ",");
+				writer.println("            \"scoreUnit\" : \"ns/op\",");
+				writer.print("            \"rawData\" : [ [ ");
+				writeValues(writer, result.getNanosPerOperation());
+				writer.println(" ] ]");
+				if (result.hasAllocations()) {
+					writer.println("        },");
+					writer.println("        \"secondaryMetrics\" : {");
+					writer.println("            \"gc.alloc.rate.norm\" : {");
+					writer.println("                \"score\" : " + format(result.getMeanBytesPerOperation()) + ",");
+					writer.println("                \"scoreUnit\" : \"B/op\",");
+					writer.print("                \"rawData\" : [ [ ");
+					writeValues(writer, result.getBytesPerOperation());
+					writer.println(" ] ]");
+					writer.println("            }");
+				}
+				writer.println("        }");
+				writer.println(i < results.size() - 1 ? "    }," : "    }");
+			}
+			writer.println("]");
+		} finally {
+			writer.close();
+		}
+	}
+
+	private static void writeValues(PrintWriter writer, double[] values) {
+		for (int i = 0; i < values.length; i++) {
+			writer.print((i > 0 ? ", " : "") + format(values[i]));
+		}
+	}
+
+	private static String format(double value) {
+		return String.format(Locale.ENGLISH, "%.3f", value);
+	}
+}
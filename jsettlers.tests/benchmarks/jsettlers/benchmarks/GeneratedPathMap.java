@@ -0,0 +1,125 @@
+package jsettlers.benchmarks;
+
+import java.util.Random;
+
+import jsettlers.algorithms.partitions.IBlockingProvider;
+import jsettlers.algorithms.path.IPathCalculatable;
+import jsettlers.algorithms.path.astar.normal.IAStarPathMap;
+import jsettlers.common.Color;
+import jsettlers.common.movable.EDirection;
+
+/**
+ * A generated map of the given size with randomly placed blocked areas. It's used to benchmark the pathfinders on map sizes none of the bundled
+ * maps has.
+ */
+public final class GeneratedPathMap implements IAStarPathMap, IBlockingProvider {
+	/**
+	 * Number of positions per blocked area.
+	 */
+	private static final int POSITIONS_PER_BLOCKED_AREA = 400;
+	private static final int MAX_BLOCKED_AREA_RADIUS = 6;
+
+	private final short width;
+	private final short height;
+	private final boolean[] blocked;
+	private final short[] blockedPartitions;
+
+	public GeneratedPathMap(short width, short height, long seed) {
+		this.width = width;
+		this.height = height;
+		this.blocked = new boolean[width * height];
+		this.blockedPartitions = new short[width * height];
+
+		Random random = new Random(seed);
+		for (int i = 0; i < width * height / POSITIONS_PER_BLOCKED_AREA; i++) {
+			int centerX = random.nextInt(width);
+			int centerY = random.nextInt(height);
+			int radius = random.nextInt(MAX_BLOCKED_AREA_RADIUS);
+
+			for (int y = Math.max(0, centerY - radius); y <= Math.min(height - 1, centerY + radius); y++) {
+				for (int x = Math.max(0, centerX - radius); x <= Math.min(width - 1, centerX + radius); x++) {
+					blocked[y * width + x] = true;
+				}
+			}
+		}
+
+		calculateBlockedPartitions();
+	}
+
+	private void calculateBlockedPartitions() {
+		byte[] xDeltas = EDirection.getXDeltaArray();
+		byte[] yDeltas = EDirection.getYDeltaArray();
+		int[] queue = new int[width * height];
+		short nextPartition = 1;
+
+		for (int start = 0; start < blocked.length; start++) {
+			if (blocked[start] || blockedPartitions[start] != 0) {
+				continue;
+			}
+
+			short partition = nextPartition++;
+			int head = 0;
+			int tail = 0;
+			queue[tail++] = start;
+			blockedPartitions[start] = partition;
+
+			while (head < tail) {
+				int curr = queue[head++];
+				int x = curr % width;
+				int y = curr / width;
+
+				for (int i = 0; i < EDirection.NUMBER_OF_DIRECTIONS; i++) {
+					int neighborX = x + xDeltas[i];
+					int neighborY = y + yDeltas[i];
+					if (neighborX >= 0 && neighborX < width && neighborY >= 0 && neighborY < height) {
+						int neighbor = neighborY * width + neighborX;
+						if (!blocked[neighbor] && blockedPartitions[neighbor] == 0) {
+							blockedPartitions[neighbor] = partition;
+							queue[tail++] = neighbor;
+						}
+					}
+				}
+			}
+		}
+	}
+
+	public short getWidth() {
+		return width;
+	}
+
+	public short getHeight() {
+		return height;
+	}
+
+	@Override
+	public boolean isBlocked(int x, int y) {
+		return blocked[y * width + x];
+	}
+
+	@Override
+	public boolean isBlocked(IPathCalculatable requester, int x, int y) {
+		return blocked[y * width + x];
+	}
+
+	@Override
+	public float getCost(int sx, int sy, int tx, int ty) {
+		return 1;
+	}
+
+	@Override
+	public void markAsOpen(int x, int y) {
+	}
+
+	@Override
+	public void markAsClosed(int x, int y) {
+	}
+
+	@Override
+	public void setDebugColor(int x, int y, Color color) {
+	}
+
+	@Override
+	public short getBlockedPartition(int x, int y) {
+		return blockedPartitions[y * width + x];
+	}
+}
@@ -0,0 +1,61 @@
+package jsettlers.graphics.map;
+
+import go.graphics.RecordingDrawContext;
+import jsettlers.benchmarks.Benchmark;
+import jsettlers.benchmarks.BenchmarkFixtures;
+import jsettlers.common.position.ShortPoint2D;
+import jsettlers.logic.map.newGrid.MainGrid;
+
+/**
+ * Measures drawing a frame of the default map with the {@link HeadlessMapRenderer}. The view either stays at the center of the map or pans
+ * a bit with every frame, so the background has to be extended. The draw calls, triangles and uploads of the last frame are printed after the
+ * measurement.
+ */
+public final class MapContentDrawBenchmark extends Benchmark {
+	private static final int WINDOW_WIDTH = 1280;
+	private static final int WINDOW_HEIGHT = 800;
+	private static final int PAN_STEP = 4;
+
+	private final boolean panning;
+
+	private HeadlessMapRenderer renderer;
+	private short mapWidth;
+	private short mapHeight;
+	private int frame;
+
+	public MapContentDrawBenchmark(boolean panning) {
+		super("MapContent.drawContent[" + BenchmarkFixtures.DEFAULT_MAP + ", " + WINDOW_WIDTH + "x" + WINDOW_HEIGHT
+				+ (panning ? ", panning]" : "]"));
+		this.panning = panning;
+	}
+
+	@Override
+	public void setUp() throws Exception {
+		MainGrid grid = BenchmarkFixtures.getDefaultMap();
+		mapWidth = grid.getGraphicsGrid().getWidth();
+		mapHeight = grid.getGraphicsGrid().getHeight();
+
+		renderer = new HeadlessMapRenderer(grid, WINDOW_WIDTH, WINDOW_HEIGHT);
+		renderer.scrollTo(new ShortPoint2D(mapWidth / 2, mapHeight / 2));
+		frame = 0;
+	}
+
+	@Override
+	public int runOperation() {
+		if (panning) {
+			int x = mapWidth / 4 + (frame * PAN_STEP) % (mapWidth / 2);
+			renderer.scrollTo(new ShortPoint2D(x, mapHeight / 2));
+		}
+		frame++;
+
+		renderer.renderFrame();
+		return renderer.getDrawContext().getDrawCalls();
+	}
+
+	@Override
+	public void tearDown() {
+		RecordingDrawContext gl = renderer.getDrawContext();
+		System.out.println("draw calls: " + gl.getDrawCalls() + "   triangles: " + gl.getTriangles() + "   geometry written: "
+				+ gl.getGeometryBytesWritten() / 1024 + "KB   texels uploaded: " + gl.getTexelsUploaded());
+	}
+}
@@ -0,0 +1,74 @@
+package jsettlers.logic.map.newGrid;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import jsettlers.benchmarks.Benchmark;
+import jsettlers.benchmarks.BenchmarkFixtures;
+import jsettlers.common.map.MapLoadException;
+import jsettlers.input.PlayerState;
+import jsettlers.logic.buildings.Building;
+import jsettlers.logic.movable.Movable;
+
+/**
+ * Measures saving and loading the game on the default map with and without compression. The size of the savegame is printed after the
+ * measurement. Taking a snapshot is the part of a background save that stalls the clock.
+ */
+public final class GameSerializerBenchmark extends Benchmark {
+	public enum EOperation {
+		SAVE,
+		SNAPSHOT,
+		LOAD,
+	}
+
+	private final EOperation operation;
+	private final boolean compress;
+
+	private MainGrid grid;
+	private PlayerState[] playerStates;
+	private byte[] savegame;
+
+	public GameSerializerBenchmark(EOperation operation, boolean compress) {
+		super("GameSerializer." + operation.toString().toLowerCase() + "[" + BenchmarkFixtures.DEFAULT_MAP + (compress ? ", compressed]" : "]"));
+		this.operation = operation;
+		this.compress = compress;
+	}
+
+	@Override
+	public void setUp() throws Exception {
+		grid = BenchmarkFixtures.getDefaultMap();
+		playerStates = new PlayerState[0];
+		savegame = save();
+	}
+
+	@Override
+	public int runOperation() {
+		try {
+			if (operation == EOperation.SAVE) {
+				return save().length;
+			} else if (operation == EOperation.SNAPSHOT) {
+				return new GameSerializer().takeSnapshot(playerStates, grid).getSize();
+			} else {
+				Movable.resetState();
+				Building.dropAllBuildings();
+				return new GameSerializer().load(new ByteArrayInputStream(savegame)).getMainGrid().width;
+			}
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		} catch (MapLoadException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private byte[] save() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new GameSerializer().save(playerStates, grid, out, compress);
+		return out.toByteArray();
+	}
+
+	@Override
+	public void tearDown() {
+		System.out.println("savegame size: " + savegame.length / 1024 + "KB");
+	}
+}
@@ -0,0 +1,79 @@
+package jsettlers.logic.map.newGrid.flags;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import jsettlers.benchmarks.Benchmark;
+import jsettlers.benchmarks.BenchmarkFixtures;
+
+/**
+ * Measures checking the blocked and protected flags of all positions in a square around a random position, as it's done by the searches for
+ * free positions. The packed {@link FlagsGrid} is compared with the previous layout of one {@link BitSet} per flag.
+ */
+public final class FlagsGridBenchmark extends Benchmark {
+	private static final short SIZE = 1024;
+	private static final int RADIUS = 6;
+
+	public enum ELayout {
+		BIT_SETS,
+		PACKED,
+	}
+
+	private final ELayout layout;
+
+	private FlagsGrid flagsGrid;
+	private BitSet blocked;
+	private BitSet protectedPositions;
+	private Random random;
+
+	public FlagsGridBenchmark(ELayout layout) {
+		super("FlagsGrid.isBlockedOrProtected[" + layout + "]");
+		this.layout = layout;
+	}
+
+	@Override
+	public void setUp() throws Exception {
+		random = new Random(BenchmarkFixtures.RANDOM_SEED);
+		flagsGrid = new FlagsGrid(SIZE, SIZE);
+		blocked = new BitSet(SIZE * SIZE);
+		protectedPositions = new BitSet(SIZE * SIZE);
+
+		for (int y = 0; y < SIZE; y++) {
+			for (int x = 0; x < SIZE; x++) {
+				boolean isBlocked = random.nextInt(10) < 3;
+				boolean isProtected = isBlocked || random.nextInt(10) < 2;
+				flagsGrid.setBlockedAndProtected(x, y, isBlocked, isProtected);
+				blocked.set(x + y * SIZE, isBlocked);
+				protectedPositions.set(x + y * SIZE, isProtected);
+			}
+		}
+	}
+
+	@Override
+	public int runOperation() {
+		int centerX = RADIUS + random.nextInt(SIZE - 2 * RADIUS);
+		int centerY = RADIUS + random.nextInt(SIZE - 2 * RADIUS);
+
+		int free = 0;
+		for (int y = centerY - RADIUS; y <= centerY + RADIUS; y++) {
+			for (int x = centerX - RADIUS; x <= centerX + RADIUS; x++) {
+				if (!isBlockedOrProtected(x, y)) {
+					free++;
+				}
+			}
+		}
+		return free;
+	}
+
+	private boolean isBlockedOrProtected(int x, int y) {
+		switch (layout) {
+		case BIT_SETS:
+			int index = x + y * SIZE;
+			return blocked.get(index) || protectedPositions.get(index);
+		case PACKED:
+			return flagsGrid.isBlockedOrProtected(x, y);
+		default:
+			throw new IllegalStateException();
+		}
+	}
+}
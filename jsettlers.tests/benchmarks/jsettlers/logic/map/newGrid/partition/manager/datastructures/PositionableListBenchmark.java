@@ -0,0 +1,58 @@
+package jsettlers.logic.map.newGrid.partition.manager.datastructures;
+
+import java.util.Random;
+
+import jsettlers.benchmarks.Benchmark;
+import jsettlers.benchmarks.BenchmarkFixtures;
+import jsettlers.common.position.ILocatable;
+import jsettlers.common.position.ShortPoint2D;
+
+/**
+ * Measures taking the object next to a random position out of a {@link PositionableList} and inserting it again at another random position, as
+ * it's done when jobless bearers are assigned to offers.
+ */
+public final class PositionableListBenchmark extends Benchmark {
+	private static final int AREA_SIZE = 512;
+
+	private final int numberOfObjects;
+
+	private PositionableList<Positionable> list;
+	private Random random;
+
+	private static final class Positionable implements ILocatable {
+		private ShortPoint2D position;
+
+		@Override
+		public ShortPoint2D getPos() {
+			return position;
+		}
+	}
+
+	public PositionableListBenchmark(int numberOfObjects) {
+		super("PositionableList.removeObjectNextTo[" + numberOfObjects + "]");
+		this.numberOfObjects = numberOfObjects;
+	}
+
+	@Override
+	public void setUp() throws Exception {
+		random = new Random(BenchmarkFixtures.RANDOM_SEED);
+		list = new PositionableList<Positionable>();
+		for (int i = 0; i < numberOfObjects; i++) {
+			Positionable positionable = new Positionable();
+			positionable.position = getRandomPosition();
+			list.insert(positionable);
+		}
+	}
+
+	private ShortPoint2D getRandomPosition() {
+		return new ShortPoint2D(random.nextInt(AREA_SIZE), random.nextInt(AREA_SIZE));
+	}
+
+	@Override
+	public int runOperation() {
+		Positionable positionable = list.removeObjectNextTo(getRandomPosition());
+		positionable.position = getRandomPosition();
+		list.insert(positionable);
+		return positionable.position.x;
+	}
+}
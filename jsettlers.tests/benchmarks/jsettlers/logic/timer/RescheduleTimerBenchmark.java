@@ -0,0 +1,56 @@
+package jsettlers.logic.timer;
+
+import java.util.Random;
+
+import jsettlers.benchmarks.Benchmark;
+import jsettlers.benchmarks.BenchmarkFixtures;
+
+/**
+ * Measures the dispatching of one time slice of the {@link RescheduleTimer} with many scheduled timerables, as on big maps with many movables
+ * and buildings.
+ */
+public final class RescheduleTimerBenchmark extends Benchmark {
+	private static final int NUMBER_OF_TIMERABLES = 20000;
+	private static final int MAX_DELAY = 10000;
+
+	private RescheduleTimer timer;
+	private int executions;
+
+	private final class BenchmarkTimerable implements IScheduledTimerable {
+		private static final long serialVersionUID = 1L;
+		private final int delay;
+
+		BenchmarkTimerable(int delay) {
+			this.delay = delay;
+		}
+
+		@Override
+		public int timerEvent() {
+			executions++;
+			return delay;
+		}
+
+		@Override
+		public void kill() {
+		}
+	}
+
+	public RescheduleTimerBenchmark() {
+		super("RescheduleTimer.timerEvent[" + NUMBER_OF_TIMERABLES + "]");
+	}
+
+	@Override
+	public void setUp() throws Exception {
+		Random random = new Random(BenchmarkFixtures.RANDOM_SEED);
+		timer = new RescheduleTimer();
+		for (int i = 0; i < NUMBER_OF_TIMERABLES; i++) {
+			timer.addTimerable(new BenchmarkTimerable(25 + random.nextInt(MAX_DELAY)), 25 + random.nextInt(MAX_DELAY));
+		}
+	}
+
+	@Override
+	public int runOperation() {
+		timer.timerEvent();
+		return executions;
+	}
+}
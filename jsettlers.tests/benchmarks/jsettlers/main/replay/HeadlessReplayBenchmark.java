@@ -0,0 +1,56 @@
+package jsettlers.main.replay;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.util.Arrays;
+
+import jsettlers.TestUtils;
+import jsettlers.benchmarks.Benchmark;
+import jsettlers.benchmarks.BenchmarkFixtures;
+import jsettlers.logic.map.save.DirectoryMapLister;
+import jsettlers.logic.map.save.loader.MapLoader;
+import jsettlers.main.ReplayStartInformation;
+
+/**
+ * Measures a whole game played forward by the {@link HeadlessReplayRunner} on the default map without any tasks. The map is loaded again for
+ * every operation. The report of the last run, with the simulation speed and the time spent per subsystem, is printed after the measurement.
+ */
+public final class HeadlessReplayBenchmark extends Benchmark {
+	private static final int GAME_TIME = 10 * 60 * 1000;
+
+	private MapLoader map;
+	private ReplayStartInformation replayStartInformation;
+	private ReplayRunReport lastReport;
+
+	public HeadlessReplayBenchmark() {
+		super("HeadlessReplayRunner.run[" + BenchmarkFixtures.DEFAULT_MAP + ", " + GAME_TIME / 60000 + "min]");
+	}
+
+	@Override
+	public void setUp() throws Exception {
+		TestUtils.setupResourcesManager();
+		map = MapLoader.getLoaderForFile(new DirectoryMapLister.ListedMapFile(new File("../jsettlers.common/resources/maps/"
+				+ BenchmarkFixtures.DEFAULT_MAP), false));
+
+		boolean[] availablePlayers = new boolean[map.getMaxPlayers()];
+		Arrays.fill(availablePlayers, true);
+		replayStartInformation = new ReplayStartInformation(BenchmarkFixtures.RANDOM_SEED, map.getMapName(), map.getMapID(), 0, availablePlayers);
+	}
+
+	@Override
+	public int runOperation() {
+		try {
+			DataInputStream noTasks = new DataInputStream(new ByteArrayInputStream(new byte[0]));
+			lastReport = HeadlessReplayRunner.run(map, replayStartInformation, noTasks, GAME_TIME);
+			return lastReport.getSimulatedTime();
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	@Override
+	public void tearDown() {
+		System.out.println(lastReport);
+	}
+}
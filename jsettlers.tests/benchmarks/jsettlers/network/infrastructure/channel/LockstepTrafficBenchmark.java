@@ -0,0 +1,216 @@
+package jsettlers.network.infrastructure.channel;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import jsettlers.benchmarks.Benchmark;
+import jsettlers.common.position.ShortPoint2D;
+import jsettlers.input.tasks.GuiTaskTypes;
+import jsettlers.input.tasks.MoveToGuiTask;
+import jsettlers.input.tasks.SelectionDelta;
+import jsettlers.input.tasks.SelectionEncoder;
+import jsettlers.input.tasks.SelectionTable;
+import jsettlers.network.NetworkConstants.ENetworkKey;
+import jsettlers.network.client.task.packets.SyncTasksPacket;
+import jsettlers.network.client.task.packets.TaskCodec;
+import jsettlers.network.infrastructure.channel.listeners.BufferingPacketListener;
+import jsettlers.network.infrastructure.channel.socket.IFrameReceiver;
+import jsettlers.network.infrastructure.channel.socket.IFramedSocket;
+import jsettlers.network.infrastructure.log.ConsoleLogger;
+import jsettlers.network.server.match.lockstep.TaskCollectingListener;
+import jsettlers.network.server.packets.ServersideSyncTasksPacket;
+import jsettlers.network.server.packets.ServersideTaskPacket;
+
+/**
+ * Simulates the task traffic of a match with 8 players. Every operation is one lockstep: Every player sends {@link #TASKS_PER_PLAYER} tasks to
+ * the server, the server collects them and sends them to all players. Every player keeps commanding the same selection, so with the
+ * {@link TaskCodec#SELECTION_DELTA_VERSION} the selections are sent as deltas.
+ * <p />
+ * The channels are connected by in memory sockets delivering the frames synchronously, so all work is done by the benchmark thread and the
+ * results show the cost of framing, serializing and deserializing without the network.
+ */
+public final class LockstepTrafficBenchmark extends Benchmark {
+	private static final int PLAYERS = 8;
+	private static final int TASKS_PER_PLAYER = 2;
+	private static final int SELECTION_SIZE = 20;
+
+	private final Channel[] clientChannels = new Channel[PLAYERS];
+	private final Channel[] serverChannels = new Channel[PLAYERS];
+	private final TaskCollectingListener[] serverListeners = new TaskCollectingListener[PLAYERS];
+	private final List<BufferingPacketListener<SyncTasksPacket>> clientListeners = new ArrayList<BufferingPacketListener<SyncTasksPacket>>();
+	private final List<List<Integer>> selections = new ArrayList<List<Integer>>();
+	private final SelectionEncoder[] selectionEncoders = new SelectionEncoder[PLAYERS];
+	private final int taskCodecVersion;
+
+	private int lockstep;
+
+	public LockstepTrafficBenchmark(int taskCodecVersion) {
+		super("Channel.lockstepTraffic[" + PLAYERS + " players, task codec " + taskCodecVersion + "]");
+		this.taskCodecVersion = taskCodecVersion;
+	}
+
+	@Override
+	public void setUp() throws Exception {
+		GuiTaskTypes.register();
+		TaskCodec.setVersion(taskCodecVersion);
+		lockstep = 0;
+		selections.clear();
+
+		for (int player = 0; player < PLAYERS; player++) {
+			InMemorySocket clientSocket = new InMemorySocket();
+			InMemorySocket serverSocket = new InMemorySocket();
+			clientSocket.partner = serverSocket;
+			serverSocket.partner = clientSocket;
+
+			clientChannels[player] = new Channel(new ConsoleLogger("client" + player), clientSocket);
+			serverChannels[player] = new Channel(new ConsoleLogger("server" + player), serverSocket);
+			clientChannels[player].start();
+			serverChannels[player].start();
+
+			serverListeners[player] = new TaskCollectingListener();
+			serverChannels[player].registerListener(serverListeners[player]);
+
+			BufferingPacketListener<SyncTasksPacket> clientListener = new BufferingPacketListener<SyncTasksPacket>(ENetworkKey.SYNCHRONOUS_TASK,
+					new GenericDeserializer<SyncTasksPacket>(SyncTasksPacket.class));
+			clientChannels[player].registerListener(clientListener);
+			clientListeners.add(clientListener);
+
+			List<Integer> selection = new ArrayList<Integer>();
+			for (int i = 0; i < SELECTION_SIZE; i++) {
+				selection.add(player * 1000 + i);
+			}
+			selections.add(selection);
+			selectionEncoders[player] = new SelectionEncoder(new SelectionTable());
+		}
+	}
+
+	@Override
+	public int runOperation() {
+		for (int player = 0; player < PLAYERS; player++) {
+			for (int i = 0; i < TASKS_PER_PLAYER; i++) {
+				SelectionDelta delta = selectionEncoders[player].encode(selections.get(player));
+				MoveToGuiTask task = new MoveToGuiTask((byte) player, new ShortPoint2D(100 + player, 200 + player),
+						selectionEncoders[player].getSelection(delta.getHandle()), delta);
+				clientChannels[player].sendPacket(ENetworkKey.SYNCHRONOUS_TASK, task);
+			}
+		}
+
+		List<ServersideTaskPacket> collectedTasks = new ArrayList<ServersideTaskPacket>();
+		for (TaskCollectingListener listener : serverListeners) {
+			collectedTasks.addAll(listener.getAndResetTasks());
+		}
+		ServersideSyncTasksPacket syncTasksPacket = new ServersideSyncTasksPacket(lockstep++, collectedTasks);
+		for (Channel serverChannel : serverChannels) {
+			serverChannel.sendPacket(ENetworkKey.SYNCHRONOUS_TASK, syncTasksPacket);
+		}
+
+		int receivedTasks = 0;
+		for (BufferingPacketListener<SyncTasksPacket> listener : clientListeners) {
+			for (SyncTasksPacket packet : listener.popBufferedPackets()) {
+				receivedTasks += packet.getTasks().size();
+			}
+		}
+		return receivedTasks;
+	}
+
+	@Override
+	public void tearDown() {
+		long allocatedBufferBytes = 0;
+		long sentBytes = 0;
+		for (int player = 0; player < PLAYERS; player++) {
+			allocatedBufferBytes += clientChannels[player].getAllocatedBufferBytes() + serverChannels[player].getAllocatedBufferBytes();
+			sentBytes += clientChannels[player].getSentBytes() + serverChannels[player].getSentBytes();
+			clientChannels[player].close();
+			serverChannels[player].close();
+		}
+		TaskCodec.setVersion(TaskCodec.CLASS_NAME_VERSION);
+
+		System.out.println("  bytes allocated for channel buffers: " + allocatedBufferBytes);
+		System.out.println("  bytes sent per lockstep: " + sentBytes / Math.max(1, lockstep));
+	}
+
+	/**
+	 * A socket delivering every frame that has been completely written to the receiver of its partner as soon as the stream is flushed.
+	 */
+	private static final class InMemorySocket extends OutputStream implements IFramedSocket {
+		private InMemorySocket partner;
+		private IFrameReceiver receiver;
+		private boolean closed;
+
+		private byte[] data = new byte[4096];
+		private ByteBuffer dataBuffer = ByteBuffer.wrap(data);
+		private int length;
+
+		@Override
+		public void startReceiving(IFrameReceiver receiver) {
+			this.receiver = receiver;
+		}
+
+		@Override
+		public void write(int b) {
+			ensureCapacity(length + 1);
+			data[length++] = (byte) b;
+		}
+
+		@Override
+		public void write(byte[] bytes, int offset, int count) {
+			ensureCapacity(length + count);
+			System.arraycopy(bytes, offset, data, length, count);
+			length += count;
+		}
+
+		private void ensureCapacity(int capacity) {
+			if (capacity > data.length) {
+				byte[] newData = new byte[Math.max(capacity, 2 * data.length)];
+				System.arraycopy(data, 0, newData, 0, length);
+				data = newData;
+				dataBuffer = ByteBuffer.wrap(data);
+			}
+		}
+
+		@Override
+		public void flush() {
+			int position = 0;
+			while (length - position >= 5) {
+				ENetworkKey key = ENetworkKey.fromOrdinal(data[position]);
+				int frameLength = dataBuffer.getInt(position + 1);
+				if (length - position - 5 < frameLength) {
+					break;
+				}
+
+				dataBuffer.limit(position + 5 + frameLength);
+				dataBuffer.position(position + 5);
+				partner.receiver.receiveFrame(key, dataBuffer);
+				dataBuffer.clear();
+				position += 5 + frameLength;
+			}
+
+			System.arraycopy(data, position, data, 0, length - position);
+			length -= position;
+		}
+
+		@Override
+		public OutputStream getOutputStream() {
+			return this;
+		}
+
+		@Override
+		public InputStream getInputStream() throws IOException {
+			throw new IOException("frames are delivered to the receiver");
+		}
+
+		@Override
+		public boolean isClosed() {
+			return closed;
+		}
+
+		@Override
+		public void close() {
+			closed = true;
+		}
+	}
+}
@@ -5,11 +5,16 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.PipedInputStream;
 import java.io.PipedOutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.Socket;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
 
 import jsettlers.network.infrastructure.channel.AsyncChannel;
 import jsettlers.network.infrastructure.channel.Channel;
 import jsettlers.network.infrastructure.channel.socket.ISocketFactory;
+import jsettlers.network.infrastructure.channel.socket.nio.NioSocketFactory;
 
 public final class TestUtils {
 	private TestUtils() {
@@ -43,6 +48,29 @@ public final class TestUtils {
 		return channels;
 	}
 
+	/**
+	 * Creates two channels connected by a TCP connection over the loopback interface, using sockets of the given factory.
+	 */
+	public static Channel[] setUpNioLoopbackChannels(NioSocketFactory socketFactory) throws IOException {
+		ServerSocketChannel serverChannel = ServerSocketChannel.open();
+		try {
+			serverChannel.socket().bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+			SocketChannel clientChannel = SocketChannel.open(serverChannel.socket().getLocalSocketAddress());
+
+			final Channel[] channels = new Channel[2];
+			channels[0] = new Channel(socketFactory.generateSocket(clientChannel));
+			channels[1] = new Channel(socketFactory.generateSocket(serverChannel.accept()));
+
+			channels[0].start();
+			channels[1].start();
+			channels[0].initPinging();
+
+			return channels;
+		} finally {
+			serverChannel.close();
+		}
+	}
+
 	private static Socket[] setUpLoppbackSockets() throws IOException {
 		Socket[] sockets = new Socket[2];
 
@@ -6,8 +6,10 @@ import java.io.IOException;
 import java.util.LinkedList;
 
 import jsettlers.network.client.INetworkClientClock;
+import jsettlers.network.client.statehash.IStateHashListener;
 import jsettlers.network.client.task.packets.SyncTasksPacket;
 import jsettlers.network.client.task.packets.TaskPacket;
+import jsettlers.network.synchronic.timer.IGameStateHasher;
 import jsettlers.network.synchronic.timer.INetworkTimerable;
 import jsettlers.network.synchronic.timer.ITaskExecutor;
 
@@ -20,9 +22,11 @@ import jsettlers.network.synchronic.timer.ITaskExecutor;
 public class NetworkClientClockMock implements INetworkClientClock {
 
 	private LinkedList<Integer> adjustmentEvents = new LinkedList<Integer>();
+	private LinkedList<Integer> catchUpEvents = new LinkedList<Integer>();
 	private LinkedList<TaskPacket> bufferedTasks = new LinkedList<TaskPacket>();
 	private int time;
 	private int maxAllowedLockstep;
+	private int firstDesyncLockstep = -1;
 
 	public NetworkClientClockMock() {
 		this(0);
@@ -54,11 +58,43 @@ public class NetworkClientClockMock implements INetworkClientClock {
 		return temp;
 	}
 
+	@Override
+	public void catchUpFor(int timeDelta) {
+		catchUpEvents.add(timeDelta);
+	}
+
+	public LinkedList<Integer> popCatchUpEvents() {
+		LinkedList<Integer> temp = catchUpEvents;
+		catchUpEvents = new LinkedList<Integer>();
+		return temp;
+	}
+
 	@Override
 	public void setTaskExecutor(ITaskExecutor taskExecutor) {
 		throw new UnsupportedOperationException("not mocked");
 	}
 
+	@Override
+	public void setStateHasher(IGameStateHasher stateHasher) {
+		throw new UnsupportedOperationException("not mocked");
+	}
+
+	@Override
+	public void setStateHashListener(IStateHashListener stateHashListener) {
+	}
+
+	@Override
+	public void stateHashMismatch(int lockstep) {
+		if (firstDesyncLockstep < 0) {
+			firstDesyncLockstep = lockstep;
+		}
+	}
+
+	@Override
+	public int getFirstDesyncLockstep() {
+		return firstDesyncLockstep;
+	}
+
 	@Override
 	public void multiplyGameSpeed(float factor) {
 		throw new UnsupportedOperationException("not mocked");
@@ -321,22 +321,28 @@ public class NetworkClientIT {
 		Thread.sleep(NetworkConstants.Client.TIME_SYNC_SEND_INTERVALL + 20); // wait for 1 synchronizations
 		assertEquals(0, clock1.popAdjustmentEvents().size()); // no adjustments should have happened, because the clocks are almost sync
 		assertEquals(0, clock2.popAdjustmentEvents().size());
+		assertEquals(0, clock1.popCatchUpEvents().size());
+		assertEquals(0, clock2.popCatchUpEvents().size());
 
 		clock1.setTime(2056); // put clock1 forward
 
+		// clock1 pauses until clock2 can catch up the difference, clock2 catches up (the mock doesn't change the time when catching up)
 		Thread.sleep(3 * NetworkConstants.Client.TIME_SYNC_SEND_INTERVALL + 20); // wait for 3 synchronizations
 		int diff = Math.abs(clock1.getTime() - clock2.getTime());
-		assertTrue("diff is to high: " + diff, diff < NetworkConstants.Client.TIME_SYNC_TOLERATED_DIFFERENCE);
+		assertTrue("diff is to high: " + diff, diff < NetworkConstants.Client.TIME_SYNC_MAX_CATCH_UP_DIFFERENCE);
 		assertTrue(clock1.popAdjustmentEvents().size() > 0);
 		assertEquals(0, clock2.popAdjustmentEvents().size());
+		assertEquals(0, clock1.popCatchUpEvents().size());
+		assertTrue(clock2.popCatchUpEvents().size() > 0);
 
 		clock2.setTime(423423); // put clock2 forward
 
 		Thread.sleep(6 * NetworkConstants.Client.TIME_SYNC_SEND_INTERVALL + 20); // wait for 6 synchronizations
 		diff = Math.abs(clock2.getTime() - clock1.getTime());
-		assertTrue("diff is to high: " + diff, diff < NetworkConstants.Client.TIME_SYNC_TOLERATED_DIFFERENCE);
+		assertTrue("diff is to high: " + diff, diff < NetworkConstants.Client.TIME_SYNC_MAX_CATCH_UP_DIFFERENCE);
 		assertTrue(clock2.popAdjustmentEvents().size() > 0);
 		assertEquals(0, clock1.popAdjustmentEvents().size());
+		assertTrue(clock1.popCatchUpEvents().size() > 0);
 	}
 
 	@Test
@@ -0,0 +1,115 @@
+package jsettlers.network.client.task.packets;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import jsettlers.network.client.task.TestTaskPacket;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests the encodings of the {@link TaskCodec}.
+ */
+public class TaskCodecTest {
+	private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+	private final DataOutputStream dos = new DataOutputStream(bytes);
+
+	@After
+	public void tearDown() {
+		TaskCodec.setVersion(TaskCodec.CLASS_NAME_VERSION);
+	}
+
+	@Test
+	public void testVarInts() throws IOException {
+		int[] values = { 0, 1, 127, 128, 16383, 16384, Integer.MAX_VALUE, -1, Integer.MIN_VALUE };
+		for (int value : values) {
+			TaskCodec.writeVarInt(dos, value);
+		}
+
+		DataInputStream dis = createInputStream();
+		for (int value : values) {
+			assertEquals(value, TaskCodec.readVarInt(dis));
+		}
+		assertEquals(0, dis.available());
+		assertEquals(1 + 1 + 1 + 2 + 2 + 3 + 5 + 5 + 5, bytes.size());
+	}
+
+	@Test
+	public void testIdsAndCoordinates() throws IOException {
+		List<Integer> ids = Arrays.asList(1000, 1001, 1003, 998, 0, Integer.MAX_VALUE, Integer.MIN_VALUE, 5);
+		short[] coordinates = { 0, 127, 128, 1023, Short.MAX_VALUE, -1, Short.MIN_VALUE };
+
+		for (int version = TaskCodec.CLASS_NAME_VERSION; version <= TaskCodec.SUPPORTED_VERSION; version++) {
+			TaskCodec.setVersion(version);
+			bytes.reset();
+
+			TaskCodec.writeIds(dos, ids);
+			for (short coordinate : coordinates) {
+				TaskCodec.writeCoordinate(dos, coordinate);
+			}
+
+			DataInputStream dis = createInputStream();
+			assertEquals(ids, TaskCodec.readIds(dis));
+			for (short coordinate : coordinates) {
+				assertEquals(coordinate, TaskCodec.readCoordinate(dis));
+			}
+			assertEquals(0, dis.available());
+		}
+	}
+
+	@Test
+	public void testCompactSelectionSize() throws IOException {
+		List<Integer> selection = Arrays.asList(4711, 4712, 4713, 4715, 4714, 4720);
+
+		TaskCodec.setVersion(TaskCodec.COMPACT_VERSION);
+		TaskCodec.writeIds(dos, selection);
+		assertEquals(1 + 2 + 5, bytes.size()); // size, first id, a byte for every close id
+	}
+
+	@Test
+	public void testUnregisteredTaskType() throws IOException {
+		TestTaskPacket task = new TestTaskPacket("test", 42, (byte) -3);
+
+		for (int version = TaskCodec.CLASS_NAME_VERSION; version <= TaskCodec.SUPPORTED_VERSION; version++) {
+			TaskCodec.setVersion(version);
+			bytes.reset();
+
+			task.serialize(dos);
+			assertEquals(task, TaskPacket.DEFAULT_DESERIALIZER.deserialize(null, createInputStream()));
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testIdUsedTwice() {
+		TaskCodec.registerTaskType(1000, RegisteredTestTaskPacket.class, new ITaskPacketFactory<RegisteredTestTaskPacket>() {
+			@Override
+			public RegisteredTestTaskPacket createTask() {
+				return new RegisteredTestTaskPacket();
+			}
+		});
+		TaskCodec.registerTaskType(1000, OtherTestTaskPacket.class, new ITaskPacketFactory<OtherTestTaskPacket>() {
+			@Override
+			public OtherTestTaskPacket createTask() {
+				return new OtherTestTaskPacket();
+			}
+		});
+	}
+
+	private DataInputStream createInputStream() {
+		return new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+	}
+
+	private static class RegisteredTestTaskPacket extends TestTaskPacket {
+	}
+
+	private static class OtherTestTaskPacket extends TestTaskPacket {
+	}
+}
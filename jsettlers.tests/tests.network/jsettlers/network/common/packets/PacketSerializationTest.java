@@ -12,6 +12,7 @@ import jsettlers.network.TestUtils;
 import jsettlers.network.NetworkConstants.ENetworkMessage;
 import jsettlers.network.client.task.TestTaskPacket;
 import jsettlers.network.client.task.packets.SyncTasksPacket;
+import jsettlers.network.client.task.packets.TaskCodec;
 import jsettlers.network.client.task.packets.TaskPacket;
 import jsettlers.network.common.packets.ArrayOfMatchInfosPacket;
 import jsettlers.network.common.packets.BooleanMessagePacket;
@@ -75,6 +76,7 @@ public class PacketSerializationTest {
 		Object[][] data = new Object[][] {
 				{ new EmptyPacket(), EmptyPacket.DEFAULT_DESERIALIZER },
 				{ new PlayerInfoPacket("IDBLA82348-#�l�34r", "NameBKUIH893428())/\"�/", true), d(PlayerInfoPacket.class) },
+				{ new PlayerInfoPacket("IDBLA82348-#�l�34r", "NameBKUIH893428())/\"�/", false, TaskCodec.CLASS_NAME_VERSION), d(PlayerInfoPacket.class) },
 				{ new MapInfoPacket("id<30u9Hjdi w3", "Nameo8/(�\"(/!=�", "authorId8unsdkjfn8932", "authorName uHh89023u9h", 6),
 						d(MapInfoPacket.class) },
 				{ createMatchInfoPacket(), d(MatchInfoPacket.class) },
@@ -85,6 +87,7 @@ public class PacketSerializationTest {
 						d(OpenNewMatchPacket.class) },
 				{ new RejectPacket(NetworkConstants.ENetworkMessage.UNAUTHORIZED, NetworkConstants.ENetworkKey.IDENTIFY_USER), d(RejectPacket.class) },
 				{ new MatchStartPacket(createMatchInfoPacket(), 23424L), d(MatchStartPacket.class) },
+				{ new MatchStartPacket(createMatchInfoPacket(), 23424L, TaskCodec.COMPACT_VERSION), d(MatchStartPacket.class) },
 				{ new MatchInfoUpdatePacket(ENetworkMessage.NO_LISTENER_FOUND, new PlayerInfoPacket("IDBLA82348-#�l�34r",
 						"NameBKUIH893428())/\"�/", true), createMatchInfoPacket()), d(MatchInfoUpdatePacket.class) },
 				{ new TimeSyncPacket(23424), d(TimeSyncPacket.class) },
@@ -36,11 +36,15 @@ public class ChannelTest {
 
 	@Before
 	public void setUp() throws IOException {
-		Channel[] channels = TestUtils.setUpLoopbackChannels();
+		Channel[] channels = createChannels();
 		c1 = channels[0];
 		c2 = channels[1];
 	}
 
+	protected Channel[] createChannels() throws IOException {
+		return TestUtils.setUpLoopbackChannels();
+	}
+
 	@After
 	public void tearDown() {
 		c1.close();
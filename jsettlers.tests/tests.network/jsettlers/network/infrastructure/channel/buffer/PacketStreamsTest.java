@@ -0,0 +1,91 @@
+package jsettlers.network.infrastructure.channel.buffer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import jsettlers.network.client.task.TestTaskPacket;
+
+import org.junit.Test;
+
+/**
+ * Tests the {@link PacketOutputStream} and the {@link PacketInputStream}.
+ */
+public class PacketStreamsTest {
+
+	@Test
+	public void testReservedIntAndReset() throws IOException {
+		PacketOutputStream out = new PacketOutputStream(4);
+
+		for (int run = 0; run < 3; run++) {
+			out.reset();
+			out.writeByte(7);
+			int position = out.reserveInt();
+			for (int i = 0; i < 100; i++) {
+				out.writeShort(i);
+			}
+			out.setIntAt(position, -123456789 + run);
+
+			assertEquals(205, out.getLength());
+			ByteBuffer written = toByteBuffer(out);
+			assertEquals(7, written.get());
+			assertEquals(-123456789 + run, written.getInt());
+			for (int i = 0; i < 100; i++) {
+				assertEquals(i, written.getShort());
+			}
+		}
+
+		long allocatedBytes = out.getAllocatedBytes();
+		out.reset();
+		out.write(new byte[200]);
+		assertEquals(allocatedBytes, out.getAllocatedBytes());
+	}
+
+	@Test
+	public void testTaskPacketEqualsFallbackSerialization() throws IOException {
+		TestTaskPacket packet = new TestTaskPacket("dfjslkjfsl", 2342, (byte) -23);
+
+		ByteArrayOutputStream fallbackBytes = new ByteArrayOutputStream();
+		packet.serialize(new DataOutputStream(fallbackBytes));
+
+		PacketOutputStream out = new PacketOutputStream(16);
+		packet.serialize(out);
+
+		assertArrayEquals(fallbackBytes.toByteArray(), toByteBuffer(out).array());
+	}
+
+	@Test
+	public void testInputStreamReadsSlices() throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocateDirect(20);
+		for (int i = 0; i < 5; i++) {
+			buffer.putInt(i);
+		}
+		PacketInputStream in = new PacketInputStream();
+
+		buffer.position(4);
+		buffer.limit(12);
+		in.setData(buffer);
+		assertEquals(8, in.available());
+		assertEquals(1, in.readInt());
+		assertEquals(2, in.readInt());
+		assertEquals(0, in.available());
+		assertEquals(-1, in.read());
+
+		buffer.limit(20);
+		buffer.position(12);
+		in.setData(buffer);
+		assertEquals(4, in.skip(4));
+		assertEquals(4, in.readInt());
+		assertEquals(20, buffer.position());
+	}
+
+	private static ByteBuffer toByteBuffer(PacketOutputStream out) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		out.writeTo(bytes);
+		return ByteBuffer.wrap(bytes.toByteArray());
+	}
+}
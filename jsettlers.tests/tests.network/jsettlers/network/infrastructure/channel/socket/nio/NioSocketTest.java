@@ -0,0 +1,244 @@
+package jsettlers.network.infrastructure.channel.socket.nio;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import jsettlers.network.NetworkConstants.ENetworkKey;
+import jsettlers.network.TestUtils;
+import jsettlers.network.infrastructure.channel.Channel;
+import jsettlers.network.infrastructure.channel.ChannelTest;
+import jsettlers.network.infrastructure.channel.IDeserializingable;
+import jsettlers.network.infrastructure.channel.TestPacket;
+import jsettlers.network.infrastructure.channel.TestPacketListener;
+import jsettlers.network.infrastructure.channel.listeners.BufferingPacketListener;
+import jsettlers.network.infrastructure.channel.packet.Packet;
+import jsettlers.network.infrastructure.channel.socket.IFrameReceiver;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Runs the tests of {@link ChannelTest} with {@link NioSocket}s and tests the handling of frames larger than the buffers and of many sockets per
+ * event loop.
+ */
+public class NioSocketTest extends ChannelTest {
+	private static NioSocketFactory socketFactory;
+
+	private static class BytesPacket extends Packet {
+		private byte[] data;
+
+		BytesPacket() {
+		}
+
+		BytesPacket(byte[] data) {
+			this.data = data;
+		}
+
+		@Override
+		public void serialize(DataOutputStream dos) throws IOException {
+			dos.writeInt(data.length);
+			dos.write(data);
+		}
+
+		@Override
+		public void deserialize(DataInputStream dis) throws IOException {
+			data = new byte[dis.readInt()];
+			dis.readFully(data);
+		}
+
+		@Override
+		public int hashCode() {
+			return Arrays.hashCode(data);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof BytesPacket && Arrays.equals(data, ((BytesPacket) obj).data);
+		}
+	}
+
+	private static final IDeserializingable<BytesPacket> BYTES_DESERIALIZER = new IDeserializingable<BytesPacket>() {
+		@Override
+		public BytesPacket deserialize(ENetworkKey key, DataInputStream dis) throws IOException {
+			BytesPacket packet = new BytesPacket();
+			packet.deserialize(dis);
+			return packet;
+		}
+	};
+
+	@BeforeClass
+	public static void setUpFactory() throws IOException {
+		socketFactory = new NioSocketFactory(2);
+	}
+
+	@AfterClass
+	public static void shutdownFactory() {
+		socketFactory.shutdown();
+	}
+
+	@Override
+	protected Channel[] createChannels() throws IOException {
+		return TestUtils.setUpNioLoopbackChannels(socketFactory);
+	}
+
+	@Test
+	public void testFramesLargerThanBuffers() throws Exception {
+		Channel[] channels = createChannels();
+		BufferingPacketListener<BytesPacket> listener = new BufferingPacketListener<BytesPacket>(ENetworkKey.TEST_PACKET, BYTES_DESERIALIZER);
+		channels[1].registerListener(listener);
+
+		Random random = new Random(1);
+		List<byte[]> sent = new ArrayList<byte[]>();
+		for (int i = 0; i < 20; i++) {
+			byte[] data = new byte[random.nextInt(5 * socketFactory.getBufferPool().getBufferSize())];
+			random.nextBytes(data);
+			sent.add(data);
+			channels[0].sendPacket(ENetworkKey.TEST_PACKET, new BytesPacket(data));
+		}
+
+		List<BytesPacket> received = new ArrayList<BytesPacket>();
+		for (int i = 0; i < 100 && received.size() < sent.size(); i++) {
+			Thread.sleep(10);
+			received.addAll(listener.popBufferedPackets());
+		}
+
+		assertEquals(sent.size(), received.size());
+		for (int i = 0; i < sent.size(); i++) {
+			assertArrayEquals(sent.get(i), received.get(i).data);
+		}
+
+		channels[0].close();
+		channels[1].close();
+	}
+
+	@Test
+	public void testManyChannelsOnFewThreads() throws Exception {
+		final int NUMBER_OF_CONNECTIONS = 50;
+		int threadsBefore = Thread.activeCount();
+
+		List<Channel[]> connections = new ArrayList<Channel[]>();
+		List<TestPacketListener> listeners = new ArrayList<TestPacketListener>();
+		for (int i = 0; i < NUMBER_OF_CONNECTIONS; i++) {
+			Channel[] channels = createChannels();
+			TestPacketListener listener = new TestPacketListener(ENetworkKey.TEST_PACKET);
+			channels[1].registerListener(listener);
+			connections.add(channels);
+			listeners.add(listener);
+		}
+		assertTrue(Thread.activeCount() - threadsBefore < 5);
+
+		for (int i = 0; i < NUMBER_OF_CONNECTIONS; i++) {
+			connections.get(i)[0].sendPacket(ENetworkKey.TEST_PACKET, new TestPacket(i));
+		}
+		Thread.sleep(100);
+
+		for (int i = 0; i < NUMBER_OF_CONNECTIONS; i++) {
+			assertEquals(1, listeners.get(i).packets.size());
+			assertEquals(i, listeners.get(i).packets.get(0).getTestInt());
+		}
+
+		for (Channel[] channels : connections) {
+			channels[0].close();
+			channels[1].close();
+		}
+		Thread.sleep(50);
+		for (Channel[] channels : connections) {
+			assertTrue(channels[0].isClosed());
+			assertTrue(channels[1].isClosed());
+		}
+	}
+
+	@Test
+	public void testBuffersAreReused() throws Exception {
+		Channel[] channels = createChannels();
+		TestPacketListener listener = new TestPacketListener(ENetworkKey.TEST_PACKET);
+		channels[1].registerListener(listener);
+
+		for (int i = 0; i < 100; i++) {
+			channels[0].sendPacket(ENetworkKey.TEST_PACKET, new TestPacket(i));
+		}
+		Thread.sleep(50);
+		long allocatedBuffers = socketFactory.getBufferPool().getAllocatedBuffers();
+
+		for (int i = 0; i < 1000; i++) {
+			channels[0].sendPacket(ENetworkKey.TEST_PACKET, new TestPacket(i));
+		}
+		Thread.sleep(100);
+
+		assertEquals(1100, listener.packets.size());
+		assertTrue(socketFactory.getBufferPool().getAllocatedBuffers() - allocatedBuffers < 10);
+
+		channels[0].close();
+		channels[1].close();
+	}
+
+	@Test
+	public void testSocketIsClosedIfPartnerDoesntRead() throws Exception {
+		ServerSocketChannel serverChannel = ServerSocketChannel.open();
+		serverChannel.socket().bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+		SocketChannel clientChannel = SocketChannel.open(serverChannel.socket().getLocalSocketAddress());
+		SocketChannel notReadingChannel = serverChannel.accept();
+		serverChannel.close();
+
+		NioSocket socket = socketFactory.generateSocket(clientChannel);
+		ClosingReceiver receiver = new ClosingReceiver();
+		socket.startReceiving(receiver);
+
+		OutputStream out = socket.getOutputStream();
+		byte[] data = new byte[socketFactory.getBufferPool().getBufferSize()];
+		try {
+			for (int i = 0; i < 100000; i++) { // far more than the socket buffers of the system and the pending buffers
+				out.write(data);
+				out.flush();
+			}
+			fail("The data has been buffered although the partner doesn't read it.");
+		} catch (IOException e) {
+		}
+
+		for (int i = 0; i < 100 && !receiver.closed; i++) {
+			Thread.sleep(10);
+		}
+		assertTrue(receiver.closed);
+		assertNotNull(receiver.failure);
+		assertTrue(socket.isClosed());
+
+		notReadingChannel.close();
+	}
+
+	private static class ClosingReceiver implements IFrameReceiver {
+		private volatile Throwable failure;
+		private volatile boolean closed;
+
+		@Override
+		public void receiveFrame(ENetworkKey key, ByteBuffer data) {
+		}
+
+		@Override
+		public void socketFailed(Throwable cause) {
+			failure = cause;
+		}
+
+		@Override
+		public void socketClosed() {
+			closed = true;
+		}
+	}
+}
@@ -0,0 +1,55 @@
+package jsettlers.network.infrastructure.utils;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Tests the {@link TimeHistogram}.
+ */
+public class TimeHistogramTest {
+	private final TimeHistogram histogram = new TimeHistogram();
+
+	@Test
+	public void testBuckets() {
+		histogram.record(0);
+		histogram.record(1);
+		histogram.record(2);
+		histogram.record(3);
+		histogram.record(4);
+		histogram.record(1000);
+
+		assertEquals(1, histogram.getCount(0));
+		assertEquals(1, histogram.getCount(1));
+		assertEquals(2, histogram.getCount(2));
+		assertEquals(1, histogram.getCount(3));
+		assertEquals(1, histogram.getCount(10));
+		assertEquals(6, histogram.getTotalCount());
+		assertEquals(1010, histogram.getTotalTime());
+		assertEquals(1000, histogram.getMaximum());
+	}
+
+	@Test
+	public void testUpperBounds() {
+		for (int bucket = 0; bucket < TimeHistogram.BUCKETS - 1; bucket++) {
+			histogram.record(TimeHistogram.getUpperBound(bucket) - 1);
+			assertEquals(1, histogram.getCount(bucket));
+		}
+		assertEquals(Integer.MAX_VALUE, TimeHistogram.getUpperBound(TimeHistogram.BUCKETS - 1));
+	}
+
+	@Test
+	public void testLongDurationsAreCountedByLastBucket() {
+		histogram.record(TimeHistogram.getUpperBound(TimeHistogram.BUCKETS - 2));
+		histogram.record(Integer.MAX_VALUE);
+
+		assertEquals(2, histogram.getCount(TimeHistogram.BUCKETS - 1));
+	}
+
+	@Test
+	public void testNegativeDurationsAreIgnored() {
+		histogram.record(-5);
+
+		assertEquals(0, histogram.getTotalCount());
+	}
+}
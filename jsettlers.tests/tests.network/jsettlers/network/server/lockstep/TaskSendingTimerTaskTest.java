@@ -0,0 +1,78 @@
+package jsettlers.network.server.lockstep;
+
+import static org.junit.Assert.assertEquals;
+
+import jsettlers.network.NetworkConstants;
+import jsettlers.network.infrastructure.channel.ping.RoundTripTime;
+import jsettlers.network.infrastructure.log.ConsoleLogger;
+import jsettlers.network.infrastructure.utils.TimeHistogram;
+import jsettlers.network.server.match.lockstep.TaskCollectingListener;
+import jsettlers.network.server.match.lockstep.TaskSendingTimerTask;
+
+import org.junit.Test;
+
+/**
+ * Tests the lead steps and lag tracking of the {@link TaskSendingTimerTask}.
+ */
+public class TaskSendingTimerTaskTest {
+	private static final String FAST_CLIENT = "fast";
+	private static final String SLOW_CLIENT = "slow";
+
+	private final TaskSendingTimerTask task = new TaskSendingTimerTask(new ConsoleLogger("test"), new TaskCollectingListener(), null);
+
+	@Test
+	public void testDefaultLeadSteps() {
+		assertEquals(NetworkConstants.Client.LOCKSTEP_DEFAULT_LEAD_STEPS, task.getAllowedLockstep());
+
+		task.receivedLockstepAcknowledge(FAST_CLIENT, 5);
+		assertEquals(5 + NetworkConstants.Client.LOCKSTEP_DEFAULT_LEAD_STEPS, task.getAllowedLockstep());
+	}
+
+	@Test
+	public void testLeadStepsArePerClient() {
+		for (int i = 0; i < 20; i++) {
+			task.getPingListener(FAST_CLIENT).pingUpdated(new RoundTripTime(0, 10, 0, 0));
+		}
+		task.getPingListener(SLOW_CLIENT).pingUpdated(new RoundTripTime(0, 1000, 0, 50));
+
+		assertEquals(2, task.getLeadSteps(FAST_CLIENT));
+		assertEquals(8, task.getLeadSteps(SLOW_CLIENT));
+
+		// the acknowledgements of the slow client arrive later, so the slow client needs its lead steps relative to an older lockstep
+		task.receivedLockstepAcknowledge(FAST_CLIENT, 20);
+		task.receivedLockstepAcknowledge(SLOW_CLIENT, 14);
+		assertEquals(22, task.getAllowedLockstep());
+	}
+
+	@Test
+	public void testLaggingClientDoesNotHoldBackOthers() {
+		task.receivedLockstepAcknowledge(SLOW_CLIENT, 0);
+		task.receivedLockstepAcknowledge(FAST_CLIENT, 50);
+
+		assertEquals(50 + NetworkConstants.Client.LOCKSTEP_DEFAULT_LEAD_STEPS, task.getAllowedLockstep());
+	}
+
+	@Test
+	public void testLagHistogram() {
+		task.receivedLockstepAcknowledge(FAST_CLIENT, 20);
+		task.receivedLockstepAcknowledge(SLOW_CLIENT, 14);
+		task.receivedLockstepAcknowledge(SLOW_CLIENT, 12); // acknowledgements of older locksteps are ignored
+
+		TimeHistogram slowLag = task.getLagHistogram(SLOW_CLIENT);
+		assertEquals(2, slowLag.getTotalCount());
+		assertEquals(6 * NetworkConstants.Client.LOCKSTEP_PERIOD, slowLag.getMaximum());
+
+		TimeHistogram fastLag = task.getLagHistogram(FAST_CLIENT);
+		assertEquals(1, fastLag.getTotalCount());
+		assertEquals(1, fastLag.getCount(0));
+	}
+
+	@Test
+	public void testRemovedClientIsIgnored() {
+		task.receivedLockstepAcknowledge(SLOW_CLIENT, 30);
+		task.removeClient(SLOW_CLIENT);
+		task.receivedLockstepAcknowledge(FAST_CLIENT, 20); // the lag to the left client is not recorded
+
+		assertEquals(1, task.getLagHistogram(FAST_CLIENT).getCount(0));
+	}
+}
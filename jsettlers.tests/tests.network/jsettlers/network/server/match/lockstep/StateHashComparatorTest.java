@@ -0,0 +1,40 @@
+package jsettlers.network.server.match.lockstep;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import jsettlers.network.NetworkConstants;
+
+import org.junit.Test;
+
+public class StateHashComparatorTest {
+	private final StateHashComparator comparator = new StateHashComparator();
+
+	@Test
+	public void testEqualHashes() {
+		assertFalse(comparator.compare(10, 42L));
+		assertFalse(comparator.compare(10, 42L));
+		assertFalse(comparator.compare(20, 17L));
+		assertFalse(comparator.compare(10, 42L));
+		assertFalse(comparator.compare(20, 17L));
+	}
+
+	@Test
+	public void testOnlyFirstMismatchIsReported() {
+		assertFalse(comparator.compare(10, 42L));
+		assertTrue(comparator.compare(10, 43L));
+
+		assertFalse(comparator.compare(20, 17L));
+		assertFalse(comparator.compare(20, 18L));
+	}
+
+	@Test
+	public void testOldCheckpointsAreForgotten() {
+		assertFalse(comparator.compare(0, 42L));
+		int newLockstep = (StateHashComparator.KEPT_CHECKPOINTS + 1) * NetworkConstants.Client.STATE_HASH_PERIOD;
+		assertFalse(comparator.compare(newLockstep, 17L));
+
+		assertFalse(comparator.compare(0, 43L)); // taken as the first hash of this checkpoint
+		assertTrue(comparator.compare(newLockstep, 18L));
+	}
+}
@@ -0,0 +1,165 @@
+package jsettlers.network.synchronic.timer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.Collections;
+
+import jsettlers.network.NetworkConstants;
+import jsettlers.network.client.task.packets.SyncTasksPacket;
+import jsettlers.network.client.task.packets.TaskPacket;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests the clock thread, the catch up mode, the stall recording and the state hash checkpoints of the {@link NetworkTimer}.
+ */
+public class NetworkTimerTest {
+	private static final long TIMEOUT_MS = 10000;
+
+	private NetworkTimer timer;
+
+	@After
+	public void tearDown() {
+		timer.stopExecution();
+	}
+
+	@Test
+	public void testCatchUp() {
+		timer = new NetworkTimer(true);
+		timer.tick();
+		assertEquals(NetworkTimer.TIME_SLICE, timer.getTime());
+
+		timer.catchUpFor(2 * NetworkTimer.TIME_SLICE);
+		for (int i = 0; i < 4; i++) {
+			timer.tick();
+		}
+		assertEquals(7 * NetworkTimer.TIME_SLICE, timer.getTime()); // 4 runs and the 2 caught up time slices
+
+		timer.tick();
+		timer.tick();
+		assertEquals(9 * NetworkTimer.TIME_SLICE, timer.getTime());
+	}
+
+	@Test
+	public void testPauseStopsCatchUp() {
+		timer = new NetworkTimer(true);
+		timer.catchUpFor(10 * NetworkTimer.TIME_SLICE);
+		timer.pauseClockFor(NetworkTimer.TIME_SLICE);
+
+		timer.tick();
+		assertEquals(0, timer.getTime());
+		for (int i = 0; i < 4; i++) {
+			timer.tick();
+		}
+		assertEquals(4 * NetworkTimer.TIME_SLICE, timer.getTime());
+	}
+
+	@Test
+	public void testLockstepStallIsRecorded() throws InterruptedException {
+		timer = new NetworkTimer();
+		Thread ticker = new Thread() {
+			@Override
+			public void run() {
+				timer.tick(); // lockstep 0 hasn't been allowed yet
+			}
+		};
+		ticker.start();
+
+		long end = System.currentTimeMillis() + TIMEOUT_MS;
+		while (ticker.getState() != Thread.State.WAITING) {
+			assertTrue("tick didn't wait for the lockstep", System.currentTimeMillis() < end);
+			Thread.sleep(1);
+		}
+		assertEquals(0, timer.getLockstepStallHistogram().getTotalCount());
+
+		Thread.sleep(20);
+		timer.scheduleSyncTasksPacket(new SyncTasksPacket(0, Collections.<TaskPacket> emptyList()));
+		ticker.join(TIMEOUT_MS);
+
+		assertEquals(NetworkTimer.TIME_SLICE, timer.getTime());
+		assertEquals(1, timer.getLockstepStallHistogram().getTotalCount());
+		assertTrue(timer.getLockstepStallHistogram().getMaximum() >= 20);
+	}
+
+	@Test
+	public void testClockThreadKeepsTime() throws InterruptedException {
+		timer = new NetworkTimer(true);
+		long start = System.nanoTime();
+		timer.startExecution();
+
+		long end = System.currentTimeMillis() + TIMEOUT_MS;
+		while (timer.getTime() < 20 * NetworkTimer.TIME_SLICE) {
+			assertTrue("clock didn't advance", System.currentTimeMillis() < end);
+			Thread.sleep(NetworkTimer.TIME_SLICE);
+		}
+
+		// the first tick is executed right away, every further one waits for its deadline
+		int time = timer.getTime();
+		long elapsedMillis = (System.nanoTime() - start) / 1000000;
+		assertTrue("time: " + time + " elapsed: " + elapsedMillis, time - NetworkTimer.TIME_SLICE <= elapsedMillis);
+		assertTrue(timer.getTickStatistics().getTickCount() >= 20);
+	}
+
+	@Test
+	public void testStoppedClockDoesNotTick() throws InterruptedException {
+		timer = new NetworkTimer(true);
+		timer.startExecution();
+		Thread.sleep(2 * NetworkTimer.TIME_SLICE);
+		timer.stopExecution();
+		Thread.sleep(NetworkTimer.TIME_SLICE);
+
+		long ticks = timer.getTickStatistics().getTickCount();
+		Thread.sleep(3 * NetworkTimer.TIME_SLICE);
+		assertEquals(ticks, timer.getTickStatistics().getTickCount());
+	}
+
+	@Test
+	public void testReplayedStateHashesAreCompared() {
+		ByteArrayOutputStream replay = new ByteArrayOutputStream();
+		timer = new NetworkTimer(true);
+		timer.setStateHasher(new CheckpointHasher(Integer.MAX_VALUE));
+		timer.setReplayLogStream(new DataOutputStream(replay));
+		timer.fastForwardTo(5 * NetworkConstants.Client.STATE_HASH_PERIOD * NetworkConstants.Client.LOCKSTEP_PERIOD);
+		timer.stopExecution();
+		assertEquals(-1, timer.getFirstDesyncLockstep());
+
+		timer = new NetworkTimer(true);
+		timer.setStateHasher(new CheckpointHasher(2));
+		timer.loadReplayLogFromStream(new DataInputStream(new ByteArrayInputStream(replay.toByteArray())));
+		timer.fastForwardTo(NetworkConstants.Client.STATE_HASH_PERIOD * NetworkConstants.Client.LOCKSTEP_PERIOD);
+		assertEquals(-1, timer.getFirstDesyncLockstep());
+
+		timer.fastForwardTo(5 * NetworkConstants.Client.STATE_HASH_PERIOD * NetworkConstants.Client.LOCKSTEP_PERIOD);
+		assertEquals(2 * NetworkConstants.Client.STATE_HASH_PERIOD, timer.getFirstDesyncLockstep());
+	}
+
+	@Test
+	public void testFirstMismatchIsKept() {
+		timer = new NetworkTimer(true);
+		timer.stateHashMismatch(30);
+		timer.stateHashMismatch(40);
+		assertEquals(30, timer.getFirstDesyncLockstep());
+
+		timer.stateHashMismatch(20);
+		assertEquals(20, timer.getFirstDesyncLockstep());
+	}
+
+	private static class CheckpointHasher implements IGameStateHasher {
+		private final int firstDifferingCheckpoint;
+
+		CheckpointHasher(int firstDifferingCheckpoint) {
+			this.firstDifferingCheckpoint = firstDifferingCheckpoint;
+		}
+
+		@Override
+		public long calculateStateHash(int checkpoint) {
+			return checkpoint < firstDifferingCheckpoint ? checkpoint : -checkpoint - 1;
+		}
+	}
+}
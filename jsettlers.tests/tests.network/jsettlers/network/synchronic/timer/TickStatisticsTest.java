@@ -0,0 +1,49 @@
+package jsettlers.network.synchronic.timer;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Tests the {@link TickStatistics}.
+ */
+public class TickStatisticsTest {
+	private final TickStatistics statistics = new TickStatistics();
+
+	@Test
+	public void testPercentiles() {
+		assertEquals(0, statistics.getPercentileNanos(50));
+
+		for (int i = 100; i >= 1; i--) {
+			statistics.recordTick(i * 1000L);
+		}
+
+		assertEquals(100, statistics.getTickCount());
+		assertEquals(50 * 1000L, statistics.getPercentileNanos(50));
+		assertEquals(99 * 1000L, statistics.getPercentileNanos(99));
+		assertEquals(100 * 1000L, statistics.getPercentileNanos(100));
+		assertEquals(1000L, statistics.getPercentileNanos(0));
+	}
+
+	@Test
+	public void testPercentilesOfLastSamples() {
+		for (int i = 0; i < TickStatistics.SAMPLES; i++) {
+			statistics.recordTick(1000000000L);
+		}
+		for (int i = 0; i < TickStatistics.SAMPLES; i++) {
+			statistics.recordTick(1000L);
+		}
+
+		assertEquals(1000L, statistics.getPercentileNanos(99));
+	}
+
+	@Test
+	public void testOverrunsAndSkippedTicks() {
+		statistics.recordTick(NetworkTimer.TIME_SLICE * 1000000L);
+		statistics.recordTick(NetworkTimer.TIME_SLICE * 1000000L + 1);
+		statistics.recordSkippedTicks(3);
+
+		assertEquals(1, statistics.getOverrunCount());
+		assertEquals(3, statistics.getSkippedTickCount());
+	}
+}
@@ -0,0 +1,79 @@
+package jsettlers.algorithms.borders;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import jsettlers.common.position.ShortPoint2D;
+
+import org.junit.Test;
+
+public class BordersThreadTest {
+	private static final short SIZE = 40;
+
+	@Test
+	public void testWaitForQueuedPositionsLetsTheThreadCalculate() {
+		RecordingGrid grid = new RecordingGrid();
+		BordersThread bordersThread = new BordersThread(grid);
+		bordersThread.start();
+		try {
+			for (short x = 1; x < SIZE - 1; x++) {
+				bordersThread.checkPosition(new ShortPoint2D(x, SIZE / 2));
+			}
+			bordersThread.waitForQueuedPositions();
+
+			assertTrue(grid.borders.contains(new ShortPoint2D(SIZE / 2 - 1, SIZE / 2)));
+			assertTrue(grid.borders.contains(new ShortPoint2D(SIZE / 2, SIZE / 2)));
+			assertEquals(1, grid.writingThreads.size());
+			assertEquals("BordersThread", grid.writingThreads.iterator().next().getName());
+		} finally {
+			bordersThread.cancel();
+		}
+	}
+
+	@Test
+	public void testWaitForQueuedPositionsCalculatesInCallerIfThreadIsNotStarted() {
+		RecordingGrid grid = new RecordingGrid();
+		BordersThread bordersThread = new BordersThread(grid);
+		bordersThread.checkPosition(new ShortPoint2D(SIZE / 2, SIZE / 2));
+		bordersThread.waitForQueuedPositions();
+
+		assertTrue(grid.borders.contains(new ShortPoint2D(SIZE / 2, SIZE / 2)));
+		assertTrue(grid.writingThreads.contains(Thread.currentThread()));
+	}
+
+	/**
+	 * Player 0 occupies the left half of the grid, player 1 the right half.
+	 */
+	private static class RecordingGrid implements IBordersThreadGrid {
+		private final Set<ShortPoint2D> borders = new HashSet<ShortPoint2D>();
+		private final Set<Thread> writingThreads = new HashSet<Thread>();
+
+		@Override
+		public byte getPlayerIdAt(short x, short y) {
+			return (byte) (x < SIZE / 2 ? 0 : 1);
+		}
+
+		@Override
+		public synchronized void setBorderAt(short x, short y, boolean isBorder) {
+			writingThreads.add(Thread.currentThread());
+			if (isBorder) {
+				borders.add(new ShortPoint2D(x, y));
+			} else {
+				borders.remove(new ShortPoint2D(x, y));
+			}
+		}
+
+		@Override
+		public boolean isInBounds(short x, short y) {
+			return x >= 0 && y >= 0 && x < SIZE && y < SIZE;
+		}
+
+		@Override
+		public short getBlockedPartition(short x, short y) {
+			return 1;
+		}
+	}
+}
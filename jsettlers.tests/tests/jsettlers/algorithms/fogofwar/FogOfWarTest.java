@@ -0,0 +1,226 @@
+package jsettlers.algorithms.fogofwar;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import jsettlers.algorithms.fogofwar.CachedViewCircle.CachedViewCircleIterator;
+import jsettlers.common.CommonConstants;
+import jsettlers.common.mapobject.IMapObject;
+import jsettlers.common.movable.IMovable;
+import jsettlers.common.position.ShortPoint2D;
+
+import org.junit.Test;
+
+/**
+ * Tests the incremental update of the {@link FogOfWar} against a full rebuild of the sight.
+ */
+public class FogOfWarTest {
+	private static final short WIDTH = 150;
+	private static final short HEIGHT = 130;
+	private static final byte PLAYER = 1;
+
+	private final ConcurrentLinkedQueue<TestViewer> buildings = new ConcurrentLinkedQueue<TestViewer>();
+	private final ConcurrentLinkedQueue<TestViewer> movables = new ConcurrentLinkedQueue<TestViewer>();
+
+	private static class TestViewer implements IViewDistancable {
+		private ShortPoint2D pos;
+		private final byte player;
+		private short viewDistance;
+
+		TestViewer(int x, int y, byte player, int viewDistance) {
+			this.pos = new ShortPoint2D(x, y);
+			this.player = player;
+			this.viewDistance = (short) viewDistance;
+		}
+
+		@Override
+		public ShortPoint2D getPos() {
+			return pos;
+		}
+
+		@Override
+		public byte getPlayerId() {
+			return player;
+		}
+
+		@Override
+		public short getViewDistance() {
+			return viewDistance;
+		}
+	}
+
+	private final IFogOfWarGrid grid = new IFogOfWarGrid() {
+		@Override
+		public IMovable getMovableAt(short x, short y) {
+			return null;
+		}
+
+		@Override
+		public IMapObject getMapObjectsAt(short x, short y) {
+			return null;
+		}
+
+		@Override
+		public ConcurrentLinkedQueue<? extends IViewDistancable> getMovableViewDistancables() {
+			return movables;
+		}
+
+		@Override
+		public ConcurrentLinkedQueue<? extends IViewDistancable> getBuildingViewDistancables() {
+			return buildings;
+		}
+	};
+
+	/**
+	 * Straight forward implementation of the sight calculation, rebuilding the whole map on every step.
+	 */
+	private class ReferenceSight {
+		private final byte[] sight = new byte[WIDTH * HEIGHT];
+
+		void rebuild() {
+			for (int i = 0; i < sight.length; i++) {
+				if (sight[i] >= CommonConstants.FOG_OF_WAR_EXPLORED) {
+					sight[i] = (byte) Math.max(sight[i] - FogOfWar.DIM_DOWN_SPEED, CommonConstants.FOG_OF_WAR_EXPLORED);
+				}
+			}
+
+			draw(buildings);
+			draw(movables);
+		}
+
+		private void draw(ConcurrentLinkedQueue<TestViewer> viewers) {
+			for (TestViewer viewer : viewers) {
+				if ((!CommonConstants.ENABLE_ALL_PLAYER_FOG_OF_WAR && viewer.getPlayerId() != PLAYER) || viewer.getViewDistance() <= 0) {
+					continue;
+				}
+
+				int radius = Math.min(viewer.getViewDistance() + FogOfWar.PADDING, FogOfWar.MAX_VIEWDISTANCE - 1);
+				CachedViewCircleIterator iterator = new CachedViewCircle(radius).iterator(viewer.getPos().x, viewer.getPos().y);
+				while (iterator.hasNext()) {
+					int x = iterator.getCurrX();
+					int y = iterator.getCurrY();
+					if (x >= 0 && x < WIDTH && y > 0 && y < HEIGHT) {
+						int index = y * WIDTH + x;
+						sight[index] = (byte) Math.max(sight[index], iterator.getCurrSight());
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testIncrementalUpdateEqualsFullRebuild() {
+		assertIncrementalUpdateEqualsFullRebuild();
+	}
+
+	@Test
+	public void testIncrementalUpdateWithAllPlayersEqualsFullRebuild() {
+		CommonConstants.ENABLE_ALL_PLAYER_FOG_OF_WAR = true;
+		try {
+			assertIncrementalUpdateEqualsFullRebuild();
+		} finally {
+			CommonConstants.ENABLE_ALL_PLAYER_FOG_OF_WAR = false;
+		}
+	}
+
+	private void assertIncrementalUpdateEqualsFullRebuild() {
+		Random random = new Random(42);
+		for (int i = 0; i < 5; i++) {
+			buildings.add(new TestViewer(random.nextInt(WIDTH), random.nextInt(HEIGHT), PLAYER, 20 + random.nextInt(20)));
+		}
+		for (int i = 0; i < 30; i++) {
+			movables.add(new TestViewer(random.nextInt(WIDTH), random.nextInt(HEIGHT), (byte) random.nextInt(3), 5 + random.nextInt(10)));
+		}
+
+		FogOfWar fogOfWar = new FogOfWar(WIDTH, HEIGHT, PLAYER, false);
+		fogOfWar.init(grid);
+		ReferenceSight reference = new ReferenceSight();
+
+		for (int step = 0; step < 40; step++) {
+			fogOfWar.updateSight();
+			reference.rebuild();
+			assertArrayEquals("step " + step, reference.sight, fogOfWar.sight);
+
+			for (TestViewer movable : movables) {
+				if (random.nextInt(3) == 0) {
+					int x = Math.max(0, Math.min(WIDTH - 1, movable.pos.x + random.nextInt(7) - 3));
+					int y = Math.max(0, Math.min(HEIGHT - 1, movable.pos.y + random.nextInt(7) - 3));
+					movable.pos = new ShortPoint2D(x, y);
+				}
+			}
+			if (step == 10) {
+				movables.poll();
+				buildings.poll();
+			}
+			if (step == 20) {
+				buildings.add(new TestViewer(10, 10, PLAYER, 30));
+				buildings.peek().viewDistance = 5;
+			}
+		}
+	}
+
+	@Test
+	public void testParallelRebuildEqualsSequentialRebuild() {
+		Random random = new Random(7);
+		for (int i = 0; i < 200; i++) {
+			movables.add(new TestViewer(random.nextInt(WIDTH), random.nextInt(HEIGHT), PLAYER, 1 + random.nextInt(60)));
+		}
+
+		FogOfWar parallel = new FogOfWar(WIDTH, HEIGHT, PLAYER, true);
+		parallel.init(grid);
+		FogOfWar sequential = new FogOfWar(WIDTH, HEIGHT, PLAYER, true);
+		sequential.init(grid);
+		ReferenceSight reference = new ReferenceSight();
+		Arrays.fill(reference.sight, (byte) CommonConstants.FOG_OF_WAR_EXPLORED);
+
+		for (int step = 0; step < 10; step++) {
+			parallel.rebuildSight(true);
+			sequential.rebuildSight(false);
+			reference.rebuild();
+
+			assertArrayEquals(reference.sight, sequential.sight);
+			assertArrayEquals(sequential.sight, parallel.sight);
+
+			for (TestViewer movable : movables) {
+				movable.pos = new ShortPoint2D(random.nextInt(WIDTH), random.nextInt(HEIGHT));
+			}
+		}
+	}
+
+	@Test
+	public void testChangedRows() {
+		FogOfWar fogOfWar = new FogOfWar(WIDTH, HEIGHT, PLAYER, false);
+		fogOfWar.init(grid);
+
+		int[] minX = new int[HEIGHT];
+		int[] maxX = new int[HEIGHT];
+		assertTrue(fogOfWar.pollFogOfWarChanges(minX, maxX)); // everything has changed on creation
+		assertFalse(fogOfWar.pollFogOfWarChanges(minX, maxX));
+
+		fogOfWar.updateSight();
+		assertFalse(fogOfWar.pollFogOfWarChanges(minX, maxX)); // no viewers => nothing visible
+
+		buildings.add(new TestViewer(70, 60, PLAYER, 10));
+		fogOfWar.updateSight();
+
+		Arrays.fill(minX, Integer.MAX_VALUE);
+		Arrays.fill(maxX, -1);
+		assertTrue(fogOfWar.pollFogOfWarChanges(minX, maxX));
+
+		for (int y = 0; y < HEIGHT; y++) {
+			for (int x = 0; x < WIDTH; x++) {
+				if (fogOfWar.getVisibleStatus(x, y) > 0) {
+					assertTrue(minX[y] <= x && x <= maxX[y]);
+				}
+			}
+		}
+		assertEquals(-1, maxX[0]);
+		assertEquals(-1, maxX[HEIGHT - 1]);
+	}
+}
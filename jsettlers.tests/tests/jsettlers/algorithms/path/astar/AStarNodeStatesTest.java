@@ -0,0 +1,39 @@
+package jsettlers.algorithms.path.astar;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class AStarNodeStatesTest {
+
+	@Test
+	public void testStatesOfSingleSearch() {
+		AStarNodeStates states = new AStarNodeStates(10);
+		states.startNewSearch();
+		assertFalse(states.isOpen(3));
+		assertFalse(states.isClosed(3));
+
+		states.setOpen(3);
+		assertTrue(states.isOpen(3));
+		assertFalse(states.isClosed(3));
+
+		states.setClosed(3);
+		assertFalse(states.isOpen(3));
+		assertTrue(states.isClosed(3));
+	}
+
+	@Test
+	public void testNewSearchResetsStates() {
+		AStarNodeStates states = new AStarNodeStates(10);
+		states.startNewSearch();
+		states.setOpen(1);
+		states.setClosed(2);
+
+		states.startNewSearch();
+		for (int i = 0; i < 10; i++) {
+			assertFalse(states.isOpen(i));
+			assertFalse(states.isClosed(i));
+		}
+	}
+}
@@ -0,0 +1,186 @@
+package jsettlers.algorithms.path.astar;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import jsettlers.algorithms.partitions.IBlockingProvider;
+import jsettlers.algorithms.path.IPathCalculatable;
+import jsettlers.algorithms.path.Path;
+import jsettlers.algorithms.path.astar.normal.IAStarPathMap;
+import jsettlers.common.Color;
+import jsettlers.common.position.ShortPoint2D;
+
+import org.junit.Test;
+
+/**
+ * Tests the paths of the {@link HierarchicalAStar} against the ones of the {@link BucketQueueAStar}.
+ */
+public class HierarchicalAStarTest {
+	private static final short WIDTH = 250;
+	private static final short HEIGHT = 230;
+
+	private final TestMap map = new TestMap();
+	private final HierarchicalAStar hierarchicalAStar = new HierarchicalAStar(map, map, WIDTH, HEIGHT);
+	private final BucketQueueAStar bucketQueueAStar = new BucketQueueAStar(map, WIDTH, HEIGHT);
+
+	private class TestMap implements IAStarPathMap, IBlockingProvider {
+		private final boolean[] blocked = new boolean[WIDTH * HEIGHT];
+
+		void setBlocked(int x, int y, boolean newBlocked) {
+			blocked[y * WIDTH + x] = newBlocked;
+			hierarchicalAStar.blockingChanged(x, y);
+		}
+
+		@Override
+		public boolean isBlocked(int x, int y) {
+			return blocked[y * WIDTH + x];
+		}
+
+		@Override
+		public boolean isBlocked(IPathCalculatable requester, int x, int y) {
+			return isBlocked(x, y);
+		}
+
+		@Override
+		public float getCost(int sx, int sy, int tx, int ty) {
+			return 1;
+		}
+
+		@Override
+		public void markAsOpen(int x, int y) {
+		}
+
+		@Override
+		public void markAsClosed(int x, int y) {
+		}
+
+		@Override
+		public void setDebugColor(int x, int y, Color color) {
+		}
+
+		@Override
+		public short getBlockedPartition(int x, int y) {
+			return 1;
+		}
+	}
+
+	@Test
+	public void testPathsOnRandomMap() {
+		Random random = new Random(3);
+		blockRandomPositions(random);
+
+		int comparedPaths = 0;
+		while (comparedPaths < 200) {
+			short sx = (short) random.nextInt(WIDTH);
+			short sy = (short) random.nextInt(HEIGHT);
+			short tx = (short) random.nextInt(WIDTH);
+			short ty = (short) random.nextInt(HEIGHT);
+			if (map.isBlocked(sx, sy) || map.isBlocked(tx, ty) || (sx == tx && sy == ty)) {
+				continue;
+			}
+
+			assertSimilarPaths(sx, sy, tx, ty);
+			comparedPaths++;
+		}
+	}
+
+	@Test
+	public void testBlockingChanges() {
+		Random random = new Random(5);
+		blockRandomPositions(random);
+		assertSimilarPaths((short) 10, (short) 10, (short) 240, (short) 220);
+
+		// a wall with a single gap
+		for (int y = 0; y < HEIGHT; y++) {
+			map.setBlocked(100, y, y != 150);
+			map.setBlocked(101, y, y != 150);
+		}
+		map.setBlocked(99, 150, false);
+		map.setBlocked(102, 150, false);
+
+		Path path = assertSimilarPaths((short) 10, (short) 10, (short) 240, (short) 220);
+		boolean passedGap = false;
+		for (int i = 0; i <= path.getLength(); i++) {
+			passedGap |= path.getXAt(i) == 100 && path.getYAt(i) == 150;
+		}
+		assertTrue(passedGap);
+
+		map.setBlocked(100, 150, true);
+		assertNull(hierarchicalAStar.findPath(getPathable((short) 10, (short) 10), new ShortPoint2D(240, 220)));
+
+		for (int y = 0; y < HEIGHT; y++) {
+			map.setBlocked(100, y, false);
+			map.setBlocked(101, y, false);
+		}
+		assertSimilarPaths((short) 10, (short) 10, (short) 240, (short) 220);
+	}
+
+	private void blockRandomPositions(Random random) {
+		for (int i = 0; i < 400; i++) {
+			int x = random.nextInt(WIDTH);
+			int y = random.nextInt(HEIGHT);
+			int radius = random.nextInt(6);
+
+			for (int dy = -radius; dy <= radius; dy++) {
+				for (int dx = -radius; dx <= radius; dx++) {
+					if (x + dx >= 0 && x + dx < WIDTH && y + dy >= 0 && y + dy < HEIGHT) {
+						map.setBlocked(x + dx, y + dy, true);
+					}
+				}
+			}
+		}
+	}
+
+	private Path assertSimilarPaths(short sx, short sy, short tx, short ty) {
+		Path expected = bucketQueueAStar.findPath(getPathable(sx, sy), new ShortPoint2D(tx, ty));
+		Path path = hierarchicalAStar.findPath(getPathable(sx, sy), new ShortPoint2D(tx, ty));
+
+		if (expected == null) {
+			assertNull(path);
+			return null;
+		}
+
+		assertNotNull(path);
+		assertEquals(tx, path.getTargetX());
+		assertEquals(ty, path.getTargetY());
+		assertTrue(path.getLength() >= expected.getLength());
+		assertTrue(path.getLength() <= expected.getLength() * 1.3f + 10);
+
+		int lastX = sx;
+		int lastY = sy;
+		for (int i = 0; i <= path.getLength(); i++) {
+			int x = path.getXAt(i);
+			int y = path.getYAt(i);
+			assertEquals(1, ShortPoint2D.getOnGridDist(x - lastX, y - lastY));
+			assertFalse(map.isBlocked(x, y));
+			lastX = x;
+			lastY = y;
+		}
+
+		return path;
+	}
+
+	private IPathCalculatable getPathable(final short x, final short y) {
+		return new IPathCalculatable() {
+			@Override
+			public ShortPoint2D getPos() {
+				return new ShortPoint2D(x, y);
+			}
+
+			@Override
+			public byte getPlayerId() {
+				return 0;
+			}
+
+			@Override
+			public boolean needsPlayersGround() {
+				return false;
+			}
+		};
+	}
+}
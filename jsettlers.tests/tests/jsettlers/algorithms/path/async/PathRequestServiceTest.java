@@ -0,0 +1,216 @@
+package jsettlers.algorithms.path.async;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import jsettlers.algorithms.partitions.IBlockingProvider;
+import jsettlers.algorithms.path.IPathCalculatable;
+import jsettlers.algorithms.path.Path;
+import jsettlers.algorithms.path.astar.BucketQueueAStar;
+import jsettlers.algorithms.path.astar.normal.IAStarPathMap;
+import jsettlers.common.Color;
+import jsettlers.common.position.ShortPoint2D;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests the paths of the {@link PathRequestService} against the ones of a {@link BucketQueueAStar} running on the game thread.
+ */
+public class PathRequestServiceTest {
+	private static final short WIDTH = 200;
+	private static final short HEIGHT = 180;
+
+	private final TestMap map = new TestMap();
+	private final BucketQueueAStar aStar = new BucketQueueAStar(map, WIDTH, HEIGHT);
+	private final PathRequestService service = new PathRequestService(WIDTH, HEIGHT, 3);
+
+	private static class TestMap implements IAStarPathMap, IBlockingProvider {
+		private final BitSet blocked = new BitSet(WIDTH * HEIGHT);
+
+		void setBlocked(int x, int y, boolean newBlocked) {
+			blocked.set(y * WIDTH + x, newBlocked);
+		}
+
+		IBlockingProvider createSnapshot() {
+			final BitSet snapshot = (BitSet) blocked.clone();
+			return new IBlockingProvider() {
+				@Override
+				public boolean isBlocked(int x, int y) {
+					return snapshot.get(y * WIDTH + x);
+				}
+			};
+		}
+
+		@Override
+		public boolean isBlocked(int x, int y) {
+			return blocked.get(y * WIDTH + x);
+		}
+
+		@Override
+		public boolean isBlocked(IPathCalculatable requester, int x, int y) {
+			return isBlocked(x, y);
+		}
+
+		@Override
+		public float getCost(int sx, int sy, int tx, int ty) {
+			return 1;
+		}
+
+		@Override
+		public void markAsOpen(int x, int y) {
+		}
+
+		@Override
+		public void markAsClosed(int x, int y) {
+		}
+
+		@Override
+		public void setDebugColor(int x, int y, Color color) {
+		}
+
+		@Override
+		public short getBlockedPartition(int x, int y) {
+			return 1;
+		}
+	}
+
+	@After
+	public void tearDown() {
+		service.shutdown();
+	}
+
+	@Test
+	public void testPathsEqualSynchronousPaths() {
+		Random random = new Random(7);
+		blockRandomPositions(random);
+		IBlockingProvider snapshot = map.createSnapshot();
+
+		List<ShortPoint2D[]> endpoints = new ArrayList<ShortPoint2D[]>();
+		List<PathRequest> requests = new ArrayList<PathRequest>();
+		while (requests.size() < 100) {
+			ShortPoint2D start = new ShortPoint2D(random.nextInt(WIDTH), random.nextInt(HEIGHT));
+			ShortPoint2D target = new ShortPoint2D(random.nextInt(WIDTH), random.nextInt(HEIGHT));
+			if (map.isBlocked(start.x, start.y) || map.isBlocked(target.x, target.y)) {
+				continue;
+			}
+
+			endpoints.add(new ShortPoint2D[] { start, target });
+			requests.add(service.submit(start, target, snapshot, 0));
+		}
+
+		for (int i = 0; i < requests.size(); i++) {
+			ShortPoint2D[] endpoint = endpoints.get(i);
+			assertEqualPaths(aStar.findPath(getPathable(endpoint[0]), endpoint[1]), requests.get(i).getPath());
+		}
+
+		assertEquals(100, service.getSolvedRequests());
+		assertEquals(0, service.getQueueDepth());
+		assertTrue(service.getMaxQueueDepth() >= 1);
+		assertTrue(service.getMaxSolveLatencyNanos() >= service.getAverageSolveLatencyNanos());
+	}
+
+	@Test
+	public void testSnapshotIsolation() {
+		ShortPoint2D start = new ShortPoint2D(10, 50);
+		ShortPoint2D target = new ShortPoint2D(150, 50);
+
+		IBlockingProvider snapshot = map.createSnapshot();
+		for (int y = 0; y < HEIGHT; y++) { // a wall between start and target that is not part of the snapshot
+			map.setBlocked(80, y, true);
+		}
+
+		Path path = service.submit(start, target, snapshot, 0).getPath();
+		assertNotNull(path);
+		assertEquals(140, path.getLength() + 1);
+
+		assertNull(service.submit(start, target, map.createSnapshot(), 0).getPath());
+	}
+
+	@Test
+	public void testSerializationContainsResult() throws IOException, ClassNotFoundException {
+		PathRequest request = service.submit(new ShortPoint2D(10, 10), new ShortPoint2D(20, 30), map.createSnapshot(), 1234);
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream oos = new ObjectOutputStream(bytes);
+		oos.writeObject(request);
+		oos.close();
+
+		PathRequest loaded = (PathRequest) new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject();
+		assertEquals(1234, loaded.getDeliveryTime());
+		assertEqualPaths(request.getPath(), loaded.getPath());
+		assertEquals(0, service.getStalledDeliveries()); // waiting for the savegame is no stalled delivery
+	}
+
+	@Test
+	public void testSubmitAfterShutdownIsCalculatedSynchronously() {
+		ShortPoint2D start = new ShortPoint2D(10, 10);
+		ShortPoint2D target = new ShortPoint2D(20, 30);
+		service.submit(start, target, map.createSnapshot(), 0).getPath();
+		service.shutdown();
+
+		PathRequest request = service.submit(start, target, map.createSnapshot(), 0);
+		assertEqualPaths(aStar.findPath(getPathable(start), target), request.getPath());
+	}
+
+	private void blockRandomPositions(Random random) {
+		for (int i = 0; i < 300; i++) {
+			int x = random.nextInt(WIDTH);
+			int y = random.nextInt(HEIGHT);
+			int radius = random.nextInt(5);
+
+			for (int dy = -radius; dy <= radius; dy++) {
+				for (int dx = -radius; dx <= radius; dx++) {
+					if (x + dx >= 0 && x + dx < WIDTH && y + dy >= 0 && y + dy < HEIGHT) {
+						map.setBlocked(x + dx, y + dy, true);
+					}
+				}
+			}
+		}
+	}
+
+	private static void assertEqualPaths(Path expected, Path actual) {
+		if (expected == null) {
+			assertNull(actual);
+			return;
+		}
+
+		assertNotNull(actual);
+		assertEquals(expected.getLength(), actual.getLength());
+		for (int i = 0; i <= expected.getLength(); i++) {
+			assertEquals(expected.getXAt(i), actual.getXAt(i));
+			assertEquals(expected.getYAt(i), actual.getYAt(i));
+		}
+	}
+
+	private static IPathCalculatable getPathable(final ShortPoint2D pos) {
+		return new IPathCalculatable() {
+			@Override
+			public ShortPoint2D getPos() {
+				return pos;
+			}
+
+			@Override
+			public byte getPlayerId() {
+				return 0;
+			}
+
+			@Override
+			public boolean needsPlayersGround() {
+				return false;
+			}
+		};
+	}
+}
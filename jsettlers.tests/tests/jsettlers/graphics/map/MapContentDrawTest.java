@@ -0,0 +1,112 @@
+package jsettlers.graphics.map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import go.graphics.RecordingDrawContext;
+
+import java.io.File;
+
+import jsettlers.TestUtils;
+import jsettlers.common.map.MapLoadException;
+import jsettlers.common.position.ShortPoint2D;
+import jsettlers.logic.buildings.Building;
+import jsettlers.logic.constants.MatchConstants;
+import jsettlers.logic.map.newGrid.MainGrid;
+import jsettlers.logic.map.save.DirectoryMapLister;
+import jsettlers.logic.map.save.loader.MapLoader;
+import jsettlers.logic.movable.Movable;
+import jsettlers.logic.timer.RescheduleTimer;
+import jsettlers.network.synchronic.random.RandomSingleton;
+import jsettlers.network.synchronic.timer.NetworkTimer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MapContentDrawTest {
+	private static final int WINDOW_WIDTH = 1280;
+	private static final int WINDOW_HEIGHT = 800;
+
+	private MainGrid grid;
+	private HeadlessMapRenderer renderer;
+	private RecordingDrawContext gl;
+
+	@Before
+	public void setUp() throws MapLoadException {
+		TestUtils.setupResourcesManager();
+		RandomSingleton.load(1234);
+		MatchConstants.clock = new NetworkTimer(true);
+		Movable.resetState();
+
+		MapLoader loader = MapLoader.getLoaderForFile(new DirectoryMapLister.ListedMapFile(new File("../jsettlers.common/resources/maps/nicemap.map"),
+				false));
+		grid = loader.loadMainGrid(null).getMainGrid();
+		renderer = new HeadlessMapRenderer(grid, WINDOW_WIDTH, WINDOW_HEIGHT);
+		renderer.scrollTo(new ShortPoint2D(grid.getGraphicsGrid().getWidth() / 2, grid.getGraphicsGrid().getHeight() / 2));
+		gl = renderer.getDrawContext();
+	}
+
+	@After
+	public void tearDown() {
+		RescheduleTimer.stop();
+		Movable.resetState();
+		Building.dropAllBuildings();
+	}
+
+	@Test
+	public void testFrameIsDrawn() {
+		renderer.renderFrame();
+
+		assertTrue(gl.getDrawCalls() > 0);
+		assertTrue(gl.getTriangles() > 0);
+		assertTrue(gl.getGeometryBytesWritten() > 0);
+		assertEquals(0, gl.getMatrixDepth());
+	}
+
+	@Test
+	public void testUnchangedFrameWritesNoGeometry() {
+		renderer.renderFrame();
+		renderer.renderFrame();
+
+		assertTrue(gl.getDrawCalls() > 0);
+		assertEquals(0, gl.getGeometryBytesWritten());
+	}
+
+	@Test
+	public void testGeometryIsReusedWhenScrollingBack() {
+		short width = grid.getGraphicsGrid().getWidth();
+		short height = grid.getGraphicsGrid().getHeight();
+
+		renderer.renderFrame();
+		int geometries = gl.getGeometryCount();
+
+		renderer.scrollTo(new ShortPoint2D(width / 4, height / 2));
+		renderer.renderFrame();
+		assertTrue(gl.getGeometryBytesWritten() > 0);
+		int geometriesAfterScrolling = gl.getGeometryCount();
+		assertTrue(geometriesAfterScrolling > geometries);
+
+		renderer.scrollTo(new ShortPoint2D(width / 2, height / 2));
+		renderer.renderFrame();
+		assertEquals(0, gl.getGeometryBytesWritten());
+		assertEquals(geometriesAfterScrolling, gl.getGeometryCount());
+	}
+
+	@Test
+	public void testHiddenBackgroundGeometryIsLimited() {
+		short width = grid.getGraphicsGrid().getWidth();
+		short height = grid.getGraphicsGrid().getHeight();
+
+		renderer.renderFrame();
+		int geometries = gl.getGeometryCount();
+
+		for (int y = 0; y < height; y += height / 8) {
+			for (int x = 0; x < width; x += width / 8) {
+				renderer.scrollTo(new ShortPoint2D(x, y));
+				renderer.renderFrame();
+			}
+		}
+		// 32 hidden chunks with two geometries each, some more chunks may be visible at other positions
+		assertTrue("geometries: " + gl.getGeometryCount(), gl.getGeometryCount() <= geometries + 2 * (32 + 8));
+	}
+}
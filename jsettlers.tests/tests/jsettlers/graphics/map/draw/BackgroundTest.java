@@ -0,0 +1,78 @@
+package jsettlers.graphics.map.draw;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import go.graphics.RecordingDrawContext;
+
+import java.io.File;
+
+import jsettlers.TestUtils;
+import jsettlers.algorithms.fogofwar.FogOfWar;
+import jsettlers.common.map.IGraphicsGrid;
+import jsettlers.common.map.MapLoadException;
+import jsettlers.graphics.map.MapDrawContext;
+import jsettlers.logic.buildings.Building;
+import jsettlers.logic.constants.MatchConstants;
+import jsettlers.logic.map.newGrid.MainGrid;
+import jsettlers.logic.map.save.DirectoryMapLister;
+import jsettlers.logic.map.save.loader.MapLoader;
+import jsettlers.logic.movable.Movable;
+import jsettlers.logic.timer.RescheduleTimer;
+import jsettlers.network.synchronic.random.RandomSingleton;
+import jsettlers.network.synchronic.timer.NetworkTimer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BackgroundTest {
+	private static final int WINDOW_WIDTH = 1280;
+	private static final int WINDOW_HEIGHT = 800;
+
+	private MapDrawContext context;
+	private final Background background = new Background();
+
+	@Before
+	public void setUp() throws MapLoadException {
+		TestUtils.setupResourcesManager();
+		RandomSingleton.load(1234);
+		MatchConstants.clock = new NetworkTimer(true);
+		Movable.resetState();
+
+		MapLoader loader = MapLoader.getLoaderForFile(new DirectoryMapLister.ListedMapFile(new File("../jsettlers.common/resources/maps/nicemap.map"),
+				false));
+		MainGrid grid = loader.loadMainGrid(null).getMainGrid();
+		IGraphicsGrid graphicsGrid = grid.getGraphicsGrid();
+		grid.initForPlayer((byte) 0, new FogOfWar(graphicsGrid.getWidth(), graphicsGrid.getHeight(), (byte) 0, false));
+
+		context = new MapDrawContext(graphicsGrid, null);
+		context.setSize(WINDOW_WIDTH, WINDOW_HEIGHT);
+		ImageProvider.getInstance().invalidateAll();
+	}
+
+	@After
+	public void tearDown() {
+		RescheduleTimer.stop();
+		Movable.resetState();
+		Building.dropAllBuildings();
+	}
+
+	@Test
+	public void testDrawnAfterTheTexturesAreInvalidated() {
+		draw(new RecordingDrawContext());
+
+		ImageProvider.getInstance().invalidateAll(); // the OpenGL context got lost, the new one doesn't know the textures
+		RecordingDrawContext gl = new RecordingDrawContext();
+		draw(gl);
+
+		assertTrue(gl.getDrawCalls() > 0);
+		assertEquals(2, gl.getTextureCount()); // the landscape and the fog of war
+	}
+
+	private void draw(RecordingDrawContext gl) {
+		gl.startFrame();
+		context.begin(gl);
+		background.drawMapContent(context, context.getScreen().getPosition());
+		context.end();
+	}
+}
@@ -0,0 +1,79 @@
+package jsettlers.graphics.map.draw;
+
+import static org.junit.Assert.assertEquals;
+import go.graphics.GLDrawContext;
+import go.graphics.RecordingDrawContext;
+
+import java.nio.ShortBuffer;
+
+import jsettlers.graphics.map.IGLProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class DrawBufferTest {
+	private static final int OPAQUE = 0xffffffff;
+	private static final int TRANSLUCENT = 0x7fffffff;
+
+	private final RecordingDrawContext gl = new RecordingDrawContext();
+	private final DrawBuffer buffer = new DrawBuffer(new IGLProvider() {
+		@Override
+		public GLDrawContext getGl() {
+			return gl;
+		}
+	});
+	private int texture1;
+	private int texture2;
+
+	@Before
+	public void setUp() {
+		texture1 = gl.generateTexture(1, 1, ShortBuffer.allocate(1));
+		texture2 = gl.generateTexture(1, 1, ShortBuffer.allocate(1));
+		gl.startFrame();
+	}
+
+	@Test
+	public void testOpaqueSpritesAreDrawnPerTexture() {
+		addSprite(texture1, OPAQUE);
+		addSprite(texture2, OPAQUE);
+		addSprite(texture1, OPAQUE);
+		buffer.flush();
+
+		assertDrawCalls(texture1, texture2);
+		assertEquals(6, gl.getTriangles());
+	}
+
+	@Test
+	public void testTranslucentSpriteKeepsItsOrder() {
+		addSprite(texture1, OPAQUE);
+		addSprite(texture2, TRANSLUCENT);
+		addSprite(texture1, OPAQUE);
+		buffer.flush();
+
+		assertDrawCalls(texture1, texture2, texture1);
+		assertEquals(3, buffer.getDrawCalls());
+	}
+
+	@Test
+	public void testTranslucentSpritesOfATextureAreDrawnTogether() {
+		addSprite(texture1, OPAQUE);
+		addSprite(texture2, TRANSLUCENT);
+		addSprite(texture2, OPAQUE);
+		addSprite(texture2, TRANSLUCENT);
+		buffer.flush();
+
+		assertDrawCalls(texture1, texture2);
+		assertEquals(3, gl.getDrawCallTriangles(1) / 2);
+	}
+
+	private void addSprite(int texture, int color) {
+		buffer.addImage(texture, 0, 0, 1, 1, 0, 0, 1, 1, color);
+	}
+
+	private void assertDrawCalls(int... textures) {
+		assertEquals(textures.length, gl.getDrawCalls());
+		for (int i = 0; i < textures.length; i++) {
+			assertEquals(textures[i], gl.getDrawCallTexture(i));
+		}
+	}
+}
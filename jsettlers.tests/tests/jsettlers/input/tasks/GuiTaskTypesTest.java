@@ -0,0 +1,101 @@
+package jsettlers.input.tasks;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import jsettlers.common.buildings.EBuildingType;
+import jsettlers.common.material.EMaterialType;
+import jsettlers.common.material.EPriority;
+import jsettlers.common.movable.EMovableType;
+import jsettlers.common.position.ShortPoint2D;
+import jsettlers.network.client.task.packets.TaskCodec;
+import jsettlers.network.client.task.packets.TaskPacket;
+
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests the serialization of all gui tasks with all {@link TaskCodec} versions.
+ */
+public class GuiTaskTypesTest {
+
+	@BeforeClass
+	public static void registerTaskTypes() {
+		GuiTaskTypes.register();
+		GuiTaskTypes.register(); // registering the same types twice must be possible
+	}
+
+	@After
+	public void tearDown() {
+		TaskCodec.setVersion(TaskCodec.CLASS_NAME_VERSION);
+	}
+
+	@Test
+	public void testSerializationOfAllTasks() throws IOException {
+		List<Integer> selection = createSelection(50);
+		ShortPoint2D position = new ShortPoint2D(523, 87);
+		TaskPacket[] tasks = {
+				new SimpleGuiTask(EGuiAction.QUICK_SAVE, (byte) 3),
+				new MovableGuiTask(EGuiAction.STOP_WORKING, (byte) 1, selection),
+				new MoveToGuiTask((byte) 2, position, selection),
+				new ConvertGuiTask((byte) 0, selection, EMovableType.SWORDSMAN_L1),
+				new ConstructBuildingTask(EGuiAction.BUILD, (byte) 4, position, EBuildingType.LUMBERJACK),
+				new DestroyBuildingGuiTask((byte) 5, position),
+				new WorkAreaGuiTask(EGuiAction.SET_WORK_AREA, (byte) 6, new ShortPoint2D(0, 0), position),
+				new SetBuildingPriorityGuiTask((byte) 7, position, EPriority.HIGH),
+				new SetMaterialDistributionSettingsGuiTask((byte) 1, position, EMaterialType.COAL, new float[] { 0.2f, 0.5f, 0.3f }),
+				new SetMaterialPrioritiesGuiTask((byte) 1, position, new EMaterialType[] { EMaterialType.PLANK, EMaterialType.STONE })
+		};
+
+		for (int version = TaskCodec.CLASS_NAME_VERSION; version <= TaskCodec.SUPPORTED_VERSION; version++) {
+			TaskCodec.setVersion(version);
+			for (TaskPacket task : tasks) {
+				assertEquals(task, deserialize(serialize(task)));
+			}
+		}
+	}
+
+	@Test
+	public void testCompactMoveToTaskIsSmaller() throws IOException {
+		MoveToGuiTask task = new MoveToGuiTask((byte) 2, new ShortPoint2D(523, 87), createSelection(100));
+
+		byte[] classNameBytes = serialize(task);
+		TaskCodec.setVersion(TaskCodec.COMPACT_VERSION);
+		byte[] compactBytes = serialize(task);
+
+		assertEquals(task, deserialize(compactBytes));
+		assertTrue(classNameBytes.length + " " + compactBytes.length, compactBytes.length * 3 < classNameBytes.length);
+	}
+
+	private static List<Integer> createSelection(int size) {
+		List<Integer> selection = new ArrayList<Integer>();
+		for (int i = 0; i < size; i++) {
+			selection.add(12000 + 3 * i);
+		}
+		selection.addAll(Arrays.asList(17, 123456));
+		return selection;
+	}
+
+	private static byte[] serialize(TaskPacket task) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		task.serialize(new DataOutputStream(bytes));
+		return bytes.toByteArray();
+	}
+
+	private static TaskPacket deserialize(byte[] bytes) throws IOException {
+		DataInputStream dis = new DataInputStream(new ByteArrayInputStream(bytes));
+		TaskPacket task = TaskPacket.DEFAULT_DESERIALIZER.deserialize(null, dis);
+		assertEquals(0, dis.available());
+		return task;
+	}
+}
@@ -0,0 +1,156 @@
+package jsettlers.input.tasks;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import jsettlers.common.position.ShortPoint2D;
+import jsettlers.network.client.task.packets.TaskCodec;
+import jsettlers.network.client.task.packets.TaskPacket;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests that the selections encoded by the {@link SelectionEncoder} are resolved to the same selections by the receivers of the tasks.
+ */
+public class SelectionEncoderTest {
+	private final SelectionEncoder encoder = new SelectionEncoder(new SelectionTable());
+	private final SelectionTable receiverTable = new SelectionTable();
+
+	@Before
+	public void setUp() {
+		GuiTaskTypes.register();
+		TaskCodec.setVersion(TaskCodec.SELECTION_DELTA_VERSION);
+	}
+
+	@After
+	public void tearDown() {
+		TaskCodec.setVersion(TaskCodec.CLASS_NAME_VERSION);
+	}
+
+	@Test
+	public void testFirstSelectionIsDefined() throws IOException {
+		SelectionDelta delta = encoder.encode(createSelection(0, 10));
+
+		assertTrue(delta.isDefinition());
+		assertEquals(createSelection(0, 10), sendAndResolve(delta));
+	}
+
+	@Test
+	public void testSameSelectionIsSentAsEmptyDelta() throws IOException {
+		SelectionDelta definition = encoder.encode(createSelection(0, 40));
+		sendAndResolve(definition);
+
+		SelectionDelta delta = encoder.encode(createSelection(0, 40));
+		assertFalse(delta.isDefinition());
+		assertEquals(definition.getHandle(), delta.getHandle());
+		assertTrue(delta.getRemovedIds().isEmpty());
+		assertTrue(delta.getAddedIds().isEmpty());
+		assertEquals(createSelection(0, 40), sendAndResolve(delta));
+	}
+
+	@Test
+	public void testChangedSelectionIsResolvedInSenderOrder() throws IOException {
+		sendAndResolve(encoder.encode(createSelection(0, 40)));
+
+		List<Integer> selection = createSelection(5, 45);
+		selection.add(0, 1000);
+		SelectionDelta delta = encoder.encode(selection);
+		assertFalse(delta.isDefinition());
+		assertEquals(5, delta.getRemovedIds().size());
+		assertEquals(6, delta.getAddedIds().size());
+
+		List<Integer> resolved = sendAndResolve(delta);
+		assertEquals(encoder.getSelection(delta.getHandle()), resolved);
+		assertEquals(selection.size(), resolved.size());
+		assertTrue(resolved.containsAll(selection));
+	}
+
+	@Test
+	public void testDifferentSelectionsGetOwnHandles() throws IOException {
+		SelectionDelta first = encoder.encode(createSelection(0, 10));
+		sendAndResolve(first);
+		SelectionDelta second = encoder.encode(createSelection(100, 110));
+		sendAndResolve(second);
+
+		assertTrue(second.isDefinition());
+		assertNotEquals(first.getHandle(), second.getHandle());
+		assertEquals(first.getHandle(), encoder.encode(createSelection(0, 10)).getHandle());
+	}
+
+	@Test
+	public void testLeastRecentlyUsedHandleIsRedefined() throws IOException {
+		int[] handles = new int[SelectionTable.MAX_HANDLES];
+		for (int i = 0; i < SelectionTable.MAX_HANDLES; i++) {
+			SelectionDelta delta = encoder.encode(createSelection(100 * i, 100 * i + 10));
+			sendAndResolve(delta);
+			handles[i] = delta.getHandle();
+		}
+		sendAndResolve(encoder.encode(createSelection(0, 10))); // use the first handle again
+
+		SelectionDelta delta = encoder.encode(createSelection(10000, 10010));
+		assertTrue(delta.isDefinition());
+		assertEquals(handles[1], delta.getHandle());
+		assertEquals(createSelection(10000, 10010), sendAndResolve(delta));
+		assertEquals(Arrays.toString(receiverTable.getSelection(handles[0])), createSelection(0, 10).toString());
+	}
+
+	@Test
+	public void testDeltaIsSmallerThanSelection() throws IOException {
+		List<Integer> selection = createSelection(0, 100);
+		sendAndResolve(encoder.encode(selection));
+		selection.add(5000);
+
+		SelectionDelta delta = encoder.encode(selection);
+		byte[] deltaBytes = serialize(createTask(delta));
+		byte[] fullBytes = serialize(new MoveToGuiTask((byte) 1, new ShortPoint2D(10, 20), selection));
+
+		assertTrue(deltaBytes.length + " " + fullBytes.length, deltaBytes.length * 5 < fullBytes.length);
+	}
+
+	private List<Integer> sendAndResolve(SelectionDelta delta) throws IOException {
+		MovableGuiTask received = (MovableGuiTask) deserialize(serialize(createTask(delta)));
+		assertEquals(delta, received.getSelectionDelta());
+
+		received.resolveSelection(receiverTable);
+		assertEquals(encoder.getSelection(delta.getHandle()), received.getSelection());
+		return received.getSelection();
+	}
+
+	private MoveToGuiTask createTask(SelectionDelta delta) {
+		return new MoveToGuiTask((byte) 1, new ShortPoint2D(10, 20), encoder.getSelection(delta.getHandle()), delta);
+	}
+
+	private static List<Integer> createSelection(int firstId, int endId) {
+		List<Integer> selection = new ArrayList<Integer>();
+		for (int id = firstId; id < endId; id++) {
+			selection.add(id);
+		}
+		return selection;
+	}
+
+	private static byte[] serialize(TaskPacket task) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		task.serialize(new DataOutputStream(bytes));
+		return bytes.toByteArray();
+	}
+
+	private static TaskPacket deserialize(byte[] bytes) throws IOException {
+		DataInputStream dis = new DataInputStream(new ByteArrayInputStream(bytes));
+		TaskPacket task = TaskPacket.DEFAULT_DESERIALIZER.deserialize(null, dis);
+		assertEquals(0, dis.available());
+		return task;
+	}
+}
@@ -0,0 +1,135 @@
+package jsettlers.logic.map.newGrid;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+
+import jsettlers.TestUtils;
+import jsettlers.common.map.MapLoadException;
+import jsettlers.logic.buildings.Building;
+import jsettlers.logic.constants.MatchConstants;
+import jsettlers.logic.map.save.DirectoryMapLister;
+import jsettlers.logic.map.save.IGameCreator.MainGridWithUiSettings;
+import jsettlers.logic.map.save.loader.MapLoader;
+import jsettlers.logic.movable.Movable;
+import jsettlers.logic.timer.RescheduleTimer;
+import jsettlers.network.synchronic.random.RandomSingleton;
+import jsettlers.network.synchronic.timer.NetworkTimer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class GameSerializerTest {
+	private MainGridWithUiSettings game;
+
+	@Before
+	public void setUp() throws MapLoadException {
+		TestUtils.setupResourcesManager();
+		RandomSingleton.load(1234);
+		MatchConstants.clock = new NetworkTimer(true);
+		Movable.resetState();
+
+		MapLoader loader = MapLoader.getLoaderForFile(new DirectoryMapLister.ListedMapFile(new File("../jsettlers.common/resources/maps/nicemap.map"),
+				false));
+		game = loader.loadMainGrid(null);
+	}
+
+	@After
+	public void tearDown() {
+		RescheduleTimer.stop();
+		Movable.resetState();
+		Building.dropAllBuildings();
+	}
+
+	@Test
+	public void testSaveAndLoadCompressed() throws IOException, MapLoadException {
+		assertGameRestored(true);
+	}
+
+	@Test
+	public void testSaveAndLoadUncompressed() throws IOException, MapLoadException {
+		assertGameRestored(false);
+	}
+
+	@Test
+	public void testSnapshotIsNotChangedByTheRunningGame() throws IOException, MapLoadException {
+		MainGrid grid = game.getMainGrid();
+		byte height = grid.landscapeGrid.getHeightAt(10, 10);
+		GameSnapshot snapshot = new GameSerializer().takeSnapshot(game.getPlayerStates(), grid);
+
+		grid.landscapeGrid.setHeightAt((short) 10, (short) 10, (byte) (height + 1));
+		MatchConstants.clock.setTime(12345);
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new GameSerializer().write(snapshot, out, true);
+		Movable.resetState();
+		Building.dropAllBuildings();
+		MainGridWithUiSettings loaded = new GameSerializer().load(new ByteArrayInputStream(out.toByteArray()));
+
+		assertEquals(0, MatchConstants.clock.getTime());
+		assertEquals(height, loaded.getMainGrid().landscapeGrid.getHeightAt(10, 10));
+	}
+
+	@Test(expected = MapLoadException.class)
+	public void testUnsupportedVersionIsRejected() throws IOException, MapLoadException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		DataOutputStream dos = new DataOutputStream(out);
+		dos.writeInt(GameSerializer.MAGIC);
+		dos.writeShort(GameSerializer.FORMAT_VERSION + 1);
+		dos.writeByte(0);
+		dos.close();
+
+		new GameSerializer().load(new ByteArrayInputStream(out.toByteArray()));
+	}
+
+	private void assertGameRestored(boolean compress) throws IOException, MapLoadException {
+		MainGrid grid = game.getMainGrid();
+		int time = MatchConstants.clock.getTime();
+		long randomDraws = RandomSingleton.getNumberOfDraws();
+		int movables = Movable.getAllMovables().size();
+		int buildings = Building.getAllBuildings().size();
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new GameSerializer().save(game.getPlayerStates(), grid, out, compress);
+
+		MatchConstants.clock.setTime(0);
+		Movable.resetState();
+		Building.dropAllBuildings();
+		MainGridWithUiSettings loaded = new GameSerializer().load(new ByteArrayInputStream(out.toByteArray()));
+
+		assertEquals(time, MatchConstants.clock.getTime());
+		assertEquals(randomDraws, RandomSingleton.getNumberOfDraws());
+		assertEquals(movables, Movable.getAllMovables().size());
+		assertEquals(buildings, Building.getAllBuildings().size());
+		assertEquals(game.getPlayerStates().length, loaded.getPlayerStates().length);
+		assertGridsEqual(grid, loaded.getMainGrid());
+	}
+
+	private static void assertGridsEqual(MainGrid expected, MainGrid actual) {
+		assertEquals(expected.width, actual.width);
+		assertEquals(expected.height, actual.height);
+
+		for (int y = 0; y < expected.height; y++) {
+			for (int x = 0; x < expected.width; x++) {
+				assertEquals(expected.landscapeGrid.getHeightAt(x, y), actual.landscapeGrid.getHeightAt(x, y));
+				assertEquals(expected.landscapeGrid.getLandscapeTypeAt(x, y), actual.landscapeGrid.getLandscapeTypeAt(x, y));
+				assertEquals(expected.landscapeGrid.getResourceTypeAt(x, y), actual.landscapeGrid.getResourceTypeAt(x, y));
+				assertEquals(expected.landscapeGrid.getResourceAmountAt(x, y), actual.landscapeGrid.getResourceAmountAt(x, y));
+				assertEquals(expected.landscapeGrid.getBlockedPartitionAt(x, y), actual.landscapeGrid.getBlockedPartitionAt(x, y));
+
+				assertEquals(expected.flagsGrid.isBlocked(x, y), actual.flagsGrid.isBlocked(x, y));
+				assertEquals(expected.flagsGrid.isProtected(x, y), actual.flagsGrid.isProtected(x, y));
+				assertEquals(expected.flagsGrid.isBorderAt(x, y), actual.flagsGrid.isBorderAt(x, y));
+
+				assertEquals(expected.partitionsGrid.getRealPartitionIdAt(x, y), actual.partitionsGrid.getRealPartitionIdAt(x, y));
+				assertEquals(expected.partitionsGrid.getPlayerIdAt(x, y), actual.partitionsGrid.getPlayerIdAt(x, y));
+				assertEquals(expected.partitionsGrid.getTowerCountAt(x, y), actual.partitionsGrid.getTowerCountAt(x, y));
+			}
+		}
+	}
+}
@@ -0,0 +1,146 @@
+package jsettlers.logic.map.newGrid;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import jsettlers.TestUtils;
+import jsettlers.common.map.IGraphicsGrid;
+import jsettlers.common.map.MapLoadException;
+import jsettlers.input.PlayerState;
+import jsettlers.logic.buildings.Building;
+import jsettlers.logic.constants.MatchConstants;
+import jsettlers.logic.map.save.DirectoryMapLister;
+import jsettlers.logic.map.save.loader.MapLoader;
+import jsettlers.logic.movable.Movable;
+import jsettlers.logic.timer.RescheduleTimer;
+import jsettlers.network.synchronic.random.RandomSingleton;
+import jsettlers.network.synchronic.timer.NetworkTimer;
+
+import org.junit.Test;
+
+public class OccupancyBitmapTest {
+	private static final short WIDTH = 150;
+	private static final short HEIGHT = 20;
+
+	@Test
+	public void testSetAndClear() {
+		OccupancyBitmap bitmap = new OccupancyBitmap(WIDTH, HEIGHT);
+		bitmap.set(63, 3, true);
+		bitmap.set(64, 3, true);
+		bitmap.set(149, 19, true);
+
+		assertTrue(bitmap.isSet(63, 3));
+		assertTrue(bitmap.isSet(64, 3));
+		assertTrue(bitmap.isSet(149, 19));
+		assertFalse(bitmap.isSet(63, 4));
+		assertFalse(bitmap.isSet(0, 3));
+
+		bitmap.set(63, 3, false);
+		assertFalse(bitmap.isSet(63, 3));
+		assertTrue(bitmap.isSet(64, 3));
+	}
+
+	@Test
+	public void testNextSet() {
+		OccupancyBitmap bitmap = new OccupancyBitmap(WIDTH, HEIGHT);
+		bitmap.set(5, 2, true);
+		bitmap.set(130, 2, true);
+		bitmap.set(0, 3, true);
+
+		assertEquals(5, bitmap.nextSet(0, 2, WIDTH - 1));
+		assertEquals(5, bitmap.nextSet(5, 2, WIDTH - 1));
+		assertEquals(130, bitmap.nextSet(6, 2, WIDTH - 1));
+		assertEquals(WIDTH, bitmap.nextSet(131, 2, WIDTH - 1));
+		assertEquals(101, bitmap.nextSet(6, 2, 100));
+		assertEquals(5, bitmap.nextSet(-1, 2, 5));
+		assertEquals(5, bitmap.nextSet(6, 2, 4));
+		assertEquals(WIDTH + 10, bitmap.nextSet(131, 2, WIDTH + 9));
+	}
+
+	@Test
+	public void testNextSetFindsAllRandomPositions() {
+		OccupancyBitmap bitmap = new OccupancyBitmap(WIDTH, HEIGHT);
+		boolean[] expected = new boolean[WIDTH];
+		Random random = new Random(1234);
+		for (int i = 0; i < 40; i++) {
+			int x = random.nextInt(WIDTH);
+			expected[x] = true;
+			bitmap.set(x, 7, true);
+		}
+
+		int x = bitmap.nextSet(0, 7, WIDTH - 1);
+		for (int expectedX = 0; expectedX < WIDTH; expectedX++) {
+			if (expected[expectedX]) {
+				assertEquals(expectedX, x);
+				x = bitmap.nextSet(x + 1, 7, WIDTH - 1);
+			}
+		}
+		assertEquals(WIDTH, x);
+	}
+
+	@Test
+	public void testNextDrawableXOfMainGridFindsAllDrawablePositions() throws MapLoadException {
+		MainGrid grid = loadMap();
+		try {
+			assertDrawablePositionsFound(grid.getGraphicsGrid());
+		} finally {
+			dropGame();
+		}
+	}
+
+	@Test
+	public void testNextDrawableXOfLoadedGameFindsAllDrawablePositions() throws MapLoadException, IOException {
+		MainGrid grid = loadMap();
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			new GameSerializer().save(new PlayerState[0], grid, out, false);
+			dropGame();
+
+			MainGrid loadedGrid = new GameSerializer().load(new ByteArrayInputStream(out.toByteArray())).getMainGrid();
+			assertDrawablePositionsFound(loadedGrid.getGraphicsGrid());
+		} finally {
+			dropGame();
+		}
+	}
+
+	private static MainGrid loadMap() throws MapLoadException {
+		TestUtils.setupResourcesManager();
+		RandomSingleton.load(1234);
+		MatchConstants.clock = new NetworkTimer(true);
+		Movable.resetState();
+
+		MapLoader loader = MapLoader.getLoaderForFile(new DirectoryMapLister.ListedMapFile(new File("../jsettlers.common/resources/maps/nicemap.map"),
+				false));
+		return loader.loadMainGrid(null).getMainGrid();
+	}
+
+	private static void dropGame() {
+		RescheduleTimer.stop();
+		Movable.resetState();
+		Building.dropAllBuildings();
+	}
+
+	private static void assertDrawablePositionsFound(IGraphicsGrid grid) {
+		int drawablePositions = 0;
+		for (int y = 0; y < grid.getHeight(); y++) {
+			int maxX = grid.getWidth() - 1;
+			int x = grid.nextDrawableX(-1, y, maxX);
+			for (int expectedX = 0; expectedX <= maxX; expectedX++) {
+				if (grid.getMapObjectsAt(expectedX, y) != null || grid.getMovableAt(expectedX, y) != null || grid.isBorder(expectedX, y)) {
+					assertEquals(expectedX, x);
+					x = grid.nextDrawableX(x, y, maxX);
+					drawablePositions++;
+				}
+			}
+			assertEquals(maxX + 1, x);
+		}
+		assertTrue(drawablePositions > 0);
+	}
+}
@@ -0,0 +1,44 @@
+package jsettlers.logic.map.newGrid.flags;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.junit.Test;
+
+/**
+ * Tests that the borders of the {@link FlagsGrid}, which are kept apart from the other flags, are saved and loaded with them.
+ */
+public class FlagsGridTest {
+	private static final short WIDTH = 20;
+	private static final short HEIGHT = 10;
+
+	private final FlagsGrid grid = new FlagsGrid(WIDTH, HEIGHT);
+
+	@Test
+	public void testSerializationContainsFlagsAndBorders() throws IOException, ClassNotFoundException {
+		grid.setBorderAt((short) 3, (short) 4, true);
+		grid.setBlockedAndProtected(3, 4, true);
+		grid.setMarked((short) 5, (short) 6, true);
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ObjectOutputStream oos = new ObjectOutputStream(out);
+		oos.writeObject(grid);
+		oos.close();
+		FlagsGrid loaded = (FlagsGrid) new ObjectInputStream(new ByteArrayInputStream(out.toByteArray())).readObject();
+
+		assertTrue(loaded.isBorderAt(3, 4));
+		assertEquals(3, loaded.nextBorderX(0, 4, WIDTH - 1));
+		assertTrue(loaded.isBlocked(3, 4));
+		assertTrue(loaded.isProtected(3, 4));
+		assertTrue(loaded.isMarked(5, 6));
+		assertFalse(loaded.isBorderAt(5, 6));
+		assertFalse(loaded.isBlocked(5, 6));
+	}
+}
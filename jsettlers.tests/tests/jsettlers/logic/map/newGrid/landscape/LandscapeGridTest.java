@@ -0,0 +1,100 @@
+package jsettlers.logic.map.newGrid.landscape;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import jsettlers.common.landscape.ELandscapeType;
+import jsettlers.common.landscape.EResourceType;
+import jsettlers.logic.map.newGrid.flags.FlagsGrid;
+
+import org.junit.Test;
+
+/**
+ * Tests that the values packed into the positions of the {@link LandscapeGrid} don't influence each other.
+ */
+public class LandscapeGridTest {
+	private static final short WIDTH = 20;
+	private static final short HEIGHT = 10;
+
+	private final LandscapeGrid grid = new LandscapeGrid(WIDTH, HEIGHT, new FlagsGrid(WIDTH, HEIGHT));
+
+	@Test
+	public void testPackedValuesAreIndependent() {
+		for (short y = 0; y < HEIGHT; y++) {
+			for (short x = 0; x < WIDTH; x++) {
+				grid.setHeightAt(x, y, (byte) (x * 13 - y * 7 - 60));
+				grid.setLandscapeTypeAt(x, y, ELandscapeType.values[(x + y) % ELandscapeType.values.length]);
+				grid.setResourceAt(x, y, EResourceType.values[x % EResourceType.values.length], (byte) (y * 14 - 1));
+			}
+		}
+
+		for (short y = 0; y < HEIGHT; y++) {
+			for (short x = 0; x < WIDTH; x++) {
+				assertEquals((byte) (x * 13 - y * 7 - 60), grid.getHeightAt(x, y));
+				assertEquals(ELandscapeType.values[(x + y) % ELandscapeType.values.length], grid.getLandscapeTypeAt(x, y));
+				assertEquals(EResourceType.values[x % EResourceType.values.length], grid.getResourceTypeAt(x, y));
+				assertEquals((byte) (y * 14 - 1), grid.getResourceAmountAt(x, y));
+			}
+		}
+	}
+
+	@Test
+	public void testResources() {
+		grid.setHeightAt((short) 5, (short) 5, (byte) -3);
+		grid.setResourceAt((short) 5, (short) 5, EResourceType.GOLD, (byte) 2);
+		grid.setResourceAt((short) 6, (short) 5, EResourceType.GOLD, Byte.MAX_VALUE);
+
+		assertTrue(grid.hasResourceAt(5, 5, EResourceType.GOLD));
+		assertFalse(grid.hasResourceAt(5, 5, EResourceType.COAL));
+
+		grid.pickResourceAt((short) 5, (short) 5);
+		grid.pickResourceAt((short) 5, (short) 5);
+		assertFalse(grid.hasResourceAt(5, 5, EResourceType.GOLD));
+		assertEquals(-3, grid.getHeightAt(5, 5));
+
+		grid.decreaseResourceAround((short) 6, (short) 5, EResourceType.GOLD, 1, 100);
+		assertEquals(Byte.MAX_VALUE - 100, grid.getResourceAmountAt(6, 5));
+		assertEquals(EResourceType.GOLD, grid.getResourceTypeAt(6, 5));
+	}
+
+	@Test
+	public void testFlattenAndChangeHeightTowards() {
+		grid.setHeightAt((short) 3, (short) 3, (byte) -2);
+		grid.setResourceAt((short) 3, (short) 3, EResourceType.FISH, (byte) 50);
+
+		grid.flattenAndChangeHeightTowards(3, 3, (byte) 5);
+		assertEquals(-1, grid.getHeightAt(3, 3));
+		assertEquals(ELandscapeType.FLATTENED, grid.getLandscapeTypeAt(3, 3));
+		assertEquals(50, grid.getResourceAmountAt(3, 3));
+
+		grid.flattenAndChangeHeightTowards(3, 3, (byte) -5);
+		assertEquals(-2, grid.getHeightAt(3, 3));
+	}
+
+	@Test
+	public void testSerialization() throws IOException, ClassNotFoundException {
+		grid.setHeightAt((short) 4, (short) 2, (byte) 7);
+		grid.setLandscapeTypeAt((short) 4, (short) 2, ELandscapeType.DESERT);
+		grid.setResourceAt((short) 4, (short) 2, EResourceType.COAL, (byte) 9);
+		grid.setBlockedPartition((short) 4, (short) 2, (short) 3);
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ObjectOutputStream oos = new ObjectOutputStream(out);
+		oos.writeObject(grid);
+		oos.close();
+		LandscapeGrid loaded = (LandscapeGrid) new ObjectInputStream(new ByteArrayInputStream(out.toByteArray())).readObject();
+
+		assertEquals(7, loaded.getHeightAt(4, 2));
+		assertEquals(ELandscapeType.DESERT, loaded.getLandscapeTypeAt(4, 2));
+		assertEquals(EResourceType.COAL, loaded.getResourceTypeAt(4, 2));
+		assertEquals(9, loaded.getResourceAmountAt(4, 2));
+		assertEquals(3, loaded.getBlockedPartitionAt(4, 2));
+	}
+}
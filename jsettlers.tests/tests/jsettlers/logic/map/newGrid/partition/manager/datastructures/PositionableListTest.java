@@ -0,0 +1,219 @@
+package jsettlers.logic.map.newGrid.partition.manager.datastructures;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import jsettlers.algorithms.queue.ITypeAcceptor;
+import jsettlers.common.position.ILocatable;
+import jsettlers.common.position.ShortPoint2D;
+import jsettlers.common.utils.MathUtils;
+
+import org.junit.Test;
+
+/**
+ * Tests the {@link PositionableList} against a linear search on an {@link ArrayList}.
+ */
+public class PositionableListTest {
+	private static final int SIZE = 300;
+
+	private static class TestObject implements ILocatable, Serializable {
+		private static final long serialVersionUID = 1L;
+
+		final int id;
+		ShortPoint2D position;
+
+		TestObject(int id, int x, int y) {
+			this.id = id;
+			this.position = new ShortPoint2D(x, y);
+		}
+
+		@Override
+		public ShortPoint2D getPos() {
+			return position;
+		}
+
+		@Override
+		public String toString() {
+			return "TestObject" + id;
+		}
+	}
+
+	private final Random random = new Random(42);
+	private final PositionableList<TestObject> list = new PositionableList<TestObject>();
+	private final List<TestObject> expected = new ArrayList<TestObject>();
+
+	@Test
+	public void testRemoveObjectNextTo() {
+		insertRandomObjects(2000);
+
+		while (!expected.isEmpty()) {
+			ShortPoint2D position = getRandomPosition();
+			TestObject expectedObject = getExpectedCloseTo(position, null);
+			expected.remove(expectedObject);
+			assertSame(expectedObject, list.removeObjectNextTo(position));
+		}
+		assertTrue(list.isEmpty());
+		assertNull(list.removeObjectNextTo(getRandomPosition()));
+	}
+
+	@Test
+	public void testRemoveObjectNextToWithAcceptor() {
+		insertRandomObjects(500);
+		ITypeAcceptor<TestObject> acceptor = new ITypeAcceptor<TestObject>() {
+			@Override
+			public boolean accepts(TestObject object) {
+				return object.id % 7 == 0;
+			}
+		};
+
+		for (int i = 0; i < 100; i++) {
+			ShortPoint2D position = getRandomPosition();
+			TestObject expectedObject = getExpectedCloseTo(position, acceptor);
+			expected.remove(expectedObject);
+			assertSame(expectedObject, list.removeObjectNextTo(position, acceptor));
+		}
+		assertListEquals();
+	}
+
+	@Test
+	public void testSameDistanceReturnsFirstInserted() {
+		for (int i = 0; i < 50; i++) {
+			insert(new TestObject(i, 100 + (i % 2 == 0 ? 10 : -10), 100));
+		}
+
+		assertEquals(0, list.getObjectCloseTo(new ShortPoint2D(100, 100)).id);
+		assertEquals(0, list.getObjectAt(new ShortPoint2D(110, 100)).id);
+		assertEquals(1, list.getObjectAt(new ShortPoint2D(90, 100)).id);
+	}
+
+	@Test
+	public void testPositionLookups() {
+		insertRandomObjects(1000);
+
+		for (int i = 0; i < 300; i++) {
+			TestObject object = expected.get(random.nextInt(expected.size()));
+			TestObject expectedObject = getExpectedAt(object.getPos());
+			assertSame(expectedObject, list.getObjectAt(object.getPos()));
+
+			expected.remove(expectedObject);
+			assertSame(expectedObject, list.removeObjectAt(object.getPos()));
+		}
+		assertListEquals();
+
+		PositionableList<TestObject> otherList = new PositionableList<TestObject>();
+		TestObject object = expected.get(0);
+		insert(new TestObject(-1, object.getPos().x, object.getPos().y));
+		list.moveObjectsAtPositionTo(object.getPos(), otherList);
+		assertNull(list.getObjectAt(object.getPos()));
+		Iterator<TestObject> iterator = otherList.iterator();
+		assertSame(object, iterator.next());
+		assertEquals(-1, iterator.next().id);
+	}
+
+	@Test
+	public void testMovedObjects() {
+		insertRandomObjects(1000);
+
+		for (TestObject object : expected) {
+			object.position = getRandomPosition();
+		}
+		list.updatePositions();
+
+		for (int i = 0; i < 300; i++) {
+			ShortPoint2D position = getRandomPosition();
+			TestObject expectedObject = getExpectedCloseTo(position, null);
+			expected.remove(expectedObject);
+			assertSame(expectedObject, list.removeObjectNextTo(position));
+		}
+
+		TestObject movedObject = expected.remove(0);
+		movedObject.position = getRandomPosition();
+		list.remove(movedObject); // removing works before the update
+		assertListEquals();
+	}
+
+	@Test
+	public void testSerialization() throws IOException, ClassNotFoundException {
+		insertRandomObjects(500);
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream oos = new ObjectOutputStream(bytes);
+		oos.writeObject(list);
+		oos.close();
+
+		@SuppressWarnings("unchecked")
+		PositionableList<TestObject> loaded = (PositionableList<TestObject>) new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))
+				.readObject();
+
+		Iterator<TestObject> loadedIterator = loaded.iterator();
+		for (TestObject object : expected) {
+			TestObject loadedObject = loadedIterator.next();
+			assertEquals(object.id, loadedObject.id);
+			assertEquals(object.getPos(), loadedObject.getPos());
+		}
+
+		for (int i = 0; i < 100; i++) {
+			ShortPoint2D position = getRandomPosition();
+			assertEquals(list.removeObjectNextTo(position).id, loaded.removeObjectNextTo(position).id);
+		}
+	}
+
+	private void insertRandomObjects(int count) {
+		for (int i = 0; i < count; i++) {
+			ShortPoint2D position = getRandomPosition();
+			insert(new TestObject(i, position.x, position.y));
+		}
+	}
+
+	private void insert(TestObject object) {
+		expected.add(object);
+		list.insert(object);
+	}
+
+	private ShortPoint2D getRandomPosition() {
+		return new ShortPoint2D(random.nextInt(SIZE), random.nextInt(SIZE));
+	}
+
+	private TestObject getExpectedCloseTo(ShortPoint2D position, ITypeAcceptor<TestObject> acceptor) {
+		int bestDistance = Integer.MAX_VALUE;
+		TestObject best = null;
+		for (TestObject object : expected) {
+			int distance = MathUtils.squareHypot(position, object.getPos());
+			if ((acceptor == null || acceptor.accepts(object)) && distance < bestDistance) {
+				bestDistance = distance;
+				best = object;
+			}
+		}
+		return best;
+	}
+
+	private TestObject getExpectedAt(ShortPoint2D position) {
+		for (TestObject object : expected) {
+			if (object.getPos().equals(position)) {
+				return object;
+			}
+		}
+		return null;
+	}
+
+	private void assertListEquals() {
+		Iterator<TestObject> iterator = list.iterator();
+		for (TestObject object : expected) {
+			assertSame(object, iterator.next());
+		}
+		assertTrue(!iterator.hasNext());
+	}
+}
@@ -1,25 +1,51 @@
 package jsettlers.logic.map.newGrid.partition.manager.materials;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
 
 import jsettlers.TestUtils;
+import jsettlers.common.buildings.EBuildingType;
 import jsettlers.common.material.EMaterialType;
 import jsettlers.common.position.ShortPoint2D;
+import jsettlers.logic.constants.Constants;
 import jsettlers.logic.map.newGrid.partition.manager.materials.offers.OffersList;
+import jsettlers.logic.map.newGrid.partition.manager.materials.requests.MaterialRequestObject;
 import jsettlers.logic.map.newGrid.partition.manager.settings.PartitionManagerSettings;
 
 import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
 
 /**
- * This is a test for the {@link MaterialsManager} class.
+ * This is a test for the {@link MaterialsManager} class. It runs with and without the batched distribution (see {@link Constants#USE_BATCHED_MATERIAL_DISTRIBUTION}).
  * 
  * @author Andreas Eberle
  * 
  */
+@RunWith(Parameterized.class)
 public class MaterialsManagerTest {
+	private final boolean batched;
+
 	private final OffersList offersList = new OffersList();
 	private final JoblessSupplierMock joblessSupplier = new JoblessSupplierMock();
-	private final MaterialsManager manager = new MaterialsManager(joblessSupplier, offersList, new PartitionManagerSettings());
+	private final PartitionManagerSettings settings = new PartitionManagerSettings();
+	private final MaterialsManager manager;
+
+	@Parameters(name = "batched={0}")
+	public static Collection<Object[]> distributionModes() {
+		return Arrays.asList(new Object[][] { { false }, { true } });
+	}
+
+	public MaterialsManagerTest(boolean batched) {
+		this.batched = batched;
+		this.manager = new MaterialsManager(joblessSupplier, offersList, settings, batched);
+	}
 
 	@Test
 	public void testSerialization() throws IOException, ClassNotFoundException {
@@ -34,8 +60,91 @@ public class MaterialsManagerTest {
 		TestUtils.serializeAndDeserialize(manager);
 	}
 
+	@Test
+	public void testDistributionOfTwoJobs() {
+		EMaterialType material = settings.getMaterialTypeForPrio(0);
+
+		manager.addRequestObject(material, new TestMaterialRequest(pos(50, 60), 2));
+		offersList.addOffer(pos(50, 50), material);
+		offersList.addOffer(pos(60, 50), material);
+		// the first job (offer at 50|50) would take the bearer at 56|50 and the second one the bearer far away at 30|50
+		joblessSupplier.addJoblessAt(pos(56, 50));
+		joblessSupplier.addJoblessAt(pos(30, 50));
+
+		manager.distributeJobs();
+		manager.distributeJobs(); // without batching, every call assigns one job per material
+
+		if (batched) { // the batch gives the near offer to the far bearer, so the sum of the walks is shorter
+			assertEquals(pos(60, 50), joblessSupplier.getDeliveredOffer(pos(56, 50)));
+			assertEquals(pos(50, 50), joblessSupplier.getDeliveredOffer(pos(30, 50)));
+		} else {
+			assertEquals(pos(50, 50), joblessSupplier.getDeliveredOffer(pos(56, 50)));
+			assertEquals(pos(60, 50), joblessSupplier.getDeliveredOffer(pos(30, 50)));
+		}
+		assertTrue(offersList.isEmpty(material));
+	}
+
+	@Test
+	public void testDistributionKeepsMaterialPriorities() {
+		EMaterialType highPriorityMaterial = settings.getMaterialTypeForPrio(0);
+		EMaterialType lowPriorityMaterial = settings.getMaterialTypeForPrio(1);
+
+		manager.addRequestObject(lowPriorityMaterial, new TestMaterialRequest(pos(10, 10), 1));
+		manager.addRequestObject(highPriorityMaterial, new TestMaterialRequest(pos(40, 40), 1));
+		offersList.addOffer(pos(10, 12), lowPriorityMaterial);
+		offersList.addOffer(pos(40, 42), highPriorityMaterial);
+		joblessSupplier.addJoblessAt(pos(10, 11));
+
+		manager.distributeJobs();
+
+		assertEquals(pos(40, 42), joblessSupplier.getDeliveredOffer(pos(10, 11)));
+		assertTrue(offersList.isEmpty(highPriorityMaterial));
+		assertFalse(offersList.isEmpty(lowPriorityMaterial));
+	}
+
 	private ShortPoint2D pos(int x, int y) {
 		return new ShortPoint2D(x, y);
 	}
 
+	private static class TestMaterialRequest extends MaterialRequestObject {
+		private static final long serialVersionUID = 1L;
+
+		private final ShortPoint2D position;
+		private int stillNeeded;
+
+		TestMaterialRequest(ShortPoint2D position, int stillNeeded) {
+			this.position = position;
+			this.stillNeeded = stillNeeded;
+		}
+
+		@Override
+		public ShortPoint2D getPos() {
+			return position;
+		}
+
+		@Override
+		protected int getStillNeeded() {
+			return stillNeeded;
+		}
+
+		@Override
+		protected int getInDeliveryable() {
+			return Constants.STACK_SIZE;
+		}
+
+		@Override
+		protected void materialDelivered() {
+			stillNeeded--;
+		}
+
+		@Override
+		protected boolean isRoundRobinRequest() {
+			return false;
+		}
+
+		@Override
+		protected EBuildingType getBuildingType() {
+			return null;
+		}
+	}
 }
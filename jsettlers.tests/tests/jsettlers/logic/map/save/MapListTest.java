@@ -0,0 +1,172 @@
+package jsettlers.logic.map.save;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jsettlers.TestUtils;
+import jsettlers.common.map.MapLoadException;
+import jsettlers.input.PlayerState;
+import jsettlers.logic.buildings.Building;
+import jsettlers.logic.constants.MatchConstants;
+import jsettlers.logic.map.newGrid.MainGrid;
+import jsettlers.logic.map.save.loader.MapLoader;
+import jsettlers.logic.movable.Movable;
+import jsettlers.logic.timer.RescheduleTimer;
+import jsettlers.network.synchronic.random.RandomSingleton;
+import jsettlers.network.synchronic.timer.NetworkTimer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the background saves of the {@link MapList}.
+ */
+public class MapListTest {
+	private static final long TIMEOUT_MS = 20000;
+
+	private final SaveDirectory saveDirectory = new SaveDirectory();
+	private final MapList mapList = new MapList(saveDirectory, saveDirectory);
+	private MainGrid grid;
+
+	/**
+	 * Keeps the saved games in memory. Opening a stream can be blocked or made to fail.
+	 */
+	private static class SaveDirectory implements IMapLister {
+		private final List<String> openedFiles = Collections.synchronizedList(new ArrayList<String>());
+		private final AtomicInteger closedFiles = new AtomicInteger();
+		private volatile CountDownLatch blocker;
+		private volatile boolean failing;
+
+		@Override
+		public void getMaps(IMapListerCallable callable) {
+		}
+
+		@Override
+		public OutputStream getOutputStream(MapFileHeader header) throws IOException {
+			return open("savegame");
+		}
+
+		@Override
+		public OutputStream getOutputStream(String fileName) throws IOException {
+			return open(fileName);
+		}
+
+		private OutputStream open(String fileName) throws IOException {
+			if (blocker != null) {
+				try {
+					blocker.await();
+				} catch (InterruptedException e) {
+					throw new IOException(e);
+				}
+			}
+			if (failing) {
+				closedFiles.incrementAndGet();
+				throw new IOException("disk full");
+			}
+
+			openedFiles.add(fileName);
+			return new ByteArrayOutputStream() {
+				@Override
+				public void close() {
+					closedFiles.incrementAndGet();
+				}
+			};
+		}
+
+		void awaitClosedFiles(int expected) throws InterruptedException {
+			long end = System.currentTimeMillis() + TIMEOUT_MS;
+			while (closedFiles.get() < expected) {
+				assertTrue("background save didn't finish", System.currentTimeMillis() < end);
+				Thread.sleep(10);
+			}
+		}
+	}
+
+	@Before
+	public void setUp() throws MapLoadException {
+		TestUtils.setupResourcesManager();
+		RandomSingleton.load(1234);
+		MatchConstants.clock = new NetworkTimer(true);
+		Movable.resetState();
+
+		MapLoader loader = MapLoader.getLoaderForFile(new DirectoryMapLister.ListedMapFile(new File("../jsettlers.common/resources/maps/nicemap.map"),
+				false));
+		grid = loader.loadMainGrid(null).getMainGrid();
+	}
+
+	@After
+	public void tearDown() {
+		if (saveDirectory.blocker != null) {
+			saveDirectory.blocker.countDown();
+		}
+		RescheduleTimer.stop();
+		Movable.resetState();
+		Building.dropAllBuildings();
+	}
+
+	@Test
+	public void testSaveIsRefusedWhileThePreviousOneIsWritten() throws IOException, InterruptedException {
+		saveDirectory.blocker = new CountDownLatch(1);
+		assertTrue(save(false));
+		assertFalse(save(false));
+
+		saveDirectory.blocker.countDown();
+		awaitSave(false);
+		saveDirectory.awaitClosedFiles(2);
+		assertEquals(2, saveDirectory.openedFiles.size());
+	}
+
+	@Test
+	public void testSavesAgainAfterAFailedWrite() throws IOException, InterruptedException {
+		saveDirectory.failing = true;
+		assertTrue(save(false));
+		saveDirectory.awaitClosedFiles(1);
+
+		saveDirectory.failing = false;
+		awaitSave(false);
+		saveDirectory.awaitClosedFiles(2);
+		assertEquals(1, saveDirectory.openedFiles.size());
+	}
+
+	@Test
+	public void testAutosavesRotateThroughTheSlots() throws IOException, InterruptedException {
+		for (int i = 0; i < 4; i++) {
+			awaitSave(true);
+		}
+		saveDirectory.awaitClosedFiles(4);
+
+		List<String> files = saveDirectory.openedFiles;
+		assertNotEquals(files.get(0), files.get(1));
+		assertNotEquals(files.get(1), files.get(2));
+		assertNotEquals(files.get(0), files.get(2));
+		assertEquals(files.get(0), files.get(3));
+	}
+
+	private boolean save(boolean autosave) throws IOException {
+		return mapList.saveMapInBackground(new PlayerState[0], grid, autosave);
+	}
+
+	/**
+	 * Starts a background save as soon as the previous one has finished.
+	 */
+	private void awaitSave(boolean autosave) throws IOException, InterruptedException {
+		long end = System.currentTimeMillis() + TIMEOUT_MS;
+		while (!save(autosave)) {
+			assertTrue("previous background save didn't finish", System.currentTimeMillis() < end);
+			Thread.sleep(10);
+		}
+	}
+}
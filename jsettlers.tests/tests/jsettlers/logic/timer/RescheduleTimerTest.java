@@ -0,0 +1,136 @@
+package jsettlers.logic.timer;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Test for the class {@link RescheduleTimer}.
+ */
+public class RescheduleTimerTest {
+	private static final int TIME_SLICE = 25;
+
+	private final RescheduleTimer timer = new RescheduleTimer();
+	private final List<String> executions = new ArrayList<String>();
+	private int currentTime = 0;
+
+	private class LoggingTimerable implements IScheduledTimerable {
+		private static final long serialVersionUID = 1L;
+
+		private final String name;
+		private final int[] delays;
+		private int nextDelay = 0;
+
+		LoggingTimerable(String name, int... delays) {
+			this.name = name;
+			this.delays = delays;
+		}
+
+		@Override
+		public int timerEvent() {
+			executions.add(name + "@" + currentTime);
+			return nextDelay < delays.length ? delays[nextDelay++] : -1;
+		}
+
+		@Override
+		public void kill() {
+		}
+	}
+
+	private void runFor(int milliseconds) {
+		int end = currentTime + milliseconds;
+		while (currentTime < end) {
+			timer.timerEvent();
+			currentTime += TIME_SLICE;
+		}
+	}
+
+	@Test
+	public void testShortDelays() {
+		timer.addTimerable(new LoggingTimerable("a", 50, 100), 100);
+		timer.addTimerable(new LoggingTimerable("b"), 25);
+		timer.addTimerable(new LoggingTimerable("c"), 10); // less than one slice is executed in the next slice
+
+		runFor(1000);
+
+		assertEquals("[b@25, c@25, a@100, a@150, a@250]", executions.toString());
+	}
+
+	@Test
+	public void testSameSliceKeepsSchedulingOrder() {
+		for (int i = 0; i < 10; i++) {
+			timer.addTimerable(new LoggingTimerable("t" + i), 75);
+		}
+
+		runFor(100);
+
+		assertEquals("[t0@75, t1@75, t2@75, t3@75, t4@75, t5@75, t6@75, t7@75, t8@75, t9@75]", executions.toString());
+	}
+
+	@Test
+	public void testCascadedEntriesKeepSchedulingOrder() {
+		int longDelay = 20000; // does not fit into the first level of the wheel
+		timer.addTimerable(new LoggingTimerable("long"), longDelay);
+		runFor(longDelay - 1000);
+		timer.addTimerable(new LoggingTimerable("short"), 1000);
+
+		runFor(2000);
+
+		assertEquals("[long@20000, short@20000]", executions.toString());
+	}
+
+	@Test
+	public void testLongDelays() {
+		int[] delays = { 11000, 60 * 1000, 20 * 60 * 1000, 20 * 60 * 60 * 1000 };
+		for (int delay : delays) {
+			timer.addTimerable(new LoggingTimerable("d" + delay), delay);
+		}
+
+		runFor(21 * 60 * 60 * 1000);
+
+		List<String> expected = new ArrayList<String>();
+		for (int delay : delays) {
+			expected.add("d" + delay + "@" + delay);
+		}
+		assertEquals(expected, executions);
+	}
+
+	@Test
+	public void testManyTimerables() {
+		int count = 5000;
+		for (int i = 0; i < count; i++) {
+			timer.addTimerable(new LoggingTimerable("t", (i % 7 + 1) * TIME_SLICE), (i % 500 + 1) * TIME_SLICE);
+		}
+
+		runFor(30000);
+
+		assertEquals(2 * count, executions.size());
+	}
+
+	@Test
+	public void testCrashingTimerableIsKilled() {
+		final int[] kills = new int[1];
+		timer.addTimerable(new IScheduledTimerable() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public int timerEvent() {
+				throw new IllegalStateException("test");
+			}
+
+			@Override
+			public void kill() {
+				kills[0]++;
+			}
+		}, 50);
+		timer.addTimerable(new LoggingTimerable("after"), 50);
+
+		runFor(200);
+
+		assertEquals(1, kills[0]);
+		assertEquals("[after@50]", executions.toString());
+	}
+}
@@ -0,0 +1,77 @@
+package jsettlers.main;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import jsettlers.network.client.task.packets.TaskCodec;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class ReplayStartInformationTest {
+	private static final boolean[] AVAILABLE_PLAYERS = { true, false, true };
+
+	@After
+	public void tearDown() {
+		TaskCodec.setVersion(TaskCodec.CLASS_NAME_VERSION);
+	}
+
+	@Test
+	public void testSerializeAndDeserialize() throws IOException {
+		TaskCodec.setVersion(TaskCodec.SUPPORTED_VERSION);
+		ReplayStartInformation written = new ReplayStartInformation(1234, "map name", "map id", 2, AVAILABLE_PLAYERS);
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		written.serialize(new DataOutputStream(out));
+		ReplayStartInformation read = read(out.toByteArray());
+
+		assertEquals(1234, read.getRandomSeed());
+		assertEquals("map name", read.getMapName());
+		assertEquals("map id", read.getMapId());
+		assertEquals(2, read.getPlayerId());
+		assertTrue(Arrays.equals(AVAILABLE_PLAYERS, read.getAvailablePlayers()));
+		assertEquals(TaskCodec.SUPPORTED_VERSION, read.getTaskCodecVersion());
+	}
+
+	@Test
+	public void testDeserializeHeaderWithoutVersion() throws IOException {
+		// the header as it has been written before it got a version
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		DataOutputStream oos = new DataOutputStream(out);
+		oos.writeLong(-987654321L);
+		oos.writeByte(1);
+		oos.writeUTF("old map");
+		oos.writeUTF("old id");
+		oos.writeByte(AVAILABLE_PLAYERS.length);
+		for (boolean available : AVAILABLE_PLAYERS) {
+			oos.writeBoolean(available);
+		}
+		oos.writeInt(42); // the first lockstep of the tasks following the header
+		oos.close();
+
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(out.toByteArray()));
+		ReplayStartInformation read = new ReplayStartInformation();
+		read.deserialize(in);
+
+		assertEquals(-987654321L, read.getRandomSeed());
+		assertEquals("old map", read.getMapName());
+		assertEquals("old id", read.getMapId());
+		assertEquals(1, read.getPlayerId());
+		assertTrue(Arrays.equals(AVAILABLE_PLAYERS, read.getAvailablePlayers()));
+		assertEquals(TaskCodec.CLASS_NAME_VERSION, read.getTaskCodecVersion());
+		assertEquals(42, in.readInt());
+	}
+
+	private static ReplayStartInformation read(byte[] data) throws IOException {
+		ReplayStartInformation information = new ReplayStartInformation();
+		information.deserialize(new DataInputStream(new ByteArrayInputStream(data)));
+		return information;
+	}
+}
@@ -0,0 +1,124 @@
+package jsettlers.main.replay;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import jsettlers.TestUtils;
+import jsettlers.common.map.MapLoadException;
+import jsettlers.common.position.ShortPoint2D;
+import jsettlers.input.tasks.DestroyBuildingGuiTask;
+import jsettlers.logic.buildings.Building;
+import jsettlers.logic.constants.MatchConstants;
+import jsettlers.logic.map.save.DirectoryMapLister;
+import jsettlers.logic.map.save.loader.MapLoader;
+import jsettlers.logic.movable.Movable;
+import jsettlers.logic.timer.RescheduleTimer;
+import jsettlers.main.ReplayStartInformation;
+import jsettlers.network.client.task.packets.SyncTasksPacket;
+import jsettlers.network.client.task.packets.TaskCodec;
+import jsettlers.network.client.task.packets.TaskPacket;
+import jsettlers.network.synchronic.random.RandomSingleton;
+import jsettlers.network.synchronic.timer.NetworkTimer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Plays small replays of the nice map with the {@link HeadlessReplayRunner}.
+ */
+public class HeadlessReplayRunnerTest {
+	private static final long RANDOM_SEED = 1234;
+	private static final int TASK_LOCKSTEP = 20;
+	private static final int TARGET_GAME_TIME = 30 * 1000;
+
+	private MapLoader map;
+
+	@Before
+	public void setUp() throws MapLoadException {
+		TestUtils.setupResourcesManager();
+		map = MapLoader.getLoaderForFile(new DirectoryMapLister.ListedMapFile(new File("../jsettlers.common/resources/maps/nicemap.map"), false));
+	}
+
+	@After
+	public void tearDown() {
+		TaskCodec.setVersion(TaskCodec.CLASS_NAME_VERSION);
+	}
+
+	@Test
+	public void testReplayIsPlayedTheSameWayEveryTime() throws IOException, MapLoadException {
+		byte[] replay = recordReplay(new DestroyBuildingGuiTask((byte) 0, findBuildingOfPlayer0()));
+
+		ReplayRunReport first = run(replay);
+		ReplayRunReport second = run(replay);
+
+		assertEquals(TARGET_GAME_TIME, first.getSimulatedTime());
+		assertEquals(-1, first.getFirstDesyncLockstep());
+		assertEquals(first.getStateHash(), second.getStateHash());
+	}
+
+	@Test
+	public void testTasksOfTheReplayAreExecuted() throws IOException, MapLoadException {
+		ReplayRunReport withoutTasks = run(recordReplay());
+		ReplayRunReport withTask = run(recordReplay(new DestroyBuildingGuiTask((byte) 0, findBuildingOfPlayer0())));
+
+		assertEquals(TARGET_GAME_TIME, withTask.getSimulatedTime());
+		assertNotEquals(withoutTasks.getStateHash(), withTask.getStateHash());
+	}
+
+	/**
+	 * Writes a replay like the game does: the start information followed by the task packets. All tasks are executed in the same lockstep.
+	 */
+	private byte[] recordReplay(TaskPacket... tasks) throws IOException {
+		ByteArrayOutputStream replay = new ByteArrayOutputStream();
+		DataOutputStream replayStream = new DataOutputStream(replay);
+
+		boolean[] availablePlayers = new boolean[map.getMaxPlayers()];
+		Arrays.fill(availablePlayers, true);
+		new ReplayStartInformation(RANDOM_SEED, map.getMapName(), map.getMapID(), 0, availablePlayers).serialize(replayStream);
+
+		NetworkTimer recorder = new NetworkTimer(true);
+		recorder.setReplayLogStream(replayStream);
+		if (tasks.length > 0) {
+			recorder.scheduleSyncTasksPacket(new SyncTasksPacket(TASK_LOCKSTEP, Arrays.asList(tasks)));
+		}
+		recorder.stopExecution();
+		return replay.toByteArray();
+	}
+
+	private ReplayRunReport run(byte[] replay) throws IOException, MapLoadException {
+		DataInputStream replayStream = new DataInputStream(new ByteArrayInputStream(replay));
+		ReplayStartInformation replayStartInformation = new ReplayStartInformation();
+		replayStartInformation.deserialize(replayStream);
+		return HeadlessReplayRunner.run(map, replayStartInformation, replayStream, TARGET_GAME_TIME);
+	}
+
+	private ShortPoint2D findBuildingOfPlayer0() throws MapLoadException {
+		RandomSingleton.load(RANDOM_SEED);
+		MatchConstants.clock = new NetworkTimer(true);
+		Movable.resetState();
+		try {
+			map.loadMainGrid(null);
+			for (Building building : Building.getAllBuildings()) {
+				if (building.getPlayerId() == 0) {
+					return building.getPos();
+				}
+			}
+			fail("player 0 has no building");
+			return null;
+		} finally {
+			RescheduleTimer.stop();
+			Movable.resetState();
+			Building.dropAllBuildings();
+		}
+	}
+}
@@ -0,0 +1,422 @@
+package go.graphics;
+
+import go.graphics.text.EFontSize;
+import go.graphics.text.TextDrawer;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * A {@link GLDrawContext} that doesn't draw anything, but records the textures, geometries and draw calls in memory. It allows to measure and
+ * test the drawing code without a GPU.
+ * <p />
+ * The draw calls and uploads are counted per frame. A frame is started with {@link #startFrame()}. Invalid calls, like drawing a geometry that
+ * doesn't exist or popping more matrices than have been pushed, throw an exception.
+ */
+public class RecordingDrawContext implements GLDrawContext {
+	private static final int TEXTURED_VERTEX_BYTES = 5 * 4;
+	private static final int COLORED_VERTEX_BYTES = 6 * 4;
+	private static final int COLORED_FLOAT_VERTEX_FLOATS = 9;
+
+	/**
+	 * The geometries by their index - 1, <code>null</code> for removed geometries.
+	 */
+	private final ArrayList<ByteBuffer> geometries = new ArrayList<ByteBuffer>();
+	/**
+	 * The width and height of the textures by their index - 1, <code>null</code> for deleted textures.
+	 */
+	private final ArrayList<int[]> textures = new ArrayList<int[]>();
+	private final TextDrawer[] textDrawers = new TextDrawer[EFontSize.values().length];
+
+	private int matrixDepth = 0;
+	private int writtenGeometry = -1;
+
+	private int drawCalls = 0;
+	private int[] drawCallTextures = new int[64];
+	private int[] drawCallTriangles = new int[64];
+	private int triangles = 0;
+	private int geometryBytesWritten = 0;
+	private int texelsUploaded = 0;
+
+	/**
+	 * Resets the counters of the current frame.
+	 */
+	public void startFrame() {
+		drawCalls = 0;
+		triangles = 0;
+		geometryBytesWritten = 0;
+		texelsUploaded = 0;
+	}
+
+	/**
+	 *
+	 * @return The number of draw calls in the current frame.
+	 */
+	public int getDrawCalls() {
+		return drawCalls;
+	}
+
+	/**
+	 *
+	 * @param drawCall
+	 *            The index of the draw call in the current frame.
+	 * @return The texture used by the draw call or -1 if it was drawn without a texture.
+	 */
+	public int getDrawCallTexture(int drawCall) {
+		return drawCallTextures[drawCall];
+	}
+
+	/**
+	 *
+	 * @param drawCall
+	 *            The index of the draw call in the current frame.
+	 * @return The number of triangles drawn by the draw call.
+	 */
+	public int getDrawCallTriangles(int drawCall) {
+		return drawCallTriangles[drawCall];
+	}
+
+	/**
+	 *
+	 * @return The number of triangles drawn in the current frame.
+	 */
+	public int getTriangles() {
+		return triangles;
+	}
+
+	/**
+	 *
+	 * @return The number of bytes written to geometries in the current frame.
+	 */
+	public int getGeometryBytesWritten() {
+		return geometryBytesWritten;
+	}
+
+	/**
+	 *
+	 * @return The number of texels uploaded to textures in the current frame.
+	 */
+	public int getTexelsUploaded() {
+		return texelsUploaded;
+	}
+
+	/**
+	 *
+	 * @return The number of geometries that currently exist.
+	 */
+	public int getGeometryCount() {
+		return countExisting(geometries);
+	}
+
+	/**
+	 *
+	 * @return The number of textures that currently exist.
+	 */
+	public int getTextureCount() {
+		return countExisting(textures);
+	}
+
+	/**
+	 *
+	 * @return The number of matrices that have been pushed but not popped.
+	 */
+	public int getMatrixDepth() {
+		return matrixDepth;
+	}
+
+	private static int countExisting(ArrayList<?> list) {
+		int count = 0;
+		for (Object element : list) {
+			if (element != null) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	private void recordDrawCall(int texture, int triangleCount) {
+		if (drawCalls >= drawCallTextures.length) {
+			drawCallTextures = Arrays.copyOf(drawCallTextures, drawCalls * 2);
+			drawCallTriangles = Arrays.copyOf(drawCallTriangles, drawCalls * 2);
+		}
+		drawCallTextures[drawCalls] = texture;
+		drawCallTriangles[drawCalls] = triangleCount;
+		drawCalls++;
+		triangles += triangleCount;
+	}
+
+	private void checkTexture(int textureid) {
+		if (getTexture(textureid) == null) {
+			throw new IllegalArgumentException("Texture " + textureid + " does not exist.");
+		}
+	}
+
+	private int[] getTexture(int textureid) {
+		if (textureid <= 0 || textureid > textures.size()) {
+			return null;
+		}
+		return textures.get(textureid - 1);
+	}
+
+	private ByteBuffer getGeometry(int geometryindex) {
+		if (!isGeometryValid(geometryindex)) {
+			throw new IllegalArgumentException("Geometry " + geometryindex + " does not exist.");
+		}
+		return geometries.get(geometryindex - 1);
+	}
+
+	private void drawGeometry(int textureid, int geometryindex, int triangleCount, int vertexBytes) {
+		checkTexture(textureid);
+		if (getGeometry(geometryindex).capacity() < triangleCount * 3 * vertexBytes) {
+			throw new IllegalArgumentException("Geometry " + geometryindex + " is too small for " + triangleCount + " triangles.");
+		}
+		recordDrawCall(textureid, triangleCount);
+	}
+
+	@Override
+	public void fillQuad(float x1, float y1, float x2, float y2) {
+		recordDrawCall(-1, 2);
+	}
+
+	@Override
+	public void drawLine(float[] points, boolean loop) {
+		if (points.length % 3 != 0) {
+			throw new IllegalArgumentException("The number of coordinates needs to be a multiple of 3.");
+		}
+		recordDrawCall(-1, 0);
+	}
+
+	@Override
+	public void glPushMatrix() {
+		matrixDepth++;
+	}
+
+	@Override
+	public void glTranslatef(float x, float y, float z) {
+	}
+
+	@Override
+	public void glScalef(float x, float y, float z) {
+	}
+
+	@Override
+	public void glPopMatrix() {
+		if (matrixDepth <= 0) {
+			throw new IllegalStateException("Popped more matrices than have been pushed.");
+		}
+		matrixDepth--;
+	}
+
+	@Override
+	public void color(float red, float green, float blue, float alpha) {
+	}
+
+	@Override
+	public int generateTexture(int width, int height, ShortBuffer data) {
+		textures.add(new int[] {
+				width, height
+		});
+		texelsUploaded += width * height;
+		return textures.size();
+	}
+
+	@Override
+	public void deleteTexture(int textureid) {
+		checkTexture(textureid);
+		textures.set(textureid - 1, null);
+	}
+
+	@Override
+	public void drawQuadWithTexture(int textureid, float[] geometry) {
+		checkTexture(textureid);
+		recordDrawCall(textureid, geometry.length / 5 / 4 * 2);
+	}
+
+	@Override
+	public void drawQuadWithTexture(int textureid, int geometryindex) {
+		drawGeometry(textureid, geometryindex, 2, TEXTURED_VERTEX_BYTES);
+	}
+
+	@Override
+	public void drawTrianglesWithTexture(int textureid, float[] geometry) {
+		checkTexture(textureid);
+		recordDrawCall(textureid, geometry.length / 5 / 3);
+	}
+
+	@Override
+	public void drawTrianglesWithTexture(int textureid, int geometryindex, int triangleCount) {
+		drawGeometry(textureid, geometryindex, triangleCount, TEXTURED_VERTEX_BYTES);
+	}
+
+	@Override
+	public void drawTrianglesWithTextureColored(int textureid, float[] geometry) {
+		checkTexture(textureid);
+		recordDrawCall(textureid, geometry.length / COLORED_FLOAT_VERTEX_FLOATS / 3);
+	}
+
+	@Override
+	public void drawTrianglesWithTextureColored(int textureid, int geometryindex, int triangleCount) {
+		drawGeometry(textureid, geometryindex, triangleCount, COLORED_VERTEX_BYTES);
+	}
+
+	@Override
+	public void drawTrianglesWithTextureMultiplied(int textureid, int geometryindex, int triangleCount) {
+		drawGeometry(textureid, geometryindex, triangleCount, TEXTURED_VERTEX_BYTES);
+	}
+
+	@Override
+	public void drawTrianglesWithTextureColored(int currentTexture, ByteBuffer byteBuffer, int currentTriangles) {
+		checkTexture(currentTexture);
+		if (byteBuffer.capacity() < currentTriangles * 3 * COLORED_VERTEX_BYTES) {
+			throw new IllegalArgumentException("The buffer is too small for " + currentTriangles + " triangles.");
+		}
+		recordDrawCall(currentTexture, currentTriangles);
+	}
+
+	@Override
+	public int makeWidthValid(int width) {
+		return width;
+	}
+
+	@Override
+	public int makeHeightValid(int height) {
+		return height;
+	}
+
+	@Override
+	public void glMultMatrixf(float[] matrix, int offset) {
+	}
+
+	@Override
+	public void updateTexture(int textureIndex, int left, int bottom, int width, int height, ShortBuffer data) {
+		int[] size = getTexture(textureIndex);
+		if (size == null) {
+			throw new IllegalArgumentException("Texture " + textureIndex + " does not exist.");
+		}
+		if (left < 0 || bottom < 0 || left + width > size[0] || bottom + height > size[1]) {
+			throw new IllegalArgumentException("The updated area is outside of texture " + textureIndex + ".");
+		}
+		if (data.remaining() < width * height) {
+			throw new IllegalArgumentException("The data is too small for the updated area.");
+		}
+		texelsUploaded += width * height;
+	}
+
+	@Override
+	public TextDrawer getTextDrawer(EFontSize size) {
+		if (textDrawers[size.ordinal()] == null) {
+			textDrawers[size.ordinal()] = new RecordingTextDrawer(size);
+		}
+		return textDrawers[size.ordinal()];
+	}
+
+	@Override
+	public int storeGeometry(float[] geometry) {
+		int geometryindex = generateGeometry(geometry.length * 4);
+		GLBuffer buffer = startWriteGeometry(geometryindex);
+		for (float f : geometry) {
+			buffer.putFloat(f);
+		}
+		endWriteGeometry(geometryindex);
+		return geometryindex;
+	}
+
+	@Override
+	public boolean isGeometryValid(int geometryindex) {
+		return geometryindex > 0 && geometryindex <= geometries.size() && geometries.get(geometryindex - 1) != null;
+	}
+
+	@Override
+	public void removeGeometry(int geometryindex) {
+		getGeometry(geometryindex);
+		geometries.set(geometryindex - 1, null);
+	}
+
+	@Override
+	public GLBuffer startWriteGeometry(int geometryindex) {
+		if (writtenGeometry >= 0) {
+			throw new IllegalStateException("Geometry " + writtenGeometry + " is still written.");
+		}
+		ByteBuffer geometry = getGeometry(geometryindex);
+		writtenGeometry = geometryindex;
+		geometry.clear();
+		return new RecordingBuffer(geometry);
+	}
+
+	@Override
+	public void endWriteGeometry(int geometryindex) {
+		if (writtenGeometry != geometryindex) {
+			throw new IllegalStateException("Geometry " + geometryindex + " is not written.");
+		}
+		writtenGeometry = -1;
+	}
+
+	@Override
+	public int generateGeometry(int bytes) {
+		geometries.add(ByteBuffer.allocate(bytes).order(ByteOrder.nativeOrder()));
+		return geometries.size();
+	}
+
+	private class RecordingBuffer implements GLBuffer {
+		private final ByteBuffer buffer;
+
+		private RecordingBuffer(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		@Override
+		public void putFloat(float f) {
+			buffer.putFloat(f);
+			geometryBytesWritten += 4;
+		}
+
+		@Override
+		public void putByte(byte b) {
+			buffer.put(b);
+			geometryBytesWritten++;
+		}
+
+		@Override
+		public void position(int position) {
+			buffer.position(position);
+		}
+	}
+
+	/**
+	 * Counts every drawn string as one draw call. All characters are assumed to be half as wide as high.
+	 */
+	private class RecordingTextDrawer implements TextDrawer {
+		private final int height;
+
+		private RecordingTextDrawer(EFontSize size) {
+			this.height = size.getSize();
+		}
+
+		@Override
+		public void renderCentered(float cx, float cy, String text) {
+			drawString(cx - (float) getWidth(text) / 2, cy - height / 2f, text);
+		}
+
+		@Override
+		public void drawString(float x, float y, String string) {
+			recordDrawCall(-1, string.length() * 2);
+		}
+
+		@Override
+		public double getWidth(String string) {
+			return string.length() * height / 2.0;
+		}
+
+		@Override
+		public double getHeight(String string) {
+			return height;
+		}
+
+		@Override
+		public void setColor(float red, float green, float blue, float alpha) {
+		}
+	}
+}
@@ -0,0 +1,103 @@
+package jsettlers.graphics.map;
+
+import go.graphics.RecordingDrawContext;
+import go.graphics.sound.ISoundDataRetriever;
+import go.graphics.sound.SoundPlayer;
+import jsettlers.algorithms.fogofwar.FogOfWar;
+import jsettlers.common.map.IGraphicsGrid;
+import jsettlers.common.position.ShortPoint2D;
+import jsettlers.graphics.map.draw.ImageProvider;
+import jsettlers.graphics.startscreen.interfaces.FakeMapGame;
+import jsettlers.logic.map.newGrid.MainGrid;
+
+/**
+ * Renders frames of a {@link MainGrid} with a {@link MapContent} into a {@link RecordingDrawContext}, so the drawing code can be measured and
+ * tested without a window and a GPU.
+ * <p />
+ * The fog of war of the grid is disabled, so the whole map is drawn. The counters of the {@link RecordingDrawContext} always refer to the last
+ * rendered frame.
+ */
+public final class HeadlessMapRenderer {
+	private final RecordingDrawContext gl = new RecordingDrawContext();
+	private final MapContent content;
+	private final int width;
+	private final int height;
+
+	private long lastFrameNanos;
+
+	/**
+	 * Creates a new renderer. This replaces the fog of war of the grid and invalidates the textures of the images, because they don't exist in
+	 * the new draw context.
+	 *
+	 * @param grid
+	 *            The grid to draw.
+	 * @param width
+	 *            The width of the simulated window.
+	 * @param height
+	 *            The height of the simulated window.
+	 */
+	public HeadlessMapRenderer(MainGrid grid, int width, int height) {
+		this.width = width;
+		this.height = height;
+
+		IGraphicsGrid graphicsGrid = grid.getGraphicsGrid();
+		FogOfWar fogOfWar = new FogOfWar(graphicsGrid.getWidth(), graphicsGrid.getHeight(), (byte) 0, false);
+		fogOfWar.toggleEnabled();
+		grid.initForPlayer((byte) 0, fogOfWar);
+
+		ImageProvider.getInstance().invalidateAll();
+		content = new MapContent(new FakeMapGame(graphicsGrid), new SilentSoundPlayer());
+	}
+
+	/**
+	 * Draws the next frame.
+	 *
+	 * @throws IllegalStateException
+	 *             If the frame has been aborted. {@link MapContent} prints the cause of it.
+	 */
+	public void renderFrame() {
+		gl.startFrame();
+		long start = System.nanoTime();
+		content.drawContent(gl, width, height);
+		lastFrameNanos = System.nanoTime() - start;
+
+		if (gl.getMatrixDepth() != 0) {
+			throw new IllegalStateException("The frame has been aborted with " + gl.getMatrixDepth() + " matrices on the stack.");
+		}
+	}
+
+	/**
+	 * Moves the view, so that the given position is in the center of the next frame.
+	 *
+	 * @param position
+	 */
+	public void scrollTo(ShortPoint2D position) {
+		content.scrollTo(position, false);
+	}
+
+	public RecordingDrawContext getDrawContext() {
+		return gl;
+	}
+
+	public MapContent getMapContent() {
+		return content;
+	}
+
+	/**
+	 *
+	 * @return The time needed to draw the last frame in nanoseconds.
+	 */
+	public long getLastFrameNanos() {
+		return lastFrameNanos;
+	}
+
+	private static final class SilentSoundPlayer implements SoundPlayer {
+		@Override
+		public void playSound(int soundStart, float lvolume, float rvolume) {
+		}
+
+		@Override
+		public void setSoundDataRetriever(ISoundDataRetriever soundDataRetriever) {
+		}
+	}
+}
@@ -1,6 +1,8 @@
 package jsettlers.logic.map.newGrid.partition.manager.materials;
 
+import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.Map;
 
 import jsettlers.common.material.EMaterialType;
 import jsettlers.common.position.ShortPoint2D;
@@ -12,6 +14,7 @@ public class JoblessSupplierMock implements IJoblessSupplier {
 	private static final long serialVersionUID = -4698558305428775896L;
 
 	private LinkedList<IManagerBearer> jobless = new LinkedList<IManagerBearer>();
+	private Map<ShortPoint2D, ShortPoint2D> deliveredOffers = new HashMap<ShortPoint2D, ShortPoint2D>();
 
 	public void addJoblessAt(final ShortPoint2D pos) {
 		jobless.add(new IManagerBearer() {
@@ -24,6 +27,7 @@ public class JoblessSupplierMock implements IJoblessSupplier {
 
 			@Override
 			public boolean deliver(EMaterialType materialType, ShortPoint2D offerPosition, IMaterialRequest request) {
+				deliveredOffers.put(pos, offerPosition);
 				request.deliveryAccepted();
 				request.deliveryFulfilled();
 				return true;
@@ -49,7 +53,18 @@ public class JoblessSupplierMock implements IJoblessSupplier {
 			}
 		}
 
+		jobless.remove(closest);
 		return closest;
 	}
 
+	/**
+	 * 
+	 * @param joblessPosition
+	 *            The position the jobless had when it was added.
+	 * @return The position of the offer the jobless has been sent to or null if it didn't get a job.
+	 */
+	public ShortPoint2D getDeliveredOffer(ShortPoint2D joblessPosition) {
+		return deliveredOffers.get(joblessPosition);
+	}
+
 }
@@ -6,6 +6,7 @@ import jsettlers.algorithms.path.IPathCalculatable;
 import jsettlers.algorithms.path.Path;
 import jsettlers.algorithms.path.astar.normal.HexAStar;
 import jsettlers.algorithms.path.astar.normal.IAStarPathMap;
+import jsettlers.algorithms.path.async.PathRequest;
 import jsettlers.common.Color;
 import jsettlers.common.CommonConstants;
 import jsettlers.common.landscape.ELandscapeType;
@@ -157,6 +158,11 @@ public class MovableTestsMap implements IGraphicsGrid, IAStarPathMap {
 			return aStar.findPath(pathRequester, targetPos);
 		}
 
+		@Override
+		public PathRequest requestPath(IPathCalculatable pathRequester, ShortPoint2D targetPos) {
+			return null;
+		}
+
 		@Override
 		public void addJobless(IManageableBearer bearer) {
 			if (!materials.isEmpty()) {